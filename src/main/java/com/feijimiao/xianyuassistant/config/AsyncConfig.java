@@ -1,5 +1,9 @@
 package com.feijimiao.xianyuassistant.config;
 
+import com.feijimiao.xianyuassistant.websocket.PipelineMetrics;
+import com.feijimiao.xianyuassistant.websocket.PipelineStage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
@@ -11,11 +15,29 @@ import java.util.concurrent.ThreadPoolExecutor;
 /**
  * 异步配置
  * 启用Spring的异步方法支持
+ *
+ * <p>除通用的 taskExecutor 外，入站流水线的持久化和业务响应阶段各有一个独立的线程池，
+ * 分别设置线程数和队列容量，并记录阶段指标（见 {@link PipelineMetrics}）。</p>
  */
 @Configuration
 @EnableAsync
 public class AsyncConfig {
     
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+    
+    @Value("${xianyu.websocket.pipeline.persist.threads:4}")
+    private int persistThreads;
+    
+    @Value("${xianyu.websocket.pipeline.persist.queue-capacity:1000}")
+    private int persistQueueCapacity;
+    
+    @Value("${xianyu.websocket.pipeline.react.threads:10}")
+    private int reactThreads;
+    
+    @Value("${xianyu.websocket.pipeline.react.queue-capacity:200}")
+    private int reactQueueCapacity;
+    
     /**
      * 自定义异步任务线程池
      */
@@ -47,4 +69,37 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
+    
+    /**
+     * 持久化阶段线程池（聊天消息入库）
+     */
+    @Bean(name = "persistExecutor")
+    public Executor persistExecutor() {
+        return stageExecutor(PipelineStage.PERSIST, persistThreads, persistQueueCapacity);
+    }
+    
+    /**
+     * 业务响应阶段线程池（自动发货等）
+     */
+    @Bean(name = "reactExecutor")
+    public Executor reactExecutor() {
+        return stageExecutor(PipelineStage.REACT, reactThreads, reactQueueCapacity);
+    }
+    
+    /**
+     * 创建流水线阶段线程池：固定线程数，队列满时由提交线程执行（背压到解析阶段）
+     */
+    private ThreadPoolTaskExecutor stageExecutor(PipelineStage stage, int threads, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(1, threads));
+        executor.setMaxPoolSize(Math.max(1, threads));
+        executor.setQueueCapacity(Math.max(1, queueCapacity));
+        executor.setThreadNamePrefix("pipeline-" + stage.getKey() + "-");
+        executor.setTaskDecorator(pipelineMetrics.decorator(stage));
+        executor.setRejectedExecutionHandler(pipelineMetrics.callerRunsPolicy(stage));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+        return executor;
+    }
 }
@@ -1,12 +1,15 @@
 package com.feijimiao.xianyuassistant.config;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
 import org.springframework.util.FileCopyUtils;
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteDataSource;
 
 import javax.sql.DataSource;
 import java.io.File;
@@ -25,14 +28,31 @@ public class DatabaseConfig {
     @Value("${spring.datasource.url:jdbc:sqlite:xianyu_assistant.db}")
     private String databaseUrl;
 
+    @Value("${xianyu.datasource.read-pool-size:8}")
+    private int poolSize;
+
+    @Value("${xianyu.datasource.journal-mode:WAL}")
+    private String journalMode;
+
+    @Value("${xianyu.datasource.synchronous:NORMAL}")
+    private String synchronous;
+
+    @Value("${xianyu.datasource.cache-size:-16000}")
+    private int cacheSize;
+
+    @Value("${xianyu.datasource.mmap-size:268435456}")
+    private long mmapSize;
+
+    @Value("${xianyu.datasource.temp-store:MEMORY}")
+    private String tempStore;
+
+    @Value("${xianyu.datasource.busy-timeout:5000}")
+    private int busyTimeout;
+
     @Bean
     public DataSource dataSource() {
         log.info("初始化SQLite数据库...");
         
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName("org.sqlite.JDBC");
-        dataSource.setUrl(databaseUrl);
-        
         // 打印数据库文件路径
         String dbPath = databaseUrl.replace("jdbc:sqlite:", "");
         File dbFile = new File(dbPath);
@@ -43,35 +63,83 @@ public class DatabaseConfig {
             log.info("数据库文件路径(相对路径): {}", dbPath);
         }
         
+        // 确保数据库目录存在（连接池创建时会立即打开连接）
+        File dbDir = dbFile.getParentFile();
+        if (dbDir != null && !dbDir.exists()) {
+            boolean created = dbDir.mkdirs();
+            if (created) {
+                log.info("创建数据库目录: {}", dbDir.getAbsolutePath());
+            } else {
+                log.warn("数据库目录创建失败: {}", dbDir.getAbsolutePath());
+            }
+        }
+        boolean isNewDatabase = !dbFile.exists();
+        
+        // 单个写连接：所有写操作由它串行执行，建表和迁移也使用它
+        SQLiteConfig sqliteConfig = sqliteConfig();
+        HikariDataSource writeDataSource = createPooledDataSource("sqlite-write", databaseUrl, 1, sqliteConfig, false);
+        
         // 初始化数据库表结构
-        initDatabase(dataSource);
+        initDatabase(writeDataSource, dbFile, isNewDatabase);
+        
+        // 只读连接池：WAL模式下查询不等待写事务
+        HikariDataSource readDataSource = createPooledDataSource("sqlite-read", databaseUrl, poolSize, sqliteConfig, true);
         
         log.info("SQLite数据库初始化完成");
-        return dataSource;
+        return new SqliteRoutingDataSource(writeDataSource, readDataSource);
+    }
+
+    /**
+     * SQLite连接参数，每个新连接打开时执行一次对应的PRAGMA
+     */
+    private SQLiteConfig sqliteConfig() {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setJournalMode(SQLiteConfig.JournalMode.valueOf(journalMode.toUpperCase()));
+        config.setSynchronous(SQLiteConfig.SynchronousMode.valueOf(synchronous.toUpperCase()));
+        config.setCacheSize(cacheSize);
+        config.setPragma(SQLiteConfig.Pragma.MMAP_SIZE, String.valueOf(mmapSize));
+        config.setTempStore(SQLiteConfig.TempStore.valueOf(tempStore.toUpperCase()));
+        config.setBusyTimeout(busyTimeout);
+        log.info("SQLite连接参数: journal_mode={}, synchronous={}, cache_size={}, mmap_size={}, temp_store={}, busy_timeout={}ms, 只读连接池大小={}",
+                journalMode, synchronous, cacheSize, mmapSize, tempStore, busyTimeout, poolSize);
+        return config;
+    }
+
+    /**
+     * 创建SQLite连接池
+     * 连接复用文件句柄和页缓存，PRAGMA只在连接创建时执行一次
+     *
+     * @param poolName 连接池名称
+     * @param url JDBC地址
+     * @param poolSize 最大连接数
+     * @param sqliteConfig 连接参数
+     * @param queryOnly 是否只允许查询（PRAGMA query_only）
+     * @return 连接池
+     */
+    public static HikariDataSource createPooledDataSource(String poolName, String url, int poolSize,
+                                                          SQLiteConfig sqliteConfig, boolean queryOnly) {
+        SQLiteDataSource sqliteDataSource = new SQLiteDataSource(sqliteConfig);
+        sqliteDataSource.setUrl(url);
+
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setPoolName(poolName);
+        hikariConfig.setDataSource(sqliteDataSource);
+        hikariConfig.setMaximumPoolSize(poolSize);
+        hikariConfig.setMinimumIdle(1);
+        if (queryOnly) {
+            hikariConfig.setConnectionInitSql("PRAGMA query_only = 1");
+        }
+        // SQLite连接没有服务端超时，不需要定期重建
+        hikariConfig.setMaxLifetime(0);
+        hikariConfig.setIdleTimeout(0);
+        return new HikariDataSource(hikariConfig);
     }
 
     /**
      * 初始化数据库表结构
      */
-    private void initDatabase(DataSource dataSource) {
+    private void initDatabase(DataSource dataSource, File dbFile, boolean isNewDatabase) {
         try {
-            // 检查数据库文件是否存在
-            String dbPath = databaseUrl.replace("jdbc:sqlite:", "");
-            File dbFile = new File(dbPath);
-            
-            // 确保数据库目录存在
-            File dbDir = dbFile.getParentFile();
-            if (dbDir != null && !dbDir.exists()) {
-                boolean created = dbDir.mkdirs();
-                if (created) {
-                    log.info("创建数据库目录: {}", dbDir.getAbsolutePath());
-                } else {
-                    log.warn("数据库目录创建失败: {}", dbDir.getAbsolutePath());
-                }
-            }
-            
-            boolean isNewDatabase = !dbFile.exists();
-            
             if (isNewDatabase) {
                 log.info("数据库文件不存在，将创建新数据库: {}", dbFile.getAbsolutePath());
             } else {
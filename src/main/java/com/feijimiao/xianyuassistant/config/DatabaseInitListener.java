@@ -154,6 +154,8 @@ public class DatabaseInitListener implements ApplicationListener<ApplicationRead
             "complete_msg TEXT NOT NULL, " +
             "message_time BIGINT, " +
             "create_time DATETIME DEFAULT CURRENT_TIMESTAMP, " +
+            "complete_msg_format TINYINT, " +
+            "complete_msg_blob BLOB, " +
             "FOREIGN KEY (xianyu_account_id) REFERENCES xianyu_account(id)" +
             ")");
         
@@ -255,6 +257,16 @@ public class DatabaseInitListener implements ApplicationListener<ApplicationRead
             "FOREIGN KEY (xianyu_account_id) REFERENCES xianyu_account(id)" +
             ")");
         
+        // 消息同步检查点表
+        requiredTables.put("xianyu_sync_checkpoint",
+            "CREATE TABLE xianyu_sync_checkpoint (" +
+            "xianyu_account_id INTEGER PRIMARY KEY, " +
+            "pts BIGINT NOT NULL DEFAULT 0, " +
+            "seq BIGINT NOT NULL DEFAULT 0, " +
+            "update_time INTEGER NOT NULL, " +
+            "FOREIGN KEY (xianyu_account_id) REFERENCES xianyu_account(id)" +
+            ")");
+        
         // 检查并创建缺失的表
         int createdCount = 0;
         for (Map.Entry<String, String> entry : requiredTables.entrySet()) {
@@ -300,6 +312,8 @@ public class DatabaseInitListener implements ApplicationListener<ApplicationRead
         // xianyu_chat_message 表需要的字段
         List<ColumnDef> chatMessageColumns = new ArrayList<>();
         chatMessageColumns.add(new ColumnDef("xy_goods_id", "VARCHAR(100)", "ALTER TABLE xianyu_chat_message ADD COLUMN xy_goods_id VARCHAR(100)"));
+        chatMessageColumns.add(new ColumnDef("complete_msg_format", "TINYINT", "ALTER TABLE xianyu_chat_message ADD COLUMN complete_msg_format TINYINT"));
+        chatMessageColumns.add(new ColumnDef("complete_msg_blob", "BLOB", "ALTER TABLE xianyu_chat_message ADD COLUMN complete_msg_blob BLOB"));
         tableColumns.put("xianyu_chat_message", chatMessageColumns);
         
         // xianyu_goods_auto_delivery_record 表需要的字段
@@ -526,12 +540,6 @@ public class DatabaseInitListener implements ApplicationListener<ApplicationRead
             "BEGIN " +
             "UPDATE xianyu_goods SET updated_time = CURRENT_TIMESTAMP WHERE id = NEW.id; " +
             "END");
-        requiredTriggers.put("update_xianyu_chat_message_time",
-            "CREATE TRIGGER IF NOT EXISTS update_xianyu_chat_message_time " +
-            "AFTER UPDATE ON xianyu_chat_message " +
-            "BEGIN " +
-            "UPDATE xianyu_chat_message SET updated_time = CURRENT_TIMESTAMP WHERE id = NEW.id; " +
-            "END");
         requiredTriggers.put("update_xianyu_goods_config_time",
             "CREATE TRIGGER IF NOT EXISTS update_xianyu_goods_config_time " +
             "AFTER UPDATE ON xianyu_goods_config " +
@@ -551,6 +559,12 @@ public class DatabaseInitListener implements ApplicationListener<ApplicationRead
             "UPDATE xianyu_goods_auto_reply_config SET update_time = CURRENT_TIMESTAMP WHERE id = NEW.id; " +
             "END");
         
+        // 聊天消息表没有 updated_time 字段，旧版本创建的这个触发器会让该表所有UPDATE失败
+        if (existingTriggers.contains("update_xianyu_chat_message_time")) {
+            log.info("  ➖ 删除触发器: update_xianyu_chat_message_time");
+            stmt.execute("DROP TRIGGER IF EXISTS update_xianyu_chat_message_time");
+        }
+        
         int createdCount = 0;
         for (Map.Entry<String, String> entry : requiredTriggers.entrySet()) {
             String triggerName = entry.getKey();
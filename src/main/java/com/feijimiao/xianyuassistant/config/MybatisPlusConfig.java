@@ -6,6 +6,8 @@ import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerIntercept
 import org.apache.ibatis.type.LocalDateTimeTypeHandler;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.annotation.Order;
 
 /**
  * MyBatis Plus配置类
@@ -17,12 +19,23 @@ public class MybatisPlusConfig {
      * 分页插件
      */
     @Bean
+    @Order(1)
     public MybatisPlusInterceptor mybatisPlusInterceptor() {
         MybatisPlusInterceptor interceptor = new MybatisPlusInterceptor();
         interceptor.addInnerInterceptor(new PaginationInnerInterceptor(DbType.SQLITE));
         return interceptor;
     }
     
+    /**
+     * SQLite读写路由插件
+     * 排在分页插件之后注册，位于插件链最外层，分页的count查询也使用只读连接
+     */
+    @Bean
+    @Order(2)
+    public SqliteWriteInterceptor sqliteWriteInterceptor(@Lazy SqliteWriteQueue writeQueue) {
+        return new SqliteWriteInterceptor(writeQueue);
+    }
+    
     /**
      * 注册自定义的LocalDateTime类型处理器
      */
@@ -30,4 +43,12 @@ public class MybatisPlusConfig {
     public CustomLocalDateTimeTypeHandler customLocalDateTimeTypeHandler() {
         return new CustomLocalDateTimeTypeHandler();
     }
+    
+    /**
+     * 注册BLOB列的字节数组类型处理器
+     */
+    @Bean
+    public SqliteBlobTypeHandler sqliteBlobTypeHandler() {
+        return new SqliteBlobTypeHandler();
+    }
 }
@@ -0,0 +1,15 @@
+package com.feijimiao.xianyuassistant.config;
+
+import org.apache.ibatis.type.ByteArrayTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.MappedJdbcTypes;
+import org.apache.ibatis.type.MappedTypes;
+
+/**
+ * BLOB列的字节数组类型处理器
+ * SQLite JDBC驱动不支持 ResultSet.getBlob，BLOB列统一按 getBytes/setBytes 读写
+ */
+@MappedTypes(byte[].class)
+@MappedJdbcTypes(JdbcType.BLOB)
+public class SqliteBlobTypeHandler extends ByteArrayTypeHandler {
+}
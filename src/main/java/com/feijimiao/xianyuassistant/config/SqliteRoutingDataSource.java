@@ -0,0 +1,68 @@
+package com.feijimiao.xianyuassistant.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.io.Closeable;
+import java.util.Map;
+
+/**
+ * SQLite读写分离数据源
+ *
+ * <p>写连接池只有一个连接，由 {@link SqliteWriteQueue} 的写线程、事务和启动时的建表/迁移使用；
+ * 只读连接池（PRAGMA query_only）供非事务查询使用。WAL模式下读连接不会等待写连接。</p>
+ *
+ * <p>默认路由到写连接池，只有 {@link SqliteWriteInterceptor} 标记的非事务查询才路由到只读连接池。</p>
+ */
+public class SqliteRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    private static final String WRITE = "write";
+    private static final String READ = "read";
+
+    private static final ThreadLocal<Boolean> READ_ROUTE = new ThreadLocal<>();
+
+    private final HikariDataSource writeDataSource;
+    private final HikariDataSource readDataSource;
+
+    public SqliteRoutingDataSource(HikariDataSource writeDataSource, HikariDataSource readDataSource) {
+        this.writeDataSource = writeDataSource;
+        this.readDataSource = readDataSource;
+        setTargetDataSources(Map.of(WRITE, writeDataSource, READ, readDataSource));
+        setDefaultTargetDataSource(writeDataSource);
+        afterPropertiesSet();
+    }
+
+    /**
+     * 设置当前线程之后获取的连接是否来自只读连接池
+     *
+     * @return 之前的设置，用于恢复
+     */
+    static boolean routeToReadPool(boolean read) {
+        boolean previous = READ_ROUTE.get() != null;
+        if (read) {
+            READ_ROUTE.set(Boolean.TRUE);
+        } else {
+            READ_ROUTE.remove();
+        }
+        return previous;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return READ_ROUTE.get() != null ? READ : WRITE;
+    }
+
+    public HikariDataSource getWriteDataSource() {
+        return writeDataSource;
+    }
+
+    public HikariDataSource getReadDataSource() {
+        return readDataSource;
+    }
+
+    @Override
+    public void close() {
+        readDataSource.close();
+        writeDataSource.close();
+    }
+}
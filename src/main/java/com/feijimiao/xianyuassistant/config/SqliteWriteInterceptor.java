@@ -0,0 +1,74 @@
+package com.feijimiao.xianyuassistant.config;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.SQLException;
+
+/**
+ * SQLite读写路由插件
+ *
+ * <ul>
+ *   <li>非事务的写操作（insert/update/delete）交给 {@link SqliteWriteQueue} 的写线程执行，调用方等待提交完成</li>
+ *   <li>非事务的查询使用只读连接池</li>
+ *   <li>事务内的读写和写线程自身的操作直接执行（使用事务绑定的写连接）</li>
+ * </ul>
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class})
+})
+public class SqliteWriteInterceptor implements Interceptor {
+
+    private final SqliteWriteQueue writeQueue;
+
+    public SqliteWriteInterceptor(SqliteWriteQueue writeQueue) {
+        this.writeQueue = writeQueue;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive() || writeQueue.isWriterThread()) {
+            return invocation.proceed();
+        }
+
+        MappedStatement ms = (MappedStatement) invocation.getArgs()[0];
+        if ("update".equals(invocation.getMethod().getName())) {
+            try {
+                return writeQueue.update(ms.getId(), invocation.getArgs()[1]);
+            } catch (RuntimeException e) {
+                // 抛出原始的SQLException，调用方的异常转换与直接执行时一致
+                SQLException sqlException = findSqlException(e);
+                throw sqlException != null ? sqlException : e;
+            }
+        }
+
+        boolean previous = SqliteRoutingDataSource.routeToReadPool(true);
+        try {
+            return invocation.proceed();
+        } finally {
+            SqliteRoutingDataSource.routeToReadPool(previous);
+        }
+    }
+
+    private static SQLException findSqlException(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException) {
+                return sqlException;
+            }
+        }
+        return null;
+    }
+}
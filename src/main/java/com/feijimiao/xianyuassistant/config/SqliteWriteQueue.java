@@ -0,0 +1,221 @@
+package com.feijimiao.xianyuassistant.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SQLite单写线程队列
+ *
+ * <p>SQLite同一时间只允许一个写事务。所有非事务的MyBatis写操作（见 {@link SqliteWriteInterceptor}）
+ * 都提交到这个队列，由唯一的写线程执行：</p>
+ * <ul>
+ *   <li>组提交：每次取出队列中已有的写操作（最多 batch-size 条），在同一个事务中执行后一次提交</li>
+ *   <li>每条写操作有自己的保存点，失败时只回滚这一条，异常返回给对应的调用方</li>
+ *   <li>调用方阻塞等待所在批次提交完成，之后的读操作能读到写入结果</li>
+ *   <li>队列满时调用方阻塞，不会出现多个写连接之间的 SQLITE_BUSY 重试</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class SqliteWriteQueue {
+
+    @Value("${xianyu.datasource.write.batch-size:200}")
+    private int batchSize;
+
+    @Value("${xianyu.datasource.write.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Autowired
+    private SqlSessionTemplate sqlSessionTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private BlockingQueue<WriteTask> queue;
+    private TransactionTemplate transactionTemplate;
+    private Thread writerThread;
+    private volatile boolean running;
+
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final AtomicInteger maxBatchSize = new AtomicInteger();
+
+    @PostConstruct
+    public void init() {
+        queue = new LinkedBlockingQueue<>(queueCapacity);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        running = true;
+        writerThread = Thread.ofPlatform().name("sqlite-writer").daemon().start(this::run);
+        log.info("SQLite写入队列已启动: batchSize={}, queueCapacity={}", batchSize, queueCapacity);
+    }
+
+    /**
+     * 当前线程是否为写线程
+     */
+    public boolean isWriterThread() {
+        return Thread.currentThread() == writerThread;
+    }
+
+    /**
+     * 由写线程执行一条写语句，等待所在批次提交后返回
+     *
+     * @param statementId MyBatis语句ID
+     * @param parameter 语句参数（自增主键会回填到该对象）
+     * @return 影响行数
+     */
+    public int update(String statementId, Object parameter) {
+        if (!running) {
+            throw new IllegalStateException("SQLite写入队列已关闭");
+        }
+        WriteTask task = new WriteTask(statementId, parameter);
+        try {
+            queue.put(task);
+            return task.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待SQLite写入被中断: " + statementId, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("SQLite写入失败: " + statementId, e.getCause());
+        }
+    }
+
+    private void run() {
+        List<WriteTask> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                WriteTask first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Throwable e) {
+                log.error("SQLite写线程异常", e);
+                for (WriteTask task : batch) {
+                    task.result.completeExceptionally(e);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 在一个事务中执行一批写操作
+     */
+    private void writeBatch(List<WriteTask> batch) {
+        int size = batch.size();
+        int[] results = new int[size];
+        RuntimeException[] errors = new RuntimeException[size];
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = 0; i < size; i++) {
+                    WriteTask task = batch.get(i);
+                    Object savepoint = status.createSavepoint();
+                    try {
+                        results[i] = sqlSessionTemplate.update(task.statementId, task.parameter);
+                        status.releaseSavepoint(savepoint);
+                    } catch (RuntimeException e) {
+                        status.rollbackToSavepoint(savepoint);
+                        errors[i] = e;
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            // 提交失败，本批次全部失败
+            log.error("SQLite批量写入提交失败: {}条, {}", size, e.getMessage());
+            failed.add(size);
+            for (WriteTask task : batch) {
+                task.result.completeExceptionally(e);
+            }
+            return;
+        }
+
+        batches.increment();
+        maxBatchSize.accumulateAndGet(size, Math::max);
+        for (int i = 0; i < size; i++) {
+            if (errors[i] != null) {
+                failed.increment();
+                batch.get(i).result.completeExceptionally(errors[i]);
+            } else {
+                writes.increment();
+                batch.get(i).result.complete(results[i]);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 写线程退出后才提交的写操作直接失败，避免调用方永久等待
+        WriteTask task;
+        while ((task = queue.poll()) != null) {
+            task.result.completeExceptionally(new IllegalStateException("SQLite写入队列已关闭"));
+        }
+        log.info("SQLite写入队列已关闭: 写入{}条, 失败{}条, 批次{}", writes.sum(), failed.sum(), batches.sum());
+    }
+
+    public int getQueued() {
+        return queue.size();
+    }
+
+    public long getWrites() {
+        return writes.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize.get();
+    }
+
+    /**
+     * 等待写线程执行的写操作
+     */
+    private static final class WriteTask {
+        private final String statementId;
+        private final Object parameter;
+        private final CompletableFuture<Integer> result = new CompletableFuture<>();
+
+        private WriteTask(String statementId, Object parameter) {
+            this.statementId = statementId;
+            this.parameter = parameter;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.feijimiao.xianyuassistant.config;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.feijimiao.xianyuassistant.entity.XianyuAccount;
+import com.feijimiao.xianyuassistant.entity.XianyuCookie;
+import com.feijimiao.xianyuassistant.mapper.XianyuAccountMapper;
+import com.feijimiao.xianyuassistant.mapper.XianyuCookieMapper;
+import com.feijimiao.xianyuassistant.service.WebSocketService;
+import com.feijimiao.xianyuassistant.websocket.ConnectionState;
+import com.feijimiao.xianyuassistant.websocket.ConnectionSupervisor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * WebSocket自动启动监听器
+ *
+ * <p>应用启动完成后（数据库迁移之后）在后台线程启动所有正常账号的WebSocket连接：</p>
+ * <ul>
+ *   <li>只启动账号状态正常、Cookie有效的账号</li>
+ *   <li>数据库中有未过期websocket_token的账号优先启动（无需请求Token，连接最快）</li>
+ *   <li>由固定数量的平台线程并行启动，并发数可配置，避免同时发起过多连接和Token请求。
+ *       启动全程是阻塞调用（数据库、Token请求、握手），不使用虚拟线程，避免钉住载体线程</li>
+ *   <li>启动结束后输出全部连接完成、全部注册完成的耗时</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class WebSocketAutoStartListener implements ApplicationListener<ApplicationReadyEvent> {
+
+    /**
+     * 等待所有连接注册完成的最长时间（毫秒）
+     */
+    private static final long REGISTER_WAIT_MILLIS = 30_000;
+
+    @Value("${xianyu.websocket.auto-start.enabled:true}")
+    private boolean enabled;
+
+    @Value("${xianyu.websocket.auto-start.concurrency:16}")
+    private int concurrency;
+
+    @Autowired
+    private XianyuAccountMapper accountMapper;
+
+    @Autowired
+    private XianyuCookieMapper cookieMapper;
+
+    @Autowired
+    private WebSocketService webSocketService;
+
+    @Autowired
+    private ConnectionSupervisor connectionSupervisor;
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (!enabled) {
+            log.info("WebSocket自动启动已关闭");
+            return;
+        }
+        // 在后台线程启动，不阻塞应用就绪
+        Thread.ofPlatform().name("ws-auto-start").daemon(true).start(this::startAll);
+    }
+
+    /**
+     * 并行启动所有可用账号
+     */
+    private void startAll() {
+        long startedAt = System.currentTimeMillis();
+        List<Candidate> candidates;
+        try {
+            candidates = loadCandidates();
+        } catch (Exception e) {
+            log.error("WebSocket自动启动：查询账号失败", e);
+            return;
+        }
+        if (candidates.isEmpty()) {
+            log.info("WebSocket自动启动：没有可启动的账号");
+            return;
+        }
+
+        int workers = Math.max(1, Math.min(concurrency, candidates.size()));
+        long cachedTokens = candidates.stream().filter(c -> c.tokenValid).count();
+        log.info("WebSocket自动启动：{}个账号（{}个有缓存Token），并发数={}", candidates.size(), cachedTokens, workers);
+
+        AtomicInteger succeeded = new AtomicInteger();
+        ConcurrentLinkedQueue<Long> connected = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<Long> failed = new ConcurrentLinkedQueue<>();
+
+        // 固定数量的平台线程按优先级顺序领取账号
+        ExecutorService executor = Executors.newFixedThreadPool(workers,
+                Thread.ofPlatform().name("ws-auto-start-", 0).daemon(true).factory());
+        try {
+            List<Future<?>> futures = new ArrayList<>(candidates.size());
+            for (Candidate candidate : candidates) {
+                futures.add(executor.submit(() -> {
+                    Long accountId = candidate.accountId;
+                    try {
+                        if (webSocketService.startWebSocket(accountId)) {
+                            succeeded.incrementAndGet();
+                            connected.add(accountId);
+                            return;
+                        }
+                    } catch (Exception e) {
+                        log.warn("【账号{}】自动启动失败: {}", accountId, e.getMessage());
+                    }
+                    failed.add(accountId);
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            log.error("WebSocket自动启动异常", e);
+        } finally {
+            executor.shutdown();
+        }
+
+        long connectedMillis = System.currentTimeMillis() - startedAt;
+        log.info("WebSocket自动启动：连接完成 成功{}个，失败{}个，耗时{}ms{}",
+                succeeded.get(), failed.size(), connectedMillis, failed.isEmpty() ? "" : "，失败账号: " + failed);
+
+        // 等待注册响应，统计全部上线的耗时
+        long deadline = System.currentTimeMillis() + REGISTER_WAIT_MILLIS;
+        int registered = countRegistered(connected);
+        while (registered < connected.size() && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            registered = countRegistered(connected);
+        }
+        log.info("WebSocket自动启动：注册完成 {}/{}个，全部上线耗时{}ms",
+                registered, connected.size(), System.currentTimeMillis() - startedAt);
+    }
+
+    private int countRegistered(Iterable<Long> accountIds) {
+        int count = 0;
+        for (Long accountId : accountIds) {
+            if (connectionSupervisor.getState(accountId) == ConnectionState.REGISTERED) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 查询可启动的账号：账号状态正常、Cookie有效，有未过期Token的排在前面
+     */
+    private List<Candidate> loadCandidates() {
+        List<XianyuAccount> accounts = accountMapper.selectList(
+                new LambdaQueryWrapper<XianyuAccount>().eq(XianyuAccount::getStatus, 1));
+
+        // 一次查询所有Cookie，避免逐个账号查询
+        Map<Long, XianyuCookie> cookies = new HashMap<>();
+        for (XianyuCookie cookie : cookieMapper.selectList(null)) {
+            cookies.merge(cookie.getXianyuAccountId(), cookie,
+                    (a, b) -> a.getId() != null && b.getId() != null && a.getId() > b.getId() ? a : b);
+        }
+
+        long now = System.currentTimeMillis();
+        List<Candidate> candidates = new ArrayList<>(accounts.size());
+        for (XianyuAccount account : accounts) {
+            XianyuCookie cookie = cookies.get(account.getId());
+            if (cookie == null || cookie.getCookieText() == null || cookie.getCookieText().isEmpty()) {
+                continue;
+            }
+            if (cookie.getCookieStatus() != null && cookie.getCookieStatus() != 1) {
+                continue;
+            }
+            boolean tokenValid = cookie.getWebsocketToken() != null && !cookie.getWebsocketToken().isEmpty()
+                    && cookie.getTokenExpireTime() != null && cookie.getTokenExpireTime() > now;
+            candidates.add(new Candidate(account.getId(), tokenValid));
+        }
+        candidates.sort(Comparator.comparing((Candidate c) -> !c.tokenValid));
+        return candidates;
+    }
+
+    /**
+     * 待启动的账号
+     */
+    private static final class Candidate {
+        private final Long accountId;
+        private final boolean tokenValid;
+
+        Candidate(Long accountId, boolean tokenValid) {
+            this.accountId = accountId;
+            this.tokenValid = tokenValid;
+        }
+    }
+}
@@ -10,6 +10,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * WebSocket控制器
  */
@@ -27,6 +29,30 @@ public class WebSocketController {
     
     @Autowired
     private com.feijimiao.xianyuassistant.service.TokenRefreshService tokenRefreshService;
+    
+    @Autowired
+    private com.feijimiao.xianyuassistant.websocket.WebSocketMessageExecutor messageExecutor;
+    
+    @Autowired
+    private com.feijimiao.xianyuassistant.websocket.HeartbeatService heartbeatService;
+    
+    @Autowired
+    private com.feijimiao.xianyuassistant.websocket.ConnectionSupervisor connectionSupervisor;
+    
+    @Autowired
+    private com.feijimiao.xianyuassistant.websocket.transport.LwpTransportFactory transportFactory;
+    
+    @Autowired
+    private com.feijimiao.xianyuassistant.websocket.PipelineMetrics pipelineMetrics;
+    
+    @Autowired
+    private com.feijimiao.xianyuassistant.config.SqliteWriteQueue sqliteWriteQueue;
+    
+    @Autowired
+    private com.feijimiao.xianyuassistant.event.chatMessageEvent.ChatMessageWriter chatMessageWriter;
+    
+    @Autowired
+    private com.feijimiao.xianyuassistant.event.chatMessageEvent.ChatMessageDedupFilter chatMessageDedupFilter;
 
     /**
      * 启动WebSocket连接
@@ -177,47 +203,48 @@ public class WebSocketController {
      * 发送消息
      */
     @PostMapping("/sendMessage")
-    public ResultObject<String> sendMessage(@RequestBody SendMessageReqDTO reqDTO) {
+    public CompletableFuture<ResultObject<String>> sendMessage(@RequestBody SendMessageReqDTO reqDTO) {
         try {
             log.info("发送消息请求: xianyuAccountId={}, cid={}, toId={}, text={}", 
                     reqDTO.getXianyuAccountId(), reqDTO.getCid(), reqDTO.getToId(), reqDTO.getText());
             
             // 参数校验
             if (reqDTO.getXianyuAccountId() == null) {
-                return ResultObject.failed("账号ID不能为空");
+                return CompletableFuture.completedFuture(ResultObject.failed("账号ID不能为空"));
             }
             if (reqDTO.getCid() == null || reqDTO.getCid().isEmpty()) {
-                return ResultObject.failed("会话ID(cid)不能为空");
+                return CompletableFuture.completedFuture(ResultObject.failed("会话ID(cid)不能为空"));
             }
             if (reqDTO.getToId() == null || reqDTO.getToId().isEmpty()) {
-                return ResultObject.failed("接收方ID(toId)不能为空");
+                return CompletableFuture.completedFuture(ResultObject.failed("接收方ID(toId)不能为空"));
             }
             if (reqDTO.getText() == null || reqDTO.getText().isEmpty()) {
-                return ResultObject.failed("消息内容不能为空");
+                return CompletableFuture.completedFuture(ResultObject.failed("消息内容不能为空"));
             }
             
             // 检查WebSocket连接状态
             if (!webSocketService.isConnected(reqDTO.getXianyuAccountId())) {
-                return ResultObject.failed("WebSocket未连接，请先启动连接");
+                return CompletableFuture.completedFuture(ResultObject.failed("WebSocket未连接，请先启动连接"));
             }
             
-            // 发送消息
-            boolean success = webSocketService.sendMessage(
+            // 发送消息，服务器确认后再返回（不占用请求线程等待）
+            return webSocketService.sendMessageAsync(
                     reqDTO.getXianyuAccountId(),
                     reqDTO.getCid(),
                     reqDTO.getToId(),
                     reqDTO.getText()
-            );
-            
-            if (success) {
-                return ResultObject.success("消息发送成功");
-            } else {
-                return ResultObject.failed("消息发送失败");
-            }
+            ).thenApply(result -> {
+                if (result.isSuccess()) {
+                    return ResultObject.success("消息发送成功");
+                }
+                log.warn("发送消息未成功: {}", result);
+                return ResultObject.<String>failed("消息发送失败: " + result.getStatus()
+                        + (result.getErrorMessage() != null ? "（" + result.getErrorMessage() + "）" : ""));
+            });
             
         } catch (Exception e) {
             log.error("发送消息失败", e);
-            return ResultObject.failed("发送消息失败: " + e.getMessage());
+            return CompletableFuture.completedFuture(ResultObject.failed("发送消息失败: " + e.getMessage()));
         }
     }
 
@@ -240,6 +267,60 @@ public class WebSocketController {
             respDTO.setConnected(connected);
             respDTO.setStatus(connected ? "已连接" : "未连接");
             
+            // 连接监管状态
+            Long accountId = reqDTO.getXianyuAccountId();
+            respDTO.setConnectionState(connectionSupervisor.getState(accountId).name());
+            respDTO.setReconnectAttempts(connectionSupervisor.getReconnectAttempts(accountId));
+            respDTO.setNextReconnectTime(connectionSupervisor.getNextAttemptAt(accountId));
+            respDTO.setLastError(connectionSupervisor.getLastError(accountId));
+            
+            // 帧处理统计
+            com.feijimiao.xianyuassistant.websocket.XianyuWebSocketClient client =
+                    webSocketService.getClient(reqDTO.getXianyuAccountId());
+            if (client != null) {
+                respDTO.setMessageCount(client.getMessageCount());
+                respDTO.setFastPathFrames(client.getFastPathFrames());
+                respDTO.setSlowPathFrames(client.getSlowPathFrames());
+                
+                // 出站队列统计
+                com.feijimiao.xianyuassistant.websocket.OutboundWriter writer = client.getOutboundWriter();
+                respDTO.setOutboundQueueDepth(writer.getQueueDepth());
+                respDTO.setOutboundSent(writer.getSentMessages());
+                respDTO.setOutboundDropped(writer.getDroppedMessages());
+                respDTO.setOutboundFlushes(writer.getFlushes());
+                respDTO.setOutboundAvgLatencyMicros(writer.getAvgQueueLatencyMicros());
+                respDTO.setOutboundMaxLatencyMicros(writer.getMaxQueueLatencyMicros());
+                
+                // 流量统计（压缩前后字节数）
+                com.feijimiao.xianyuassistant.websocket.transport.TransportStats traffic = client.getTransportStats();
+                respDTO.setCompression(traffic.getExtension());
+                respDTO.setWireBytesIn(traffic.getWireBytesIn());
+                respDTO.setPayloadBytesIn(traffic.getPayloadBytesIn());
+                respDTO.setWireBytesOut(traffic.getWireBytesOut());
+                respDTO.setPayloadBytesOut(traffic.getPayloadBytesOut());
+                
+                com.feijimiao.xianyuassistant.websocket.PendingSendTracker sends = client.getPendingSends();
+                respDTO.setSendInFlight(sends.getInFlight());
+                respDTO.setSendSucceeded(sends.getSucceeded());
+                respDTO.setSendFailed(sends.getFailed());
+                respDTO.setSendTimedOut(sends.getTimedOut());
+                respDTO.setSendRejected(sends.getRejected());
+            }
+            
+            // 入站队列统计
+            com.feijimiao.xianyuassistant.websocket.IngestGate ingestGate =
+                    messageExecutor.getIngestGate(String.valueOf(accountId));
+            if (ingestGate != null) {
+                respDTO.setIngestDepth(ingestGate.getDepth());
+                respDTO.setIngestPeakDepth(ingestGate.getPeakDepth());
+                respDTO.setIngestCapacity(ingestGate.getCapacity());
+                respDTO.setIngestOverloaded(ingestGate.isOverloaded());
+                respDTO.setIngestShed(ingestGate.getShed());
+                respDTO.setIngestBlocked(ingestGate.getBlocked());
+                respDTO.setIngestBlockedMillis(ingestGate.getBlockedMillis());
+                respDTO.setIngestOverloadEvents(ingestGate.getOverloadEvents());
+            }
+            
             // 获取Cookie状态和Cookie值
             com.feijimiao.xianyuassistant.service.AccountService accountService = 
                     applicationContext.getBean(com.feijimiao.xianyuassistant.service.AccountService.class);
@@ -275,6 +356,112 @@ public class WebSocketController {
         }
     }
     
+    /**
+     * 查询消息执行器状态（每个条带的队列深度，用于定位热点账号）
+     */
+    @PostMapping("/executorStats")
+    public ResultObject<ExecutorStatsRespDTO> getExecutorStats() {
+        try {
+            ExecutorStatsRespDTO respDTO = new ExecutorStatsRespDTO();
+            respDTO.setMode(messageExecutor.getMode().name());
+            respDTO.setTransport(transportFactory.getType());
+            respDTO.setActiveTasks(messageExecutor.getActiveTasks());
+            respDTO.setAvailableGlobalPermits(messageExecutor.getAvailableGlobalPermits());
+            respDTO.setTotalQueueDepth(messageExecutor.getTotalQueueDepth());
+            respDTO.setHeartbeatRegistered(heartbeatService.getRegistered());
+            respDTO.setHeartbeatsSent(heartbeatService.getHeartbeatsSent());
+            respDTO.setHeartbeatDeadDetected(heartbeatService.getDeadDetected());
+            respDTO.setHeartbeatMaxLagMillis(heartbeatService.getMaxTickLagMillis());
+            respDTO.setUndecodableBodies(com.feijimiao.xianyuassistant.utils.MessageDecryptUtils.getUndecodableCount());
+            respDTO.setSqliteWriteQueued(sqliteWriteQueue.getQueued());
+            respDTO.setSqliteWrites(sqliteWriteQueue.getWrites());
+            respDTO.setSqliteWriteFailed(sqliteWriteQueue.getFailed());
+            respDTO.setSqliteWriteBatches(sqliteWriteQueue.getBatches());
+            respDTO.setSqliteMaxBatchSize(sqliteWriteQueue.getMaxBatchSize());
+            
+            // 聊天消息批量写入
+            ChatMessageWriterStatDTO writerStat = new ChatMessageWriterStatDTO();
+            writerStat.setBuffered(chatMessageWriter.getBuffered());
+            writerStat.setFlushes(chatMessageWriter.getFlushes());
+            writerStat.setFlushedRows(chatMessageWriter.getFlushedRows());
+            writerStat.setInsertedRows(chatMessageWriter.getInsertedRows());
+            writerStat.setFailedRows(chatMessageWriter.getFailedRows());
+            writerStat.setAvgFlushSize(chatMessageWriter.getAvgFlushSize());
+            writerStat.setMaxFlushSize(chatMessageWriter.getMaxFlushSize());
+            writerStat.setAvgFlushMillis(chatMessageWriter.getAvgFlushMillis());
+            writerStat.setMaxFlushMillis(chatMessageWriter.getMaxFlushMillis());
+            writerStat.setAvgLatencyMillis(chatMessageWriter.getAvgLatencyMillis());
+            writerStat.setMaxLatencyMillis(chatMessageWriter.getMaxLatencyMillis());
+            respDTO.setChatMessageWriter(writerStat);
+            
+            ChatMessageDedupStatDTO dedupStat = new ChatMessageDedupStatDTO();
+            dedupStat.setAccounts(chatMessageDedupFilter.getAccounts());
+            dedupStat.setTracked(chatMessageDedupFilter.getTracked());
+            dedupStat.setSeeded(chatMessageDedupFilter.getSeeded());
+            dedupStat.setChecks(chatMessageDedupFilter.getChecks());
+            dedupStat.setHits(chatMessageDedupFilter.getHits());
+            dedupStat.setEvictions(chatMessageDedupFilter.getEvictions());
+            dedupStat.setForgotten(chatMessageDedupFilter.getForgotten());
+            // 通过过滤器、但写入时被唯一索引跳过的重复消息（过滤器漏判）
+            dedupStat.setMissedDuplicates(chatMessageWriter.getFlushedRows()
+                    - chatMessageWriter.getInsertedRows() - chatMessageWriter.getFailedRows());
+            respDTO.setChatMessageDedup(dedupStat);
+            respDTO.setActiveReconnects(connectionSupervisor.getActiveReconnects());
+            
+            // 流水线各阶段的吞吐和延迟
+            java.util.List<StageStatDTO> stages = new java.util.ArrayList<>();
+            for (com.feijimiao.xianyuassistant.websocket.StageMetrics metrics : pipelineMetrics.getAll()) {
+                StageStatDTO stat = new StageStatDTO();
+                stat.setStage(metrics.getStage().getKey());
+                stat.setDescription(metrics.getStage().getDescription());
+                stat.setQueued(metrics.getQueued());
+                stat.setPeakQueued(metrics.getPeakQueued());
+                stat.setRunning(metrics.getRunning());
+                stat.setAvailableCapacity(messageExecutor.getAvailableCapacity(metrics.getStage()));
+                stat.setSubmitted(metrics.getSubmitted());
+                stat.setCompleted(metrics.getCompleted());
+                stat.setFailed(metrics.getFailed());
+                stat.setBlocked(metrics.getBlocked());
+                stat.setCallerRuns(metrics.getCallerRuns());
+                stat.setThroughputPerSecond(metrics.getThroughputPerSecond());
+                stat.setWindowAvgWaitMillis(metrics.getWindowAvgWaitMillis());
+                stat.setWindowAvgServiceMillis(metrics.getWindowAvgServiceMillis());
+                stat.setAvgWaitMillis(metrics.getAvgWaitMillis());
+                stat.setAvgServiceMillis(metrics.getAvgServiceMillis());
+                stat.setMaxWaitMillis(metrics.getMaxWaitMillis());
+                stat.setMaxServiceMillis(metrics.getMaxServiceMillis());
+                stages.add(stat);
+            }
+            respDTO.setStages(stages);
+            
+            // 解码、分发、解析阶段每个条带的状态
+            java.util.List<StripeStatDTO> stripes = new java.util.ArrayList<>();
+            for (com.feijimiao.xianyuassistant.websocket.PipelineStage stage : java.util.List.of(
+                    com.feijimiao.xianyuassistant.websocket.PipelineStage.DECODE,
+                    com.feijimiao.xianyuassistant.websocket.PipelineStage.DISPATCH,
+                    com.feijimiao.xianyuassistant.websocket.PipelineStage.PARSE)) {
+                com.feijimiao.xianyuassistant.websocket.StripedExecutor striped = messageExecutor.getStripedExecutor(stage);
+                for (int i = 0; i < striped.getStripeCount(); i++) {
+                    StripeStatDTO stat = new StripeStatDTO();
+                    stat.setStage(stage.getKey());
+                    stat.setIndex(i);
+                    stat.setQueueDepth(striped.getQueueDepth(i));
+                    stat.setCompletedTasks(striped.getCompletedTasks(i));
+                    Object lastKey = striped.getLastKey(i);
+                    stat.setLastKey(lastKey != null ? lastKey.toString() : null);
+                    stripes.add(stat);
+                }
+            }
+            respDTO.setStripes(stripes);
+            
+            return ResultObject.success(respDTO);
+            
+        } catch (Exception e) {
+            log.error("查询消息执行器状态失败", e);
+            return ResultObject.failed("查询消息执行器状态失败: " + e.getMessage());
+        }
+    }
+    
     /**
      * 清除验证等待状态
      */
@@ -511,10 +698,138 @@ public class WebSocketController {
         private Long xianyuAccountId;  // 账号ID
         private Boolean connected;     // 是否已连接
         private String status;         // 连接状态描述
+        private String connectionState;   // 监管状态 CONNECTING/REGISTERED/DEGRADED/BACKOFF/STOPPED
+        private Integer reconnectAttempts; // 连续重连次数（注册成功后清零）
+        private Long nextReconnectTime;   // 下一次重连时间戳（毫秒），不在退避中时为null
+        private String lastError;         // 最近一次连接异常原因
         private Integer cookieStatus;  // Cookie状态 1:有效 2:过期 3:失效
         private String cookieText;     // Cookie值
         private String websocketToken; // WebSocket Token
         private Long tokenExpireTime;  // Token过期时间戳（毫秒）
+        private Long messageCount;     // 收到的消息总数
+        private Long fastPathFrames;   // 快速路径处理的心跳/ACK帧数
+        private Long slowPathFrames;   // 走完整解析流程的帧数
+        private Integer outboundQueueDepth;      // 出站队列排队数
+        private Long outboundSent;               // 累计写出的消息数
+        private Long outboundDropped;            // 累计丢弃的出站消息数
+        private Long outboundFlushes;            // 累计写出批次数（写出消息数/批次数=平均合并条数）
+        private Long outboundAvgLatencyMicros;   // 平均排队延迟（微秒）
+        private Long outboundMaxLatencyMicros;   // 最大排队延迟（微秒）
+        private Integer sendInFlight;            // 等待服务器响应的发送请求数
+        private Long sendSucceeded;              // 服务器确认成功的发送数
+        private Long sendFailed;                 // 服务器返回错误或写出失败的发送数
+        private Long sendTimedOut;               // 等待响应超时的发送数
+        private Long sendRejected;               // 在途请求已满被拒绝的发送数
+        private String compression;              // 协商的压缩扩展，未压缩时为null
+        private Long wireBytesIn;                // 接收的线路字节数（解压前）
+        private Long payloadBytesIn;             // 接收的载荷字节数（解压后）
+        private Long wireBytesOut;               // 发送的线路字节数（压缩后）
+        private Long payloadBytesOut;            // 发送的载荷字节数（压缩前）
+        private Integer ingestDepth;             // 入站队列当前深度
+        private Integer ingestPeakDepth;         // 入站队列历史最大深度
+        private Integer ingestCapacity;          // 入站队列容量
+        private Boolean ingestOverloaded;        // 入站队列是否过载
+        private Long ingestShed;                 // 过载时丢弃的入站帧数
+        private Long ingestBlocked;              // 队列满时阻塞接收线程的次数
+        private Long ingestBlockedMillis;        // 累计阻塞时间（毫秒）
+        private Long ingestOverloadEvents;       // 累计过载次数
+    }
+    
+    /**
+     * 消息执行器状态响应DTO
+     */
+    @Data
+    public static class ExecutorStatsRespDTO {
+        private String mode;                      // 执行模式 VIRTUAL/PLATFORM
+        private String transport;                 // 传输层 java-websocket/jdk
+        private Integer activeTasks;              // 正在处理的消息数
+        private Integer availableGlobalPermits;   // 剩余全局许可数
+        private Integer totalQueueDepth;          // 所有条带排队总数
+        private Integer heartbeatRegistered;      // 心跳时间轮中的连接数
+        private Long heartbeatsSent;               // 累计发送的心跳数
+        private Long heartbeatDeadDetected;       // 累计检测到的死连接数
+        private Long heartbeatMaxLagMillis;       // 心跳线程最大滞后（毫秒）
+        private Integer activeReconnects;         // 正在进行的重连数
+        private Long undecodableBodies;           // 累计无法解码的消息体数
+        private Integer sqliteWriteQueued;        // 等待写线程执行的SQLite写操作数
+        private Long sqliteWrites;                // 累计成功的SQLite写操作数
+        private Long sqliteWriteFailed;           // 累计失败的SQLite写操作数
+        private Long sqliteWriteBatches;          // 累计提交的写事务数
+        private Integer sqliteMaxBatchSize;       // 单个写事务的最大写操作数
+        private ChatMessageWriterStatDTO chatMessageWriter; // 聊天消息批量写入状态
+        private ChatMessageDedupStatDTO chatMessageDedup;   // 聊天消息去重过滤器状态
+        private java.util.List<StageStatDTO> stages;   // 流水线各阶段的状态
+        private java.util.List<StripeStatDTO> stripes; // 每个条带的状态
+    }
+    
+    /**
+     * 聊天消息批量写入状态DTO
+     */
+    @Data
+    public static class ChatMessageWriterStatDTO {
+        private Integer buffered;          // 缓冲区中等待写入的消息数
+        private Long flushes;              // 累计刷新次数
+        private Long flushedRows;          // 累计写入的消息数
+        private Long insertedRows;         // 累计新增的消息数（其余为重复消息）
+        private Long failedRows;           // 累计写入失败的消息数
+        private Double avgFlushSize;       // 平均每次刷新的消息数
+        private Integer maxFlushSize;      // 单次刷新的最大消息数
+        private Double avgFlushMillis;     // 平均每次刷新的耗时（毫秒）
+        private Double maxFlushMillis;     // 单次刷新的最大耗时（毫秒）
+        private Double avgLatencyMillis;   // 消息从入缓冲区到提交的平均耗时（毫秒）
+        private Double maxLatencyMillis;   // 消息从入缓冲区到提交的最大耗时（毫秒）
+    }
+    
+    /**
+     * 聊天消息去重过滤器状态DTO
+     */
+    @Data
+    public static class ChatMessageDedupStatDTO {
+        private Integer accounts;          // 已记录的账号数
+        private Integer tracked;           // 当前记录的pnmId数
+        private Long seeded;               // 启动时从数据库预热的pnmId数
+        private Long checks;               // 累计检查次数
+        private Long hits;                 // 累计判定为重复并丢弃的消息数
+        private Long evictions;            // 超出容量被淘汰的pnmId数
+        private Long forgotten;            // 保存失败后被移除的pnmId数
+        private Long missedDuplicates;     // 漏过过滤器、由唯一索引跳过的重复消息数
+    }
+    
+    /**
+     * 流水线阶段状态DTO
+     */
+    @Data
+    public static class StageStatDTO {
+        private String stage;                  // 阶段 decode/dispatch/parse/persist/react
+        private String description;            // 阶段说明
+        private Integer queued;                // 排队任务数
+        private Integer peakQueued;            // 排队任务数峰值
+        private Integer running;               // 正在执行的任务数
+        private Integer availableCapacity;     // 队列剩余容量（persist/react为-1，见线程池配置）
+        private Long submitted;                // 累计提交数
+        private Long completed;                // 累计完成数
+        private Long failed;                   // 累计异常数
+        private Long blocked;                  // 队列满时阻塞上游的次数
+        private Long callerRuns;               // 队列满时由提交线程执行的次数
+        private Double throughputPerSecond;    // 最近10秒每秒完成数
+        private Double windowAvgWaitMillis;    // 最近10秒平均排队时间（毫秒）
+        private Double windowAvgServiceMillis; // 最近10秒平均处理时间（毫秒）
+        private Double avgWaitMillis;          // 累计平均排队时间（毫秒）
+        private Double avgServiceMillis;       // 累计平均处理时间（毫秒）
+        private Double maxWaitMillis;          // 最大排队时间（毫秒）
+        private Double maxServiceMillis;       // 最大处理时间（毫秒）
+    }
+    
+    /**
+     * 条带状态DTO
+     */
+    @Data
+    public static class StripeStatDTO {
+        private String stage;          // 所属阶段 decode/dispatch/parse
+        private Integer index;         // 条带序号
+        private Integer queueDepth;    // 排队任务数
+        private Long completedTasks;   // 累计完成任务数
+        private String lastKey;        // 最近提交的key（账号ID或 账号ID|sId）
     }
     
     /**
@@ -1,5 +1,6 @@
 package com.feijimiao.xianyuassistant.entity;
 
+import com.feijimiao.xianyuassistant.utils.CompleteMsgCodec;
 import lombok.Data;
 import java.time.LocalDateTime;
 
@@ -34,9 +35,21 @@ public class XianyuChatMessage {
     private String xyGoodsId;              // 闲鱼商品ID，从reminder_url中的itemId参数解析
     
     // 完整消息体
-    private String completeMsg;            // 完整的消息体JSON
+    private String completeMsg;            // 完整的消息体JSON（按编码格式存储时为空字符串）
+    private Integer completeMsgFormat;     // 消息体存储格式，0或空=JSON文本，1=deflate压缩的JSON，2=原始MessagePack（见CompleteMsgCodec）
+    private byte[] completeMsgBlob;        // 编码后的消息体
     
     // 时间信息
     private Long messageTime;              // 消息时间戳（毫秒，字段1.5）
     private LocalDateTime createTime;      // 创建时间
+    
+    /**
+     * 获取完整的消息体JSON（按存储格式在调用时解码，列表查询不会触发）
+     */
+    public String getCompleteMsgJson() {
+        if (completeMsgBlob == null) {
+            return completeMsg;
+        }
+        return CompleteMsgCodec.decode(completeMsgFormat, completeMsg, completeMsgBlob);
+    }
 }
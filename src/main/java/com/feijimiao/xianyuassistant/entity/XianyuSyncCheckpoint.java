@@ -0,0 +1,35 @@
+package com.feijimiao.xianyuassistant.entity;
+
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+/**
+ * 消息同步检查点实体类
+ * 记录每个账号已处理到的同步位置，重连时从该位置增量同步
+ */
+@Data
+@TableName("xianyu_sync_checkpoint")
+public class XianyuSyncCheckpoint {
+    
+    /**
+     * 闲鱼账号ID（主键）
+     */
+    @TableId
+    private Long xianyuAccountId;
+    
+    /**
+     * 已处理的最大同步位置pts
+     */
+    private Long pts;
+    
+    /**
+     * 已处理的最大同步序号seq
+     */
+    private Long seq;
+    
+    /**
+     * 更新时间戳（毫秒）
+     */
+    private Long updateTime;
+}
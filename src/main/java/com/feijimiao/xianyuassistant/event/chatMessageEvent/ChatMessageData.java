@@ -79,6 +79,16 @@ public class ChatMessageData {
      */
     private String completeMsg;
     
+    /**
+     * 消息体存储格式（见 {@link com.feijimiao.xianyuassistant.utils.CompleteMsgCodec.Format}）
+     */
+    private Integer completeMsgFormat;
+    
+    /**
+     * 编码后的消息体（按编码格式存储时非空，completeMsg 为空字符串）
+     */
+    private byte[] completeMsgBlob;
+    
     /**
      * 消息时间戳（毫秒）
      */
@@ -0,0 +1,179 @@
+package com.feijimiao.xianyuassistant.event.chatMessageEvent;
+
+import com.feijimiao.xianyuassistant.entity.XianyuChatMessage;
+import com.feijimiao.xianyuassistant.mapper.XianyuChatMessageMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 聊天消息去重过滤器
+ *
+ * <p>pts=0 全量重同步时服务器会重放大量已处理过的消息。解析阶段拿到 pnmId 后先查这里，
+ * 重复消息直接丢弃，不再发布 {@link ChatMessageReceivedEvent}，也不会走到数据库的唯一索引。</p>
+ *
+ * <ul>
+ *   <li>每个账号一个按访问顺序淘汰的有界集合（LRU），超过 capacity-per-account 条时淘汰最久未出现的 pnmId。
+ *       重连从同步检查点续传，重放的只是重叠窗口内的消息，默认1000条足够；集合常驻内存，账号多时不宜调大</li>
+ *   <li>启动时用 xianyu_chat_message 中每个账号最近的消息预热</li>
+ *   <li>集合记录的是精确的 pnmId，不会把新消息误判为重复；被淘汰后重放的消息仍由唯一索引兜底</li>
+ *   <li>消息最终没有保存成功时调用 {@link #forget} 移除，重放时可以再次处理</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class ChatMessageDedupFilter {
+
+    @Value("${xianyu.chat-message.dedup.capacity-per-account:1000}")
+    private int capacityPerAccount = 1000;
+
+    @Autowired
+    private XianyuChatMessageMapper chatMessageMapper;
+
+    private final Map<Long, RecentPnmIds> accounts = new ConcurrentHashMap<>();
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder forgotten = new LongAdder();
+    private final LongAdder seeded = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        long start = System.currentTimeMillis();
+        try {
+            List<XianyuChatMessage> recent = chatMessageMapper.findRecentPnmIds(capacityPerAccount);
+            for (XianyuChatMessage message : recent) {
+                recentPnmIds(message.getXianyuAccountId()).add(message.getPnmId());
+            }
+            seeded.add(recent.size());
+            log.info("聊天消息去重过滤器已预热: {}个账号, {}条消息, 耗时{}ms",
+                    accounts.size(), recent.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            // 新数据库此时还没有建表，没有需要预热的消息
+            log.warn("聊天消息去重过滤器未预热，从空集合开始: {}",
+                    NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+        }
+    }
+
+    /**
+     * 记录消息，返回是否为首次出现
+     *
+     * @param accountId 账号ID
+     * @param pnmId 消息pnmId
+     * @return true表示新消息，false表示重复消息（应丢弃）
+     */
+    public boolean markIfAbsent(Long accountId, String pnmId) {
+        checks.increment();
+        if (recentPnmIds(accountId).add(pnmId)) {
+            return true;
+        }
+        hits.increment();
+        return false;
+    }
+
+    /**
+     * 移除消息记录（消息没有保存成功时调用，重放时可以再次处理）
+     *
+     * @param accountId 账号ID
+     * @param pnmId 消息pnmId
+     */
+    public void forget(Long accountId, String pnmId) {
+        RecentPnmIds recent = accounts.get(accountId);
+        if (recent != null && recent.remove(pnmId)) {
+            forgotten.increment();
+        }
+    }
+
+    private RecentPnmIds recentPnmIds(Long accountId) {
+        return accounts.computeIfAbsent(accountId, id -> new RecentPnmIds());
+    }
+
+    /**
+     * 累计检查次数
+     */
+    public long getChecks() {
+        return checks.sum();
+    }
+
+    /**
+     * 被判定为重复并丢弃的消息数
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * 因超出容量被淘汰的pnmId数
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * 因保存失败被移除的pnmId数
+     */
+    public long getForgotten() {
+        return forgotten.sum();
+    }
+
+    /**
+     * 启动时预热的pnmId数
+     */
+    public long getSeeded() {
+        return seeded.sum();
+    }
+
+    /**
+     * 当前记录的pnmId总数
+     */
+    public int getTracked() {
+        int total = 0;
+        for (RecentPnmIds recent : accounts.values()) {
+            total += recent.size();
+        }
+        return total;
+    }
+
+    public int getAccounts() {
+        return accounts.size();
+    }
+
+    /**
+     * 单个账号最近出现过的pnmId，按访问顺序淘汰
+     */
+    private final class RecentPnmIds {
+        private final LinkedHashMap<String, Boolean> pnmIds = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                if (size() > capacityPerAccount) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        synchronized boolean add(String pnmId) {
+            // get会刷新访问顺序，频繁重放的消息不会被淘汰
+            return pnmIds.get(pnmId) == null && pnmIds.put(pnmId, Boolean.TRUE) == null;
+        }
+
+        synchronized boolean remove(String pnmId) {
+            return pnmIds.remove(pnmId) != null;
+        }
+
+        synchronized int size() {
+            return pnmIds.size();
+        }
+    }
+}
@@ -13,18 +13,21 @@ import com.feijimiao.xianyuassistant.mapper.XianyuGoodsInfoMapper;
 import com.feijimiao.xianyuassistant.service.OrderService;
 import com.feijimiao.xianyuassistant.service.WebSocketService;
 import com.feijimiao.xianyuassistant.utils.HumanLikeDelayUtils;
+import com.feijimiao.xianyuassistant.websocket.SendResult;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * 聊天消息自动发货监听器
  *
- * <p>监听 {@link ChatMessageReceivedEvent} 事件，判断是否需要触发自动发货</p>
+ * <p>监听 {@link ChatMessageReceivedEvent} 事件，判断是否需要触发自动发货（在业务响应阶段线程池 reactExecutor 上执行）</p>
  *
  * <p>触发条件：</p>
  * <ul>
@@ -68,12 +71,16 @@ public class ChatMessageEventAutoDeliveryListener {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    @Qualifier("reactExecutor")
+    private Executor reactExecutor;
+
     /**
      * 处理聊天消息接收事件 - 判断并执行自动发货
      *
      * @param event 聊天消息接收事件
      */
-    @Async
+    @Async("reactExecutor")
     @EventListener
     public void handleChatMessageReceived(ChatMessageReceivedEvent event) {
         ChatMessageData message = event.getMessageData();
@@ -155,7 +162,7 @@ public class ChatMessageEventAutoDeliveryListener {
             try {
                 result = autoDeliveryRecordMapper.insert(record);
             } catch (Exception e) {
-                // 检查是否是唯一约束冲突（pnm_id重复）
+                // 检查是否是唯一约束冲突（pnm_id重复；重放消息通常已被去重过滤器丢弃，这里兜底）
                 if (e.getMessage() != null && e.getMessage().contains("UNIQUE constraint failed")) {
                     log.info("【账号{}】消息已处理过，跳过自动发货: pnmId={}, xyGoodsId={}",
                             message.getXianyuAccountId(), message.getPnmId(), message.getXyGoodsId());
@@ -227,26 +234,10 @@ public class ChatMessageEventAutoDeliveryListener {
             String cid = sId.replace("@goofish", "");
             String toId = cid;
 
-            // 5. 发送消息
-            boolean success = webSocketService.sendMessage(accountId, cid, toId, content);
-
-            // 6. 更新发货记录状态和内容
-            if (success) {
-                log.info("【账号{}】✅ 自动发货成功: recordId={}, xyGoodsId={}, content={}",
-                        accountId, recordId, xyGoodsId, content);
-                updateRecordState(recordId, 1, content);
-
-                // 7. 检查是否需要自动确认发货
-                if (deliveryConfig.getAutoConfirmShipment() != null && deliveryConfig.getAutoConfirmShipment() == 1) {
-                    log.info("【账号{}】🚀 检测到自动确认发货开关已开启，准备自动确认发货: orderId={}", accountId, orderId);
-                    executeAutoConfirmShipment(accountId, orderId);
-                } else {
-                    log.info("【账号{}】自动确认发货开关未开启，跳过自动确认发货", accountId);
-                }
-            } else {
-                log.error("【账号{}】❌ 自动发货失败: recordId={}, xyGoodsId={}", accountId, recordId, xyGoodsId);
-                updateRecordState(recordId, -1, content);
-            }
+            // 5. 发送消息，服务器确认后在异步线程池上更新记录（不占用WebSocket消息处理线程）
+            webSocketService.sendMessageAsync(accountId, cid, toId, content)
+                    .thenAcceptAsync(result -> onDeliverySent(result, recordId, accountId, xyGoodsId,
+                            orderId, content, deliveryConfig), reactExecutor);
 
         } catch (Exception e) {
             log.error("【账号{}】执行自动发货异常: recordId={}, xyGoodsId={}", accountId, recordId, xyGoodsId, e);
@@ -254,6 +245,39 @@ public class ChatMessageEventAutoDeliveryListener {
         }
     }
 
+    /**
+     * 自动发货消息发送完成后的处理
+     *
+     * @param result 发送结果
+     * @param recordId 发货记录ID
+     * @param accountId 账号ID
+     * @param xyGoodsId 商品ID
+     * @param orderId 订单ID
+     * @param content 发货内容
+     * @param deliveryConfig 自动发货配置
+     */
+    private void onDeliverySent(SendResult result, Long recordId, Long accountId, String xyGoodsId,
+                                String orderId, String content, XianyuGoodsAutoDeliveryConfig deliveryConfig) {
+        // 6. 更新发货记录状态和内容
+        if (result.isSuccess()) {
+            log.info("【账号{}】✅ 自动发货成功: recordId={}, xyGoodsId={}, content={}, 耗时={}ms",
+                    accountId, recordId, xyGoodsId, content, result.getLatencyMillis());
+            updateRecordState(recordId, 1, content);
+
+            // 7. 检查是否需要自动确认发货
+            if (deliveryConfig.getAutoConfirmShipment() != null && deliveryConfig.getAutoConfirmShipment() == 1) {
+                log.info("【账号{}】🚀 检测到自动确认发货开关已开启，准备自动确认发货: orderId={}", accountId, orderId);
+                executeAutoConfirmShipment(accountId, orderId);
+            } else {
+                log.info("【账号{}】自动确认发货开关未开启，跳过自动确认发货", accountId);
+            }
+        } else {
+            log.error("【账号{}】❌ 自动发货失败: recordId={}, xyGoodsId={}, result={}",
+                    accountId, recordId, xyGoodsId, result);
+            updateRecordState(recordId, -1, content);
+        }
+    }
+
     /**
      * 执行自动确认发货
      *
@@ -1,7 +1,6 @@
 package com.feijimiao.xianyuassistant.event.chatMessageEvent;
 
 import com.feijimiao.xianyuassistant.entity.XianyuChatMessage;
-import com.feijimiao.xianyuassistant.mapper.XianyuChatMessageMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.event.EventListener;
@@ -15,8 +14,10 @@ import org.springframework.stereotype.Component;
  * 
  * <p>特点：</p>
  * <ul>
- *   <li>使用@Async异步执行，不阻塞WebSocket消息接收</li>
- *   <li>自动去重，避免重复保存</li>
+ *   <li>在持久化阶段线程池（persistExecutor）上异步执行，不阻塞WebSocket消息接收</li>
+ *   <li>重放的消息已被 {@link ChatMessageDedupFilter} 过滤，这里只处理新消息</li>
+ *   <li>交给 {@link ChatMessageWriter} 批量写入，漏过过滤器的重复消息由唯一索引自动跳过</li>
+ *   <li>所在批次提交后调用事件的 persistedCallback（推进同步检查点）；保存异常或中断时不调用，检查点停在该消息之前，重新同步时再次处理</li>
  *   <li>独立模块，与其他监听器互不影响</li>
  * </ul>
  * 
@@ -28,14 +29,20 @@ import org.springframework.stereotype.Component;
 public class ChatMessageEventSaveListener {
     
     @Autowired
-    private XianyuChatMessageMapper chatMessageMapper;
+    private ChatMessageWriter chatMessageWriter;
+    
+    @Autowired
+    private ChatMessageDedupFilter dedupFilter;
+    
+    @Autowired
+    private CompleteMsgStorage completeMsgStorage;
     
     /**
      * 处理聊天消息接收事件 - 保存消息到数据库
      * 
      * @param event 聊天消息接收事件
      */
-    @Async
+    @Async("persistExecutor")
     @EventListener
     public void handleChatMessageReceived(ChatMessageReceivedEvent event) {
         ChatMessageData messageData = event.getMessageData();
@@ -48,36 +55,19 @@ public class ChatMessageEventSaveListener {
                 message.getXianyuAccountId(), message.getPnmId(), message.getContentType(), message.getMsgContent(), messageData.getOrderId());
         
         try {
-            // 检查消息是否已存在（去重）
-            XianyuChatMessage existing = chatMessageMapper.findByPnmId(
+            // 按配置的存储格式编码消息体，再放入批量写入器，重复消息由唯一索引跳过
+            completeMsgStorage.encode(message);
+            chatMessageWriter.write(message, event.getPersistedCallback());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("【账号{}】[SaveListener]保存消息被中断: pnmId={}", 
                     message.getXianyuAccountId(), message.getPnmId());
-            
-            if (existing != null) {
-                log.info("【账号{}】[SaveListener]消息已存在，跳过保存: pnmId={}", 
-                        message.getXianyuAccountId(), message.getPnmId());
-                return;
-            }
-            
-            // 保存消息到数据库
-            int result = chatMessageMapper.insert(message);
-            
-            if (result > 0) {
-                log.info("【账号{}】[SaveListener]消息保存成功: pnmId={}, id={}", 
-                        message.getXianyuAccountId(), message.getPnmId(), message.getId());
-            } else {
-                log.error("【账号{}】[SaveListener]保存消息失败: pnmId={}", 
-                        message.getXianyuAccountId(), message.getPnmId());
-            }
-            
+            dedupFilter.forget(message.getXianyuAccountId(), message.getPnmId());
         } catch (Exception e) {
-            // 检查是否是唯一约束冲突（消息已存在）
-            if (e.getMessage() != null && e.getMessage().contains("UNIQUE constraint failed")) {
-                log.info("【账号{}】[SaveListener]消息ID冲突，跳过保存: pnmId={}", 
-                        message.getXianyuAccountId(), message.getPnmId());
-            } else {
-                log.error("【账号{}】[SaveListener]异步保存消息异常: pnmId={}, error={}", 
-                        message.getXianyuAccountId(), message.getPnmId(), e.getMessage(), e);
-            }
+            log.error("【账号{}】[SaveListener]异步保存消息异常: pnmId={}, error={}", 
+                    message.getXianyuAccountId(), message.getPnmId(), e.getMessage(), e);
+            // 没有保存成功，不推进检查点，重新同步时再次处理
+            dedupFilter.forget(message.getXianyuAccountId(), message.getPnmId());
         }
     }
 }
@@ -30,6 +30,13 @@ public class ChatMessageReceivedEvent extends ApplicationEvent {
      */
     private final ChatMessageData messageData;
     
+    /**
+     * 消息处理完成的回调（已提交到数据库，或确定不再保存时由保存流程调用一次）
+     * 
+     * <p>同步包中的消息用于推进同步检查点</p>
+     */
+    private final Runnable persistedCallback;
+    
     /**
      * 构造函数
      * 
@@ -37,7 +44,20 @@ public class ChatMessageReceivedEvent extends ApplicationEvent {
      * @param messageData 解析后的聊天消息数据对象
      */
     public ChatMessageReceivedEvent(Object source, ChatMessageData messageData) {
+        this(source, messageData, null);
+    }
+    
+    /**
+     * 构造函数
+     * 
+     * @param source 事件源（通常是发布事件的Service）
+     * @param messageData 解析后的聊天消息数据对象
+     * @param persistedCallback 消息处理完成的回调，可以为null
+     */
+    public ChatMessageReceivedEvent(Object source, ChatMessageData messageData, Runnable persistedCallback) {
         super(source);
         this.messageData = messageData;
+        this.persistedCallback = persistedCallback != null ? persistedCallback : () -> {
+        };
     }
 }
@@ -0,0 +1,300 @@
+package com.feijimiao.xianyuassistant.event.chatMessageEvent;
+
+import com.feijimiao.xianyuassistant.entity.XianyuChatMessage;
+import com.feijimiao.xianyuassistant.mapper.XianyuChatMessageMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 聊天消息批量写入器
+ *
+ * <p>保存监听器只把消息放入缓冲区，由刷新线程攒够 batch-size 条或最早一条等待满 flush-interval-ms 后，
+ * 用一条 {@code INSERT ... ON CONFLICT(xianyu_account_id, pnm_id) DO NOTHING} 写入，
+ * 一次提交，重复消息由唯一索引跳过，不再逐条先查后插。</p>
+ *
+ * <p>批量插入失败（如某条消息缺少必填字段）时逐条重试，只丢弃出错的消息。
+ * 依赖 {@code sqliteWriteQueue}，关闭时先刷新缓冲区中剩余的消息。</p>
+ *
+ * <p>每批提交后按顺序调用消息的写入回调（同步检查点据此推进），重复消息也会回调。
+ * 写入失败和关闭时没有写出的消息不回调，所在同步包保持未完成，检查点停在它之前，
+ * 重连或重启后从检查点重新同步时再次处理（长时间未完成由检查点服务告警）。</p>
+ */
+@Slf4j
+@Component
+@DependsOn("sqliteWriteQueue")
+public class ChatMessageWriter {
+
+    /**
+     * 单条消息的参数个数，与 {@link XianyuChatMessageMapper#insertIgnoreBatch} 一致
+     */
+    private static final int PARAMS_PER_ROW = 16;
+
+    /**
+     * SQLite单条语句的参数上限（3.32起为32766）
+     */
+    private static final int MAX_PARAMS = 32766;
+
+    @Value("${xianyu.chat-message.writer.batch-size:200}")
+    private int batchSize;
+
+    @Value("${xianyu.chat-message.writer.flush-interval-ms:50}")
+    private long flushIntervalMillis;
+
+    @Value("${xianyu.chat-message.writer.buffer-capacity:10000}")
+    private int bufferCapacity;
+
+    @Autowired
+    private XianyuChatMessageMapper chatMessageMapper;
+
+    @Autowired
+    private ChatMessageDedupFilter dedupFilter;
+
+    private BlockingQueue<PendingMessage> buffer;
+    private Thread flushThread;
+    private volatile boolean running;
+
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushedRows = new LongAdder();
+    private final LongAdder insertedRows = new LongAdder();
+    private final LongAdder failedRows = new LongAdder();
+    private final LongAdder totalFlushNanos = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final AtomicInteger maxFlushSize = new AtomicInteger();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        batchSize = Math.max(1, Math.min(batchSize, MAX_PARAMS / PARAMS_PER_ROW));
+        buffer = new LinkedBlockingQueue<>(bufferCapacity);
+        running = true;
+        flushThread = Thread.ofPlatform().name("chat-message-writer").daemon().start(this::run);
+        log.info("聊天消息批量写入器已启动: batchSize={}, flushInterval={}ms, bufferCapacity={}",
+                batchSize, flushIntervalMillis, bufferCapacity);
+    }
+
+    /**
+     * 放入缓冲区等待批量写入，缓冲区满时阻塞
+     *
+     * @param message 聊天消息
+     */
+    public void write(XianyuChatMessage message) throws InterruptedException {
+        write(message, null);
+    }
+
+    /**
+     * 放入缓冲区等待批量写入，缓冲区满时阻塞
+     *
+     * @param message 聊天消息
+     * @param onCommitted 所在批次提交后调用的回调，可以为null
+     */
+    public void write(XianyuChatMessage message, Runnable onCommitted) throws InterruptedException {
+        if (!running) {
+            throw new IllegalStateException("聊天消息写入器已关闭");
+        }
+        buffer.put(new PendingMessage(message, System.nanoTime(), onCommitted));
+    }
+
+    private void run() {
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        List<PendingMessage> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            try {
+                PendingMessage first = buffer.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // 从第一条消息入队开始计时，攒够一批或到时间就刷新
+                long deadline = first.enqueuedAt + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    buffer.drainTo(batch, batchSize - batch.size());
+                    long wait = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || wait <= 0 || !running) {
+                        break;
+                    }
+                    PendingMessage next = buffer.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("聊天消息批量写入异常: {}条", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingMessage> batch) {
+        List<XianyuChatMessage> messages = new ArrayList<>(batch.size());
+        for (PendingMessage pending : batch) {
+            messages.add(pending.message);
+        }
+
+        long start = System.nanoTime();
+        int inserted;
+        try {
+            inserted = chatMessageMapper.insertIgnoreBatch(messages);
+        } catch (Exception e) {
+            log.warn("聊天消息批量写入失败，逐条重试: {}条, {}", messages.size(), e.getMessage());
+            inserted = insertOneByOne(batch);
+        }
+        long end = System.nanoTime();
+
+        int size = messages.size();
+        flushes.increment();
+        flushedRows.add(size);
+        insertedRows.add(inserted);
+        totalFlushNanos.add(end - start);
+        maxFlushSize.accumulateAndGet(size, Math::max);
+        maxFlushNanos.accumulateAndGet(end - start, Math::max);
+        for (PendingMessage pending : batch) {
+            long latency = end - pending.enqueuedAt;
+            totalLatencyNanos.add(latency);
+            maxLatencyNanos.accumulateAndGet(latency, Math::max);
+        }
+        log.debug("聊天消息批量写入: {}条, 新增{}条, 重复{}条, 耗时{}ms",
+                size, inserted, size - inserted, (end - start) / 1_000_000);
+
+        for (PendingMessage pending : batch) {
+            if (pending.onCommitted == null || pending.failed) {
+                continue;
+            }
+            try {
+                pending.onCommitted.run();
+            } catch (Exception e) {
+                log.warn("【账号{}】消息写入回调异常: pnmId={}, error={}",
+                        pending.message.getXianyuAccountId(), pending.message.getPnmId(), e.getMessage());
+            }
+        }
+    }
+
+    private int insertOneByOne(List<PendingMessage> batch) {
+        int inserted = 0;
+        for (PendingMessage pending : batch) {
+            XianyuChatMessage message = pending.message;
+            try {
+                inserted += chatMessageMapper.insertIgnoreBatch(List.of(message));
+            } catch (Exception e) {
+                pending.failed = true;
+                failedRows.increment();
+                // 没有保存成功，重放时允许再次处理
+                dedupFilter.forget(message.getXianyuAccountId(), message.getPnmId());
+                log.error("【账号{}】保存消息失败: pnmId={}, error={}",
+                        message.getXianyuAccountId(), message.getPnmId(), e.getMessage());
+            }
+        }
+        return inserted;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            flushThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("聊天消息批量写入器已关闭: 刷新{}次, 写入{}条, 新增{}条, 失败{}条, 未写入{}条",
+                flushes.sum(), flushedRows.sum(), insertedRows.sum(), failedRows.sum(), buffer.size());
+    }
+
+    /**
+     * 缓冲区中等待写入的消息数
+     */
+    public int getBuffered() {
+        return buffer.size();
+    }
+
+    public long getFlushes() {
+        return flushes.sum();
+    }
+
+    public long getFlushedRows() {
+        return flushedRows.sum();
+    }
+
+    /**
+     * 实际新增的消息数（其余为重复消息）
+     */
+    public long getInsertedRows() {
+        return insertedRows.sum();
+    }
+
+    public long getFailedRows() {
+        return failedRows.sum();
+    }
+
+    /**
+     * 平均每次刷新的消息数
+     */
+    public double getAvgFlushSize() {
+        long count = flushes.sum();
+        return count > 0 ? (double) flushedRows.sum() / count : 0;
+    }
+
+    public int getMaxFlushSize() {
+        return maxFlushSize.get();
+    }
+
+    /**
+     * 平均每次刷新（执行INSERT并提交）的耗时（毫秒）
+     */
+    public double getAvgFlushMillis() {
+        long count = flushes.sum();
+        return count > 0 ? totalFlushNanos.sum() / 1e6 / count : 0;
+    }
+
+    public double getMaxFlushMillis() {
+        return maxFlushNanos.get() / 1e6;
+    }
+
+    /**
+     * 消息从放入缓冲区到提交的平均耗时（毫秒）
+     */
+    public double getAvgLatencyMillis() {
+        long rows = flushedRows.sum();
+        return rows > 0 ? totalLatencyNanos.sum() / 1e6 / rows : 0;
+    }
+
+    public double getMaxLatencyMillis() {
+        return maxLatencyNanos.get() / 1e6;
+    }
+
+    /**
+     * 缓冲区中等待写入的消息
+     */
+    private static final class PendingMessage {
+        private final XianyuChatMessage message;
+        private final long enqueuedAt;
+        private final Runnable onCommitted;
+        // 逐条重试仍写入失败，不回调
+        private boolean failed;
+
+        private PendingMessage(XianyuChatMessage message, long enqueuedAt, Runnable onCommitted) {
+            this.message = message;
+            this.enqueuedAt = enqueuedAt;
+            this.onCommitted = onCommitted;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.feijimiao.xianyuassistant.event.chatMessageEvent;
+
+import com.feijimiao.xianyuassistant.entity.XianyuChatMessage;
+import com.feijimiao.xianyuassistant.mapper.XianyuChatMessageMapper;
+import com.feijimiao.xianyuassistant.utils.CompleteMsgCodec;
+import com.feijimiao.xianyuassistant.utils.MessageDecryptUtils;
+import com.feijimiao.xianyuassistant.websocket.frame.SyncPayload;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 聊天消息完整消息体的存储编码
+ *
+ * <p>complete_msg 保存的是每条消息重新序列化的完整JSON，订单卡片的 dxCard 结构很大，占了数据库的大部分空间。
+ * 按 codec 配置选择存储格式（见 {@link CompleteMsgCodec}）：</p>
+ * <ul>
+ *   <li>json：与之前一样存JSON文本</li>
+ *   <li>deflate：持久化阶段把JSON压缩后存入 complete_msg_blob</li>
+ *   <li>msgpack：解析阶段直接保存服务器下发的原始MessagePack字节，不生成JSON文本；拿不到原始字节的消息按deflate存储</li>
+ * </ul>
+ *
+ * <p>codec不是json时，启动后由后台线程按id顺序分批把旧的JSON文本行转为deflate格式（旧数据没有原始MessagePack字节），
+ * 每批一条UPDATE经写线程提交，批次之间间隔 interval-ms，避免占满写线程。</p>
+ */
+@Slf4j
+@Component
+public class CompleteMsgStorage implements ApplicationListener<ApplicationReadyEvent> {
+
+    @Value("${xianyu.chat-message.storage.codec:deflate}")
+    private String codecConfig;
+
+    @Value("${xianyu.chat-message.storage.migration.enabled:true}")
+    private boolean migrationEnabled;
+
+    @Value("${xianyu.chat-message.storage.migration.batch-size:200}")
+    private int migrationBatchSize;
+
+    @Value("${xianyu.chat-message.storage.migration.interval-ms:1000}")
+    private long migrationIntervalMillis;
+
+    @Autowired
+    private XianyuChatMessageMapper chatMessageMapper;
+
+    private CompleteMsgCodec.Format format;
+    private Thread migrationThread;
+    private long migratedUpToId;
+
+    private final LongAdder migratedRows = new LongAdder();
+    private final LongAdder migratedJsonBytes = new LongAdder();
+    private final LongAdder migratedBlobBytes = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        format = CompleteMsgCodec.Format.from(codecConfig);
+        log.info("聊天消息体存储格式: {}", format);
+    }
+
+    /**
+     * 解析阶段设置消息体：msgpack格式直接保存原始字节，其余格式先保存JSON文本
+     *
+     * @param message 聊天消息
+     * @param payload 已解密的消息
+     */
+    public void attach(XianyuChatMessage message, SyncPayload payload) {
+        if (format == CompleteMsgCodec.Format.MSGPACK) {
+            byte[] bytes = MessageDecryptUtils.toMessagePack(payload.getEncryptedData());
+            if (bytes != null) {
+                setEncoded(message, CompleteMsgCodec.Format.MSGPACK, bytes);
+                return;
+            }
+        }
+        message.setCompleteMsg(payload.getDecryptedData());
+    }
+
+    /**
+     * 持久化阶段编码消息体：还是JSON文本且配置了编码格式时压缩
+     *
+     * @param message 聊天消息
+     */
+    public void encode(XianyuChatMessage message) {
+        String json = message.getCompleteMsg();
+        if (format == CompleteMsgCodec.Format.JSON || message.getCompleteMsgBlob() != null
+                || json == null || json.isEmpty()) {
+            return;
+        }
+        setEncoded(message, CompleteMsgCodec.Format.DEFLATE, CompleteMsgCodec.deflate(json));
+    }
+
+    private static void setEncoded(XianyuChatMessage message, CompleteMsgCodec.Format format, byte[] blob) {
+        message.setCompleteMsg("");
+        message.setCompleteMsgFormat(format.getTag());
+        message.setCompleteMsgBlob(blob);
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (format == CompleteMsgCodec.Format.JSON || !migrationEnabled) {
+            return;
+        }
+        // 数据库迁移监听器在同一事件中补齐字段，后台线程等待一个间隔后再开始
+        migrationThread = Thread.ofPlatform().name("complete-msg-migration").daemon().start(this::migrate);
+    }
+
+    private void migrate() {
+        long start = System.currentTimeMillis();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(migrationIntervalMillis);
+                if (migrateNextBatch() == 0) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.warn("聊天消息体迁移失败，稍后重试: {}", e.getMessage());
+            }
+        }
+        if (migratedRows.sum() > 0) {
+            log.info("聊天消息体迁移完成: {}条, {}KB -> {}KB, 耗时{}s",
+                    migratedRows.sum(), migratedJsonBytes.sum() / 1024, migratedBlobBytes.sum() / 1024,
+                    (System.currentTimeMillis() - start) / 1000);
+        }
+    }
+
+    /**
+     * 把下一批JSON文本格式的消息体转为deflate格式
+     *
+     * @return 本批查到的消息数，0表示已全部迁移
+     */
+    int migrateNextBatch() {
+        List<XianyuChatMessage> batch = chatMessageMapper.findJsonCompleteMsgs(migratedUpToId, migrationBatchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        long jsonBytes = 0;
+        long blobBytes = 0;
+        for (XianyuChatMessage message : batch) {
+            jsonBytes += message.getCompleteMsg().getBytes(StandardCharsets.UTF_8).length;
+            setEncoded(message, CompleteMsgCodec.Format.DEFLATE, CompleteMsgCodec.deflate(message.getCompleteMsg()));
+            blobBytes += message.getCompleteMsgBlob().length;
+        }
+        int updated = chatMessageMapper.updateCompleteMsgBlobs(batch);
+        migratedUpToId = batch.get(batch.size() - 1).getId();
+        migratedRows.add(updated);
+        migratedJsonBytes.add(jsonBytes);
+        migratedBlobBytes.add(blobBytes);
+        log.debug("聊天消息体迁移: 本批{}条, 累计{}条, 已到id={}", updated, migratedRows.sum(), migratedUpToId);
+        return batch.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (migrationThread != null) {
+            migrationThread.interrupt();
+        }
+    }
+
+    public CompleteMsgCodec.Format getFormat() {
+        return format;
+    }
+
+    /**
+     * 已迁移为编码格式的旧消息数
+     */
+    public long getMigratedRows() {
+        return migratedRows.sum();
+    }
+}
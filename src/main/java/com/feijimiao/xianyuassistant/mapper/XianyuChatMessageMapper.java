@@ -18,16 +18,43 @@ public interface XianyuChatMessageMapper {
             "xianyu_account_id, lwp, pnm_id, s_id, " +
             "content_type, msg_content, " +
             "sender_user_name, sender_user_id, sender_app_v, sender_os_type, " +
-            "reminder_url, xy_goods_id, complete_msg, message_time" +
+            "reminder_url, xy_goods_id, complete_msg, message_time, " +
+            "complete_msg_format, complete_msg_blob" +
             ") VALUES (" +
             "#{xianyuAccountId}, #{lwp}, #{pnmId}, #{sId}, " +
             "#{contentType}, #{msgContent}, " +
             "#{senderUserName}, #{senderUserId}, #{senderAppV}, #{senderOsType}, " +
-            "#{reminderUrl}, #{xyGoodsId}, #{completeMsg}, #{messageTime}" +
+            "#{reminderUrl}, #{xyGoodsId}, #{completeMsg}, #{messageTime}, " +
+            "#{completeMsgFormat}, #{completeMsgBlob}" +
             ")")
     @Options(useGeneratedKeys = true, keyProperty = "id")
     int insert(XianyuChatMessage message);
     
+    /**
+     * 批量插入聊天消息，(xianyu_account_id, pnm_id) 已存在的消息跳过（依赖唯一索引 idx_chat_message_unique）
+     *
+     * @param messages 消息列表（每条16个参数，单次不超过SQLite的参数上限）
+     * @return 实际插入的条数
+     */
+    @Insert("<script>" +
+            "INSERT INTO xianyu_chat_message (" +
+            "xianyu_account_id, lwp, pnm_id, s_id, " +
+            "content_type, msg_content, " +
+            "sender_user_name, sender_user_id, sender_app_v, sender_os_type, " +
+            "reminder_url, xy_goods_id, complete_msg, message_time, " +
+            "complete_msg_format, complete_msg_blob" +
+            ") VALUES " +
+            "<foreach collection='messages' item='m' separator=','>" +
+            "(#{m.xianyuAccountId}, #{m.lwp}, #{m.pnmId}, #{m.sId}, " +
+            "#{m.contentType}, #{m.msgContent}, " +
+            "#{m.senderUserName}, #{m.senderUserId}, #{m.senderAppV}, #{m.senderOsType}, " +
+            "#{m.reminderUrl}, #{m.xyGoodsId}, #{m.completeMsg}, #{m.messageTime}, " +
+            "#{m.completeMsgFormat}, #{m.completeMsgBlob})" +
+            "</foreach> " +
+            "ON CONFLICT(xianyu_account_id, pnm_id) DO NOTHING" +
+            "</script>")
+    int insertIgnoreBatch(@Param("messages") List<XianyuChatMessage> messages);
+    
     /**
      * 根据pnm_id查询（防止重复）
      */
@@ -35,6 +62,16 @@ public interface XianyuChatMessageMapper {
             "WHERE xianyu_account_id = #{accountId} AND pnm_id = #{pnmId}")
     XianyuChatMessage findByPnmId(@Param("accountId") Long accountId, 
                                   @Param("pnmId") String pnmId);
+
+    /**
+     * 查询每个账号最近的limit条消息的pnm_id（用于预热去重过滤器），按写入顺序返回
+     */
+    @Select("SELECT xianyu_account_id, pnm_id FROM (" +
+            "SELECT id, xianyu_account_id, pnm_id, " +
+            "ROW_NUMBER() OVER (PARTITION BY xianyu_account_id ORDER BY id DESC) AS rn " +
+            "FROM xianyu_chat_message) " +
+            "WHERE rn <= #{limit} ORDER BY id")
+    List<XianyuChatMessage> findRecentPnmIds(@Param("limit") int limit);
     
     /**
      * 查询账号的所有消息
@@ -69,8 +106,37 @@ public interface XianyuChatMessageMapper {
     @Delete("DELETE FROM xianyu_chat_message WHERE xianyu_account_id = #{accountId}")
     int deleteByAccountId(@Param("accountId") Long accountId);
     
+    /**
+     * 按id顺序查询还是JSON文本格式的消息体（用于后台迁移为编码格式）
+     */
+    @Select("SELECT id, complete_msg FROM xianyu_chat_message " +
+            "WHERE id > #{afterId} AND complete_msg_blob IS NULL AND complete_msg != '' " +
+            "ORDER BY id LIMIT #{limit}")
+    List<XianyuChatMessage> findJsonCompleteMsgs(@Param("afterId") long afterId,
+                                                 @Param("limit") int limit);
+    
+    /**
+     * 批量写入编码后的消息体，清空JSON文本列
+     *
+     * @param messages 消息列表（id、completeMsgFormat、completeMsgBlob）
+     * @return 更新的条数
+     */
+    @Update("<script>" +
+            "UPDATE xianyu_chat_message SET complete_msg = '', " +
+            "complete_msg_format = CASE id " +
+            "<foreach collection='messages' item='m'>WHEN #{m.id} THEN #{m.completeMsgFormat} </foreach>" +
+            "END, " +
+            "complete_msg_blob = CASE id " +
+            "<foreach collection='messages' item='m'>WHEN #{m.id} THEN #{m.completeMsgBlob} </foreach>" +
+            "END " +
+            "WHERE complete_msg_blob IS NULL AND id IN " +
+            "<foreach collection='messages' item='m' open='(' separator=',' close=')'>#{m.id}</foreach>" +
+            "</script>")
+    int updateCompleteMsgBlobs(@Param("messages") List<XianyuChatMessage> messages);
+    
     /**
      * 分页查询消息（支持按xy_goods_id过滤和sender_user_id过滤）
+     * 不查询完整消息体，列表不读取也不解码消息体
      *
      * @param accountId 账号ID（必选）
      * @param xyGoodsId 商品ID（可选，为null时不过滤）
@@ -80,7 +146,10 @@ public interface XianyuChatMessageMapper {
      * @return 消息列表
      */
     @Select("<script>" +
-            "SELECT * FROM xianyu_chat_message " +
+            "SELECT id, xianyu_account_id, lwp, pnm_id, s_id, content_type, msg_content, " +
+            "sender_user_name, sender_user_id, sender_app_v, sender_os_type, " +
+            "reminder_url, xy_goods_id, message_time, create_time " +
+            "FROM xianyu_chat_message " +
             "WHERE xianyu_account_id = #{accountId} " +
             "<if test='xyGoodsId != null and xyGoodsId != \"\"'>" +
             "AND xy_goods_id = #{xyGoodsId} " +
@@ -0,0 +1,32 @@
+package com.feijimiao.xianyuassistant.mapper;
+
+import com.feijimiao.xianyuassistant.entity.XianyuSyncCheckpoint;
+import org.apache.ibatis.annotations.*;
+
+/**
+ * 消息同步检查点Mapper
+ */
+@Mapper
+public interface XianyuSyncCheckpointMapper {
+    
+    /**
+     * 根据账号ID查询检查点
+     */
+    @Select("SELECT * FROM xianyu_sync_checkpoint WHERE xianyu_account_id = #{accountId}")
+    XianyuSyncCheckpoint selectByAccountId(@Param("accountId") Long accountId);
+    
+    /**
+     * 插入或更新检查点（只前进不后退）
+     */
+    @Insert("INSERT INTO xianyu_sync_checkpoint (xianyu_account_id, pts, seq, update_time) " +
+            "VALUES (#{xianyuAccountId}, #{pts}, #{seq}, #{updateTime}) " +
+            "ON CONFLICT(xianyu_account_id) DO UPDATE SET " +
+            "pts = MAX(pts, excluded.pts), seq = MAX(seq, excluded.seq), update_time = excluded.update_time")
+    int upsert(XianyuSyncCheckpoint checkpoint);
+    
+    /**
+     * 根据账号ID删除检查点
+     */
+    @Delete("DELETE FROM xianyu_sync_checkpoint WHERE xianyu_account_id = #{accountId}")
+    int deleteByAccountId(@Param("accountId") Long accountId);
+}
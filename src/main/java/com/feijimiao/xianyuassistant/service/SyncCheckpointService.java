@@ -0,0 +1,53 @@
+package com.feijimiao.xianyuassistant.service;
+
+import com.feijimiao.xianyuassistant.entity.XianyuSyncCheckpoint;
+
+/**
+ * 消息同步检查点服务接口
+ * 记录每个账号已处理的最大同步位置（pts/seq），重连时只同步断线期间的消息
+ */
+public interface SyncCheckpointService {
+    
+    /**
+     * 同步包的处理进度
+     */
+    interface SyncProgress {
+        
+        /**
+         * 包内一条消息处理完成（已提交到数据库，或确定不需要保存），每条消息调用一次
+         */
+        void complete();
+    }
+    
+    /**
+     * 登记一个同步包（分发包内消息之前调用）
+     * 包内消息全部完成、且该账号之前登记的同步包也都完成后，检查点才推进到该包的位置（只前进不后退，定期批量写入数据库）
+     * 
+     * @param accountId 账号ID
+     * @param pts 同步包的最大同步位置
+     * @param seq 同步包的最大同步序号
+     * @param messages 需要等待完成的消息数，为0时按到达顺序直接推进
+     * @return 同步包进度
+     */
+    SyncProgress track(Long accountId, long pts, long seq, int messages);
+    
+    /**
+     * 获取重连时的同步起点（已减去重叠窗口）
+     * 
+     * @param accountId 账号ID
+     * @return 同步起点，没有检查点时pts和seq为0（全量同步）
+     */
+    XianyuSyncCheckpoint getResumePoint(Long accountId);
+    
+    /**
+     * 把内存中未写入的检查点写入数据库
+     */
+    void flush();
+    
+    /**
+     * 移除账号在内存中的检查点（删除账号时在删除数据库记录之前调用，避免定时写入把记录写回）
+     * 
+     * @param accountId 账号ID
+     */
+    void evict(Long accountId);
+}
@@ -1,5 +1,10 @@
 package com.feijimiao.xianyuassistant.service;
 
+import com.feijimiao.xianyuassistant.websocket.SendResult;
+import com.feijimiao.xianyuassistant.websocket.XianyuWebSocketClient;
+
+import java.util.concurrent.CompletableFuture;
+
 /**
  * WebSocket服务接口
  */
@@ -38,6 +43,14 @@ public interface WebSocketService {
      */
     boolean isConnected(Long accountId);
     
+    /**
+     * 获取账号的WebSocket客户端
+     *
+     * @param accountId 账号ID
+     * @return 客户端，未启动时返回null
+     */
+    XianyuWebSocketClient getClient(Long accountId);
+    
     /**
      * 停止所有WebSocket连接
      */
@@ -50,7 +63,18 @@ public interface WebSocketService {
      * @param cid 会话ID（不带@goofish后缀）
      * @param toId 接收方用户ID（不带@goofish后缀）
      * @param text 消息文本内容
-     * @return 是否成功
+     * @return 服务器是否确认成功（阻塞等待服务器响应或超时）
      */
     boolean sendMessage(Long accountId, String cid, String toId, String text);
+    
+    /**
+     * 异步发送消息
+     *
+     * @param accountId 账号ID
+     * @param cid 会话ID（不带@goofish后缀）
+     * @param toId 接收方用户ID（不带@goofish后缀）
+     * @param text 消息文本内容
+     * @return 发送结果，服务器按mid响应、超时或被拒绝时完成（总是正常完成）
+     */
+    CompletableFuture<SendResult> sendMessageAsync(Long accountId, String cid, String toId, String text);
 }
@@ -15,7 +15,9 @@ import com.feijimiao.xianyuassistant.mapper.XianyuGoodsAutoDeliveryRecordMapper;
 import com.feijimiao.xianyuassistant.mapper.XianyuGoodsAutoReplyConfigMapper;
 import com.feijimiao.xianyuassistant.mapper.XianyuGoodsAutoReplyRecordMapper;
 import com.feijimiao.xianyuassistant.mapper.XianyuOperationLogMapper;
+import com.feijimiao.xianyuassistant.mapper.XianyuSyncCheckpointMapper;
 import com.feijimiao.xianyuassistant.service.AccountService;
+import com.feijimiao.xianyuassistant.service.SyncCheckpointService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -61,6 +63,12 @@ public class AccountServiceImpl implements AccountService {
     @Autowired
     private XianyuOperationLogMapper operationLogMapper;
     
+    @Autowired
+    private XianyuSyncCheckpointMapper syncCheckpointMapper;
+
+    @Autowired
+    private SyncCheckpointService syncCheckpointService;
+    
     private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     
     /**
@@ -465,6 +473,11 @@ public class AccountServiceImpl implements AccountService {
             int operationLogCount = operationLogMapper.deleteByAccountId(accountId);
             log.info("删除操作记录数据: accountId={}, 删除数量={}", accountId, operationLogCount);
             
+            // 8.1 删除消息同步检查点（先移除内存中的检查点，避免定时写入把记录写回）
+            syncCheckpointService.evict(accountId);
+            int checkpointCount = syncCheckpointMapper.deleteByAccountId(accountId);
+            log.info("删除同步检查点数据: accountId={}, 删除数量={}", accountId, checkpointCount);
+            
             // 9. 删除闲鱼Cookie表数据
             LambdaQueryWrapper<XianyuCookie> cookieQuery = new LambdaQueryWrapper<>();
             cookieQuery.eq(XianyuCookie::getXianyuAccountId, accountId);
@@ -14,11 +14,13 @@ import com.feijimiao.xianyuassistant.service.AutoDeliveryService;
 import com.feijimiao.xianyuassistant.service.WebSocketService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.regex.Pattern;
 
 /**
@@ -47,6 +49,10 @@ public class AutoDeliveryServiceImpl implements AutoDeliveryService {
     @Autowired
     private WebSocketService webSocketService;
     
+    @Autowired
+    @Qualifier("taskExecutor")
+    private Executor taskExecutor;
+    
     @Override
     public XianyuGoodsConfig getGoodsConfig(Long accountId, String xyGoodsId) {
         return goodsConfigMapper.selectByAccountAndGoodsId(accountId, xyGoodsId);
@@ -141,18 +147,18 @@ public class AutoDeliveryServiceImpl implements AutoDeliveryService {
             String cid = sId.replace("@goofish", "");
             String toId = cid; // 对于闲鱼，cid和toId通常相同
             
-            // 5. 发送消息
-            boolean success = webSocketService.sendMessage(accountId, cid, toId, content);
-            
-            // 6. 记录发货结果（传递买家用户ID和用户名）
-            recordAutoDelivery(accountId, xyGoodsId, buyerUserId, buyerUserName, content, success ? 1 : 0);
-            
-            if (success) {
-                log.info("【账号{}】自动发货成功: xyGoodsId={}, buyerUserName={}, content={}", 
-                        accountId, xyGoodsId, buyerUserName, content);
-            } else {
-                log.error("【账号{}】自动发货失败: xyGoodsId={}", accountId, xyGoodsId);
-            }
+            // 5. 发送消息，服务器确认后在异步线程池上记录结果
+            webSocketService.sendMessageAsync(accountId, cid, toId, content).thenAcceptAsync(result -> {
+                // 6. 记录发货结果（传递买家用户ID和用户名）
+                recordAutoDelivery(accountId, xyGoodsId, buyerUserId, buyerUserName, content, result.isSuccess() ? 1 : 0);
+                
+                if (result.isSuccess()) {
+                    log.info("【账号{}】自动发货成功: xyGoodsId={}, buyerUserName={}, content={}", 
+                            accountId, xyGoodsId, buyerUserName, content);
+                } else {
+                    log.error("【账号{}】自动发货失败: xyGoodsId={}, result={}", accountId, xyGoodsId, result);
+                }
+            }, taskExecutor);
             
         } catch (Exception e) {
             log.error("【账号{}】自动发货异常: xyGoodsId={}", accountId, xyGoodsId, e);
@@ -250,18 +256,19 @@ public class AutoDeliveryServiceImpl implements AutoDeliveryService {
             String cid = sId.replace("@goofish", "");
             String toId = cid;
             
-            // 7. 发送消息
-            boolean success = webSocketService.sendMessage(accountId, cid, toId, replyContent);
-            
-            // 8. 记录回复结果
-            recordAutoReply(accountId, xyGoodsId, buyerMessage, replyContent, matchedKeyword, success ? 1 : 0);
-            
-            if (success) {
-                log.info("【账号{}】自动回复成功: xyGoodsId={}, keyword={}, reply={}", 
-                        accountId, xyGoodsId, matchedKeyword, replyContent);
-            } else {
-                log.error("【账号{}】自动回复失败: xyGoodsId={}", accountId, xyGoodsId);
-            }
+            // 7. 发送消息，服务器确认后在异步线程池上记录结果
+            String keyword = matchedKeyword;
+            webSocketService.sendMessageAsync(accountId, cid, toId, replyContent).thenAcceptAsync(result -> {
+                // 8. 记录回复结果
+                recordAutoReply(accountId, xyGoodsId, buyerMessage, replyContent, keyword, result.isSuccess() ? 1 : 0);
+                
+                if (result.isSuccess()) {
+                    log.info("【账号{}】自动回复成功: xyGoodsId={}, keyword={}, reply={}", 
+                            accountId, xyGoodsId, keyword, replyContent);
+                } else {
+                    log.error("【账号{}】自动回复失败: xyGoodsId={}, result={}", accountId, xyGoodsId, result);
+                }
+            }, taskExecutor);
             
         } catch (Exception e) {
             log.error("【账号{}】自动回复异常: xyGoodsId={}", accountId, xyGoodsId, e);
@@ -0,0 +1,262 @@
+package com.feijimiao.xianyuassistant.service.impl;
+
+import com.feijimiao.xianyuassistant.entity.XianyuSyncCheckpoint;
+import com.feijimiao.xianyuassistant.mapper.XianyuSyncCheckpointMapper;
+import com.feijimiao.xianyuassistant.service.SyncCheckpointService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 消息同步检查点服务实现类
+ *
+ * <p>每个账号按到达顺序记录尚未处理完的同步包，包内消息都已提交到数据库（或确定不需要保存）、
+ * 且之前的同步包也都完成后，检查点才推进到该包的位置。消息跨会话并行处理、完成顺序不定，
+ * 检查点不会越过任何一条还在解析、分发或等待批量写入的消息，崩溃后从检查点重新同步不会丢消息。</p>
+ *
+ * <p>检查点先在内存中推进，由后台线程每隔一段时间把有变化的账号批量写入数据库，
+ * 避免每个同步包都写一次SQLite。应用关闭时写入剩余的检查点。</p>
+ *
+ * <p>pts是微秒级时间戳（参考Python: 毫秒时间戳 * 1000），重连时再减去重叠窗口作为余量，
+ * 重复同步的消息由消息去重丢弃。</p>
+ */
+@Slf4j
+@Service
+public class SyncCheckpointServiceImpl implements SyncCheckpointService {
+
+    @Autowired
+    private XianyuSyncCheckpointMapper checkpointMapper;
+
+    @Value("${xianyu.websocket.sync.checkpoint-enabled:true}")
+    private boolean enabled;
+
+    @Value("${xianyu.websocket.sync.overlap-ms:60000}")
+    private long overlapMillis;
+
+    @Value("${xianyu.websocket.sync.flush-interval-ms:5000}")
+    private long flushIntervalMillis;
+
+    // 账号ID -> 内存中的检查点
+    private final Map<Long, Checkpoint> checkpoints = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            log.info("消息同步检查点已关闭，重连时全量同步");
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("sync-checkpoint").daemon(true).factory());
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public SyncProgress track(Long accountId, long pts, long seq, int messages) {
+        if (!enabled || (pts <= 0 && seq <= 0)) {
+            return NO_PROGRESS;
+        }
+        Checkpoint checkpoint = load(accountId);
+        Batch batch = new Batch(checkpoint, pts, seq, messages);
+        synchronized (checkpoint) {
+            checkpoint.inFlight.addLast(batch);
+        }
+        if (messages <= 0) {
+            settle(checkpoint);
+        }
+        return batch;
+    }
+
+    /**
+     * 按到达顺序移除已完成的同步包并推进检查点，遇到未完成的同步包停止
+     */
+    private void settle(Checkpoint checkpoint) {
+        synchronized (checkpoint) {
+            Batch head;
+            while ((head = checkpoint.inFlight.peekFirst()) != null && head.pending.get() <= 0) {
+                checkpoint.inFlight.pollFirst();
+                if (head.pts > checkpoint.pts || head.seq > checkpoint.seq) {
+                    checkpoint.pts = Math.max(checkpoint.pts, head.pts);
+                    checkpoint.seq = Math.max(checkpoint.seq, head.seq);
+                    checkpoint.dirty = true;
+                }
+            }
+        }
+    }
+
+    @Override
+    public XianyuSyncCheckpoint getResumePoint(Long accountId) {
+        XianyuSyncCheckpoint resume = new XianyuSyncCheckpoint();
+        resume.setXianyuAccountId(accountId);
+        resume.setPts(0L);
+        resume.setSeq(0L);
+        if (!enabled) {
+            return resume;
+        }
+
+        Checkpoint checkpoint = load(accountId);
+        synchronized (checkpoint) {
+            if (checkpoint.pts > 0) {
+                resume.setPts(Math.max(0, checkpoint.pts - overlapMillis * 1000));
+                resume.setSeq(checkpoint.seq);
+            }
+        }
+        return resume;
+    }
+
+    /**
+     * 获取内存中的检查点，首次访问时从数据库加载
+     */
+    private Checkpoint load(Long accountId) {
+        return checkpoints.computeIfAbsent(accountId, id -> {
+            Checkpoint checkpoint = new Checkpoint();
+            try {
+                XianyuSyncCheckpoint saved = checkpointMapper.selectByAccountId(id);
+                if (saved != null) {
+                    checkpoint.pts = saved.getPts() != null ? saved.getPts() : 0;
+                    checkpoint.seq = saved.getSeq() != null ? saved.getSeq() : 0;
+                }
+            } catch (Exception e) {
+                log.warn("【账号{}】加载同步检查点失败: {}", id, e.getMessage());
+            }
+            return checkpoint;
+        });
+    }
+
+    @Override
+    public void flush() {
+        for (Map.Entry<Long, Checkpoint> entry : checkpoints.entrySet()) {
+            Checkpoint checkpoint = entry.getValue();
+            XianyuSyncCheckpoint row;
+            synchronized (checkpoint) {
+                if (checkpoint.evicted) {
+                    continue;
+                }
+                warnIfStalled(entry.getKey(), checkpoint);
+                if (!checkpoint.dirty) {
+                    continue;
+                }
+                row = new XianyuSyncCheckpoint();
+                row.setXianyuAccountId(entry.getKey());
+                row.setPts(checkpoint.pts);
+                row.setSeq(checkpoint.seq);
+                row.setUpdateTime(System.currentTimeMillis());
+                checkpoint.dirty = false;
+            }
+            try {
+                checkpointMapper.upsert(row);
+                // 写入期间账号被删除，删掉刚写入的检查点
+                boolean evicted;
+                synchronized (checkpoint) {
+                    evicted = checkpoint.evicted;
+                }
+                if (evicted) {
+                    checkpointMapper.deleteByAccountId(entry.getKey());
+                }
+            } catch (Exception e) {
+                // 写入失败，下次重试
+                synchronized (checkpoint) {
+                    checkpoint.dirty = true;
+                }
+                log.warn("【账号{}】保存同步检查点失败: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 最早的同步包超过重叠窗口仍未处理完时告警（每个同步包只告警一次，调用方持有checkpoint锁）
+     * 检查点停在该包之前，不会丢消息，但重连时重复同步的消息会变多
+     */
+    private void warnIfStalled(Long accountId, Checkpoint checkpoint) {
+        Batch head = checkpoint.inFlight.peekFirst();
+        if (head == null || head.warned) {
+            return;
+        }
+        long waited = System.currentTimeMillis() - head.trackedAt;
+        if (waited > Math.max(overlapMillis, flushIntervalMillis)) {
+            head.warned = true;
+            log.warn("【账号{}】同步包已等待{}ms仍有{}条消息未保存，检查点停在pts={}，待处理同步包{}个",
+                    accountId, waited, head.pending.get(), checkpoint.pts, checkpoint.inFlight.size());
+        }
+    }
+
+    /**
+     * 标记并移除检查点，返回后 {@link #flush()} 不会再写入该账号的检查点；
+     * 已在写入中的检查点由flush写完后自行删除。
+     * 不等待flush，删除账号的事务持有写连接时调用也不会与flush中的写入互相等待
+     */
+    @Override
+    public void evict(Long accountId) {
+        Checkpoint checkpoint = checkpoints.remove(accountId);
+        if (checkpoint != null) {
+            synchronized (checkpoint) {
+                checkpoint.evicted = true;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flusher != null) {
+            flusher.shutdown();
+            flush();
+        }
+    }
+
+    /**
+     * 内存中的检查点（字段在对象锁内修改）
+     */
+    private static final class Checkpoint {
+        private long pts;
+        private long seq;
+        private boolean dirty;
+        // 账号已删除，不再写入
+        private boolean evicted;
+        // 尚未处理完的同步包，按到达顺序
+        private final ArrayDeque<Batch> inFlight = new ArrayDeque<>();
+    }
+
+    /**
+     * 检查点关闭或同步包没有位置时返回的空进度
+     */
+    private static final SyncProgress NO_PROGRESS = () -> {
+    };
+
+    /**
+     * 一个同步包的处理进度
+     */
+    private final class Batch implements SyncProgress {
+        private final Checkpoint checkpoint;
+        private final long pts;
+        private final long seq;
+        private final long trackedAt = System.currentTimeMillis();
+        private final AtomicInteger pending;
+        private boolean warned;
+
+        Batch(Checkpoint checkpoint, long pts, long seq, int messages) {
+            this.checkpoint = checkpoint;
+            this.pts = pts;
+            this.seq = seq;
+            this.pending = new AtomicInteger(Math.max(0, messages));
+        }
+
+        @Override
+        public void complete() {
+            if (pending.decrementAndGet() == 0) {
+                settle(checkpoint);
+            }
+        }
+    }
+}
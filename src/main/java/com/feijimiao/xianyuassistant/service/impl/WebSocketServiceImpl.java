@@ -4,12 +4,20 @@ import com.feijimiao.xianyuassistant.service.AccountService;
 import com.feijimiao.xianyuassistant.service.WebSocketService;
 import com.feijimiao.xianyuassistant.service.WebSocketTokenService;
 import com.feijimiao.xianyuassistant.utils.XianyuSignUtils;
+import com.feijimiao.xianyuassistant.websocket.ConnectionSupervisor;
+import com.feijimiao.xianyuassistant.websocket.HeartbeatService;
+import com.feijimiao.xianyuassistant.websocket.SendResult;
 import com.feijimiao.xianyuassistant.websocket.WebSocketInitializer;
+import com.feijimiao.xianyuassistant.websocket.WebSocketMessageExecutor;
 import com.feijimiao.xianyuassistant.websocket.WebSocketMessageHandler;
 import com.feijimiao.xianyuassistant.websocket.XianyuWebSocketClient;
+import com.feijimiao.xianyuassistant.websocket.record.FrameRecorder;
+import com.feijimiao.xianyuassistant.websocket.transport.LwpTransportFactory;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.net.URI;
@@ -36,21 +44,50 @@ public class WebSocketServiceImpl implements WebSocketService {
     
     @Autowired
     private WebSocketInitializer initializer;
+    
+    @Autowired
+    private WebSocketMessageExecutor messageExecutor;
+    
+    @Autowired
+    private HeartbeatService heartbeatService;
+    
+    @Autowired
+    private ConnectionSupervisor connectionSupervisor;
+
+    @Autowired
+    private LwpTransportFactory transportFactory;
+
+    @Autowired
+    private FrameRecorder frameRecorder;
+
+    /**
+     * 等待服务器响应发送请求的超时时间（毫秒）
+     */
+    @Value("${xianyu.websocket.send.timeout-ms:10000}")
+    private long sendTimeoutMillis;
+
+    /**
+     * 单连接最大在途发送请求数
+     */
+    @Value("${xianyu.websocket.send.max-in-flight:32}")
+    private int sendMaxInFlight;
 
     // 存储WebSocket客户端
     private final Map<Long, XianyuWebSocketClient> webSocketClients = new ConcurrentHashMap<>();
-    
-    // 心跳定时器
-    private final ScheduledExecutorService heartbeatScheduler = Executors.newScheduledThreadPool(1);
-    
-    // 心跳任务
-    private final Map<Long, ScheduledFuture<?>> heartbeatTasks = new ConcurrentHashMap<>();
 
     /**
      * 闲鱼WebSocket URL
-     * 参考Python代码：wss://wss-goofish.dingtalk.com/
+     * 参考Python代码：wss://wss-goofish.dingtalk.com/（压测时可指向本地模拟服务器）
      */
-    private static final String WEBSOCKET_URL = "wss://wss-goofish.dingtalk.com/";
+    @Value("${xianyu.websocket.url:wss://wss-goofish.dingtalk.com/}")
+    private String websocketUrl;
+
+    @PostConstruct
+    public void init() {
+        // 连接异常由监管器按退避时间在后台重连，重连期间被人工停止时关闭新连接
+        connectionSupervisor.setReconnectAction(this::reconnect);
+        connectionSupervisor.setCloseAction(this::closeConnection);
+    }
 
     @Override
     public boolean startWebSocket(Long accountId) {
@@ -65,50 +102,85 @@ public class WebSocketServiceImpl implements WebSocketService {
                     return true;
                 } else {
                     // 关闭旧连接
-                    stopWebSocket(accountId);
+                    closeConnection(accountId);
                 }
             }
 
-            // 获取Cookie
-            String cookieStr = accountService.getCookieByAccountId(accountId);
-            if (cookieStr == null || cookieStr.isEmpty()) {
-                log.error("未找到账号Cookie: accountId={}", accountId);
-                throw new com.feijimiao.xianyuassistant.exception.CookieNotFoundException("未找到账号Cookie，请先配置Cookie");
-            }
-
-            // 解析Cookie
-            Map<String, String> cookies = XianyuSignUtils.parseCookies(cookieStr);
-            
-            // 生成设备ID（参考Python的generate_device_id）
-            String unb = cookies.get("unb");
-            if (unb == null || unb.isEmpty()) {
-                log.error("Cookie中缺少unb字段: accountId={}", accountId);
-                throw new com.feijimiao.xianyuassistant.exception.CookieExpiredException("Cookie中缺少unb字段，Cookie可能已过期或无效");
+            connectionSupervisor.onConnecting(accountId);
+            boolean result = openConnection(accountId);
+            if (!result) {
+                connectionSupervisor.onConnectFailed(accountId, "WebSocket连接失败");
             }
-            String deviceId = "web_" + unb;
-            
-            // 获取accessToken（参考Python的refresh_token）
-            log.info("正在获取accessToken: accountId={}", accountId);
-            String accessToken = tokenService.getAccessToken(accountId, cookieStr, deviceId);
-            if (accessToken == null || accessToken.isEmpty()) {
-                log.error("获取accessToken失败: accountId={}", accountId);
-                log.error("无法继续WebSocket连接，请检查Cookie是否有效");
-                throw new com.feijimiao.xianyuassistant.exception.TokenInvalidException("无法获取WebSocket Token，请检查Cookie是否有效");
-            }
-            log.info("accessToken获取成功: accountId={}, token长度={}", accountId, accessToken.length());
-            
-            // 调用通用连接方法
-            return connectWebSocket(accountId, cookieStr, deviceId, accessToken, unb);
+            return result;
 
         } catch (com.feijimiao.xianyuassistant.exception.CaptchaRequiredException e) {
             log.warn("启动WebSocket需要滑块验证: accountId={}, url={}", accountId, e.getCaptchaUrl());
+            connectionSupervisor.onConnectFailed(accountId, "需要滑块验证");
             throw e; // 重新抛出，让Controller处理
         } catch (Exception e) {
             log.error("启动WebSocket失败: accountId={}", accountId, e);
+            connectionSupervisor.onConnectFailed(accountId, e.getMessage());
             return false;
         }
     }
 
+    /**
+     * 获取Cookie和accessToken后建立连接
+     */
+    private boolean openConnection(Long accountId) throws Exception {
+        // 获取Cookie
+        String cookieStr = accountService.getCookieByAccountId(accountId);
+        if (cookieStr == null || cookieStr.isEmpty()) {
+            log.error("未找到账号Cookie: accountId={}", accountId);
+            throw new com.feijimiao.xianyuassistant.exception.CookieNotFoundException("未找到账号Cookie，请先配置Cookie");
+        }
+
+        // 解析Cookie
+        Map<String, String> cookies = XianyuSignUtils.parseCookies(cookieStr);
+        
+        // 生成设备ID（参考Python的generate_device_id）
+        String unb = cookies.get("unb");
+        if (unb == null || unb.isEmpty()) {
+            log.error("Cookie中缺少unb字段: accountId={}", accountId);
+            throw new com.feijimiao.xianyuassistant.exception.CookieExpiredException("Cookie中缺少unb字段，Cookie可能已过期或无效");
+        }
+        String deviceId = "web_" + unb;
+        
+        // 获取accessToken（参考Python的refresh_token）
+        log.info("正在获取accessToken: accountId={}", accountId);
+        String accessToken = tokenService.getAccessToken(accountId, cookieStr, deviceId);
+        if (accessToken == null || accessToken.isEmpty()) {
+            log.error("获取accessToken失败: accountId={}", accountId);
+            log.error("无法继续WebSocket连接，请检查Cookie是否有效");
+            throw new com.feijimiao.xianyuassistant.exception.TokenInvalidException("无法获取WebSocket Token，请检查Cookie是否有效");
+        }
+        log.info("accessToken获取成功: accountId={}, token长度={}", accountId, accessToken.length());
+        
+        // 调用通用连接方法
+        return connectWebSocket(accountId, cookieStr, deviceId, accessToken, unb);
+    }
+
+    /**
+     * 重连（由连接监管器在后台线程调用）
+     *
+     * @param accountId 账号ID
+     * @param refreshToken 是否先清除数据库中的Token
+     */
+    private boolean reconnect(Long accountId, boolean refreshToken) throws Exception {
+        // 关闭当前连接（监管器已切换到CONNECTING，这里不再改变状态，避免覆盖期间的人工停止）
+        closeConnection(accountId);
+        
+        if (refreshToken) {
+            // 强制刷新Token（清除数据库中的无效token）
+            log.info("【账号{}】强制刷新Token（清除数据库缓存）", accountId);
+            tokenService.clearToken(accountId);
+        }
+        
+        // 重新建立连接（会自动刷新Token）
+        log.info("【账号{}】重新启动WebSocket连接", accountId);
+        return openConnection(accountId);
+    }
+
     @Override
     public boolean startWebSocketWithToken(Long accountId, String accessToken) {
         try {
@@ -127,9 +199,10 @@ public class WebSocketServiceImpl implements WebSocketService {
                 } else {
                     // 关闭旧连接
                     log.info("【账号{}】关闭旧连接", accountId);
-                    stopWebSocket(accountId);
+                    closeConnection(accountId);
                 }
             }
+            connectionSupervisor.onConnecting(accountId);
 
             // 获取Cookie
             String cookieStr = accountService.getCookieByAccountId(accountId);
@@ -160,10 +233,14 @@ public class WebSocketServiceImpl implements WebSocketService {
             log.info("【账号{}】连接结果={}", accountId, result);
             log.info("========== 手动Token启动流程结束 ==========");
             
+            if (!result) {
+                connectionSupervisor.onConnectFailed(accountId, "WebSocket连接失败");
+            }
             return result;
 
         } catch (Exception e) {
             log.error("【账号{}】使用手动Token启动WebSocket失败", accountId, e);
+            connectionSupervisor.onConnectFailed(accountId, e.getMessage());
             return false;
         }
     }
@@ -178,7 +255,8 @@ public class WebSocketServiceImpl implements WebSocketService {
             headers.put("Cookie", cookieStr);
             headers.put("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/133.0.0.0 Safari/537.36");
             headers.put("Origin", "https://www.goofish.com");
-            headers.put("Host", "wss-goofish.dingtalk.com");
+            URI serverUri = new URI(websocketUrl);
+            headers.put("Host", serverUri.getHost());
             headers.put("Accept-Encoding", "gzip, deflate, br, zstd");
             headers.put("Accept-Language", "zh-CN,zh;q=0.9");
             headers.put("Cache-Control", "no-cache");
@@ -187,8 +265,8 @@ public class WebSocketServiceImpl implements WebSocketService {
             headers.put("Upgrade", "websocket");
 
             // 创建WebSocket客户端（参考Python的_create_websocket_connection）
-            URI serverUri = new URI(WEBSOCKET_URL);
-            XianyuWebSocketClient client = new XianyuWebSocketClient(serverUri, headers, String.valueOf(accountId));
+            XianyuWebSocketClient client = new XianyuWebSocketClient(serverUri, headers, String.valueOf(accountId),
+                    transportFactory);
             
             // 设置当前用户ID（从Cookie的unb字段获取）
             client.setMyUserId(unb);
@@ -196,44 +274,38 @@ public class WebSocketServiceImpl implements WebSocketService {
             // 设置消息处理器
             client.setMessageHandler(messageHandler);
             
+            // 设置共享消息执行器
+            client.setMessageExecutor(messageExecutor);
+            client.setOutboundExecutor(messageExecutor.getWriterExecutor());
+            client.setSendLimits(sendMaxInFlight, sendTimeoutMillis);
+            
+            // 开启录制时记录收到的原始帧
+            if (frameRecorder.isEnabled()) {
+                client.setFrameRecorder(frameRecorder);
+            }
+            
             // 设置注册成功回调（保存Token）
             final String finalAccessToken = accessToken;
             client.setOnRegistrationSuccess(() -> {
                 log.info("【账号{}】注册成功回调被触发，开始保存Token到数据库", accountId);
                 tokenService.saveToken(accountId, finalAccessToken);
                 log.info("【账号{}】✅ Token已成功保存到数据库", accountId);
+                connectionSupervisor.onRegistered(accountId);
             });
             
-            // 设置Token失效回调（自动重连）
-            client.setOnTokenExpired(() -> {
-                log.warn("【账号{}】Token失效，开始自动重连流程...", accountId);
-                try {
-                    // 停止当前连接
-                    stopWebSocket(accountId);
-                    
-                    // 等待1秒
-                    Thread.sleep(1000);
-                    
-                    // 强制刷新Token（清除数据库中的无效token）
-                    log.info("【账号{}】强制刷新Token（清除数据库缓存）", accountId);
-                    tokenService.clearToken(accountId);
-                    
-                    // 重新启动连接（会自动刷新Token）
-                    log.info("【账号{}】重新启动WebSocket连接（自动刷新Token）", accountId);
-                    boolean success = startWebSocket(accountId);
-                    
-                    if (success) {
-                        log.info("【账号{}】✅ 自动重连成功", accountId);
-                    } else {
-                        log.error("【账号{}】❌ 自动重连失败", accountId);
-                    }
-                } catch (Exception e) {
-                    log.error("【账号{}】自动重连异常", accountId, e);
+            // 设置Token失效回调（由监管器在后台刷新Token并重连，不阻塞消息处理线程）
+            client.setOnTokenExpired(() ->
+                    connectionSupervisor.reportFailure(accountId, "Token失效(401)", true));
+            
+            // 设置连接断开回调（人工停止和重连时会先移除客户端，不会触发重连）
+            client.setOnDisconnected(reason -> {
+                if (webSocketClients.get(accountId) == client) {
+                    connectionSupervisor.reportFailure(accountId, "连接已断开: " + reason, false);
                 }
             });
 
             // 连接WebSocket（参考Python的connect方法）
-            log.info("正在连接WebSocket: {}", WEBSOCKET_URL);
+            log.info("正在连接WebSocket: {}, transport={}", websocketUrl, transportFactory.getType());
             log.info("请求头: {}", headers);
             
             boolean connected = client.connectBlocking(10, TimeUnit.SECONDS);
@@ -266,14 +338,24 @@ public class WebSocketServiceImpl implements WebSocketService {
 
     @Override
     public boolean stopWebSocket(Long accountId) {
-        try {
-            log.info("停止WebSocket连接: accountId={}", accountId);
+        log.info("停止WebSocket连接: accountId={}", accountId);
+        
+        // 取消待执行的重连
+        connectionSupervisor.stop(accountId);
+        return closeConnection(accountId);
+    }
 
+    /**
+     * 关闭连接（不改变监管状态）
+     */
+    private boolean closeConnection(Long accountId) {
+        try {
             // 停止心跳任务
             stopHeartbeat(accountId);
 
             // 关闭WebSocket连接
             XianyuWebSocketClient client = webSocketClients.remove(accountId);
+            messageExecutor.removeAccount(String.valueOf(accountId));
             if (client != null) {
                 client.close();
                 log.info("WebSocket连接已关闭: accountId={}", accountId);
@@ -295,6 +377,11 @@ public class WebSocketServiceImpl implements WebSocketService {
         return client != null && client.isConnected();
     }
 
+    @Override
+    public XianyuWebSocketClient getClient(Long accountId) {
+        return webSocketClients.get(accountId);
+    }
+
     @Override
     public void stopAllWebSockets() {
         log.info("停止所有WebSocket连接");
@@ -302,49 +389,40 @@ public class WebSocketServiceImpl implements WebSocketService {
         for (Long accountId : webSocketClients.keySet()) {
             stopWebSocket(accountId);
         }
-        
-        // 关闭心跳调度器
-        heartbeatScheduler.shutdown();
     }
 
     /**
      * 启动心跳任务
      */
     private void startHeartbeat(Long accountId, XianyuWebSocketClient client) {
-        // 每15秒发送一次心跳（参考Python的HEARTBEAT_INTERVAL=15）
-        ScheduledFuture<?> task = heartbeatScheduler.scheduleAtFixedRate(
-            () -> {
-                try {
-                    if (client.isConnected()) {
-                        client.sendHeartbeat();
-                    } else {
-                        log.warn("WebSocket未连接，停止心跳: accountId={}", accountId);
-                        stopHeartbeat(accountId);
-                    }
-                } catch (Exception e) {
-                    log.error("发送心跳失败: accountId={}", accountId, e);
-                }
-            },
-            15, 15, TimeUnit.SECONDS
-        );
-        
-        heartbeatTasks.put(accountId, task);
-        log.info("心跳任务已启动: accountId={}, 间隔15秒", accountId);
+        // 心跳由共享时间轮调度（参考Python的HEARTBEAT_INTERVAL=15）
+        heartbeatService.register(accountId, client, (key, closed, silentMillis) -> {
+            if (closed) {
+                log.warn("WebSocket未连接，停止心跳: accountId={}", accountId);
+                return;
+            }
+            // 长时间没有收到任何消息，连接已失效：交给监管器在后台重连，不占用心跳线程
+            if (webSocketClients.get(accountId) == client) {
+                log.warn("【账号{}】WebSocket已静默{}ms，判定为死连接", accountId, silentMillis);
+                connectionSupervisor.reportFailure(accountId, "静默" + silentMillis + "ms无消息", false);
+            }
+        });
     }
 
     /**
      * 停止心跳任务
      */
     private void stopHeartbeat(Long accountId) {
-        ScheduledFuture<?> task = heartbeatTasks.remove(accountId);
-        if (task != null) {
-            task.cancel(false);
-            log.info("心跳任务已停止: accountId={}", accountId);
-        }
+        heartbeatService.cancel(accountId);
     }
 
     @Override
     public boolean sendMessage(Long accountId, String cid, String toId, String text) {
+        return sendMessageAsync(accountId, cid, toId, text).join().isSuccess();
+    }
+
+    @Override
+    public CompletableFuture<SendResult> sendMessageAsync(Long accountId, String cid, String toId, String text) {
         try {
             log.info("发送消息: accountId={}, cid={}, toId={}, text={}", accountId, cid, toId, text);
             
@@ -352,21 +430,22 @@ public class WebSocketServiceImpl implements WebSocketService {
             XianyuWebSocketClient client = webSocketClients.get(accountId);
             if (client == null) {
                 log.error("WebSocket客户端不存在: accountId={}", accountId);
-                return false;
+                return CompletableFuture.completedFuture(
+                        SendResult.notSent(SendResult.Status.NOT_CONNECTED, "WebSocket客户端不存在"));
             }
             
             if (!client.isConnected()) {
                 log.error("WebSocket未连接: accountId={}", accountId);
-                return false;
+                return CompletableFuture.completedFuture(
+                        SendResult.notSent(SendResult.Status.NOT_CONNECTED, "WebSocket未连接"));
             }
             
-            // 发送消息
-            client.sendMessage(cid, toId, text);
-            return true;
+            // 发送消息，服务器响应后完成
+            return client.sendMessageAsync(cid, toId, text);
             
         } catch (Exception e) {
             log.error("发送消息失败: accountId={}, cid={}, toId={}", accountId, cid, toId, e);
-            return false;
+            return CompletableFuture.completedFuture(SendResult.notSent(SendResult.Status.FAILED, e.getMessage()));
         }
     }
 
@@ -0,0 +1,145 @@
+package com.feijimiao.xianyuassistant.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 聊天消息完整消息体（complete_msg）的存储编码
+ *
+ * <p>xianyu_chat_message 用 complete_msg_format 标记消息体的存储格式：</p>
+ * <ul>
+ *   <li>{@link Format#JSON}：JSON文本存在 complete_msg 列（旧数据、未开启编码时）</li>
+ *   <li>{@link Format#DEFLATE}：deflate压缩的JSON存在 complete_msg_blob 列，complete_msg 为空字符串</li>
+ *   <li>{@link Format#MSGPACK}：服务器下发的原始MessagePack字节存在 complete_msg_blob 列，complete_msg 为空字符串</li>
+ * </ul>
+ */
+@Slf4j
+public class CompleteMsgCodec {
+
+    /**
+     * 消息体存储格式
+     */
+    public enum Format {
+        JSON(0),
+        DEFLATE(1),
+        MSGPACK(2);
+
+        private final int tag;
+
+        Format(int tag) {
+            this.tag = tag;
+        }
+
+        /**
+         * 写入 complete_msg_format 列的值
+         */
+        public int getTag() {
+            return tag;
+        }
+
+        /**
+         * 根据 complete_msg_format 列的值获取格式，为空时视为JSON文本
+         */
+        public static Format of(Integer tag) {
+            if (tag == null) {
+                return JSON;
+            }
+            for (Format format : values()) {
+                if (format.tag == tag) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("未知的消息体存储格式: " + tag);
+        }
+
+        /**
+         * 从配置值解析存储格式，为空时使用JSON文本；无法识别时告警并回退到JSON文本
+         */
+        public static Format from(String value) {
+            if (value == null || value.isBlank()) {
+                return JSON;
+            }
+            try {
+                return Format.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                log.warn("无法识别的消息体存储格式 xianyu.chat-message.storage.codec={}，使用{}（可选值: json, deflate, msgpack）",
+                        value, JSON.name().toLowerCase());
+                return JSON;
+            }
+        }
+    }
+
+    /**
+     * deflate压缩JSON文本（zlib格式）
+     */
+    public static byte[] deflate(String json) {
+        byte[] input = json.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, input.length / 4));
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 解压 {@link #deflate(String)} 的结果
+     */
+    public static String inflate(byte[] blob) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(blob);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(blob.length * 4);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("压缩的消息体不完整");
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toString(StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("压缩的消息体已损坏: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * 按存储格式还原消息体JSON
+     *
+     * @param format complete_msg_format 列的值
+     * @param text complete_msg 列的值
+     * @param blob complete_msg_blob 列的值
+     * @return 消息体JSON
+     */
+    public static String decode(Integer format, String text, byte[] blob) {
+        switch (Format.of(format)) {
+            case DEFLATE:
+                return inflate(blob);
+            case MSGPACK:
+                try {
+                    return MessageDecryptUtils.unpack(blob).toString();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            default:
+                return text;
+        }
+    }
+}
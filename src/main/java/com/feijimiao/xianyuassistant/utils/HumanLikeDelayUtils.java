@@ -13,6 +13,18 @@ public class HumanLikeDelayUtils {
     
     private static final Random random = new Random();
     
+    /**
+     * 是否启用延迟（本地压测时关闭，只测量系统本身的耗时）
+     */
+    private static volatile boolean enabled = true;
+    
+    /**
+     * 开启或关闭所有模拟延迟
+     */
+    public static void setEnabled(boolean enabled) {
+        HumanLikeDelayUtils.enabled = enabled;
+    }
+    
     /**
      * 短延迟：500ms - 1500ms
      * 适用于：点击、输入等快速操作
@@ -44,6 +56,9 @@ public class HumanLikeDelayUtils {
      * @param maxMs 最大延迟毫秒数
      */
     public static void delay(int minMs, int maxMs) {
+        if (!enabled) {
+            return;
+        }
         if (minMs < 0 || maxMs < minMs) {
             log.warn("延迟参数无效: minMs={}, maxMs={}", minMs, maxMs);
             return;
@@ -68,6 +83,9 @@ public class HumanLikeDelayUtils {
      * @return 延迟毫秒数
      */
     public static void readingDelay(int textLength) {
+        if (!enabled) {
+            return;
+        }
         // 假设每个字符阅读时间 50-100ms
         int baseDelay = textLength * 50;
         int randomDelay = random.nextInt(textLength * 50 + 1);
@@ -96,6 +114,9 @@ public class HumanLikeDelayUtils {
      * @param textLength 文本长度
      */
     public static void typingDelay(int textLength) {
+        if (!enabled) {
+            return;
+        }
         // 假设每个字符打字时间 100-200ms
         int baseDelay = textLength * 100;
         int randomDelay = random.nextInt(textLength * 100 + 1);
@@ -1,13 +1,29 @@
 package com.feijimiao.xianyuassistant.utils;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.BigIntegerNode;
+import com.fasterxml.jackson.databind.node.BooleanNode;
+import com.fasterxml.jackson.databind.node.DoubleNode;
+import com.fasterxml.jackson.databind.node.IntNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.LongNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
 import lombok.extern.slf4j.Slf4j;
+import org.msgpack.core.ExtensionTypeHeader;
+import org.msgpack.core.MessageFormat;
+import org.msgpack.core.MessagePackException;
 import org.msgpack.core.MessagePack;
 import org.msgpack.core.MessageUnpacker;
-import org.msgpack.value.Value;
 
+import java.io.IOException;
+import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 消息解密工具类
@@ -16,78 +32,254 @@ import java.util.Base64;
 @Slf4j
 public class MessageDecryptUtils {
 
-    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final LongAdder[] UNDECODABLE = new LongAdder[DecodeStatus.values().length];
+
+    static {
+        for (int i = 0; i < UNDECODABLE.length; i++) {
+            UNDECODABLE[i] = new LongAdder();
+        }
+    }
+
+    private static final JsonNodeFactory JSON_NODES = JsonNodeFactory.instance;
 
     /**
      * 解密WebSocket消息
      * 参考Python的decrypt方法
      * 
      * @param encryptedData Base64编码的加密数据
-     * @return 解密后的JSON字符串
+     * @return 解密后的JSON字符串；不是MessagePack时返回Base64解码后的文本；数据为空或不是Base64时返回null
      */
     public static String decrypt(String encryptedData) {
+        if (encryptedData == null || encryptedData.isEmpty()) {
+            log.warn("加密数据为空");
+            return null;
+        }
+        DecodeResult result = decode(encryptedData);
+        if (result.isDecoded()) {
+            String json = result.tree().toString();
+            log.debug("转换为JSON: {}", json);
+            return json;
+        }
+        return result.text();
+    }
+
+    /**
+     * 解密WebSocket消息为JSON树
+     * Base64解码后直接遍历MessagePack流构建JsonNode，不经过中间JSON字符串
+     *
+     * @param encryptedData Base64编码的加密数据
+     * @return 解密后的JSON树，数据为空或不是合法的MessagePack时返回null
+     */
+    public static JsonNode decryptToTree(String encryptedData) {
+        if (encryptedData == null || encryptedData.isEmpty()) {
+            log.warn("加密数据为空");
+            return null;
+        }
+        return decode(encryptedData).tree();
+    }
+
+    /**
+     * 校验并解码消息，不抛出异常
+     *
+     * <p>先检查Base64字符集和长度，再检查第一个字节是否为MessagePack的Map/Array头，
+     * 都满足时才解包；无法解码的消息只计数（见 {@link #getUndecodableCount()}），不记录堆栈。</p>
+     *
+     * @param encryptedData Base64编码的加密数据
+     * @return 解码结果
+     */
+    public static DecodeResult decode(String encryptedData) {
+        if (encryptedData == null || encryptedData.isEmpty()) {
+            return DecodeResult.EMPTY;
+        }
+        byte[] bytes = decodeBase64(encryptedData);
+        if (bytes == null) {
+            return undecodable(DecodeStatus.NOT_BASE64, null);
+        }
+        if (!isMessagePackContainer(bytes)) {
+            return undecodable(DecodeStatus.NOT_MESSAGE_PACK, new String(bytes, StandardCharsets.UTF_8));
+        }
+        try {
+            return new DecodeResult(DecodeStatus.DECODED, unpackToTree(bytes), null);
+        } catch (IOException | MessagePackException e) {
+            log.debug("MessagePack解码失败: {}", e.getMessage());
+            return undecodable(DecodeStatus.MALFORMED, new String(bytes, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * 取出消息的原始MessagePack字节（用于按原格式存储），不计入无法解码统计
+     *
+     * @param encryptedData Base64编码的加密数据
+     * @return MessagePack字节，数据为空、不是Base64或不是MessagePack的Map/Array时返回null
+     */
+    public static byte[] toMessagePack(String encryptedData) {
+        if (encryptedData == null || encryptedData.isEmpty()) {
+            return null;
+        }
+        byte[] bytes = decodeBase64(encryptedData);
+        return bytes != null && isMessagePackContainer(bytes) ? bytes : null;
+    }
+
+    /**
+     * 将MessagePack字节解包为JSON树，转换规则与 {@link #decode(String)} 一致
+     *
+     * @param bytes MessagePack字节
+     * @return 解包后的JSON树
+     * @throws IOException 数据截断或损坏
+     */
+    public static JsonNode unpack(byte[] bytes) throws IOException {
         try {
-            if (encryptedData == null || encryptedData.isEmpty()) {
-                log.warn("加密数据为空");
+            return unpackToTree(bytes);
+        } catch (MessagePackException e) {
+            throw new IOException("MessagePack解码失败: " + e.getMessage(), e);
+        }
+    }
+
+    private static DecodeResult undecodable(DecodeStatus status, String text) {
+        UNDECODABLE[status.ordinal()].increment();
+        return new DecodeResult(status, null, text);
+    }
+
+    /**
+     * 累计无法解码的消息数
+     */
+    public static long getUndecodableCount() {
+        return UNDECODABLE[DecodeStatus.NOT_BASE64.ordinal()].sum()
+                + UNDECODABLE[DecodeStatus.NOT_MESSAGE_PACK.ordinal()].sum()
+                + UNDECODABLE[DecodeStatus.MALFORMED.ordinal()].sum();
+    }
+
+    /**
+     * 按原因统计的累计无法解码消息数
+     */
+    public static long getUndecodableCount(DecodeStatus status) {
+        return UNDECODABLE[status.ordinal()].sum();
+    }
+
+    /**
+     * Base64解码，缺少填充时自动补齐
+     *
+     * @return 解码后的字节，包含非Base64字符或长度不合法时返回null
+     */
+    private static byte[] decodeBase64(String encryptedData) {
+        // 去掉末尾最多两个填充符，按无填充数据解码（JDK解码器接受无填充输入）
+        int end = encryptedData.length();
+        if (end > 0 && encryptedData.charAt(end - 1) == '=') {
+            end--;
+            if (end > 0 && encryptedData.charAt(end - 1) == '=') {
+                end--;
+            }
+        }
+        if (end == 0 || end % 4 == 1) {
+            return null;
+        }
+        for (int i = 0; i < end; i++) {
+            if (!isBase64Char(encryptedData.charAt(i))) {
                 return null;
             }
+        }
+        String data = end == encryptedData.length() ? encryptedData : encryptedData.substring(0, end);
+        return Base64.getDecoder().decode(data);
+    }
 
-            log.debug("原始加密数据: {}", encryptedData);
-            log.debug("加密数据长度: {}", encryptedData.length());
-
-            // 清理数据，移除可能的非ASCII字符
-            String cleanedData = encryptedData;
-            try {
-                cleanedData.getBytes(StandardCharsets.US_ASCII);
-            } catch (Exception e) {
-                // 如果包含非ASCII字符，进行清理
-                cleanedData = new String(encryptedData.getBytes(StandardCharsets.UTF_8), StandardCharsets.US_ASCII);
-                log.debug("清理后的数据: {}", cleanedData);
-            }
+    private static boolean isBase64Char(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '+' || c == '/';
+    }
 
-            // Base64解码
-            byte[] decodedBytes;
-            try {
-                decodedBytes = Base64.getDecoder().decode(cleanedData);
-                log.debug("Base64解码成功，字节长度: {}", decodedBytes.length);
-            } catch (IllegalArgumentException e) {
-                log.debug("Base64解码失败，尝试添加填充: {}", e.getMessage());
-                // 如果解码失败，尝试添加填充
-                int missingPadding = cleanedData.length() % 4;
-                if (missingPadding > 0) {
-                    cleanedData += "=".repeat(4 - missingPadding);
-                    log.debug("添加填充后: {}", cleanedData);
+    /**
+     * 第一个字节是否为MessagePack的Map或Array头（fixmap、fixarray、map16/32、array16/32）
+     * 闲鱼的加密消息都是Map，标量值视为普通文本
+     */
+    private static boolean isMessagePackContainer(byte[] bytes) {
+        if (bytes.length == 0) {
+            return false;
+        }
+        int header = bytes[0] & 0xff;
+        return (header >= 0x80 && header <= 0x9f) || (header >= 0xdc && header <= 0xdf);
+    }
+
+    /**
+     * 将MessagePack字节直接解包为JsonNode
+     */
+    private static JsonNode unpackToTree(byte[] bytes) throws IOException {
+        try (MessageUnpacker unpacker = MessagePack.newDefaultUnpacker(bytes)) {
+            return readNode(unpacker);
+        }
+    }
+
+    /**
+     * 递归读取一个MessagePack值
+     * 与 {@code Value.toJson()} 的转换规则保持一致：非字符串的Map键转为字符串，二进制按UTF-8解码为字符串
+     */
+    private static JsonNode readNode(MessageUnpacker unpacker) throws IOException {
+        MessageFormat format = unpacker.getNextFormat();
+        switch (format.getValueType()) {
+            case NIL:
+                unpacker.unpackNil();
+                return NullNode.getInstance();
+            case BOOLEAN:
+                return BooleanNode.valueOf(unpacker.unpackBoolean());
+            case INTEGER:
+                if (format == MessageFormat.UINT64) {
+                    BigInteger big = unpacker.unpackBigInteger();
+                    return big.bitLength() < 64 ? LongNode.valueOf(big.longValue()) : BigIntegerNode.valueOf(big);
                 }
-                decodedBytes = Base64.getDecoder().decode(cleanedData);
-                log.debug("添加填充后Base64解码成功，字节长度: {}", decodedBytes.length);
+                long value = unpacker.unpackLong();
+                return value == (int) value ? IntNode.valueOf((int) value) : LongNode.valueOf(value);
+            case FLOAT:
+                return DoubleNode.valueOf(unpacker.unpackDouble());
+            case STRING:
+                return TextNode.valueOf(unpacker.unpackString());
+            case BINARY: {
+                int length = unpacker.unpackBinaryHeader();
+                return TextNode.valueOf(new String(unpacker.readPayload(length), StandardCharsets.UTF_8));
             }
-
-            // 使用MessagePack解码
-            try (MessageUnpacker unpacker = MessagePack.newDefaultUnpacker(decodedBytes)) {
-                Value value = unpacker.unpackValue();
-                log.debug("MessagePack解码成功");
-                
-                // 将MessagePack值转换为JSON字符串
-                String jsonString = value.toJson();
-                log.debug("转换为JSON: {}", jsonString);
-                
-                // 格式化JSON（可选）
-                Object jsonObject = objectMapper.readValue(jsonString, Object.class);
-                String result = objectMapper.writeValueAsString(jsonObject);
-                log.debug("格式化后的JSON: {}", result);
-                return result;
-                
-            } catch (Exception e) {
-                log.error("MessagePack解码失败", e);
-                // 如果MessagePack解码失败，尝试直接返回字符串
-                String fallback = new String(decodedBytes, StandardCharsets.UTF_8);
-                log.debug("使用fallback返回: {}", fallback);
-                return fallback;
+            case ARRAY: {
+                int size = unpacker.unpackArrayHeader();
+                ArrayNode array = JSON_NODES.arrayNode(size);
+                for (int i = 0; i < size; i++) {
+                    array.add(readNode(unpacker));
+                }
+                return array;
+            }
+            case MAP: {
+                int size = unpacker.unpackMapHeader();
+                ObjectNode object = JSON_NODES.objectNode();
+                for (int i = 0; i < size; i++) {
+                    String key = readKey(unpacker);
+                    object.set(key, readNode(unpacker));
+                }
+                return object;
+            }
+            case EXTENSION: {
+                ExtensionTypeHeader header = unpacker.unpackExtensionTypeHeader();
+                byte[] data = unpacker.readPayload(header.getLength());
+                ArrayNode ext = JSON_NODES.arrayNode(2);
+                ext.add(header.getType());
+                ext.add(HexFormat.of().formatHex(data));
+                return ext;
             }
+            default:
+                unpacker.skipValue();
+                return NullNode.getInstance();
+        }
+    }
 
-        } catch (Exception e) {
-            log.error("消息解密失败: {}", e.getMessage(), e);
-            return null;
+    /**
+     * 读取Map键，闲鱼同步消息的键大多是整数，统一转为字符串
+     */
+    private static String readKey(MessageUnpacker unpacker) throws IOException {
+        MessageFormat format = unpacker.getNextFormat();
+        switch (format.getValueType()) {
+            case STRING:
+                return unpacker.unpackString();
+            case INTEGER:
+                return format == MessageFormat.UINT64
+                        ? unpacker.unpackBigInteger().toString()
+                        : Long.toString(unpacker.unpackLong());
+            default:
+                JsonNode node = readNode(unpacker);
+                return node.isTextual() ? node.textValue() : node.toString();
         }
     }
 
@@ -98,12 +290,53 @@ public class MessageDecryptUtils {
      * @return 解密后的消息或原始消息
      */
     public static String tryDecrypt(String message) {
-        try {
-            String decrypted = decrypt(message);
-            return decrypted != null ? decrypted : message;
-        } catch (Exception e) {
-            log.error("消息解密失败，返回原始消息: {}", e.getMessage(), e);
-            return message;
+        DecodeResult result = decode(message);
+        if (result.isDecoded()) {
+            return result.tree().toString();
+        }
+        return result.text() != null ? result.text() : message;
+    }
+
+    /**
+     * 解码结果类型
+     */
+    public enum DecodeStatus {
+        /**
+         * 已解包为JSON树
+         */
+        DECODED,
+        /**
+         * 数据为空
+         */
+        EMPTY,
+        /**
+         * 包含非Base64字符或长度不合法
+         */
+        NOT_BASE64,
+        /**
+         * Base64合法，但不是MessagePack的Map/Array
+         */
+        NOT_MESSAGE_PACK,
+        /**
+         * MessagePack头合法，但数据截断或损坏
+         */
+        MALFORMED
+    }
+
+    /**
+     * 解码结果
+     *
+     * @param status 结果类型
+     * @param tree 解包后的JSON树，仅 {@link DecodeStatus#DECODED} 时非空
+     * @param text Base64解码后的UTF-8文本，仅 {@link DecodeStatus#NOT_MESSAGE_PACK} 和
+     *             {@link DecodeStatus#MALFORMED} 时非空
+     */
+    public record DecodeResult(DecodeStatus status, JsonNode tree, String text) {
+
+        static final DecodeResult EMPTY = new DecodeResult(DecodeStatus.EMPTY, null, null);
+
+        public boolean isDecoded() {
+            return status == DecodeStatus.DECODED;
         }
     }
 }
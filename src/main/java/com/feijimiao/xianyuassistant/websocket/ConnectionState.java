@@ -0,0 +1,32 @@
+package com.feijimiao.xianyuassistant.websocket;
+
+/**
+ * WebSocket连接状态（由 {@link ConnectionSupervisor} 维护）
+ */
+public enum ConnectionState {
+
+    /**
+     * 正在建立连接或等待注册响应
+     */
+    CONNECTING,
+
+    /**
+     * 已注册，正常收发消息
+     */
+    REGISTERED,
+
+    /**
+     * 连接异常（Token失效、连接断开、静默超时、连接失败等），等待重连或人工处理
+     */
+    DEGRADED,
+
+    /**
+     * 等待退避时间结束后重连
+     */
+    BACKOFF,
+
+    /**
+     * 已停止（未启动或人工停止）
+     */
+    STOPPED
+}
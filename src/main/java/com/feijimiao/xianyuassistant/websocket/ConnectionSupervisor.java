@@ -0,0 +1,374 @@
+package com.feijimiao.xianyuassistant.websocket;
+
+import com.feijimiao.xianyuassistant.exception.CaptchaRequiredException;
+import com.feijimiao.xianyuassistant.exception.CookieExpiredException;
+import com.feijimiao.xianyuassistant.exception.CookieNotFoundException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * WebSocket连接监管器
+ *
+ * <p>为每个账号维护连接状态机（CONNECTING → REGISTERED → DEGRADED → BACKOFF → CONNECTING），
+ * 异常时不在上报线程上重连，而是：</p>
+ * <ul>
+ *   <li>按带抖动的指数退避（等量抖动：上限的一半加随机的另一半）调度重连，避免全网故障时所有账号同时重连</li>
+ *   <li>重连在固定数量的平台线程上执行，并由全局许可限制同时进行的重连数（包括Token请求）。
+ *       重连全程是阻塞调用（数据库、Token请求、握手）且会在synchronized中写日志，
+ *       放在虚拟线程上会钉住载体线程，大量账号同时重连时拖慢接收和消息处理的虚拟线程</li>
+ *   <li>同一账号已在退避或重连中时，重复上报只合并是否需要刷新Token</li>
+ *   <li>Cookie缺失、过期或需要滑块验证时停止自动重连，等待人工处理</li>
+ *   <li>重连期间被人工停止时，重连建立的新连接由关闭动作关闭，之后的注册成功也不会改变STOPPED状态</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class ConnectionSupervisor {
+
+    /**
+     * 重连动作
+     */
+    @FunctionalInterface
+    public interface ReconnectAction {
+
+        /**
+         * 关闭旧连接并重新建立连接
+         *
+         * @param accountId 账号ID
+         * @param refreshToken 是否先清除缓存的Token
+         * @return 是否连接成功
+         */
+        boolean reconnect(Long accountId, boolean refreshToken) throws Exception;
+    }
+
+    @Value("${xianyu.websocket.reconnect.base-delay-ms:1000}")
+    private long baseDelayMillis;
+
+    @Value("${xianyu.websocket.reconnect.max-delay-ms:300000}")
+    private long maxDelayMillis;
+
+    @Value("${xianyu.websocket.reconnect.max-concurrent:4}")
+    private int maxConcurrent;
+
+    private final Map<Long, Session> sessions = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService timer;
+
+    private ExecutorService reconnectExecutor;
+
+    private Semaphore permits;
+
+    private volatile ReconnectAction reconnectAction;
+
+    private volatile Consumer<Long> closeAction;
+
+    @PostConstruct
+    public void init() {
+        timer = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("ws-supervisor").daemon(true).factory());
+        reconnectExecutor = Executors.newFixedThreadPool(Math.max(1, maxConcurrent),
+                Thread.ofPlatform().name("ws-reconnect-", 0).daemon(true).factory());
+        permits = new Semaphore(Math.max(1, maxConcurrent));
+        log.info("连接监管器已启动: 退避{}ms~{}ms, 最大并发重连数={}", baseDelayMillis, maxDelayMillis, maxConcurrent);
+    }
+
+    /**
+     * 设置重连动作
+     */
+    public void setReconnectAction(ReconnectAction action) {
+        this.reconnectAction = action;
+    }
+
+    /**
+     * 设置关闭动作（重连期间被人工停止时关闭重连建立的连接，不改变监管状态）
+     */
+    public void setCloseAction(Consumer<Long> action) {
+        this.closeAction = action;
+    }
+
+    /**
+     * 开始建立连接（人工启动或重连）
+     */
+    public void onConnecting(Long accountId) {
+        Session session = session(accountId);
+        synchronized (session) {
+            session.cancelRetry();
+            session.stopped = false;
+            session.transition(ConnectionState.CONNECTING, null);
+        }
+    }
+
+    /**
+     * 注册成功，重置重连次数（已人工停止的账号保持STOPPED）
+     */
+    public void onRegistered(Long accountId) {
+        Session session = session(accountId);
+        synchronized (session) {
+            if (session.stopped) {
+                log.info("【账号{}】已人工停止，忽略注册成功", accountId);
+                return;
+            }
+            session.attempts = 0;
+            session.transition(ConnectionState.REGISTERED, null);
+        }
+    }
+
+    /**
+     * 连接失败（不自动重连，由重连流程或人工决定是否重试）
+     */
+    public void onConnectFailed(Long accountId, String reason) {
+        Session session = session(accountId);
+        synchronized (session) {
+            if (session.state == ConnectionState.CONNECTING) {
+                session.transition(ConnectionState.DEGRADED, reason);
+            }
+        }
+    }
+
+    /**
+     * 上报连接异常，按退避时间调度重连
+     *
+     * @param accountId 账号ID
+     * @param reason 异常原因
+     * @param refreshToken 重连前是否需要刷新Token
+     */
+    public void reportFailure(Long accountId, String reason, boolean refreshToken) {
+        Session session = session(accountId);
+        synchronized (session) {
+            session.refreshToken |= refreshToken;
+            if (session.state == ConnectionState.STOPPED) {
+                return;
+            }
+            if (session.state == ConnectionState.BACKOFF || session.reconnecting) {
+                log.debug("【账号{}】已在重连中，合并异常上报: {}", accountId, reason);
+                return;
+            }
+            log.warn("【账号{}】连接异常: {}", accountId, reason);
+            session.transition(ConnectionState.DEGRADED, reason);
+            scheduleRetry(session);
+        }
+    }
+
+    /**
+     * 人工停止，取消待执行的重连
+     */
+    public void stop(Long accountId) {
+        Session session = sessions.get(accountId);
+        if (session == null) {
+            return;
+        }
+        synchronized (session) {
+            session.cancelRetry();
+            session.refreshToken = false;
+            session.attempts = 0;
+            session.stopped = true;
+            session.transition(ConnectionState.STOPPED, null);
+        }
+    }
+
+    /**
+     * 按退避时间调度下一次重连（调用方持有session锁）
+     */
+    private void scheduleRetry(Session session) {
+        long delay = computeDelay(session.attempts, baseDelayMillis, maxDelayMillis);
+        session.attempts++;
+        session.nextAttemptAt = System.currentTimeMillis() + delay;
+        session.transition(ConnectionState.BACKOFF, session.lastError);
+        log.info("【账号{}】{}ms后进行第{}次重连", session.accountId, delay, session.attempts);
+        session.retry = timer.schedule(() -> reconnectExecutor.execute(() -> attempt(session)),
+                delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 执行一次重连（在重连线程上）
+     */
+    private void attempt(Session session) {
+        boolean refreshToken;
+        synchronized (session) {
+            if (session.state != ConnectionState.BACKOFF) {
+                return;
+            }
+            session.reconnecting = true;
+            refreshToken = session.refreshToken;
+            session.refreshToken = false;
+        }
+
+        boolean started = false;
+        boolean success = false;
+        boolean retriable = true;
+        String error = null;
+        try {
+            permits.acquire();
+            try {
+                // 等待许可期间可能已被人工启动或停止
+                synchronized (session) {
+                    started = session.state == ConnectionState.BACKOFF;
+                    if (started) {
+                        session.transition(ConnectionState.CONNECTING, session.lastError);
+                    }
+                }
+                if (started) {
+                    ReconnectAction action = reconnectAction;
+                    success = action != null && action.reconnect(session.accountId, refreshToken);
+                }
+            } finally {
+                permits.release();
+            }
+        } catch (InterruptedException e) {
+            // 应用关闭
+            Thread.currentThread().interrupt();
+            synchronized (session) {
+                session.reconnecting = false;
+            }
+            return;
+        } catch (CaptchaRequiredException | CookieNotFoundException | CookieExpiredException e) {
+            retriable = false;
+            error = e.getMessage();
+        } catch (Exception e) {
+            error = e.getMessage();
+            log.error("【账号{}】重连异常", session.accountId, e);
+        }
+
+        boolean stoppedDuringReconnect = false;
+        synchronized (session) {
+            session.reconnecting = false;
+            if (!started) {
+                session.refreshToken |= refreshToken;
+                return;
+            }
+            if (success && !session.stopped) {
+                log.info("【账号{}】✅ 第{}次重连成功，等待注册", session.accountId, session.attempts);
+                return;
+            }
+            if (session.stopped) {
+                stoppedDuringReconnect = success;
+            } else {
+                String reason = error != null ? error : "重连失败";
+                session.transition(ConnectionState.DEGRADED, reason);
+                if (retriable) {
+                    session.refreshToken |= refreshToken;
+                    scheduleRetry(session);
+                } else {
+                    log.error("【账号{}】❌ 重连需要人工处理，停止自动重连: {}", session.accountId, reason);
+                }
+            }
+        }
+
+        // 重连期间被人工停止，关闭重连建立的新连接
+        Consumer<Long> close = closeAction;
+        if (stoppedDuringReconnect && close != null) {
+            log.info("【账号{}】重连期间已人工停止，关闭重连建立的连接", session.accountId);
+            close.accept(session.accountId);
+        }
+    }
+
+    /**
+     * 计算退避时间：上限为 base*2^attempt（不超过max），取上限的一半加上随机的另一半
+     */
+    static long computeDelay(int attempt, long baseMillis, long maxMillis) {
+        long cap = baseMillis << Math.min(attempt, 30);
+        if (cap <= 0 || cap > maxMillis) {
+            cap = maxMillis;
+        }
+        long half = cap / 2;
+        return half + ThreadLocalRandom.current().nextLong(cap - half + 1);
+    }
+
+    private Session session(Long accountId) {
+        return sessions.computeIfAbsent(accountId, Session::new);
+    }
+
+    /**
+     * 获取账号连接状态，未启动过的账号返回STOPPED
+     */
+    public ConnectionState getState(Long accountId) {
+        Session session = sessions.get(accountId);
+        return session != null ? session.state : ConnectionState.STOPPED;
+    }
+
+    /**
+     * 获取连续重连次数（注册成功后清零）
+     */
+    public int getReconnectAttempts(Long accountId) {
+        Session session = sessions.get(accountId);
+        return session != null ? session.attempts : 0;
+    }
+
+    /**
+     * 获取最近一次异常原因
+     */
+    public String getLastError(Long accountId) {
+        Session session = sessions.get(accountId);
+        return session != null ? session.lastError : null;
+    }
+
+    /**
+     * 获取下一次重连时间戳（毫秒），不在退避中时返回null
+     */
+    public Long getNextAttemptAt(Long accountId) {
+        Session session = sessions.get(accountId);
+        return session != null && session.state == ConnectionState.BACKOFF ? session.nextAttemptAt : null;
+    }
+
+    /**
+     * 获取正在进行的重连数
+     */
+    public int getActiveReconnects() {
+        return Math.max(1, maxConcurrent) - permits.availablePermits();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+        reconnectExecutor.shutdownNow();
+    }
+
+    /**
+     * 单个账号的监管状态（字段在session锁内修改）
+     */
+    private static final class Session {
+        private final Long accountId;
+        private volatile ConnectionState state = ConnectionState.STOPPED;
+        private volatile String lastError;
+        private volatile int attempts;
+        private volatile long nextAttemptAt;
+        private boolean refreshToken;
+        private boolean reconnecting;
+        // 人工停止后为true，再次人工启动时清除
+        private boolean stopped;
+        private ScheduledFuture<?> retry;
+
+        Session(Long accountId) {
+            this.accountId = accountId;
+        }
+
+        void transition(ConnectionState next, String error) {
+            if (state != next) {
+                log.info("【账号{}】连接状态: {} -> {}", accountId, state, next);
+            }
+            state = next;
+            lastError = error;
+        }
+
+        void cancelRetry() {
+            if (retry != null) {
+                retry.cancel(false);
+                retry = null;
+            }
+        }
+    }
+}
@@ -1,11 +1,10 @@
 package com.feijimiao.xianyuassistant.websocket;
 
+import com.feijimiao.xianyuassistant.websocket.frame.DecodedFrame;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.Map;
-
 /**
  * 默认的WebSocket消息处理器实现
  * 使用路由器分发消息到对应的处理器
@@ -18,10 +17,10 @@ public class DefaultWebSocketMessageHandler implements WebSocketMessageHandler {
     private WebSocketMessageRouter messageRouter;
 
     @Override
-    public void handleMessage(String accountId, Map<String, Object> message) {
+    public void handleMessage(String accountId, DecodedFrame frame) {
         try {
             // 使用路由器处理消息
-            messageRouter.route(accountId, message);
+            messageRouter.route(accountId, frame);
             
         } catch (Exception e) {
             log.error("【账号{}】处理消息失败", accountId, e);
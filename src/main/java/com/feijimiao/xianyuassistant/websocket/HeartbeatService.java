@@ -0,0 +1,122 @@
+package com.feijimiao.xianyuassistant.websocket;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * WebSocket心跳服务
+ *
+ * <p>所有账号的心跳由一个 {@link HeartbeatWheel} 和一个推进线程（ws-heartbeat）负责：</p>
+ * <ul>
+ *   <li>心跳通过连接的出站队列发送，单个连接写出慢不会拖延其他账号的心跳</li>
+ *   <li>除连接关闭外，超过静默阈值没有收到任何消息（包括心跳响应）也判定为死连接</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class HeartbeatService {
+
+    @Value("${xianyu.websocket.heartbeat.interval-ms:15000}")
+    private long intervalMillis;
+
+    @Value("${xianyu.websocket.heartbeat.jitter-ratio:0.1}")
+    private double jitterRatio;
+
+    @Value("${xianyu.websocket.heartbeat.dead-timeout-ms:45000}")
+    private long deadTimeoutMillis;
+
+    @Value("${xianyu.websocket.heartbeat.tick-ms:100}")
+    private long tickMillis;
+
+    private HeartbeatWheel wheel;
+
+    private Thread ticker;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void init() {
+        // 一圈覆盖一个心跳间隔，槽位数取2的幂
+        int wheelSize = (int) Math.min(4096, Math.max(64, intervalMillis / Math.max(1, tickMillis)));
+        wheel = new HeartbeatWheel(tickMillis, wheelSize, intervalMillis, jitterRatio,
+                deadTimeoutMillis, System.currentTimeMillis());
+        running = true;
+        ticker = Thread.ofPlatform().name("ws-heartbeat").daemon(true).start(this::run);
+        log.info("心跳服务已启动: 间隔={}ms, 抖动={}, 静默阈值={}ms, 刻度={}ms",
+                intervalMillis, jitterRatio, deadTimeoutMillis, tickMillis);
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Thread.sleep(tickMillis);
+                wheel.advance(System.currentTimeMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("心跳时间轮推进异常", e);
+            }
+        }
+    }
+
+    /**
+     * 登记账号的心跳
+     *
+     * @param accountId 账号ID
+     * @param client WebSocket客户端
+     * @param listener 死连接回调（在心跳线程上调用，耗时操作请提交到其他线程）
+     */
+    public void register(Long accountId, HeartbeatWheel.Target client, HeartbeatWheel.DeadListener listener) {
+        wheel.register(String.valueOf(accountId), client, listener, System.currentTimeMillis());
+        log.info("心跳任务已启动: accountId={}, 间隔{}ms", accountId, intervalMillis);
+    }
+
+    /**
+     * 取消账号的心跳
+     */
+    public void cancel(Long accountId) {
+        if (wheel.cancel(String.valueOf(accountId))) {
+            log.info("心跳任务已停止: accountId={}", accountId);
+        }
+    }
+
+    /**
+     * 已登记心跳的连接数
+     */
+    public int getRegistered() {
+        return wheel.size();
+    }
+
+    /**
+     * 累计发送的心跳数
+     */
+    public long getHeartbeatsSent() {
+        return wheel.getHeartbeatsSent();
+    }
+
+    /**
+     * 累计检测到的死连接数
+     */
+    public long getDeadDetected() {
+        return wheel.getDeadDetected();
+    }
+
+    /**
+     * 心跳线程的最大滞后（毫秒）
+     */
+    public long getMaxTickLagMillis() {
+        return wheel.getMaxTickLagMillis();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (ticker != null) {
+            ticker.interrupt();
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.feijimiao.xianyuassistant.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 心跳时间轮
+ *
+ * <p>所有连接的心跳登记在同一个哈希时间轮上，由单个线程按刻度推进：</p>
+ * <ul>
+ *   <li>槽位数为2的幂，超过一圈的延迟用剩余圈数表示，每刻度只处理当前槽位中的连接</li>
+ *   <li>首次心跳在一个间隔内随机分布，之后每次间隔加入抖动，避免所有账号在同一时刻发送心跳</li>
+ *   <li>到期时先检查连接：已关闭或超过静默阈值没有收到任何消息视为死连接，通知回调后移除；
+ *       否则通过连接的出站队列发送心跳（不阻塞时间轮线程）并重新登记</li>
+ * </ul>
+ *
+ * <p>登记和重新登记先进入无锁队列，在下一刻度开始时放入槽位；取消只做标记，
+ * 槽位和圈数只在推进线程上访问。</p>
+ */
+@Slf4j
+public class HeartbeatWheel {
+
+    /**
+     * 心跳目标（连接）
+     */
+    public interface Target {
+
+        boolean isConnected();
+
+        /**
+         * 最后一次收到消息的时间戳（毫秒），从未收到时为0
+         */
+        long getLastMessageTime();
+
+        /**
+         * 发送心跳，必须是非阻塞的
+         */
+        void sendHeartbeat();
+    }
+
+    /**
+     * 死连接回调，在时间轮线程上调用，耗时操作请提交到其他线程
+     */
+    @FunctionalInterface
+    public interface DeadListener {
+
+        /**
+         * @param key 登记键（账号ID）
+         * @param closed 连接已关闭为true，长时间静默为false
+         * @param silentMillis 静默时长（毫秒）
+         */
+        void onDead(String key, boolean closed, long silentMillis);
+    }
+
+    private final long tickMillis;
+    private final int mask;
+    private final long intervalMillis;
+    private final double jitterRatio;
+    private final long deadTimeoutMillis;
+    private final long startMillis;
+
+    private final ArrayDeque<Entry>[] slots;
+    private final ConcurrentLinkedQueue<Entry> incoming = new ConcurrentLinkedQueue<>();
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // 已处理到的刻度（只在推进线程上修改）
+    private long tick;
+
+    // 统计
+    private final AtomicLong heartbeatsSent = new AtomicLong();
+    private final AtomicLong deadDetected = new AtomicLong();
+    private volatile long maxTickLagMillis;
+
+    /**
+     * @param tickMillis 刻度（毫秒）
+     * @param wheelSize 槽位数，向上取整为2的幂
+     * @param intervalMillis 心跳间隔（毫秒）
+     * @param jitterRatio 间隔抖动比例（0~0.5）
+     * @param deadTimeoutMillis 静默多久视为死连接（毫秒）
+     * @param startMillis 起始时间戳（毫秒）
+     */
+    @SuppressWarnings("unchecked")
+    public HeartbeatWheel(long tickMillis, int wheelSize, long intervalMillis, double jitterRatio,
+                          long deadTimeoutMillis, long startMillis) {
+        this.tickMillis = Math.max(1, tickMillis);
+        int size = Integer.highestOneBit(Math.max(2, wheelSize) - 1) << 1;
+        this.mask = size - 1;
+        this.intervalMillis = intervalMillis;
+        this.jitterRatio = Math.max(0, Math.min(0.5, jitterRatio));
+        this.deadTimeoutMillis = deadTimeoutMillis;
+        this.startMillis = startMillis;
+        this.slots = new ArrayDeque[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * 登记连接，已登记的同名连接会被替换
+     *
+     * @param key 登记键（账号ID）
+     * @param target 连接
+     * @param listener 死连接回调
+     * @param nowMillis 当前时间戳（毫秒）
+     */
+    public void register(String key, Target target, DeadListener listener, long nowMillis) {
+        Entry entry = new Entry(key, target, listener, nowMillis);
+        // 首次心跳在一个间隔内随机分布
+        entry.deadline = nowMillis + ThreadLocalRandom.current().nextLong(tickMillis, intervalMillis + 1);
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            previous.cancelled = true;
+        }
+        incoming.offer(entry);
+    }
+
+    /**
+     * 取消登记
+     */
+    public boolean cancel(String key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        entry.cancelled = true;
+        return true;
+    }
+
+    /**
+     * 推进到指定时间，处理所有到期的刻度（只能由单个线程调用）
+     *
+     * @param nowMillis 当前时间戳（毫秒）
+     */
+    public void advance(long nowMillis) {
+        long target = (nowMillis - startMillis) / tickMillis;
+        if (target <= tick) {
+            return;
+        }
+        maxTickLagMillis = Math.max(maxTickLagMillis, nowMillis - (startMillis + (tick + 1) * tickMillis));
+        while (tick < target) {
+            tick++;
+            transferIncoming();
+            expire(slots[(int) (tick & mask)], nowMillis);
+        }
+    }
+
+    /**
+     * 把新登记的连接放入槽位
+     */
+    private void transferIncoming() {
+        Entry entry;
+        while ((entry = incoming.poll()) != null) {
+            if (entry.cancelled) {
+                continue;
+            }
+            long deadlineTick = Math.max(tick, (entry.deadline - startMillis + tickMillis - 1) / tickMillis);
+            entry.remainingRounds = (deadlineTick - tick) / slots.length;
+            slots[(int) (deadlineTick & mask)].add(entry);
+        }
+    }
+
+    /**
+     * 处理当前槽位
+     */
+    private void expire(ArrayDeque<Entry> slot, long nowMillis) {
+        Iterator<Entry> iterator = slot.iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.cancelled) {
+                iterator.remove();
+                continue;
+            }
+            if (entry.remainingRounds > 0) {
+                entry.remainingRounds--;
+                continue;
+            }
+            iterator.remove();
+            fire(entry, nowMillis);
+        }
+    }
+
+    private void fire(Entry entry, long nowMillis) {
+        try {
+            Target target = entry.target;
+            long lastActive = Math.max(target.getLastMessageTime(), entry.registeredAt);
+            long silent = nowMillis - lastActive;
+            boolean closed = !target.isConnected();
+            if (closed || silent > deadTimeoutMillis) {
+                if (entries.remove(entry.key, entry)) {
+                    deadDetected.incrementAndGet();
+                    entry.listener.onDead(entry.key, closed, silent);
+                }
+                return;
+            }
+
+            target.sendHeartbeat();
+            heartbeatsSent.incrementAndGet();
+        } catch (Exception e) {
+            log.error("【账号{}】发送心跳失败", entry.key, e);
+        }
+
+        // 下一次心跳：间隔加入抖动
+        long jitter = (long) (intervalMillis * jitterRatio);
+        entry.deadline = nowMillis + intervalMillis
+                + (jitter > 0 ? ThreadLocalRandom.current().nextLong(-jitter, jitter + 1) : 0);
+        incoming.offer(entry);
+    }
+
+    /**
+     * 已登记的连接数
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 累计发送的心跳数
+     */
+    public long getHeartbeatsSent() {
+        return heartbeatsSent.get();
+    }
+
+    /**
+     * 累计检测到的死连接数
+     */
+    public long getDeadDetected() {
+        return deadDetected.get();
+    }
+
+    /**
+     * 推进线程的最大滞后（毫秒）
+     */
+    public long getMaxTickLagMillis() {
+        return maxTickLagMillis;
+    }
+
+    /**
+     * 时间轮中的一个连接
+     */
+    private static final class Entry {
+        private final String key;
+        private final Target target;
+        private final DeadListener listener;
+        private final long registeredAt;
+        private long deadline;
+        private long remainingRounds;
+        private volatile boolean cancelled;
+
+        Entry(String key, Target target, DeadListener listener, long registeredAt) {
+            this.key = key;
+            this.target = target;
+            this.listener = listener;
+            this.registeredAt = registeredAt;
+        }
+    }
+}
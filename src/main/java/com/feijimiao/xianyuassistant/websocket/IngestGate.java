@@ -0,0 +1,251 @@
+package com.feijimiao.xianyuassistant.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 单账号入站队列闸门
+ *
+ * <p>统计账号已接收但尚未处理完的任务数（帧级任务和由帧派生的会话级任务），按帧优先级执行不同策略：</p>
+ * <ul>
+ *   <li>{@link IngestPriority#SHEDDABLE}：超过丢弃阈值时丢弃</li>
+ *   <li>{@link IngestPriority#NORMAL}：达到容量时丢弃</li>
+ *   <li>{@link IngestPriority#ESSENTIAL}：达到容量时阻塞调用线程（WebSocket接收线程）等待空位，
+ *       停止读取socket从而把背压传给服务端；等待超时后仍然接收，不丢弃聊天和付款消息</li>
+ * </ul>
+ *
+ * <p>队列深度达到高水位时记录一次过载事件，回落到低水位时记录恢复和本次过载丢弃的帧数。</p>
+ */
+@Slf4j
+public class IngestGate {
+
+    private final String accountId;
+    private final int capacity;
+    private final int shedThreshold;
+    private final int highWatermark;
+    private final int lowWatermark;
+    private final long blockTimeoutMillis;
+
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicInteger peakDepth = new AtomicInteger();
+    private final AtomicBoolean overloaded = new AtomicBoolean();
+
+    // 等待空位的线程
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    // 统计
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong shedSheddable = new AtomicLong();
+    private final AtomicLong shedNormal = new AtomicLong();
+    private final AtomicLong blocked = new AtomicLong();
+    private final AtomicLong blockedNanos = new AtomicLong();
+    private final AtomicLong overCapacity = new AtomicLong();
+    private final AtomicLong overloadEvents = new AtomicLong();
+    private final AtomicLong episodeShed = new AtomicLong();
+
+    /**
+     * @param accountId 账号ID
+     * @param capacity 容量（达到后丢弃普通帧、阻塞必须处理的帧）
+     * @param shedRatio 可丢弃帧的丢弃阈值（容量的比例）
+     * @param highWatermarkRatio 高水位（容量的比例），低水位为其一半
+     * @param blockTimeoutMillis 必须处理的帧最长阻塞时间
+     */
+    public IngestGate(String accountId, int capacity, double shedRatio, double highWatermarkRatio,
+                      long blockTimeoutMillis) {
+        this.accountId = accountId;
+        this.capacity = Math.max(1, capacity);
+        this.shedThreshold = Math.max(1, (int) (this.capacity * shedRatio));
+        this.highWatermark = Math.max(1, (int) (this.capacity * highWatermarkRatio));
+        this.lowWatermark = highWatermark / 2;
+        this.blockTimeoutMillis = Math.max(0, blockTimeoutMillis);
+    }
+
+    /**
+     * 按优先级申请接收一个入站帧
+     *
+     * @return 接收返回true（处理完成后必须调用 {@link #release()}），丢弃返回false
+     */
+    public boolean tryAdmit(IngestPriority priority) {
+        switch (priority) {
+            case SHEDDABLE -> {
+                if (depth.get() >= shedThreshold) {
+                    shed(priority, shedSheddable);
+                    return false;
+                }
+            }
+            case NORMAL -> {
+                if (depth.get() >= capacity) {
+                    shed(priority, shedNormal);
+                    return false;
+                }
+            }
+            case ESSENTIAL -> {
+                if (depth.get() >= capacity) {
+                    awaitCapacity();
+                }
+            }
+        }
+        admit();
+        return true;
+    }
+
+    /**
+     * 接收由已接收帧派生的任务（会话级任务），不阻塞也不丢弃
+     * 处理完成后必须调用 {@link #release()}
+     */
+    public void admitDerived() {
+        admit();
+    }
+
+    /**
+     * 一个任务处理完成
+     */
+    public void release() {
+        int current = depth.decrementAndGet();
+        if (current <= lowWatermark && overloaded.compareAndSet(true, false)) {
+            log.info("【账号{}】入站队列已恢复: depth={}, 本次过载丢弃{}帧", accountId, current, episodeShed.getAndSet(0));
+        }
+        if (waiters.get() > 0) {
+            lock.lock();
+            try {
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void admit() {
+        admitted.incrementAndGet();
+        int current = depth.incrementAndGet();
+        peakDepth.accumulateAndGet(current, Math::max);
+        if (current >= highWatermark && overloaded.compareAndSet(false, true)) {
+            overloadEvents.incrementAndGet();
+            log.warn("【账号{}】入站队列达到高水位: depth={}, capacity={}，开始丢弃低优先级帧", accountId, current, capacity);
+        }
+    }
+
+    private void shed(IngestPriority priority, AtomicLong counter) {
+        counter.incrementAndGet();
+        if (episodeShed.getAndIncrement() == 0) {
+            log.warn("【账号{}】入站队列过载，丢弃{}帧: depth={}", accountId, priority, depth.get());
+        }
+    }
+
+    /**
+     * 阻塞等待队列出现空位，超时后返回
+     */
+    private void awaitCapacity() {
+        blocked.incrementAndGet();
+        long start = System.nanoTime();
+        long remaining = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMillis);
+        lock.lock();
+        waiters.incrementAndGet();
+        try {
+            while (depth.get() >= capacity && remaining > 0) {
+                remaining = notFull.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            waiters.decrementAndGet();
+            lock.unlock();
+            blockedNanos.addAndGet(System.nanoTime() - start);
+        }
+        if (depth.get() >= capacity && overCapacity.getAndIncrement() == 0) {
+            log.warn("【账号{}】入站队列已满且等待超时，超出容量接收必须处理的帧: depth={}", accountId, depth.get());
+        }
+    }
+
+    /**
+     * 当前排队和处理中的任务数
+     */
+    public int getDepth() {
+        return depth.get();
+    }
+
+    /**
+     * 历史最大深度
+     */
+    public int getPeakDepth() {
+        return peakDepth.get();
+    }
+
+    /**
+     * 容量
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 是否处于过载状态（达到高水位且尚未回落到低水位）
+     */
+    public boolean isOverloaded() {
+        return overloaded.get();
+    }
+
+    /**
+     * 累计接收的任务数
+     */
+    public long getAdmitted() {
+        return admitted.get();
+    }
+
+    /**
+     * 累计丢弃的帧数
+     */
+    public long getShed() {
+        return shedSheddable.get() + shedNormal.get();
+    }
+
+    /**
+     * 累计丢弃的可丢弃帧数
+     */
+    public long getShedSheddable() {
+        return shedSheddable.get();
+    }
+
+    /**
+     * 累计丢弃的普通帧数
+     */
+    public long getShedNormal() {
+        return shedNormal.get();
+    }
+
+    /**
+     * 累计阻塞接收线程的次数
+     */
+    public long getBlocked() {
+        return blocked.get();
+    }
+
+    /**
+     * 累计阻塞时间（毫秒）
+     */
+    public long getBlockedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(blockedNanos.get());
+    }
+
+    /**
+     * 等待超时后超出容量接收的帧数
+     */
+    public long getOverCapacity() {
+        return overCapacity.get();
+    }
+
+    /**
+     * 累计过载次数
+     */
+    public long getOverloadEvents() {
+        return overloadEvents.get();
+    }
+}
@@ -0,0 +1,43 @@
+package com.feijimiao.xianyuassistant.websocket;
+
+import com.feijimiao.xianyuassistant.websocket.frame.FrameSniffer;
+
+/**
+ * 入站帧优先级（由 {@link IngestGate} 决定过载时的处理策略）
+ */
+public enum IngestPriority {
+
+    /**
+     * 可丢弃：服务端心跳等，队列超过丢弃阈值时最先丢弃
+     */
+    SHEDDABLE,
+
+    /**
+     * 普通：其他推送通知，队列满时丢弃
+     */
+    NORMAL,
+
+    /**
+     * 必须处理：同步包（聊天、付款消息）和请求响应（注册、发送结果、Token失效），
+     * 队列满时阻塞接收线程形成背压，从不丢弃
+     */
+    ESSENTIAL;
+
+    /**
+     * 不解析JSON，按lwp字段对入站帧分级
+     */
+    public static IngestPriority classify(String text) {
+        String lwp = FrameSniffer.peekLwp(text);
+        if (lwp == null) {
+            // 没有lwp的是请求响应
+            return ESSENTIAL;
+        }
+        if ("/!".equals(lwp)) {
+            return SHEDDABLE;
+        }
+        if (lwp.startsWith("/s/para") || lwp.startsWith("/s/sync")) {
+            return ESSENTIAL;
+        }
+        return NORMAL;
+    }
+}
@@ -0,0 +1,36 @@
+package com.feijimiao.xianyuassistant.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * WebSocket消息处理执行模式
+ */
+@Slf4j
+public enum MessageExecutionMode {
+
+    /**
+     * 平台线程模式：条带由一个CPU核数大小的共享平台线程池承载
+     */
+    PLATFORM,
+
+    /**
+     * 虚拟线程模式：条带由虚拟线程承载（默认）
+     */
+    VIRTUAL;
+
+    /**
+     * 从配置值解析执行模式，为空或无法识别时使用默认的虚拟线程模式，无法识别时输出告警
+     */
+    public static MessageExecutionMode from(String value) {
+        if (value == null || value.isBlank()) {
+            return VIRTUAL;
+        }
+        try {
+            return MessageExecutionMode.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            log.warn("无法识别的消息执行模式 xianyu.websocket.executor.mode={}，使用默认的{}（可选值: virtual, platform）",
+                    value, VIRTUAL.name().toLowerCase());
+            return VIRTUAL;
+        }
+    }
+}
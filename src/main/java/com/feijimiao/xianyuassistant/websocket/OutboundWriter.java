@@ -0,0 +1,328 @@
+package com.feijimiao.xianyuassistant.websocket;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.feijimiao.xianyuassistant.websocket.transport.LwpTransport;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 单连接出站写入器
+ *
+ * <p>ACK、心跳、聊天消息等所有出站消息先进入无锁队列，由同一时刻最多一个线程排空：</p>
+ * <ul>
+ *   <li>编码：在排空线程上使用复用的 {@link JsonGenerator} 生成JSON，不再为每条ACK构造HashMap</li>
+ *   <li>合并：一次排空最多取 {@value #MAX_BATCH} 条，交给传输层一次写出</li>
+ *   <li>统计：记录每条消息从入队到写出的排队延迟，用于判断瓶颈是否在socket</li>
+ * </ul>
+ *
+ * <p>排空任务提交到共享的写执行器；未设置执行器时在入队线程上直接排空。</p>
+ *
+ * <p>入队时可以带上丢弃回调，消息因编码失败或所在批次写出失败被丢弃时回调，
+ * 发送消息据此立即以失败结束在途请求，而不是等到超时。连接关闭时清空的消息不回调，由在途请求跟踪器统一结束。</p>
+ */
+@Slf4j
+public class OutboundWriter {
+
+    /**
+     * 出站消息类型
+     */
+    public enum Type {
+        ACK, HEARTBEAT, MESSAGE, CONTROL
+    }
+
+    /**
+     * 消息编码器，在排空线程上使用复用的生成器写出一个JSON值
+     */
+    @FunctionalInterface
+    public interface Encoder {
+        void encode(JsonGenerator generator) throws IOException;
+    }
+
+    /**
+     * 单次排空最多合并的消息数
+     */
+    static final int MAX_BATCH = 64;
+
+    private final String accountId;
+    private final LwpTransport transport;
+    private final ObjectMapper objectMapper;
+    private volatile Executor executor;
+
+    private final ConcurrentLinkedQueue<Entry> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    // 复用的编码缓冲区和生成器（只在排空线程上访问）
+    private StringWriter buffer;
+    private JsonGenerator generator;
+
+    // 统计
+    private final AtomicLong sentMessages = new AtomicLong();
+    private final AtomicLong droppedMessages = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong totalQueueNanos = new AtomicLong();
+    private final AtomicLong maxQueueNanos = new AtomicLong();
+    private volatile long lastQueueNanos;
+    private volatile int lastBatchSize;
+
+    public OutboundWriter(String accountId, LwpTransport transport, ObjectMapper objectMapper) {
+        this.accountId = accountId;
+        this.transport = transport;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 设置排空使用的执行器
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * 入队一条已编码的文本消息
+     */
+    public void enqueue(Type type, String text) {
+        offer(new Entry(type, text, null, null));
+    }
+
+    /**
+     * 入队一条消息，在排空线程上编码
+     */
+    public void enqueue(Type type, Encoder encoder) {
+        enqueue(type, encoder, null);
+    }
+
+    /**
+     * 入队一条消息，在排空线程上编码
+     *
+     * @param onDropped 消息被丢弃时的回调，参数为丢弃原因，可以为null
+     */
+    public void enqueue(Type type, Encoder encoder, Consumer<String> onDropped) {
+        offer(new Entry(type, null, encoder, onDropped));
+    }
+
+    /**
+     * 入队一个对象，在排空线程上序列化
+     */
+    public void enqueueObject(Type type, Object value) {
+        offer(new Entry(type, null, generator -> generator.writeObject(value), null));
+    }
+
+    private void offer(Entry entry) {
+        queue.offer(entry);
+        depth.incrementAndGet();
+        schedule();
+    }
+
+    private void schedule() {
+        if (!scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        Executor current = executor;
+        if (current == null) {
+            drain();
+            return;
+        }
+        try {
+            current.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // 执行器已关闭，在当前线程排空
+            drain();
+        }
+    }
+
+    /**
+     * 排空队列：编码、合并为一批帧后一次写出
+     */
+    private void drain() {
+        try {
+            List<Entry> batch = new ArrayList<>();
+            Entry entry;
+            while (batch.size() < MAX_BATCH && (entry = queue.poll()) != null) {
+                depth.decrementAndGet();
+                batch.add(entry);
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+            }
+        } catch (Throwable t) {
+            log.error("【账号{}】出站消息写出异常", accountId, t);
+        } finally {
+            scheduled.set(false);
+            // 排空期间可能有新消息到达，重新调度
+            if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+    private void flush(List<Entry> batch) {
+        List<String> texts = new ArrayList<>(batch.size());
+        List<Entry> encoded = new ArrayList<>(batch.size());
+        for (Entry entry : batch) {
+            String text = entry.text != null ? entry.text : encode(entry);
+            if (text == null) {
+                droppedMessages.incrementAndGet();
+                notifyDropped(entry, "消息编码失败");
+                continue;
+            }
+            texts.add(text);
+            encoded.add(entry);
+        }
+        if (texts.isEmpty()) {
+            return;
+        }
+
+        try {
+            transport.sendBatch(texts);
+        } catch (Exception e) {
+            droppedMessages.addAndGet(encoded.size());
+            log.warn("【账号{}】出站消息写出失败，丢弃{}条: {}", accountId, encoded.size(), e.getMessage());
+            for (Entry entry : encoded) {
+                notifyDropped(entry, "消息写出失败: " + e.getMessage());
+            }
+            return;
+        }
+
+        long now = System.nanoTime();
+        for (Entry entry : encoded) {
+            long waited = now - entry.enqueuedAt;
+            totalQueueNanos.addAndGet(waited);
+            maxQueueNanos.accumulateAndGet(waited, Math::max);
+            lastQueueNanos = waited;
+        }
+        sentMessages.addAndGet(encoded.size());
+        flushes.incrementAndGet();
+        lastBatchSize = encoded.size();
+    }
+
+    private void notifyDropped(Entry entry, String reason) {
+        if (entry.onDropped == null) {
+            return;
+        }
+        try {
+            entry.onDropped.accept(reason);
+        } catch (Exception e) {
+            log.warn("【账号{}】出站消息丢弃回调异常: type={}, error={}", accountId, entry.type, e.getMessage());
+        }
+    }
+
+    /**
+     * 使用复用的生成器编码消息，编码失败时重建生成器
+     */
+    private String encode(Entry entry) {
+        try {
+            if (generator == null) {
+                buffer = new StringWriter(256);
+                generator = objectMapper.getFactory().createGenerator(buffer);
+                generator.setRootValueSeparator(null);
+            }
+            buffer.getBuffer().setLength(0);
+            entry.encoder.encode(generator);
+            generator.flush();
+            return buffer.toString();
+        } catch (Exception e) {
+            log.error("【账号{}】出站消息编码失败: type={}", accountId, entry.type, e);
+            generator = null;
+            return null;
+        }
+    }
+
+    /**
+     * 清空队列（连接关闭时调用）
+     */
+    public void clear() {
+        Entry entry;
+        while ((entry = queue.poll()) != null) {
+            depth.decrementAndGet();
+            droppedMessages.incrementAndGet();
+        }
+    }
+
+    /**
+     * 当前排队的消息数
+     */
+    public int getQueueDepth() {
+        return depth.get();
+    }
+
+    /**
+     * 累计写出的消息数
+     */
+    public long getSentMessages() {
+        return sentMessages.get();
+    }
+
+    /**
+     * 累计丢弃的消息数（编码失败、连接不可用）
+     */
+    public long getDroppedMessages() {
+        return droppedMessages.get();
+    }
+
+    /**
+     * 累计写出批次数
+     */
+    public long getFlushes() {
+        return flushes.get();
+    }
+
+    /**
+     * 最近一批写出的消息数
+     */
+    public int getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    /**
+     * 平均排队延迟（微秒）
+     */
+    public long getAvgQueueLatencyMicros() {
+        long sent = sentMessages.get();
+        return sent == 0 ? 0 : totalQueueNanos.get() / sent / 1000;
+    }
+
+    /**
+     * 最大排队延迟（微秒）
+     */
+    public long getMaxQueueLatencyMicros() {
+        return maxQueueNanos.get() / 1000;
+    }
+
+    /**
+     * 最近一条消息的排队延迟（微秒）
+     */
+    public long getLastQueueLatencyMicros() {
+        return lastQueueNanos / 1000;
+    }
+
+    /**
+     * 出站队列中的一条消息
+     */
+    private static final class Entry {
+        private final Type type;
+        private final String text;
+        private final Encoder encoder;
+        private final Consumer<String> onDropped;
+        private final long enqueuedAt = System.nanoTime();
+
+        Entry(Type type, String text, Encoder encoder, Consumer<String> onDropped) {
+            this.type = type;
+            this.text = text;
+            this.encoder = encoder;
+            this.onDropped = onDropped;
+        }
+    }
+}
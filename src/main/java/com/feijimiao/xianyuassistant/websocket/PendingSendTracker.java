@@ -0,0 +1,162 @@
+package com.feijimiao.xianyuassistant.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单连接在途发送请求跟踪器
+ *
+ * <p>发送请求按mid登记，收到服务器对同一mid的响应时完成对应的Future：</p>
+ * <ul>
+ *   <li>在途请求数由信号量限制，超过上限时立即返回 {@link SendResult.Status#REJECTED}</li>
+ *   <li>超时未响应时以 {@link SendResult.Status#TIMEOUT} 完成</li>
+ *   <li>连接断开时所有在途请求以 {@link SendResult.Status#NOT_CONNECTED} 完成</li>
+ * </ul>
+ * <p>Future在完成响应的线程（消息处理线程）上回调，耗时操作请使用 {@code thenAcceptAsync}。</p>
+ */
+@Slf4j
+public class PendingSendTracker {
+
+    private final String accountId;
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final Semaphore permits;
+    private final int maxInFlight;
+    private final long timeoutMillis;
+
+    // 统计
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public PendingSendTracker(String accountId, int maxInFlight, long timeoutMillis) {
+        this.accountId = accountId;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.permits = new Semaphore(this.maxInFlight);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * 登记一个发送请求
+     *
+     * @param mid 请求mid
+     * @return 发送结果Future，在途请求已满时返回已完成的REJECTED结果
+     */
+    public CompletableFuture<SendResult> register(String mid) {
+        if (!permits.tryAcquire()) {
+            rejected.incrementAndGet();
+            log.warn("【账号{}】在途发送请求已达上限{}，拒绝发送: mid={}", accountId, maxInFlight, mid);
+            return CompletableFuture.completedFuture(SendResult.notSent(SendResult.Status.REJECTED, "在途发送请求已满"));
+        }
+
+        long startedAt = System.currentTimeMillis();
+        CompletableFuture<SendResult> future = new CompletableFuture<>();
+        pending.put(mid, new Pending(future, startedAt));
+
+        // 超时完成，无论以何种方式完成都释放许可
+        future.completeOnTimeout(new SendResult(SendResult.Status.TIMEOUT, mid, null, null,
+                        "等待服务器响应超时", timeoutMillis), timeoutMillis, TimeUnit.MILLISECONDS)
+                .whenComplete((result, e) -> {
+                    if (pending.remove(mid) != null) {
+                        permits.release();
+                    }
+                    if (result != null && result.getStatus() == SendResult.Status.TIMEOUT) {
+                        timedOut.incrementAndGet();
+                        log.warn("【账号{}】发送请求超时: mid={}", accountId, mid);
+                    }
+                });
+        return future;
+    }
+
+    /**
+     * 是否有在途请求（快速判断，避免每条响应都查表）
+     */
+    public boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    /**
+     * 用服务器响应完成对应的请求
+     *
+     * @param mid 响应中的mid
+     * @param code 响应码
+     * @param messageId 响应body中的消息ID，可为null
+     * @return 是否匹配到在途请求
+     */
+    public boolean complete(String mid, Integer code, String messageId) {
+        if (mid == null) {
+            return false;
+        }
+        Pending entry = pending.get(mid);
+        if (entry == null) {
+            return false;
+        }
+        long latency = System.currentTimeMillis() - entry.startedAt;
+        boolean ok = code != null && code == 200;
+        SendResult result = new SendResult(ok ? SendResult.Status.SUCCESS : SendResult.Status.FAILED,
+                mid, messageId, code, ok ? null : "服务器返回错误码: " + code, latency);
+        if (entry.future.complete(result)) {
+            (ok ? succeeded : failed).incrementAndGet();
+        }
+        return true;
+    }
+
+    /**
+     * 发送失败（未写出）时立即完成请求
+     */
+    public void fail(String mid, SendResult.Status status, String errorMessage) {
+        Pending entry = pending.get(mid);
+        if (entry != null && entry.future.complete(new SendResult(status, mid, null, null, errorMessage,
+                System.currentTimeMillis() - entry.startedAt))) {
+            failed.incrementAndGet();
+        }
+    }
+
+    /**
+     * 连接断开时完成所有在途请求
+     */
+    public void failAll(String errorMessage) {
+        for (String mid : pending.keySet()) {
+            fail(mid, SendResult.Status.NOT_CONNECTED, errorMessage);
+        }
+    }
+
+    /**
+     * 当前在途请求数
+     */
+    public int getInFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    public long getSucceeded() {
+        return succeeded.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getTimedOut() {
+        return timedOut.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    private static final class Pending {
+        private final CompletableFuture<SendResult> future;
+        private final long startedAt;
+
+        Pending(CompletableFuture<SendResult> future, long startedAt) {
+            this.future = future;
+            this.startedAt = startedAt;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.feijimiao.xianyuassistant.websocket;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionHandler;
+
+/**
+ * 入站流水线各阶段的指标注册表
+ *
+ * <p>解码、分发、解析阶段由 {@link WebSocketMessageExecutor} 记录；
+ * 持久化和业务响应阶段的Spring异步执行器通过 {@link #decorator(PipelineStage)} 和
+ * {@link #callerRunsPolicy(PipelineStage)} 记录。</p>
+ */
+@Component
+public class PipelineMetrics {
+
+    private final Map<PipelineStage, StageMetrics> stages = new EnumMap<>(PipelineStage.class);
+
+    public PipelineMetrics() {
+        for (PipelineStage stage : PipelineStage.values()) {
+            stages.put(stage, new StageMetrics(stage));
+        }
+    }
+
+    /**
+     * 获取阶段指标
+     */
+    public StageMetrics get(PipelineStage stage) {
+        return stages.get(stage);
+    }
+
+    /**
+     * 按流水线顺序获取所有阶段指标
+     */
+    public Collection<StageMetrics> getAll() {
+        return Collections.unmodifiableCollection(stages.values());
+    }
+
+    /**
+     * 所有阶段都没有排队和正在执行的任务
+     */
+    public boolean isIdle() {
+        for (StageMetrics metrics : stages.values()) {
+            if (!metrics.isIdle()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Spring异步执行器的任务装饰器，记录阶段的等待和处理时间
+     */
+    public TaskDecorator decorator(PipelineStage stage) {
+        StageMetrics metrics = get(stage);
+        return metrics::wrap;
+    }
+
+    /**
+     * 队列满时由提交线程执行（与 CallerRunsPolicy 相同），并计入阶段指标
+     */
+    public RejectedExecutionHandler callerRunsPolicy(PipelineStage stage) {
+        StageMetrics metrics = get(stage);
+        return (task, executor) -> {
+            metrics.onCallerRuns();
+            if (!executor.isShutdown()) {
+                task.run();
+            }
+        };
+    }
+}
@@ -0,0 +1,51 @@
+package com.feijimiao.xianyuassistant.websocket;
+
+/**
+ * 入站消息流水线阶段
+ *
+ * <p>一条入站帧依次经过：帧解码 → 按lwp分发 → 聊天消息解析 → 持久化 → 业务响应（自动发货）。
+ * 每个阶段有独立的执行器、有界队列和指标，可以单独定位和调整饱和的阶段。</p>
+ */
+public enum PipelineStage {
+
+    /**
+     * 帧解码：JSON解析、同步包解密、ACK和响应处理（按账号有序）
+     */
+    DECODE("decode", "帧解码"),
+
+    /**
+     * 按lwp路径分发到处理器（按账号有序）
+     */
+    DISPATCH("dispatch", "LWP分发"),
+
+    /**
+     * 聊天消息解析并发布事件（按账号+会话有序）
+     */
+    PARSE("parse", "消息解析"),
+
+    /**
+     * 聊天消息持久化
+     */
+    PERSIST("persist", "持久化"),
+
+    /**
+     * 业务响应（自动发货等）
+     */
+    REACT("react", "业务响应");
+
+    private final String key;
+    private final String description;
+
+    PipelineStage(String key, String description) {
+        this.key = key;
+        this.description = description;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
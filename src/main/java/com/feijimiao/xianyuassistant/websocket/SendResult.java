@@ -0,0 +1,85 @@
+package com.feijimiao.xianyuassistant.websocket;
+
+import lombok.Getter;
+
+/**
+ * 消息发送结果
+ *
+ * <p>由 {@link PendingSendTracker} 在收到服务器对同一mid的响应、超时或被拒绝时生成，
+ * 发送Future总是正常完成，调用方通过 {@link #getStatus()} 判断结果。</p>
+ */
+@Getter
+public class SendResult {
+
+    /**
+     * 发送状态
+     */
+    public enum Status {
+        /** 服务器返回200 */
+        SUCCESS,
+        /** 服务器返回非200响应码 */
+        FAILED,
+        /** 超时未收到服务器响应 */
+        TIMEOUT,
+        /** 在途请求已满，未发送 */
+        REJECTED,
+        /** 连接不可用，未发送或连接已断开 */
+        NOT_CONNECTED
+    }
+
+    private final Status status;
+
+    /**
+     * 请求的mid
+     */
+    private final String mid;
+
+    /**
+     * 服务器返回的消息ID（成功时可能有值）
+     */
+    private final String messageId;
+
+    /**
+     * 服务器响应码
+     */
+    private final Integer code;
+
+    /**
+     * 失败原因
+     */
+    private final String errorMessage;
+
+    /**
+     * 从发送到完成的耗时（毫秒）
+     */
+    private final long latencyMillis;
+
+    public SendResult(Status status, String mid, String messageId, Integer code, String errorMessage, long latencyMillis) {
+        this.status = status;
+        this.mid = mid;
+        this.messageId = messageId;
+        this.code = code;
+        this.errorMessage = errorMessage;
+        this.latencyMillis = latencyMillis;
+    }
+
+    /**
+     * 未发送就失败的结果
+     */
+    public static SendResult notSent(Status status, String errorMessage) {
+        return new SendResult(status, null, null, null, errorMessage, 0);
+    }
+
+    /**
+     * 是否发送成功
+     */
+    public boolean isSuccess() {
+        return status == Status.SUCCESS;
+    }
+
+    @Override
+    public String toString() {
+        return "SendResult{status=" + status + ", mid=" + mid + ", messageId=" + messageId
+                + ", code=" + code + ", errorMessage=" + errorMessage + ", latencyMillis=" + latencyMillis + "}";
+    }
+}
@@ -0,0 +1,220 @@
+package com.feijimiao.xianyuassistant.websocket;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 流水线单个阶段的指标
+ *
+ * <p>任务提交时用 {@link #wrap(Runnable)} 包装，记录排队等待时间（提交到开始执行）和处理时间。
+ * 除累计值外，按秒分桶统计最近 {@value #WINDOW_SECONDS} 秒的吞吐量和平均延迟（分桶重置时的并发计数为近似值）。</p>
+ */
+public class StageMetrics {
+
+    /**
+     * 滑动窗口秒数
+     */
+    static final int WINDOW_SECONDS = 10;
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final PipelineStage stage;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final LongAdder callerRuns = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAdder totalServiceNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong maxServiceNanos = new AtomicLong();
+
+    // 已提交未开始执行的任务数，以及历史峰值
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger peakQueued = new AtomicInteger();
+    // 正在执行的任务数
+    private final AtomicInteger running = new AtomicInteger();
+
+    // 按秒分桶：桶对应的秒、完成数、等待和处理时间合计
+    private final AtomicLongArray bucketSecond = new AtomicLongArray(WINDOW_SECONDS);
+    private final AtomicLongArray bucketCount = new AtomicLongArray(WINDOW_SECONDS);
+    private final AtomicLongArray bucketWaitNanos = new AtomicLongArray(WINDOW_SECONDS);
+    private final AtomicLongArray bucketServiceNanos = new AtomicLongArray(WINDOW_SECONDS);
+
+    public StageMetrics(PipelineStage stage) {
+        this.stage = stage;
+        for (int i = 0; i < WINDOW_SECONDS; i++) {
+            bucketSecond.set(i, -1);
+        }
+    }
+
+    /**
+     * 包装一个刚提交的任务，执行时记录等待和处理时间
+     */
+    public Runnable wrap(Runnable task) {
+        long submittedAt = System.nanoTime();
+        submitted.increment();
+        int depth = queued.incrementAndGet();
+        peakQueued.accumulateAndGet(depth, Math::max);
+        return () -> run(task, submittedAt);
+    }
+
+    private void run(Runnable task, long submittedAt) {
+        long start = System.nanoTime();
+        queued.decrementAndGet();
+        running.incrementAndGet();
+        try {
+            task.run();
+        } catch (RuntimeException | Error e) {
+            failed.increment();
+            throw e;
+        } finally {
+            running.decrementAndGet();
+            record(start - submittedAt, System.nanoTime() - start);
+        }
+    }
+
+    private void record(long waitNanos, long serviceNanos) {
+        completed.increment();
+        totalWaitNanos.add(waitNanos);
+        totalServiceNanos.add(serviceNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        maxServiceNanos.accumulateAndGet(serviceNanos, Math::max);
+
+        long second = System.nanoTime() / NANOS_PER_SECOND;
+        int index = (int) (second % WINDOW_SECONDS);
+        long current = bucketSecond.get(index);
+        if (current != second && bucketSecond.compareAndSet(index, current, second)) {
+            bucketCount.set(index, 0);
+            bucketWaitNanos.set(index, 0);
+            bucketServiceNanos.set(index, 0);
+        }
+        bucketCount.incrementAndGet(index);
+        bucketWaitNanos.addAndGet(index, waitNanos);
+        bucketServiceNanos.addAndGet(index, serviceNanos);
+    }
+
+    /**
+     * 提交时队列已满、上游线程被阻塞
+     */
+    public void onBlocked() {
+        blocked.increment();
+    }
+
+    /**
+     * 队列已满、任务由提交线程直接执行
+     */
+    public void onCallerRuns() {
+        callerRuns.increment();
+    }
+
+    /**
+     * 汇总最近完整的 {@value #WINDOW_SECONDS} 秒：{完成数, 等待时间合计, 处理时间合计}
+     */
+    private long[] window() {
+        long now = System.nanoTime() / NANOS_PER_SECOND;
+        long[] sums = new long[3];
+        for (int i = 0; i < WINDOW_SECONDS; i++) {
+            long second = bucketSecond.get(i);
+            if (second >= now - WINDOW_SECONDS && second < now) {
+                sums[0] += bucketCount.get(i);
+                sums[1] += bucketWaitNanos.get(i);
+                sums[2] += bucketServiceNanos.get(i);
+            }
+        }
+        return sums;
+    }
+
+    public PipelineStage getStage() {
+        return stage;
+    }
+
+    public long getSubmitted() {
+        return submitted.sum();
+    }
+
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public long getBlocked() {
+        return blocked.sum();
+    }
+
+    public long getCallerRuns() {
+        return callerRuns.sum();
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    public int getPeakQueued() {
+        return peakQueued.get();
+    }
+
+    public int getRunning() {
+        return running.get();
+    }
+
+    /**
+     * 是否没有排队和正在执行的任务
+     */
+    public boolean isIdle() {
+        return queued.get() == 0 && running.get() == 0;
+    }
+
+    /**
+     * 最近窗口内每秒完成的任务数
+     */
+    public double getThroughputPerSecond() {
+        return window()[0] / (double) WINDOW_SECONDS;
+    }
+
+    /**
+     * 最近窗口内的平均排队等待时间（毫秒）
+     */
+    public double getWindowAvgWaitMillis() {
+        long[] sums = window();
+        return sums[0] > 0 ? sums[1] / 1e6 / sums[0] : 0;
+    }
+
+    /**
+     * 最近窗口内的平均处理时间（毫秒）
+     */
+    public double getWindowAvgServiceMillis() {
+        long[] sums = window();
+        return sums[0] > 0 ? sums[2] / 1e6 / sums[0] : 0;
+    }
+
+    /**
+     * 累计平均排队等待时间（毫秒）
+     */
+    public double getAvgWaitMillis() {
+        long count = completed.sum();
+        return count > 0 ? totalWaitNanos.sum() / 1e6 / count : 0;
+    }
+
+    /**
+     * 累计平均处理时间（毫秒）
+     */
+    public double getAvgServiceMillis() {
+        long count = completed.sum();
+        return count > 0 ? totalServiceNanos.sum() / 1e6 / count : 0;
+    }
+
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1e6;
+    }
+
+    public double getMaxServiceMillis() {
+        return maxServiceNanos.get() / 1e6;
+    }
+}
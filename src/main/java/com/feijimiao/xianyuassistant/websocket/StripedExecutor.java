@@ -0,0 +1,150 @@
+package com.feijimiao.xianyuassistant.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 条带化有序执行器
+ *
+ * <p>按key哈希到固定数量的条带（stripe），同一条带内的任务严格按提交顺序串行执行，
+ * 不同条带之间并行执行。条带本身不持有线程，有任务时才向底层执行器提交一次排空任务。</p>
+ *
+ * <p>相同key的任务总是落在同一条带，因此保证同一key的任务按到达顺序处理。</p>
+ */
+@Slf4j
+public class StripedExecutor {
+
+    /**
+     * 单次排空最多执行的任务数，超过后让出线程，避免热点条带长期占用平台线程
+     */
+    private static final int DRAIN_BATCH = 64;
+
+    private final String name;
+    private final Executor backingExecutor;
+    private final Stripe[] stripes;
+
+    public StripedExecutor(String name, int stripeCount, Executor backingExecutor) {
+        this.name = name;
+        this.backingExecutor = backingExecutor;
+        this.stripes = new Stripe[Math.max(1, stripeCount)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * 提交任务到key对应的条带
+     *
+     * @param key 排序键（相同key的任务按提交顺序执行）
+     * @param task 任务
+     */
+    public void execute(Object key, Runnable task) {
+        stripes[indexFor(key)].enqueue(key, task);
+    }
+
+    /**
+     * 计算key所在的条带序号
+     */
+    public int indexFor(Object key) {
+        int h = key != null ? key.hashCode() : 0;
+        h ^= (h >>> 16);
+        return (h & 0x7fffffff) % stripes.length;
+    }
+
+    /**
+     * 获取条带数量
+     */
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * 获取条带当前排队的任务数
+     */
+    public int getQueueDepth(int index) {
+        return stripes[index].depth.get();
+    }
+
+    /**
+     * 获取条带最近一次提交任务的key（用于定位热点账号）
+     */
+    public Object getLastKey(int index) {
+        return stripes[index].lastKey;
+    }
+
+    /**
+     * 获取条带累计完成的任务数
+     */
+    public long getCompletedTasks(int index) {
+        return stripes[index].completed.get();
+    }
+
+    /**
+     * 获取所有条带排队的任务总数
+     */
+    public int getTotalQueueDepth() {
+        int total = 0;
+        for (Stripe stripe : stripes) {
+            total += stripe.depth.get();
+        }
+        return total;
+    }
+
+    /**
+     * 单个条带：无锁队列 + 调度标志，保证同一时刻最多一个线程在排空
+     */
+    private final class Stripe implements Runnable {
+
+        private final ConcurrentLinkedQueue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger depth = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicLong completed = new AtomicLong();
+        private volatile Object lastKey;
+
+        void enqueue(Object key, Runnable task) {
+            lastKey = key;
+            queue.offer(task);
+            depth.incrementAndGet();
+            schedule();
+        }
+
+        void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    backingExecutor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                    log.warn("[{}]条带调度被拒绝，执行器可能已关闭", name);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            int processed = 0;
+            Runnable task;
+            while (processed < DRAIN_BATCH && (task = queue.poll()) != null) {
+                depth.decrementAndGet();
+                processed++;
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    log.error("[{}]条带任务执行异常", name, t);
+                } finally {
+                    completed.incrementAndGet();
+                }
+            }
+            scheduled.set(false);
+            // 排空期间可能有新任务到达，重新调度
+            if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
@@ -1,12 +1,20 @@
 package com.feijimiao.xianyuassistant.websocket;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.feijimiao.xianyuassistant.entity.XianyuSyncCheckpoint;
+import com.feijimiao.xianyuassistant.service.SyncCheckpointService;
+import com.feijimiao.xianyuassistant.websocket.frame.LwpFrameEncoder;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * WebSocket初始化器
@@ -19,6 +27,14 @@ public class WebSocketInitializer {
 
     private final ObjectMapper objectMapper = new ObjectMapper();
     
+    @Autowired
+    private SyncCheckpointService syncCheckpointService;
+    
+    /**
+     * 注册消息之后延迟1秒发送同步状态消息（参考Python代码），不阻塞启动线程
+     */
+    private static final Executor SYNC_STATUS_DELAY = CompletableFuture.delayedExecutor(1, TimeUnit.SECONDS);
+    
     /**
      * 生成消息ID
      * 参考Python的generate_mid方法
@@ -30,6 +46,17 @@ public class WebSocketInitializer {
         return randomPart + String.valueOf(timestamp) + " 0";
     }
     
+    /**
+     * 编码一条出站消息（注册和同步状态消息需要记录日志，在当前线程编码）
+     */
+    private String encode(OutboundWriter.Encoder encoder) throws IOException {
+        StringWriter out = new StringWriter(512);
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            encoder.encode(generator);
+        }
+        return out.toString();
+    }
+    
     /**
      * 发送注册消息
      * 参考Python的init方法中的/reg消息
@@ -41,24 +68,9 @@ public class WebSocketInitializer {
      */
     public void sendRegistrationMessage(XianyuWebSocketClient client, String token, String deviceId, String accountId) {
         try {
-            Map<String, Object> message = new HashMap<>();
-            message.put("lwp", "/reg");
-            
-            Map<String, Object> headers = new HashMap<>();
-            headers.put("cache-header", "app-key token ua wv");
-            headers.put("app-key", "444e9908a51d1cb236a27862abc769c9");
-            headers.put("token", token);
-            headers.put("ua", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/133.0.0.0 Safari/537.36 DingTalk(2.1.5) OS(Windows/10) Browser(Chrome/133.0.0.0) DingWeb/2.1.5 IMPaaS DingWeb/2.1.5");
-            headers.put("dt", "j");
-            headers.put("wv", "im:3,au:3,sy:6");
-            headers.put("sync", "0,0;0;0;");
-            headers.put("did", deviceId);
-            headers.put("mid", generateMid());
-            
-            message.put("headers", headers);
-            
-            String jsonMessage = objectMapper.writeValueAsString(message);
-            client.send(jsonMessage);
+            String jsonMessage = encode(generator ->
+                    LwpFrameEncoder.writeRegistration(generator, token, deviceId, generateMid()));
+            client.sendQueued(OutboundWriter.Type.CONTROL, jsonMessage);
             
             log.info("【账号{}】已发送注册消息", accountId);
             log.info("【账号{}】注册消息内容: {}", accountId, jsonMessage);
@@ -79,33 +91,22 @@ public class WebSocketInitializer {
         try {
             long currentTime = System.currentTimeMillis();
             
-            Map<String, Object> message = new HashMap<>();
-            message.put("lwp", "/r/SyncStatus/ackDiff");
-            
-            Map<String, Object> headers = new HashMap<>();
-            headers.put("mid", generateMid());
-            message.put("headers", headers);
-            
-            Map<String, Object> bodyItem = new HashMap<>();
-            bodyItem.put("pipeline", "sync");
-            bodyItem.put("tooLong2Tag", "PNM,1");
-            bodyItem.put("channel", "sync");
-            bodyItem.put("topic", "sync");
-            bodyItem.put("highPts", 0);
-            // 重要：pts设置为0以接收所有消息，或者使用当前时间戳*1000
+            // 从上次处理到的检查点继续同步，没有检查点时pts为0以接收所有消息
             // 参考Python: pts = current_time * 1000 (毫秒时间戳 * 1000)
-            bodyItem.put("pts", 0L);  // 先尝试设置为0，接收所有消息
-            bodyItem.put("seq", 0);
-            bodyItem.put("timestamp", currentTime);
-            
-            message.put("body", new Object[]{bodyItem});
-            
-            String jsonMessage = objectMapper.writeValueAsString(message);
-            client.send(jsonMessage);
+            XianyuSyncCheckpoint resume = syncCheckpointService.getResumePoint(Long.parseLong(accountId));
+            long pts = resume.getPts();
+            long seq = resume.getSeq();
+            String jsonMessage = encode(generator ->
+                    LwpFrameEncoder.writeSyncStatus(generator, generateMid(), pts, seq, currentTime));
+            client.sendQueued(OutboundWriter.Type.CONTROL, jsonMessage);
             
             log.info("【账号{}】已发送同步状态消息", accountId);
             log.info("【账号{}】同步状态消息内容: {}", accountId, jsonMessage);
-            log.info("【账号{}】pts设置为0，将接收所有消息", accountId);
+            if (pts == 0) {
+                log.info("【账号{}】没有同步检查点，pts设置为0，将接收所有消息", accountId);
+            } else {
+                log.info("【账号{}】从同步检查点继续: pts={}, seq={}", accountId, pts, seq);
+            }
             
         } catch (Exception e) {
             log.error("【账号{}】发送同步状态消息失败", accountId, e);
@@ -128,16 +129,12 @@ public class WebSocketInitializer {
         // 1. 发送注册消息
         sendRegistrationMessage(client, token, deviceId, accountId);
         
-        // 2. 等待1秒（参考Python代码）
-        try {
-            Thread.sleep(1000);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-        
-        // 3. 发送同步状态消息
-        sendSyncStatusMessage(client, accountId);
-        
-        log.info("【账号{}】WebSocket初始化流程完成", accountId);
+        // 2. 等待1秒后发送同步状态消息（参考Python代码），连接已关闭则跳过
+        SYNC_STATUS_DELAY.execute(() -> {
+            if (client.isConnected()) {
+                sendSyncStatusMessage(client, accountId);
+                log.info("【账号{}】WebSocket初始化流程完成", accountId);
+            }
+        });
     }
 }
@@ -0,0 +1,417 @@
+package com.feijimiao.xianyuassistant.websocket;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * WebSocket消息共享执行器
+ *
+ * <p>入站流水线的前三个阶段各有一个条带化有序执行器（见 {@link PipelineStage}）：</p>
+ * <ul>
+ *   <li>解码阶段：帧级任务按账号哈希，同一账号的帧按到达顺序处理（ACK、解密）</li>
+ *   <li>分发阶段：解码后的帧按账号哈希交给lwp处理器，保持账号内的顺序</li>
+ *   <li>解析阶段：会话级任务按账号+会话ID（sId）哈希，同一会话的消息按到达顺序处理，不同会话并行</li>
+ * </ul>
+ * <p>持久化和业务响应阶段是Spring异步执行器（见 {@code AsyncConfig}）。</p>
+ *
+ * <p>每个阶段的条带数、线程数和队列容量独立配置。阶段队列满时阻塞提交任务的上游阶段，
+ * 各阶段使用独立的底层执行器，下游阶段不会因上游线程被阻塞而无法执行。
+ * 条带由底层线程承载：虚拟线程模式下每次排空使用一个虚拟线程，平台线程模式下每个阶段一个固定线程池。</p>
+ *
+ * <p>解析阶段的并发度另由两级许可控制：</p>
+ * <ul>
+ *   <li>单账号许可：限制一个账号同时处理的消息数，避免热点账号占满全局预算</li>
+ *   <li>全局许可：限制整个进程同时处理的消息数，保护数据库等下游资源</li>
+ * </ul>
+ *
+ * <p>每个账号排队和处理中的任务数由 {@link IngestGate} 限制，下游变慢时按帧优先级丢弃或背压，
+ * 避免积压的帧耗尽内存。</p>
+ */
+@Slf4j
+@Component
+public class WebSocketMessageExecutor {
+
+    @Value("${xianyu.websocket.executor.mode:virtual}")
+    private String modeConfig;
+
+    @Value("${xianyu.websocket.executor.stripes:0}")
+    private int stripeConfig;
+
+    @Value("${xianyu.websocket.executor.account-permits:10}")
+    private int accountPermits;
+
+    @Value("${xianyu.websocket.executor.global-permits:200}")
+    private int globalPermits;
+
+    @Value("${xianyu.websocket.ingest.capacity:1000}")
+    private int ingestCapacity;
+
+    @Value("${xianyu.websocket.ingest.shed-ratio:0.5}")
+    private double ingestShedRatio;
+
+    @Value("${xianyu.websocket.ingest.high-watermark-ratio:0.8}")
+    private double ingestHighWatermarkRatio;
+
+    @Value("${xianyu.websocket.ingest.block-timeout-ms:2000}")
+    private long ingestBlockTimeoutMillis;
+
+    @Value("${xianyu.websocket.pipeline.decode.stripes:0}")
+    private int decodeStripes;
+
+    @Value("${xianyu.websocket.pipeline.decode.threads:0}")
+    private int decodeThreads;
+
+    @Value("${xianyu.websocket.pipeline.decode.capacity:10000}")
+    private int decodeCapacity;
+
+    @Value("${xianyu.websocket.pipeline.dispatch.stripes:0}")
+    private int dispatchStripes;
+
+    @Value("${xianyu.websocket.pipeline.dispatch.threads:0}")
+    private int dispatchThreads;
+
+    @Value("${xianyu.websocket.pipeline.dispatch.capacity:10000}")
+    private int dispatchCapacity;
+
+    @Value("${xianyu.websocket.pipeline.parse.stripes:0}")
+    private int parseStripes;
+
+    @Value("${xianyu.websocket.pipeline.parse.threads:0}")
+    private int parseThreads;
+
+    @Value("${xianyu.websocket.pipeline.parse.capacity:20000}")
+    private int parseCapacity;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    private MessageExecutionMode mode = MessageExecutionMode.VIRTUAL;
+
+    // 解码、分发、解析阶段的执行器
+    private final Map<PipelineStage, StageExecutor> stages = new EnumMap<>(PipelineStage.class);
+
+    // 出站写入器的排空执行器
+    private ExecutorService writerExecutor;
+
+    // 全局许可
+    private Semaphore globalSemaphore;
+
+    // 账号ID -> 单账号许可
+    private final Map<String, Semaphore> accountSemaphores = new ConcurrentHashMap<>();
+
+    // 账号ID -> 入站队列闸门
+    private final Map<String, IngestGate> ingestGates = new ConcurrentHashMap<>();
+
+    // 正在处理的消息数
+    private final AtomicInteger activeTasks = new AtomicInteger();
+
+    @PostConstruct
+    public void init() {
+        mode = MessageExecutionMode.from(modeConfig);
+        int cores = Runtime.getRuntime().availableProcessors();
+        if (mode == MessageExecutionMode.VIRTUAL) {
+            writerExecutor = Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("ws-out-", 0).factory());
+        } else {
+            writerExecutor = Executors.newFixedThreadPool(Math.max(2, cores / 2),
+                    Thread.ofPlatform().name("ws-out-", 0).daemon(true).factory());
+        }
+        int defaultStripes = stripeConfig > 0 ? stripeConfig : cores * 4;
+        createStage(PipelineStage.DECODE, decodeStripes, decodeThreads, decodeCapacity, defaultStripes, cores);
+        createStage(PipelineStage.DISPATCH, dispatchStripes, dispatchThreads, dispatchCapacity, defaultStripes, cores);
+        createStage(PipelineStage.PARSE, parseStripes, parseThreads, parseCapacity, defaultStripes, cores);
+        globalSemaphore = new Semaphore(Math.max(1, globalPermits));
+        log.info("WebSocket消息执行器初始化完成: mode={}, accountPermits={}, globalPermits={}, ingestCapacity={}",
+                mode, accountPermits, globalPermits, ingestCapacity);
+    }
+
+    private void createStage(PipelineStage stage, int stripes, int threads, int capacity, int defaultStripes, int cores) {
+        String name = "ws-" + stage.getKey();
+        ExecutorService backing;
+        if (mode == MessageExecutionMode.VIRTUAL) {
+            backing = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory());
+        } else {
+            backing = Executors.newFixedThreadPool(threads > 0 ? threads : cores,
+                    Thread.ofPlatform().name(name + "-", 0).daemon(true).factory());
+        }
+        int stripeCount = stripes > 0 ? stripes : defaultStripes;
+        stages.put(stage, new StageExecutor(pipelineMetrics.get(stage), backing,
+                new StripedExecutor(name, stripeCount, backing), Math.max(1, capacity)));
+        log.info("入站流水线阶段[{}]初始化: stripes={}, threads={}, capacity={}", stage.getDescription(), stripeCount,
+                mode == MessageExecutionMode.VIRTUAL ? "virtual" : (threads > 0 ? threads : cores), capacity);
+    }
+
+    /**
+     * 获取执行模式
+     */
+    public MessageExecutionMode getMode() {
+        return mode;
+    }
+
+    /**
+     * 是否为虚拟线程模式
+     */
+    public boolean isVirtualMode() {
+        return mode == MessageExecutionMode.VIRTUAL;
+    }
+
+    /**
+     * 提交入站帧处理任务
+     * 同一账号的帧按提交顺序执行；账号队列过载时按优先级丢弃，或阻塞调用线程直到出现空位
+     *
+     * @param accountId 账号ID
+     * @param priority 帧优先级
+     * @param task 帧处理任务
+     * @return 已提交返回true，被丢弃返回false
+     */
+    public boolean submitFrame(String accountId, IngestPriority priority, Runnable task) {
+        IngestGate gate = ingestGate(accountId);
+        if (!gate.tryAdmit(priority)) {
+            return false;
+        }
+        submit(PipelineStage.DECODE, accountId, null, gate, task);
+        return true;
+    }
+
+    /**
+     * 提交分发阶段任务（解码后的帧交给lwp处理器）
+     * 同一账号的任务按提交顺序执行，计入账号队列深度但不会被丢弃
+     *
+     * @param accountId 账号ID
+     * @param task 分发任务
+     */
+    public void dispatch(String accountId, Runnable task) {
+        IngestGate gate = ingestGate(accountId);
+        gate.admitDerived();
+        submit(PipelineStage.DISPATCH, accountId, null, gate, task);
+    }
+
+    /**
+     * 提交账号级的解析阶段任务
+     * 同一账号的任务按提交顺序执行
+     *
+     * @param accountId 账号ID
+     * @param task 消息处理任务
+     */
+    public void execute(String accountId, Runnable task) {
+        execute(accountId, null, task);
+    }
+
+    /**
+     * 提交会话级的解析阶段任务
+     * 同一账号同一会话的任务按提交顺序执行，不同会话并行执行
+     * 由已接收的帧派生，计入账号队列深度但不会被丢弃
+     *
+     * @param accountId 账号ID
+     * @param conversationId 会话ID（sId），为null时按账号排序
+     * @param task 消息处理任务
+     */
+    public void execute(String accountId, String conversationId, Runnable task) {
+        IngestGate gate = ingestGate(accountId);
+        gate.admitDerived();
+        submit(PipelineStage.PARSE, accountId, conversationId, gate, task);
+    }
+
+    private void submit(PipelineStage stage, String accountId, String conversationId, IngestGate gate, Runnable task) {
+        // 许可只用于解析阶段：解码、分发任务可能阻塞等待下游队列空位，持有许可会让下游拿不到许可
+        Semaphore accountSemaphore = stage == PipelineStage.PARSE ? accountSemaphores.computeIfAbsent(
+                accountId, k -> new Semaphore(Math.max(1, accountPermits))) : null;
+        String key = conversationId == null ? accountId : accountId + "|" + conversationId;
+        stages.get(stage).execute(key, () -> {
+            try {
+                if (accountSemaphore != null) {
+                    runWithPermits(accountId, accountSemaphore, task);
+                } else {
+                    run(accountId, task);
+                }
+            } finally {
+                gate.release();
+            }
+        });
+    }
+
+    private IngestGate ingestGate(String accountId) {
+        return ingestGates.computeIfAbsent(accountId, id -> new IngestGate(id, ingestCapacity,
+                ingestShedRatio, ingestHighWatermarkRatio, ingestBlockTimeoutMillis));
+    }
+
+    /**
+     * 带许可的任务执行包装器
+     */
+    private void runWithPermits(String accountId, Semaphore accountSemaphore, Runnable task) {
+        try {
+            accountSemaphore.acquire();
+            try {
+                globalSemaphore.acquire();
+                try {
+                    run(accountId, task);
+                } finally {
+                    globalSemaphore.release();
+                }
+            } finally {
+                accountSemaphore.release();
+            }
+        } catch (InterruptedException e) {
+            log.error("【账号{}】消息处理被中断", accountId, e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run(String accountId, Runnable task) {
+        activeTasks.incrementAndGet();
+        try {
+            task.run();
+        } catch (Exception e) {
+            log.error("【账号{}】消息处理异常", accountId, e);
+        } finally {
+            activeTasks.decrementAndGet();
+        }
+    }
+
+    /**
+     * 移除账号的许可和入站队列闸门（账号断开连接时调用）
+     * 正在执行的任务持有原对象的引用，不受影响
+     */
+    public void removeAccount(String accountId) {
+        accountSemaphores.remove(accountId);
+        ingestGates.remove(accountId);
+    }
+
+    /**
+     * 获取账号的入站队列闸门，账号没有入站任务时返回null
+     */
+    public IngestGate getIngestGate(String accountId) {
+        return ingestGates.get(accountId);
+    }
+
+    /**
+     * 获取阶段的条带化执行器（用于查询每个条带的队列深度）
+     *
+     * @param stage 解码、分发或解析阶段
+     */
+    public StripedExecutor getStripedExecutor(PipelineStage stage) {
+        StageExecutor executor = stages.get(stage);
+        return executor != null ? executor.striped : null;
+    }
+
+    /**
+     * 获取解码、分发、解析阶段排队的任务总数
+     */
+    public int getTotalQueueDepth() {
+        int total = 0;
+        for (StageExecutor executor : stages.values()) {
+            total += executor.striped.getTotalQueueDepth();
+        }
+        return total;
+    }
+
+    /**
+     * 获取阶段队列剩余容量，非条带化阶段返回-1
+     */
+    public int getAvailableCapacity(PipelineStage stage) {
+        StageExecutor executor = stages.get(stage);
+        return executor != null ? executor.capacity.availablePermits() : -1;
+    }
+
+    /**
+     * 获取出站写入器的排空执行器
+     */
+    public Executor getWriterExecutor() {
+        return writerExecutor;
+    }
+
+    /**
+     * 获取正在处理的消息数
+     */
+    public int getActiveTasks() {
+        return activeTasks.get();
+    }
+
+    /**
+     * 获取剩余的全局许可数
+     */
+    public int getAvailableGlobalPermits() {
+        return globalSemaphore != null ? globalSemaphore.availablePermits() : 0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (writerExecutor != null) {
+            writerExecutor.shutdown();
+        }
+        // 按流水线顺序关闭，上游阶段排空时仍可以向下游提交
+        for (StageExecutor executor : stages.values()) {
+            executor.backing.shutdown();
+            try {
+                if (!executor.backing.awaitTermination(5, TimeUnit.SECONDS)) {
+                    executor.backing.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                executor.backing.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (!stages.isEmpty()) {
+            log.info("WebSocket消息执行器已关闭");
+        }
+    }
+
+    /**
+     * 流水线阶段执行器：条带化有序执行器 + 有界队列 + 阶段指标
+     */
+    private static final class StageExecutor {
+
+        private final StageMetrics metrics;
+        private final ExecutorService backing;
+        private final StripedExecutor striped;
+        private final Semaphore capacity;
+
+        StageExecutor(StageMetrics metrics, ExecutorService backing, StripedExecutor striped, int capacity) {
+            this.metrics = metrics;
+            this.backing = backing;
+            this.striped = striped;
+            this.capacity = new Semaphore(capacity);
+        }
+
+        /**
+         * 提交任务，队列已满时阻塞调用线程直到下游腾出空位（被中断时超出容量提交）
+         */
+        void execute(Object key, Runnable task) {
+            boolean acquired = capacity.tryAcquire();
+            if (!acquired) {
+                metrics.onBlocked();
+                try {
+                    capacity.acquire();
+                    acquired = true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            Runnable measured = metrics.wrap(task);
+            boolean release = acquired;
+            striped.execute(key, () -> {
+                try {
+                    measured.run();
+                } finally {
+                    if (release) {
+                        capacity.release();
+                    }
+                }
+            });
+        }
+    }
+}
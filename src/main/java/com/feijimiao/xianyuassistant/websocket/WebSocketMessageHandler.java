@@ -1,6 +1,6 @@
 package com.feijimiao.xianyuassistant.websocket;
 
-import java.util.Map;
+import com.feijimiao.xianyuassistant.websocket.frame.DecodedFrame;
 
 /**
  * WebSocket消息处理器接口
@@ -12,9 +12,9 @@ public interface WebSocketMessageHandler {
      * 处理接收到的消息
      * 
      * @param accountId 账号ID
-     * @param message 消息内容
+     * @param frame 解码后的消息
      */
-    void handleMessage(String accountId, Map<String, Object> message);
+    void handleMessage(String accountId, DecodedFrame frame);
     
     /**
      * 处理心跳响应
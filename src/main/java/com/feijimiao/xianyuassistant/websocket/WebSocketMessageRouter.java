@@ -1,5 +1,6 @@
 package com.feijimiao.xianyuassistant.websocket;
 
+import com.feijimiao.xianyuassistant.websocket.frame.DecodedFrame;
 import com.feijimiao.xianyuassistant.websocket.handler.*;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -82,21 +83,20 @@ public class WebSocketMessageRouter {
      * 路由消息到对应的处理器
      * 
      * @param accountId 账号ID
-     * @param messageData 消息数据
+     * @param frame 解码后的消息
      */
-    public void route(String accountId, Map<String, Object> messageData) {
+    public void route(String accountId, DecodedFrame frame) {
         try {
             // 确保已初始化
             ensureInitialized();
             
             // 获取lwp路径
-            Object lwpObj = messageData.get("lwp");
-            String lwp = lwpObj != null ? lwpObj.toString() : null;
+            String lwp = frame.getLwp();
             
             if (lwp == null) {
                 // 没有lwp字段，可能是响应消息
                 log.debug("【账号{}】收到无lwp字段的消息，可能是响应消息", accountId);
-                handleResponseMessage(accountId, messageData);
+                handleResponseMessage(accountId, frame);
                 return;
             }
             
@@ -105,10 +105,10 @@ public class WebSocketMessageRouter {
             
             if (handler != null) {
                 log.debug("【账号{}】路由消息: {} -> {}", accountId, lwp, handler.getClass().getSimpleName());
-                handler.handle(accountId, messageData);
+                handler.handle(accountId, frame);
             } else {
                 log.debug("【账号{}】未找到处理器: {}", accountId, lwp);
-                handleUnknownMessage(accountId, messageData);
+                handleUnknownMessage(accountId, frame);
             }
             
         } catch (Exception e) {
@@ -121,21 +121,21 @@ public class WebSocketMessageRouter {
     /**
      * 处理响应消息（没有lwp字段，但有code字段）
      */
-    private void handleResponseMessage(String accountId, Map<String, Object> messageData) {
-        Object code = messageData.get("code");
+    private void handleResponseMessage(String accountId, DecodedFrame frame) {
+        Integer code = frame.getCode();
         if (code == null) {
-            handleUnknownMessage(accountId, messageData);
+            handleUnknownMessage(accountId, frame);
             return;
         }
         
         log.debug("【账号{}】处理响应消息: code={}", accountId, code);
         
         try {
-            int codeValue = Integer.parseInt(code.toString());
+            int codeValue = code;
             
             if (codeValue == 200) {
                 // 检查是否是消息发送响应
-                Object bodyObj = messageData.get("body");
+                Object bodyObj = frame.getBody();
                 if (bodyObj instanceof Map) {
                     @SuppressWarnings("unchecked")
                     Map<String, Object> body = (Map<String, Object>) bodyObj;
@@ -145,7 +145,7 @@ public class WebSocketMessageRouter {
                         log.debug("【账号{}】识别为消息发送响应", accountId);
                         AbstractLwpHandler handler = handlerMap.get("/r/MessageSend/sendByReceiverScope");
                         if (handler != null) {
-                            handler.handle(accountId, messageData);
+                            handler.handle(accountId, frame);
                             return;
                         }
                     }
@@ -167,12 +167,12 @@ public class WebSocketMessageRouter {
     /**
      * 处理未知消息
      */
-    private void handleUnknownMessage(String accountId, Map<String, Object> messageData) {
+    private void handleUnknownMessage(String accountId, DecodedFrame frame) {
         log.debug("【账号{}】收到未知类型消息", accountId);
         
         // 尝试提取一些有用的信息
-        Object type = messageData.get("type");
-        Object lwp = messageData.get("lwp");
+        String type = frame.getType();
+        String lwp = frame.getLwp();
         
         if (lwp != null) {
             log.debug("【账号{}】未注册的lwp路径: {}", accountId, lwp);
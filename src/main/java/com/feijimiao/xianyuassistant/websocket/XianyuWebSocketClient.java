@@ -1,55 +1,129 @@
 package com.feijimiao.xianyuassistant.websocket;
 
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.feijimiao.xianyuassistant.websocket.frame.DecodedFrame;
+import com.feijimiao.xianyuassistant.websocket.frame.FrameDecoder;
+import com.feijimiao.xianyuassistant.websocket.frame.FrameSniffer;
+import com.feijimiao.xianyuassistant.websocket.frame.LwpFrame;
+import com.feijimiao.xianyuassistant.websocket.frame.LwpFrameEncoder;
+import com.feijimiao.xianyuassistant.websocket.record.FrameRecorder;
+import com.feijimiao.xianyuassistant.websocket.transport.JavaWebSocketTransport;
+import com.feijimiao.xianyuassistant.websocket.transport.LwpTransport;
+import com.feijimiao.xianyuassistant.websocket.transport.LwpTransportFactory;
+import com.feijimiao.xianyuassistant.websocket.transport.TransportStats;
 import lombok.extern.slf4j.Slf4j;
-import org.java_websocket.client.WebSocketClient;
-import org.java_websocket.handshake.ServerHandshake;
 
 import java.net.URI;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.Semaphore;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
  * 闲鱼WebSocket客户端
  * 用于监听闲鱼消息
  * 参考Python代码的WebSocketClient和消息处理机制
+ *
+ * <p>收发通过 {@link LwpTransport} 完成，传输层由 {@link LwpTransportFactory} 按配置创建。</p>
  */
 @Slf4j
-public class XianyuWebSocketClient extends WebSocketClient {
+public class XianyuWebSocketClient implements HeartbeatWheel.Target, LwpTransport.Listener {
 
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final String accountId;
-    private boolean isConnected = false;
+    
+    // 传输层
+    private final LwpTransport transport;
+    
+    // 出站写入器（ACK、心跳、聊天消息合并写出）
+    private final OutboundWriter outboundWriter;
+    private volatile boolean isConnected = false;
+    
+    // 在途发送请求（按mid关联服务器响应）
+    private volatile PendingSendTracker pendingSends;
     
     // 当前用户ID（从Cookie的unb字段获取）
     private String myUserId = null;
     
-    // 消息处理并发控制（参考Python的_handle_message_with_semaphore）
-    private final Semaphore messageSemaphore = new Semaphore(100); // 最多100个并发消息处理（参考Python）
-    private final ExecutorService messageExecutor = Executors.newFixedThreadPool(10);
+    // 共享消息执行器（所有账号共用，按账号/会话有序处理）
+    private WebSocketMessageExecutor messageExecutor;
     
     // 消息处理器
     private WebSocketMessageHandler messageHandler;
     
+    // 入站帧录制器（未开启录制时为null）
+    private volatile FrameRecorder frameRecorder;
+    
     // 消息统计
-    private long messageCount = 0;
-    private long lastMessageTime = 0;
+    private final AtomicLong messageCount = new AtomicLong();
+    private volatile long lastMessageTime = 0;
+    
+    // 快速路径/完整流程命中次数
+    private final AtomicLong fastPathFrames = new AtomicLong();
+    private final AtomicLong slowPathFrames = new AtomicLong();
     
     // 会话信息
-    private String sessionId = null;  // 保存注册后的sid
+    private volatile String sessionId = null;  // 保存注册后的sid
     
     // 注册成功回调
     private Runnable onRegistrationSuccess;
     
     // Token失效回调
     private Runnable onTokenExpired;
+    
+    // 连接断开回调（参数为关闭原因）
+    private Consumer<String> onDisconnected;
 
     public XianyuWebSocketClient(URI serverUri, Map<String, String> headers, String accountId) {
-        super(serverUri, headers);
+        this(serverUri, headers, accountId, null);
+    }
+
+    public XianyuWebSocketClient(URI serverUri, Map<String, String> headers, String accountId,
+                                 LwpTransportFactory transportFactory) {
         this.accountId = accountId;
+        this.transport = transportFactory != null
+                ? transportFactory.create(serverUri, headers, this)
+                : new JavaWebSocketTransport(serverUri, headers, this);
+        this.outboundWriter = new OutboundWriter(accountId, transport, objectMapper);
+        this.pendingSends = new PendingSendTracker(accountId, 32, 10000);
+    }
+    
+    /**
+     * 建立连接并等待握手完成
+     */
+    public boolean connectBlocking(long timeout, TimeUnit unit) throws InterruptedException {
+        return transport.connectBlocking(timeout, unit);
+    }
+    
+    /**
+     * 关闭连接
+     */
+    public void close() {
+        transport.close();
+    }
+    
+    /**
+     * 传输层连接是否可用
+     */
+    public boolean isOpen() {
+        return transport.isOpen();
+    }
+    
+    /**
+     * 传输层连接是否已关闭
+     */
+    public boolean isClosed() {
+        return transport.isClosed();
+    }
+    
+    /**
+     * 获取连接的流量统计（压缩前后字节数）
+     */
+    public TransportStats getTransportStats() {
+        return transport.getStats();
     }
     
     /**
@@ -59,6 +133,58 @@ public class XianyuWebSocketClient extends WebSocketClient {
         this.messageHandler = handler;
     }
     
+    /**
+     * 设置入站帧录制器
+     */
+    public void setFrameRecorder(FrameRecorder recorder) {
+        this.frameRecorder = recorder;
+    }
+    
+    /**
+     * 设置共享消息执行器
+     */
+    public void setMessageExecutor(WebSocketMessageExecutor executor) {
+        this.messageExecutor = executor;
+    }
+    
+    /**
+     * 设置出站消息写执行器
+     */
+    public void setOutboundExecutor(java.util.concurrent.Executor executor) {
+        outboundWriter.setExecutor(executor);
+    }
+    
+    /**
+     * 设置发送限制（连接前调用）
+     * 
+     * @param maxInFlight 最大在途发送请求数
+     * @param timeoutMillis 等待服务器响应的超时时间（毫秒）
+     */
+    public void setSendLimits(int maxInFlight, long timeoutMillis) {
+        this.pendingSends = new PendingSendTracker(accountId, maxInFlight, timeoutMillis);
+    }
+    
+    /**
+     * 获取在途发送请求跟踪器（用于查询发送统计）
+     */
+    public PendingSendTracker getPendingSends() {
+        return pendingSends;
+    }
+    
+    /**
+     * 通过出站队列发送已编码的消息
+     */
+    public void sendQueued(OutboundWriter.Type type, String text) {
+        outboundWriter.enqueue(type, text);
+    }
+    
+    /**
+     * 获取出站写入器（用于查询发送队列统计）
+     */
+    public OutboundWriter getOutboundWriter() {
+        return outboundWriter;
+    }
+    
     /**
      * 设置注册成功回调
      */
@@ -79,13 +205,22 @@ public class XianyuWebSocketClient extends WebSocketClient {
     public void setOnTokenExpired(Runnable callback) {
         this.onTokenExpired = callback;
     }
+    
+    /**
+     * 设置连接断开回调
+     */
+    public void setOnDisconnected(Consumer<String> callback) {
+        this.onDisconnected = callback;
+    }
 
     @Override
-    public void onOpen(ServerHandshake handshakedata) {
+    public void onOpen(int httpStatus, String httpStatusMessage) {
         isConnected = true;
         log.info("【账号{}】==================== WebSocket连接建立成功 ====================", accountId);
-        log.info("【账号{}】服务器握手状态: {}", accountId, handshakedata.getHttpStatus());
-        log.info("【账号{}】服务器握手消息: {}", accountId, handshakedata.getHttpStatusMessage());
+        log.info("【账号{}】服务器握手状态: {}", accountId, httpStatus);
+        log.info("【账号{}】服务器握手消息: {}", accountId, httpStatusMessage);
+        log.info("【账号{}】压缩扩展: {}", accountId,
+                transport.getStats().isCompressed() ? transport.getStats().getExtension() : "未协商");
         log.info("【账号{}】连接已就绪，等待初始化和接收消息...", accountId);
         log.info("【账号{}】WebSocket连接状态正常，等待服务器消息...", accountId);
         log.info("【账号{}】准备进入消息接收循环...", accountId);
@@ -94,36 +229,58 @@ public class XianyuWebSocketClient extends WebSocketClient {
 
     @Override
     public void onMessage(String message) {
-        // 使用信号量控制并发处理（参考Python的_handle_message_with_semaphore）
-        messageExecutor.submit(() -> handleMessageWithSemaphore(message));
+        FrameRecorder recorder = frameRecorder;
+        if (recorder != null) {
+            recorder.record(accountId, message);
+        }
+        // 心跳/ACK帧在接收线程上直接处理，不做JSON解析也不进入执行器
+        if (tryFastPath(message)) {
+            return;
+        }
+        slowPathFrames.incrementAndGet();
+        if (messageExecutor != null) {
+            // 收到即刷新活跃时间，过载排队时不会被误判为死连接
+            lastMessageTime = System.currentTimeMillis();
+            // 提交到共享执行器，同一账号的帧按到达顺序处理；过载时丢弃低优先级帧，必须处理的帧阻塞接收线程形成背压
+            messageExecutor.submitFrame(accountId, IngestPriority.classify(message), () -> handleMessage(message));
+        } else {
+            handleMessage(message);
+        }
     }
     
     /**
-     * 带信号量的消息处理包装器
-     * 参考Python的_handle_message_with_semaphore方法
+     * 快速路径：处理只需要ACK的心跳响应和普通200响应
+     * 
+     * @param message 原始消息
+     * @return 已处理返回true，需要走完整流程返回false
      */
-    private void handleMessageWithSemaphore(String message) {
-        try {
-            // 获取信号量许可
-            messageSemaphore.acquire();
-            
-            try {
-                // 实际处理消息
-                handleMessage(message);
-            } catch (Exception e) {
-                // 确保即使处理失败也记录错误
-                log.error("【账号{}】消息处理异常", accountId, e);
-            } finally {
-                // 释放信号量许可
-                messageSemaphore.release();
+    private boolean tryFastPath(String message) {
+        FrameSniffer.AckOnlyFrame frame = FrameSniffer.sniff(message);
+        if (frame == null) {
+            return false;
+        }
+        fastPathFrames.incrementAndGet();
+        messageCount.incrementAndGet();
+        lastMessageTime = System.currentTimeMillis();
+
+        // 发送ACK确认消息
+        if (frame.isHasHeaders()) {
+            outboundWriter.enqueue(OutboundWriter.Type.ACK, frame.buildAck(generateMid()));
+        }
+
+        if (frame.getCode() != null) {
+            // 可能是聊天消息发送请求的响应
+            if (frame.getLwp() == null && pendingSends.hasPending()) {
+                pendingSends.complete(frame.getMid(), frame.getCode(), null);
+            }
+            handleHeartbeatResponse();
+            String sid = frame.getSid();
+            if (sid != null && !sid.equals(sessionId)) {
+                sessionId = sid;
+                log.info("【账号{}】已保存会话ID: {}", accountId, sessionId);
             }
-            
-        } catch (InterruptedException e) {
-            log.error("【账号{}】消息处理被中断", accountId, e);
-            Thread.currentThread().interrupt();
-        } catch (Exception e) {
-            log.error("【账号{}】信号量处理异常", accountId, e);
         }
+        return true;
     }
     
     /**
@@ -132,7 +289,7 @@ public class XianyuWebSocketClient extends WebSocketClient {
      */
     private void handleMessage(String message) {
         try {
-            messageCount++;
+            messageCount.incrementAndGet();
             lastMessageTime = System.currentTimeMillis();
             
             if (message == null || message.isEmpty()) {
@@ -140,84 +297,35 @@ public class XianyuWebSocketClient extends WebSocketClient {
                 return;
             }
 
-            // 尝试解析JSON
+            // 尝试解析JSON（流式解析，body延迟绑定）
             try {
-                @SuppressWarnings("unchecked")
-                Map<String, Object> messageData = objectMapper.readValue(message, Map.class);
+                LwpFrame lwpFrame = LwpFrame.parse(objectMapper, message);
                 
                 // 识别消息类型（仅用于调试）
-                Object lwpType = messageData.get("lwp");
-                Object codeType = messageData.get("code");
+                String lwpType = lwpFrame.getLwp();
                 
                 // 只记录重要的消息类型
-                if (lwpType != null && !"/!".equals(lwpType.toString())) {
+                if (lwpType != null && !"/!".equals(lwpType)) {
                     log.debug("【账号{}】收到消息: lwp={}", accountId, lwpType);
                 }
                 
-                // 检查消息类型和解密（参考Python的handle_message）
-                Object lwp = messageData.get("lwp");
-                
-                // 处理同步包消息 /s/para 和 /s/sync（用户消息）
-                if (("/s/para".equals(lwp) || "/s/sync".equals(lwp)) && messageData.containsKey("body")) {
-                    try {
-                        @SuppressWarnings("unchecked")
-                        Map<String, Object> body = (Map<String, Object>) messageData.get("body");
-                        
-                        if (body != null && body.containsKey("syncPushPackage")) {
-                            @SuppressWarnings("unchecked")
-                            Map<String, Object> syncPushPackage = (Map<String, Object>) body.get("syncPushPackage");
-                            
-                            if (syncPushPackage != null && syncPushPackage.containsKey("data")) {
-                                @SuppressWarnings("unchecked")
-                                java.util.List<Object> dataList = (java.util.List<Object>) syncPushPackage.get("data");
-                                
-                                if (dataList != null && !dataList.isEmpty()) {
-                                    // 处理所有 data 项（可能有多条消息）
-                                    for (int i = 0; i < dataList.size(); i++) {
-                                        @SuppressWarnings("unchecked")
-                                        Map<String, Object> syncData = (Map<String, Object>) dataList.get(i);
-                                        
-                                        if (syncData != null && syncData.containsKey("data")) {
-                                            String encryptedData = syncData.get("data").toString();
-                                            
-                                            // 解密数据
-                                            String decryptedData = com.feijimiao.xianyuassistant.utils.MessageDecryptUtils.decrypt(encryptedData);
-                                            
-                                            if (decryptedData != null) {
-                                                // 将解密后的数据放回
-                                                syncData.put("decryptedData", decryptedData);
-                                            }
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                    } catch (Exception e) {
-                        log.warn("【账号{}】解密同步包消息失败: {}", accountId, e.getMessage());
-                    }
-                }
-                
-                // 通用body解密（兼容其他消息类型）
-                if (messageData.containsKey("body")) {
-                    Object body = messageData.get("body");
-                    if (body instanceof String) {
-                        String bodyStr = (String) body;
-                        String decryptedBody = com.feijimiao.xianyuassistant.utils.MessageDecryptUtils.tryDecrypt(bodyStr);
-                        if (decryptedBody != null && !decryptedBody.equals(bodyStr)) {
-                            messageData.put("decryptedBody", decryptedBody);
-                        }
-                    }
-                }
+                // 解码阶段：同步包数据和字符串body在此解密一次，后续处理器直接使用解码结果
+                DecodedFrame frame = FrameDecoder.decode(accountId, lwpFrame);
 
                 // 发送ACK确认消息（参考Python的handle_message方法）
-                sendAckMessage(messageData);
+                sendAckMessage(lwpFrame);
                 
                 // 检查是否是心跳响应（参考Python的handle_heartbeat_response）
                 // Python中心跳响应的判断是 code == 200
-                Object code = messageData.get("code");
+                Integer code = frame.getCode();
+                
+                // 发送请求的响应：按mid完成对应的Future
+                if (lwpType == null && code != null && pendingSends.hasPending()) {
+                    completePendingSend(lwpFrame);
+                }
                 
                 // 检查是否是401错误（Token失效）
-                if (code != null && (code.equals(401) || "401".equals(code.toString()))) {
+                if (code != null && code == 401) {
                     log.error("【账号{}】❌ Token失效(401)，需要重新获取Token并重连", accountId);
                     
                     // 触发Token失效回调
@@ -234,15 +342,14 @@ public class XianyuWebSocketClient extends WebSocketClient {
                     return; // 不再继续处理
                 }
                 
-                if (code != null && (code.equals(200) || "200".equals(code.toString()))) {
+                if (code != null && code == 200) {
                     handleHeartbeatResponse();
                     // 心跳响应也要继续处理，不要return
                 }
 
                 // 检查是否是注册响应，保存sid
-                if (code != null && (code.equals(200) || "200".equals(code.toString()))) {
-                    @SuppressWarnings("unchecked")
-                    Map<String, Object> headers = (Map<String, Object>) messageData.get("headers");
+                if (code != null && code == 200) {
+                    Map<String, Object> headers = frame.getHeaders();
                     if (headers != null && headers.containsKey("sid")) {
                         sessionId = headers.get("sid").toString();
                         log.info("【账号{}】已保存会话ID: {}", accountId, sessionId);
@@ -262,9 +369,14 @@ public class XianyuWebSocketClient extends WebSocketClient {
                     }
                 }
                 
-                // 调用消息处理器
+                // 调用消息处理器（交给分发阶段，解码阶段继续处理下一帧）
                 if (messageHandler != null) {
-                    messageHandler.handleMessage(accountId, messageData);
+                    WebSocketMessageHandler handler = messageHandler;
+                    if (messageExecutor != null) {
+                        messageExecutor.dispatch(accountId, () -> handler.handleMessage(accountId, frame));
+                    } else {
+                        handler.handleMessage(accountId, frame);
+                    }
                 }
 
             } catch (Exception e) {
@@ -329,66 +441,36 @@ public class XianyuWebSocketClient extends WebSocketClient {
         }
     }
     
+    /**
+     * 用服务器响应完成在途发送请求
+     */
+    private void completePendingSend(LwpFrame frame) {
+        String messageId = null;
+        if (frame.getBodyToken() == JsonToken.START_OBJECT) {
+            JsonNode body = frame.getBodyTree();
+            if (body.hasNonNull("messageId")) {
+                messageId = body.get("messageId").asText();
+            }
+        }
+        pendingSends.complete(frame.getHeader("mid"), frame.getCode(), messageId);
+    }
+    
     /**
      * 发送ACK确认消息
      * 参考Python的handle_message方法中的ACK发送逻辑
      * 
-     * @param messageData 收到的消息数据
+     * @param frame 收到的协议帧
      */
-    private void sendAckMessage(Map<String, Object> messageData) {
-        try {
-            // 检查消息是否包含headers
-            if (!messageData.containsKey("headers")) {
-                return;
-            }
-            
-            @SuppressWarnings("unchecked")
-            Map<String, Object> headers = (Map<String, Object>) messageData.get("headers");
-            
-            // 构建ACK消息
-            Map<String, Object> ack = new HashMap<>();
-            ack.put("code", 200);
-            
-            Map<String, Object> ackHeaders = new HashMap<>();
-            // 复制mid
-            if (headers.containsKey("mid")) {
-                ackHeaders.put("mid", headers.get("mid"));
-            } else {
-                // 生成mid: 随机数(0-999) + 时间戳(毫秒) + " 0"
-                int randomPart = (int) (Math.random() * 1000);
-                long timestamp = System.currentTimeMillis();
-                String mid = randomPart + String.valueOf(timestamp) + " 0";
-                ackHeaders.put("mid", mid);
-            }
-            
-            // 复制sid
-            if (headers.containsKey("sid")) {
-                ackHeaders.put("sid", headers.get("sid"));
-            } else {
-                ackHeaders.put("sid", "");
-            }
-            
-            // 复制其他可选字段
-            if (headers.containsKey("app-key")) {
-                ackHeaders.put("app-key", headers.get("app-key"));
-            }
-            if (headers.containsKey("ua")) {
-                ackHeaders.put("ua", headers.get("ua"));
-            }
-            if (headers.containsKey("dt")) {
-                ackHeaders.put("dt", headers.get("dt"));
-            }
-            
-            ack.put("headers", ackHeaders);
-            
-            // 发送ACK
-            String ackJson = objectMapper.writeValueAsString(ack);
-            send(ackJson);
-            
-        } catch (Exception e) {
-            log.error("【账号{}】发送ACK失败: {}", accountId, e.getMessage(), e);
-            // ACK发送失败不影响消息处理，只记录日志
+    private void sendAckMessage(LwpFrame frame) {
+        // 检查消息是否包含headers
+        Map<String, Object> headers = frame.getHeaders();
+        if (headers == null) {
+            return;
         }
+
+        // 在写线程上用复用的生成器编码ACK
+        outboundWriter.enqueue(OutboundWriter.Type.ACK,
+                generator -> LwpFrameEncoder.writeAck(generator, headers, generateMid()));
     }
     
     /**
@@ -409,11 +491,15 @@ public class XianyuWebSocketClient extends WebSocketClient {
         String closeType = remote ? "服务器" : "客户端";
         log.info("【账号{}】WebSocket连接关闭 - 关闭方: {}, 代码: {}, 原因: {}", 
                 accountId, closeType, code, reason);
+        outboundWriter.clear();
+        pendingSends.failAll("连接已关闭");
         
-        // 关闭消息处理线程池
-        if (messageExecutor != null && !messageExecutor.isShutdown()) {
-            messageExecutor.shutdown();
-            log.debug("【账号{}】消息处理线程池已关闭", accountId);
+        if (onDisconnected != null) {
+            try {
+                onDisconnected.accept(closeType + "关闭(" + code + ")");
+            } catch (Exception e) {
+                log.error("【账号{}】连接断开回调执行失败", accountId, e);
+            }
         }
     }
 
@@ -429,31 +515,60 @@ public class XianyuWebSocketClient extends WebSocketClient {
      * 发送心跳消息
      * 参考Python的send_heartbeat方法
      */
+    @Override
     public void sendHeartbeat() {
         if (isConnected) {
             try {
                 // 生成心跳消息（参考Python格式）
                 // mid格式: 随机数(0-999) + 时间戳(毫秒) + " 0"
-                int randomPart = (int) (Math.random() * 1000);
-                long timestamp = System.currentTimeMillis();
-                String mid = randomPart + String.valueOf(timestamp) + " 0";
-                String heartbeat = String.format("{\"lwp\":\"/!\",\"headers\":{\"mid\":\"%s\"}}", mid);
-                send(heartbeat);
+                String mid = generateMid();
+                outboundWriter.enqueue(OutboundWriter.Type.HEARTBEAT,
+                        generator -> LwpFrameEncoder.writeHeartbeat(generator, mid));
             } catch (Exception e) {
                 log.error("【账号{}】发送心跳失败", accountId, e);
             }
         }
     }
 
+    /**
+     * 获取收到的消息总数
+     */
+    public long getMessageCount() {
+        return messageCount.get();
+    }
+    
+    /**
+     * 获取最后一次收到消息的时间戳（毫秒）
+     */
+    @Override
+    public long getLastMessageTime() {
+        return lastMessageTime;
+    }
+    
+    /**
+     * 获取快速路径处理的帧数
+     */
+    public long getFastPathFrames() {
+        return fastPathFrames.get();
+    }
+    
+    /**
+     * 获取走完整流程的帧数
+     */
+    public long getSlowPathFrames() {
+        return slowPathFrames.get();
+    }
+    
     /**
      * 检查连接状态
      */
+    @Override
     public boolean isConnected() {
         return isConnected && !isClosed();
     }
     
     /**
-     * 发送消息
+     * 发送消息（不等待结果）
      * 参考Python的send_msg方法
      * 
      * @param cid 会话ID（可能带或不带@goofish后缀）
@@ -461,9 +576,33 @@ public class XianyuWebSocketClient extends WebSocketClient {
      * @param text 消息文本内容
      */
     public void sendMessage(String cid, String toId, String text) {
+        sendMessageAsync(cid, toId, text);
+    }
+    
+    /**
+     * 异步发送消息，服务器对同一mid响应后完成
+     * 
+     * <p>Future总是正常完成；在途请求已满、连接不可用、超时或服务器返回错误码时，
+     * 结果状态分别为 REJECTED、NOT_CONNECTED、TIMEOUT、FAILED。
+     * 回调在消息处理线程上执行，耗时操作请使用 {@code thenAcceptAsync}。</p>
+     * 
+     * @param cid 会话ID（可能带或不带@goofish后缀）
+     * @param toId 接收方用户ID（可能带或不带@goofish后缀）
+     * @param text 消息文本内容
+     * @return 发送结果
+     */
+    public CompletableFuture<SendResult> sendMessageAsync(String cid, String toId, String text) {
         if (!isConnected) {
             log.error("【账号{}】WebSocket未连接，无法发送消息", accountId);
-            return;
+            return CompletableFuture.completedFuture(
+                    SendResult.notSent(SendResult.Status.NOT_CONNECTED, "WebSocket未连接"));
+        }
+        
+        String mid = generateMid();
+        PendingSendTracker tracker = pendingSends;
+        CompletableFuture<SendResult> future = tracker.register(mid);
+        if (future.isDone()) {
+            return future;
         }
         
         try {
@@ -474,84 +613,25 @@ public class XianyuWebSocketClient extends WebSocketClient {
             log.info("【账号{}】准备发送消息: cleanCid={}, cleanToId={}, text={}", 
                     accountId, cleanCid, cleanToId, text);
             
-            // 构造消息内容
-            Map<String, Object> textContent = new HashMap<>();
-            textContent.put("contentType", 1);
-            Map<String, String> textData = new HashMap<>();
-            textData.put("text", text);
-            textContent.put("text", textData);
-            
-            // Base64编码消息内容
-            String textJson = objectMapper.writeValueAsString(textContent);
-            String textBase64 = java.util.Base64.getEncoder().encodeToString(textJson.getBytes("UTF-8"));
-            
-            // 构造消息体
-            Map<String, Object> messageBody = new HashMap<>();
-            messageBody.put("uuid", generateUuid());
-            messageBody.put("cid", cleanCid + "@goofish");
-            messageBody.put("conversationType", 1);
-            
-            // 消息内容
-            Map<String, Object> content = new HashMap<>();
-            content.put("contentType", 101);
-            Map<String, Object> custom = new HashMap<>();
-            custom.put("type", 1);
-            custom.put("data", textBase64);
-            content.put("custom", custom);
-            messageBody.put("content", content);
-            
-            messageBody.put("redPointPolicy", 0);
-            
-            // 扩展信息
-            Map<String, String> extension = new HashMap<>();
-            extension.put("extJson", "{}");
-            messageBody.put("extension", extension);
-            
-            // 上下文信息
-            Map<String, String> ctx = new HashMap<>();
-            ctx.put("appVersion", "1.0");
-            ctx.put("platform", "web");
-            messageBody.put("ctx", ctx);
-            
-            messageBody.put("mtags", new HashMap<>());
-            messageBody.put("msgReadStatusSetting", 1);
-            
             // 接收者列表（参考Python: actualReceivers包含接收方和发送方）
-            Map<String, Object> receivers = new HashMap<>();
-            java.util.List<String> actualReceivers = new java.util.ArrayList<>();
-            actualReceivers.add(cleanToId + "@goofish");
             // 使用myUserId而不是accountId
             String senderUserId = myUserId != null ? myUserId : accountId;
-            actualReceivers.add(senderUserId + "@goofish");
-            receivers.put("actualReceivers", actualReceivers);
-            
-            log.info("【账号{}】消息接收者列表: {}", accountId, actualReceivers);
-            
-            // 构造完整消息
-            Map<String, Object> message = new HashMap<>();
-            message.put("lwp", "/r/MessageSend/sendByReceiverScope");
-            
-            Map<String, String> headers = new HashMap<>();
-            headers.put("mid", generateMid());
-            if (sessionId != null) {
-                headers.put("sid", sessionId);
-            }
-            message.put("headers", headers);
-            
-            java.util.List<Object> body = new java.util.ArrayList<>();
-            body.add(messageBody);
-            body.add(receivers);
-            message.put("body", body);
+            log.info("【账号{}】消息接收者列表: [{}@goofish, {}@goofish]", accountId, cleanToId, senderUserId);
             
-            // 发送消息
-            String messageJson = objectMapper.writeValueAsString(message);
-            log.debug("【账号{}】发送消息JSON: {}", accountId, messageJson);
-            send(messageJson);
-            log.info("【账号{}】✅ 消息已发送到WebSocket", accountId);
+            // 在写线程上直接编码消息帧（文本内容Base64、接收者范围等）
+            String uuid = generateUuid();
+            String sid = sessionId;
+            // 编码或写出失败被丢弃时立即结束在途请求，不等待超时
+            outboundWriter.enqueue(OutboundWriter.Type.MESSAGE, generator -> LwpFrameEncoder.writeTextMessage(
+                    generator, mid, sid, uuid, cleanCid, cleanToId, senderUserId, text),
+                    reason -> tracker.fail(mid, SendResult.Status.FAILED, reason));
+            log.info("【账号{}】✅ 消息已提交到出站队列: mid={}", accountId, mid);
             
         } catch (Exception e) {
             log.error("【账号{}】❌ 发送消息失败: cid={}, toId={}", accountId, cid, toId, e);
+            tracker.fail(mid, SendResult.Status.FAILED, e.getMessage());
         }
+        return future;
     }
     
     /**
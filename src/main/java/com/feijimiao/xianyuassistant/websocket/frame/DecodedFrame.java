@@ -0,0 +1,102 @@
+package com.feijimiao.xianyuassistant.websocket.frame;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 解码后的WebSocket帧
+ *
+ * <p>由 {@link FrameDecoder} 在消息处理开始时生成一次，路由器和所有
+ * {@code AbstractLwpHandler} 都基于该对象工作：</p>
+ * <ul>
+ *   <li>lwp、code、headers 等常用字段来自流式解析的 {@link LwpFrame}</li>
+ *   <li>同步包中的加密数据已解密并解析为 {@link SyncPayload}</li>
+ *   <li>字符串类型的body已尝试解密</li>
+ *   <li>其他body在第一次访问时才绑定</li>
+ * </ul>
+ */
+@Getter
+public class DecodedFrame {
+
+    /**
+     * 协议帧
+     */
+    private final LwpFrame frame;
+
+    /**
+     * 同步包中已解密的消息（非同步包消息为空列表）
+     */
+    private final List<SyncPayload> syncPayloads;
+
+    /**
+     * 字符串body解密后的内容（body不是字符串或无法解密时为null）
+     */
+    private final String decryptedBody;
+
+    public DecodedFrame(LwpFrame frame, List<SyncPayload> syncPayloads, String decryptedBody) {
+        this.frame = frame;
+        this.syncPayloads = syncPayloads != null ? syncPayloads : Collections.emptyList();
+        this.decryptedBody = decryptedBody;
+    }
+
+    /**
+     * 消息路径，响应消息为null
+     */
+    public String getLwp() {
+        return frame.getLwp();
+    }
+
+    /**
+     * 响应码，非响应消息为null
+     */
+    public Integer getCode() {
+        return frame.getCode();
+    }
+
+    /**
+     * 消息类型
+     */
+    public String getType() {
+        return frame.getType();
+    }
+
+    /**
+     * 获取headers
+     */
+    public Map<String, Object> getHeaders() {
+        return frame.getHeaders();
+    }
+
+    /**
+     * 获取body（可能是Map、List或String），首次调用时绑定
+     */
+    public Object getBody() {
+        return frame.getBody();
+    }
+
+    /**
+     * 获取body的JSON树，首次调用时绑定
+     */
+    public JsonNode getBodyTree() {
+        return frame.getBodyTree();
+    }
+
+    /**
+     * 是否包含body
+     */
+    public boolean hasBody() {
+        return frame.hasBody();
+    }
+
+    /**
+     * 是否为同步包消息（/s/para 或 /s/sync）
+     */
+    public boolean isSyncPackage() {
+        String lwp = frame.getLwp();
+        return "/s/para".equals(lwp) || "/s/sync".equals(lwp);
+    }
+}
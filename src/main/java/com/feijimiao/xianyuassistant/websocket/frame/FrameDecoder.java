@@ -0,0 +1,90 @@
+package com.feijimiao.xianyuassistant.websocket.frame;
+
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.feijimiao.xianyuassistant.utils.MessageDecryptUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * WebSocket帧解码器
+ *
+ * <p>消息处理的唯一解码阶段：每个同步包数据只做一次Base64解码，并直接解包为JSON树，
+ * 结果保存在 {@link DecodedFrame} 中供路由器和处理器使用。
+ * 非同步包、非字符串body的消息不会在此绑定body。</p>
+ */
+@Slf4j
+public final class FrameDecoder {
+
+    private FrameDecoder() {
+    }
+
+    /**
+     * 解码消息
+     *
+     * @param accountId 账号ID（用于日志）
+     * @param frame 流式解析得到的协议帧
+     * @return 解码后的帧
+     */
+    public static DecodedFrame decode(String accountId, LwpFrame frame) {
+        String lwp = frame.getLwp();
+        List<SyncPayload> syncPayloads = Collections.emptyList();
+        String decryptedBody = null;
+
+        JsonToken bodyToken = frame.getBodyToken();
+        if (("/s/para".equals(lwp) || "/s/sync".equals(lwp)) && bodyToken == JsonToken.START_OBJECT) {
+            syncPayloads = decodeSyncPackage(accountId, frame.getBodyTree());
+        } else if (bodyToken == JsonToken.VALUE_STRING) {
+            // 通用body解密（兼容其他消息类型）
+            String bodyStr = frame.getBodyAs(String.class);
+            String decrypted = MessageDecryptUtils.tryDecrypt(bodyStr);
+            if (decrypted != null && !decrypted.equals(bodyStr)) {
+                decryptedBody = decrypted;
+            }
+        }
+
+        return new DecodedFrame(frame, syncPayloads, decryptedBody);
+    }
+
+    /**
+     * 解密同步包中的所有数据项
+     */
+    private static List<SyncPayload> decodeSyncPackage(String accountId, JsonNode body) {
+        try {
+            JsonNode dataList = body.path("syncPushPackage").path("data");
+            if (!dataList.isArray() || dataList.isEmpty()) {
+                return Collections.emptyList();
+            }
+
+            List<SyncPayload> payloads = new ArrayList<>(dataList.size());
+            for (int i = 0; i < dataList.size(); i++) {
+                JsonNode item = dataList.get(i);
+                JsonNode encrypted = item.get("data");
+                if (encrypted == null || encrypted.isNull()) {
+                    continue;
+                }
+
+                String encryptedData = encrypted.asText();
+                JsonNode data = MessageDecryptUtils.decryptToTree(encryptedData);
+                if (data == null) {
+                    log.warn("【账号{}】消息解密失败[{}]", accountId, i);
+                    continue;
+                }
+                if (!data.isObject()) {
+                    log.warn("【账号{}】解密后的消息不是JSON对象[{}]", accountId, i);
+                    continue;
+                }
+                payloads.add(new SyncPayload(i, encryptedData, data,
+                        item.path("pts").asLong(0), item.path("seq").asLong(0)));
+            }
+            return payloads;
+
+        } catch (Exception e) {
+            log.warn("【账号{}】解密同步包消息失败: {}", accountId, e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+}
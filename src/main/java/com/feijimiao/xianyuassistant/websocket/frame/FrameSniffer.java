@@ -0,0 +1,216 @@
+package com.feijimiao.xianyuassistant.websocket.frame;
+
+import lombok.Getter;
+
+/**
+ * 帧预分类器
+ *
+ * <p>在不做任何JSON树解析的情况下，通过扫描消息文本识别只需要ACK的简单帧：</p>
+ * <ul>
+ *   <li>心跳响应、普通成功响应：{@code {"code":200,"headers":{...}}}</li>
+ *   <li>服务端心跳：{@code {"lwp":"/!","headers":{...}}}</li>
+ * </ul>
+ * <p>携带body、reg-sid（注册响应）、非200响应码或其他lwp的帧一律返回null，交给完整流程处理。
+ * 头部字段值包含转义字符或控制字符时同样回退，保证快速路径构造的ACK与完整流程一致。</p>
+ */
+public final class FrameSniffer {
+
+    /**
+     * 超过该长度的帧不可能是心跳/ACK帧，直接走完整流程
+     */
+    private static final int MAX_FAST_FRAME_LENGTH = 1024;
+
+    private FrameSniffer() {
+    }
+
+    /**
+     * 预分类一条消息
+     *
+     * @param text 消息文本
+     * @return 可以走快速路径的帧，不满足条件时返回null
+     */
+    public static AckOnlyFrame sniff(String text) {
+        if (text == null || text.length() > MAX_FAST_FRAME_LENGTH) {
+            return null;
+        }
+        int start = skipWhitespace(text, 0);
+        if (start >= text.length() || text.charAt(start) != '{') {
+            return null;
+        }
+        if (text.contains("\"body\"") || text.contains("reg-sid")) {
+            return null;
+        }
+
+        // lwp只允许不存在或为 /!
+        String lwp = null;
+        int lwpIndex = valueIndex(text, "\"lwp\"");
+        if (lwpIndex >= 0) {
+            lwp = readString(text, lwpIndex);
+            if (!"/!".equals(lwp)) {
+                return null;
+            }
+        }
+
+        // code只允许为200，或者是不带code的 /! 帧
+        Integer code = null;
+        int codeIndex = valueIndex(text, "\"code\"");
+        if (codeIndex >= 0) {
+            if (!isCode200(text, codeIndex)) {
+                return null;
+            }
+            code = 200;
+        } else if (lwp == null) {
+            return null;
+        }
+
+        AckOnlyFrame frame = new AckOnlyFrame(lwp, code);
+        if (valueIndex(text, "\"headers\"") >= 0) {
+            frame.hasHeaders = true;
+            if (!frame.readHeaders(text)) {
+                return null;
+            }
+        }
+        return frame;
+    }
+
+    /**
+     * 不解析JSON读取帧的lwp字段（用于入站分级）
+     *
+     * @param text 消息文本
+     * @return lwp值，不存在或无法直接读取时返回null
+     */
+    public static String peekLwp(String text) {
+        if (text == null) {
+            return null;
+        }
+        int lwpIndex = valueIndex(text, "\"lwp\"");
+        return lwpIndex >= 0 ? readString(text, lwpIndex) : null;
+    }
+
+    /**
+     * 查找字段名后面的值起始位置（跳过冒号和空白），字段不存在返回-1
+     */
+    private static int valueIndex(String text, String quotedName) {
+        int index = text.indexOf(quotedName);
+        while (index >= 0) {
+            int i = skipWhitespace(text, index + quotedName.length());
+            if (i < text.length() && text.charAt(i) == ':') {
+                return skipWhitespace(text, i + 1);
+            }
+            index = text.indexOf(quotedName, index + 1);
+        }
+        return -1;
+    }
+
+    /**
+     * 读取简单字符串值：必须以引号开始，不允许转义字符和控制字符
+     *
+     * @return 字符串值，不满足条件时返回null
+     */
+    private static String readString(String text, int index) {
+        if (index >= text.length() || text.charAt(index) != '"') {
+            return null;
+        }
+        for (int i = index + 1; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                return text.substring(index + 1, i);
+            }
+            if (c == '\\' || c < 0x20) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isCode200(String text, int index) {
+        if (text.startsWith("\"200\"", index)) {
+            return true;
+        }
+        if (!text.startsWith("200", index)) {
+            return false;
+        }
+        int end = index + 3;
+        return end >= text.length() || !Character.isDigit(text.charAt(end)) && text.charAt(end) != '.';
+    }
+
+    private static int skipWhitespace(String text, int index) {
+        while (index < text.length() && Character.isWhitespace(text.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * 只需要ACK的简单帧
+     */
+    @Getter
+    public static class AckOnlyFrame {
+
+        /**
+         * 消息路径（/! 或 null）
+         */
+        private final String lwp;
+
+        /**
+         * 响应码（200 或 null）
+         */
+        private final Integer code;
+
+        private boolean hasHeaders;
+        private String mid;
+        private String sid;
+        private String appKey;
+        private String ua;
+        private String dt;
+
+        AckOnlyFrame(String lwp, Integer code) {
+            this.lwp = lwp;
+            this.code = code;
+        }
+
+        /**
+         * 读取ACK需要的头部字段，字段存在但不是简单字符串时返回false
+         */
+        private boolean readHeaders(String text) {
+            String[] values = new String[5];
+            String[] names = {"\"mid\"", "\"sid\"", "\"app-key\"", "\"ua\"", "\"dt\""};
+            for (int i = 0; i < names.length; i++) {
+                int index = valueIndex(text, names[i]);
+                if (index >= 0) {
+                    values[i] = readString(text, index);
+                    if (values[i] == null) {
+                        return false;
+                    }
+                }
+            }
+            mid = values[0];
+            sid = values[1];
+            appKey = values[2];
+            ua = values[3];
+            dt = values[4];
+            return true;
+        }
+
+        /**
+         * 构造ACK消息（与完整流程的 sendAckMessage 字段一致）
+         *
+         * @param generatedMid 原消息没有mid时使用的mid
+         */
+        public String buildAck(String generatedMid) {
+            StringBuilder sb = new StringBuilder(128);
+            sb.append("{\"code\":200,\"headers\":{\"mid\":\"").append(mid != null ? mid : generatedMid).append('"');
+            sb.append(",\"sid\":\"").append(sid != null ? sid : "").append('"');
+            if (appKey != null) {
+                sb.append(",\"app-key\":\"").append(appKey).append('"');
+            }
+            if (ua != null) {
+                sb.append(",\"ua\":\"").append(ua).append('"');
+            }
+            if (dt != null) {
+                sb.append(",\"dt\":\"").append(dt).append('"');
+            }
+            return sb.append("}}").toString();
+        }
+    }
+}
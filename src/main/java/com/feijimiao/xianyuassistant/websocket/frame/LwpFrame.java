@@ -0,0 +1,255 @@
+package com.feijimiao.xianyuassistant.websocket.frame;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+/**
+ * 闲鱼LWP协议帧
+ *
+ * <p>由一次流式 {@link JsonParser} 扫描生成：lwp、code、type、headers 立即读取，
+ * body 只跳过并记录其原始JSON文本，在第一次访问时才绑定为Map/JsonNode。
+ * 心跳、ACK、未注册路径等不读取body的消息不会产生body对象。</p>
+ */
+public class LwpFrame {
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 消息路径，响应消息为null
+     */
+    @Getter
+    private final String lwp;
+
+    /**
+     * 响应码，非响应消息为null
+     */
+    @Getter
+    private final Integer code;
+
+    /**
+     * 消息类型（部分推送消息携带）
+     */
+    @Getter
+    private final String type;
+
+    /**
+     * 消息头，没有headers时为null
+     */
+    @Getter
+    private final Map<String, Object> headers;
+
+    /**
+     * body的原始JSON文本，没有body时为null
+     */
+    @Getter
+    private final String rawBody;
+
+    /**
+     * 懒绑定的body对象
+     */
+    private volatile Object body;
+
+    /**
+     * 懒绑定的body树
+     */
+    private volatile JsonNode bodyTree;
+
+    private LwpFrame(ObjectMapper objectMapper, String lwp, Integer code, String type,
+                     Map<String, Object> headers, String rawBody) {
+        this.objectMapper = objectMapper;
+        this.lwp = lwp;
+        this.code = code;
+        this.type = type;
+        this.headers = headers;
+        this.rawBody = rawBody;
+    }
+
+    /**
+     * 流式解析一条WebSocket文本消息
+     *
+     * @param objectMapper 用于创建解析器和懒绑定body
+     * @param text 消息文本
+     * @return 协议帧
+     * @throws IOException 不是合法的JSON对象时抛出
+     */
+    public static LwpFrame parse(ObjectMapper objectMapper, String text) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(text)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("消息不是JSON对象");
+            }
+
+            String lwp = null;
+            Integer code = null;
+            String type = null;
+            Map<String, Object> headers = null;
+            String rawBody = null;
+
+            JsonToken next = parser.nextToken();
+            while (next == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                switch (field) {
+                    case "lwp":
+                        lwp = token == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+                        break;
+                    case "code":
+                        code = readCode(parser, token);
+                        break;
+                    case "type":
+                        type = token == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+                        break;
+                    case "headers":
+                        if (token == JsonToken.START_OBJECT) {
+                            @SuppressWarnings("unchecked")
+                            Map<String, Object> map = parser.readValueAs(Map.class);
+                            headers = map;
+                        } else {
+                            parser.skipChildren();
+                        }
+                        break;
+                    case "body":
+                        // 只跳过body，记录原文区间（到下一个token开始处），不解码其中的字符串
+                        int start = (int) parser.currentTokenLocation().getCharOffset();
+                        parser.skipChildren();
+                        next = parser.nextToken();
+                        int end = next != null ? (int) parser.currentTokenLocation().getCharOffset() : text.length();
+                        rawBody = sliceValue(text, start, end);
+                        continue;
+                    default:
+                        parser.skipChildren();
+                        break;
+                }
+                next = parser.nextToken();
+            }
+            return new LwpFrame(objectMapper, lwp, code, type, headers, rawBody);
+        }
+    }
+
+    /**
+     * 读取响应码（可能是数字或字符串）
+     */
+    private static Integer readCode(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getIntValue();
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            try {
+                return Integer.parseInt(parser.getText().trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    /**
+     * 截取一个JSON值的原文，去掉其后的空白和逗号
+     */
+    private static String sliceValue(String text, int start, int end) {
+        while (end > start) {
+            char c = text.charAt(end - 1);
+            if (c == ',' || Character.isWhitespace(c)) {
+                end--;
+            } else {
+                break;
+            }
+        }
+        return text.substring(start, end);
+    }
+
+    /**
+     * 获取单个header值
+     */
+    public String getHeader(String name) {
+        if (headers == null) {
+            return null;
+        }
+        Object value = headers.get(name);
+        return value != null ? value.toString() : null;
+    }
+
+    /**
+     * 是否包含body
+     */
+    public boolean hasBody() {
+        return rawBody != null;
+    }
+
+    /**
+     * body的第一个token（不绑定body即可判断其类型），没有body时为null
+     */
+    public JsonToken getBodyToken() {
+        if (rawBody == null || rawBody.isEmpty()) {
+            return null;
+        }
+        switch (rawBody.charAt(0)) {
+            case '{':
+                return JsonToken.START_OBJECT;
+            case '[':
+                return JsonToken.START_ARRAY;
+            case '"':
+                return JsonToken.VALUE_STRING;
+            case 'n':
+                return JsonToken.VALUE_NULL;
+            case 't':
+                return JsonToken.VALUE_TRUE;
+            case 'f':
+                return JsonToken.VALUE_FALSE;
+            default:
+                return JsonToken.VALUE_NUMBER_INT;
+        }
+    }
+
+    /**
+     * 获取body（Map、List、String等），首次调用时绑定
+     */
+    public Object getBody() {
+        if (rawBody == null) {
+            return null;
+        }
+        Object value = body;
+        if (value == null) {
+            value = bind(Object.class);
+            body = value;
+        }
+        return value;
+    }
+
+    /**
+     * 获取body的JSON树，首次调用时绑定，没有body时返回null
+     */
+    public JsonNode getBodyTree() {
+        if (rawBody == null) {
+            return null;
+        }
+        JsonNode value = bodyTree;
+        if (value == null) {
+            value = bind(JsonNode.class);
+            bodyTree = value;
+        }
+        return value;
+    }
+
+    /**
+     * 将body绑定为指定类型
+     */
+    public <T> T getBodyAs(Class<T> type) {
+        return rawBody != null ? bind(type) : null;
+    }
+
+    private <T> T bind(Class<T> target) {
+        try {
+            return objectMapper.readValue(rawBody, target);
+        } catch (IOException e) {
+            throw new UncheckedIOException("绑定body失败", e);
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.feijimiao.xianyuassistant.websocket.frame;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * 闲鱼LWP出站帧编码器
+ *
+ * <p>直接用 {@link JsonGenerator} 写出ACK、心跳、注册、同步状态和文本消息帧，
+ * 不构造中间的 HashMap/ArrayList，也不走反射序列化。字段名和固定取值（app-key、ua、
+ * 接收者范围等）预先编码为 {@link SerializedString}，每次写出时直接复制字节。</p>
+ *
+ * <p>所有方法只写一个完整的JSON值，可配合 {@code OutboundWriter} 的复用生成器使用。</p>
+ */
+public final class LwpFrameEncoder {
+
+    /**
+     * 闲鱼IM的app-key
+     */
+    public static final String APP_KEY = "444e9908a51d1cb236a27862abc769c9";
+
+    /**
+     * 注册时上报的UA
+     */
+    public static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/133.0.0.0 Safari/537.36 DingTalk(2.1.5) OS(Windows/10) Browser(Chrome/133.0.0.0) DingWeb/2.1.5 IMPaaS DingWeb/2.1.5";
+
+    private static final String GOOFISH_SUFFIX = "@goofish";
+
+    // 字段名
+    private static final SerializableString LWP = new SerializedString("lwp");
+    private static final SerializableString HEADERS = new SerializedString("headers");
+    private static final SerializableString BODY = new SerializedString("body");
+    private static final SerializableString CODE = new SerializedString("code");
+    private static final SerializableString MID = new SerializedString("mid");
+    private static final SerializableString SID = new SerializedString("sid");
+    private static final SerializableString TOKEN = new SerializedString("token");
+    private static final SerializableString DID = new SerializedString("did");
+    private static final SerializableString UUID = new SerializedString("uuid");
+    private static final SerializableString CID = new SerializedString("cid");
+    private static final SerializableString CONVERSATION_TYPE = new SerializedString("conversationType");
+    private static final SerializableString CONTENT = new SerializedString("content");
+    private static final SerializableString CONTENT_TYPE = new SerializedString("contentType");
+    private static final SerializableString CUSTOM = new SerializedString("custom");
+    private static final SerializableString TYPE = new SerializedString("type");
+    private static final SerializableString DATA = new SerializedString("data");
+    private static final SerializableString ACTUAL_RECEIVERS = new SerializedString("actualReceivers");
+    private static final SerializableString TIMESTAMP = new SerializedString("timestamp");
+
+    // 固定取值
+    private static final SerializableString LWP_HEARTBEAT = new SerializedString("/!");
+    private static final SerializableString LWP_REG = new SerializedString("/reg");
+    private static final SerializableString LWP_ACK_DIFF = new SerializedString("/r/SyncStatus/ackDiff");
+    private static final SerializableString LWP_SEND = new SerializedString("/r/MessageSend/sendByReceiverScope");
+    private static final SerializableString EMPTY = new SerializedString("");
+
+    // 可选的ACK头部字段
+    private static final String[] ACK_OPTIONAL_HEADERS = {"app-key", "ua", "dt"};
+
+    // 注册消息的固定头部（cache-header、app-key、ua、dt、wv、sync）
+    private static final SerializableString[][] REG_FIXED_HEADERS = {
+            {new SerializedString("cache-header"), new SerializedString("app-key token ua wv")},
+            {new SerializedString("app-key"), new SerializedString(APP_KEY)},
+            {new SerializedString("ua"), new SerializedString(USER_AGENT)},
+            {new SerializedString("dt"), new SerializedString("j")},
+            {new SerializedString("wv"), new SerializedString("im:3,au:3,sy:6")},
+            {new SerializedString("sync"), new SerializedString("0,0;0;0;")},
+    };
+
+    // 同步状态消息body的固定部分
+    private static final SerializableString[][] SYNC_FIXED_FIELDS = {
+            {new SerializedString("pipeline"), new SerializedString("sync")},
+            {new SerializedString("tooLong2Tag"), new SerializedString("PNM,1")},
+            {new SerializedString("channel"), new SerializedString("sync")},
+            {new SerializedString("topic"), new SerializedString("sync")},
+    };
+    private static final SerializableString HIGH_PTS = new SerializedString("highPts");
+    private static final SerializableString PTS = new SerializedString("pts");
+    private static final SerializableString SEQ = new SerializedString("seq");
+
+    // 文本消息body中的固定部分：redPointPolicy、extension、ctx、mtags、msgReadStatusSetting
+    private static final SerializableString RED_POINT_POLICY = new SerializedString("redPointPolicy");
+    private static final SerializableString EXTENSION = new SerializedString("extension");
+    private static final SerializableString EXT_JSON = new SerializedString("extJson");
+    private static final SerializableString EMPTY_OBJECT_JSON = new SerializedString("{}");
+    private static final SerializableString CTX = new SerializedString("ctx");
+    private static final SerializableString APP_VERSION = new SerializedString("appVersion");
+    private static final SerializableString APP_VERSION_VALUE = new SerializedString("1.0");
+    private static final SerializableString PLATFORM = new SerializedString("platform");
+    private static final SerializableString PLATFORM_VALUE = new SerializedString("web");
+    private static final SerializableString MTAGS = new SerializedString("mtags");
+    private static final SerializableString MSG_READ_STATUS_SETTING = new SerializedString("msgReadStatusSetting");
+
+    // 文本内容 {"contentType":1,"text":{"text":"..."}} 的前后缀
+    private static final byte[] TEXT_CONTENT_PREFIX = "{\"contentType\":1,\"text\":{\"text\":\"".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] TEXT_CONTENT_SUFFIX = "\"}}".getBytes(StandardCharsets.UTF_8);
+
+    private LwpFrameEncoder() {
+    }
+
+    /**
+     * 写出ACK帧：{"code":200,"headers":{"mid","sid","app-key","ua","dt"}}
+     *
+     * @param headers 收到消息的headers
+     * @param generatedMid 原消息没有mid时使用的mid
+     */
+    public static void writeAck(JsonGenerator generator, Map<String, Object> headers, String generatedMid) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(CODE);
+        generator.writeNumber(200);
+        generator.writeFieldName(HEADERS);
+        generator.writeStartObject();
+        generator.writeFieldName(MID);
+        if (headers.containsKey("mid")) {
+            generator.writeObject(headers.get("mid"));
+        } else {
+            generator.writeString(generatedMid);
+        }
+        generator.writeFieldName(SID);
+        if (headers.containsKey("sid")) {
+            generator.writeObject(headers.get("sid"));
+        } else {
+            generator.writeString(EMPTY);
+        }
+        for (String field : ACK_OPTIONAL_HEADERS) {
+            if (headers.containsKey(field)) {
+                generator.writeFieldName(field);
+                generator.writeObject(headers.get(field));
+            }
+        }
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+
+    /**
+     * 写出心跳帧：{"lwp":"/!","headers":{"mid":...}}
+     */
+    public static void writeHeartbeat(JsonGenerator generator, String mid) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(LWP);
+        generator.writeString(LWP_HEARTBEAT);
+        generator.writeFieldName(HEADERS);
+        generator.writeStartObject();
+        generator.writeFieldName(MID);
+        generator.writeString(mid);
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+
+    /**
+     * 写出注册帧（/reg）
+     */
+    public static void writeRegistration(JsonGenerator generator, String token, String deviceId, String mid) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(LWP);
+        generator.writeString(LWP_REG);
+        generator.writeFieldName(HEADERS);
+        generator.writeStartObject();
+        for (SerializableString[] header : REG_FIXED_HEADERS) {
+            generator.writeFieldName(header[0]);
+            generator.writeString(header[1]);
+        }
+        generator.writeFieldName(TOKEN);
+        generator.writeString(token);
+        generator.writeFieldName(DID);
+        generator.writeString(deviceId);
+        generator.writeFieldName(MID);
+        generator.writeString(mid);
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+
+    /**
+     * 写出同步状态帧（/r/SyncStatus/ackDiff）
+     *
+     * @param pts 同步起点
+     * @param seq 同步序号
+     * @param timestamp 当前时间戳（毫秒）
+     */
+    public static void writeSyncStatus(JsonGenerator generator, String mid, long pts, long seq, long timestamp) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(LWP);
+        generator.writeString(LWP_ACK_DIFF);
+        generator.writeFieldName(HEADERS);
+        generator.writeStartObject();
+        generator.writeFieldName(MID);
+        generator.writeString(mid);
+        generator.writeEndObject();
+        generator.writeFieldName(BODY);
+        generator.writeStartArray();
+        generator.writeStartObject();
+        for (SerializableString[] field : SYNC_FIXED_FIELDS) {
+            generator.writeFieldName(field[0]);
+            generator.writeString(field[1]);
+        }
+        generator.writeFieldName(HIGH_PTS);
+        generator.writeNumber(0);
+        generator.writeFieldName(PTS);
+        generator.writeNumber(pts);
+        generator.writeFieldName(SEQ);
+        generator.writeNumber(seq);
+        generator.writeFieldName(TIMESTAMP);
+        generator.writeNumber(timestamp);
+        generator.writeEndObject();
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    /**
+     * 写出文本消息帧（/r/MessageSend/sendByReceiverScope）
+     *
+     * @param mid 消息ID
+     * @param sid 会话sid，可为null
+     * @param uuid 消息uuid
+     * @param cid 会话ID（不带@goofish后缀）
+     * @param toId 接收方用户ID（不带@goofish后缀）
+     * @param senderId 发送方用户ID（不带@goofish后缀）
+     * @param text 文本内容
+     */
+    public static void writeTextMessage(JsonGenerator generator, String mid, String sid, String uuid,
+                                        String cid, String toId, String senderId, String text) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(LWP);
+        generator.writeString(LWP_SEND);
+
+        generator.writeFieldName(HEADERS);
+        generator.writeStartObject();
+        generator.writeFieldName(MID);
+        generator.writeString(mid);
+        if (sid != null) {
+            generator.writeFieldName(SID);
+            generator.writeString(sid);
+        }
+        generator.writeEndObject();
+
+        generator.writeFieldName(BODY);
+        generator.writeStartArray();
+
+        // 消息体
+        generator.writeStartObject();
+        generator.writeFieldName(UUID);
+        generator.writeString(uuid);
+        generator.writeFieldName(CID);
+        generator.writeString(cid + GOOFISH_SUFFIX);
+        generator.writeFieldName(CONVERSATION_TYPE);
+        generator.writeNumber(1);
+        generator.writeFieldName(CONTENT);
+        generator.writeStartObject();
+        generator.writeFieldName(CONTENT_TYPE);
+        generator.writeNumber(101);
+        generator.writeFieldName(CUSTOM);
+        generator.writeStartObject();
+        generator.writeFieldName(TYPE);
+        generator.writeNumber(1);
+        // 文本内容JSON直接按UTF-8拼接后Base64写出
+        generator.writeFieldName(DATA);
+        generator.writeBinary(encodeTextContent(text));
+        generator.writeEndObject();
+        generator.writeEndObject();
+        generator.writeFieldName(RED_POINT_POLICY);
+        generator.writeNumber(0);
+        generator.writeFieldName(EXTENSION);
+        generator.writeStartObject();
+        generator.writeFieldName(EXT_JSON);
+        generator.writeString(EMPTY_OBJECT_JSON);
+        generator.writeEndObject();
+        generator.writeFieldName(CTX);
+        generator.writeStartObject();
+        generator.writeFieldName(APP_VERSION);
+        generator.writeString(APP_VERSION_VALUE);
+        generator.writeFieldName(PLATFORM);
+        generator.writeString(PLATFORM_VALUE);
+        generator.writeEndObject();
+        generator.writeFieldName(MTAGS);
+        generator.writeStartObject();
+        generator.writeEndObject();
+        generator.writeFieldName(MSG_READ_STATUS_SETTING);
+        generator.writeNumber(1);
+        generator.writeEndObject();
+
+        // 接收者范围（接收方和发送方）
+        generator.writeStartObject();
+        generator.writeFieldName(ACTUAL_RECEIVERS);
+        generator.writeStartArray();
+        generator.writeString(toId + GOOFISH_SUFFIX);
+        generator.writeString(senderId + GOOFISH_SUFFIX);
+        generator.writeEndArray();
+        generator.writeEndObject();
+
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    /**
+     * 编码文本内容 {"contentType":1,"text":{"text":"..."}} 为UTF-8字节
+     */
+    static byte[] encodeTextContent(String text) {
+        byte[] quoted = JsonStringEncoder.getInstance().quoteAsUTF8(text);
+        byte[] result = new byte[TEXT_CONTENT_PREFIX.length + quoted.length + TEXT_CONTENT_SUFFIX.length];
+        System.arraycopy(TEXT_CONTENT_PREFIX, 0, result, 0, TEXT_CONTENT_PREFIX.length);
+        System.arraycopy(quoted, 0, result, TEXT_CONTENT_PREFIX.length, quoted.length);
+        System.arraycopy(TEXT_CONTENT_SUFFIX, 0, result, TEXT_CONTENT_PREFIX.length + quoted.length,
+                TEXT_CONTENT_SUFFIX.length);
+        return result;
+    }
+}
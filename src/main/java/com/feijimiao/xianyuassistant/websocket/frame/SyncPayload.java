@@ -0,0 +1,102 @@
+package com.feijimiao.xianyuassistant.websocket.frame;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Getter;
+
+/**
+ * 同步包中的单条已解密消息
+ *
+ * <p>对应 body.syncPushPackage.data[i]，在解码阶段完成Base64解码，并将MessagePack直接解包为JSON树，
+ * 后续处理器直接使用解析结果，不再重复解密。JSON文本形式只在需要时（保存完整消息体、日志）才生成。</p>
+ */
+@Getter
+public class SyncPayload {
+
+    /**
+     * 在data列表中的序号
+     */
+    private final int index;
+
+    /**
+     * 原始Base64数据
+     */
+    private final String encryptedData;
+
+    /**
+     * 解密后的消息数据
+     */
+    private final JsonNode data;
+
+    /**
+     * 同步位置（data[i].pts，微秒级时间戳），缺失时为0
+     */
+    private final long pts;
+
+    /**
+     * 同步序号（data[i].seq），缺失时为0
+     */
+    private final long seq;
+
+    /**
+     * 懒加载的JSON字符串
+     */
+    @Getter(lombok.AccessLevel.NONE)
+    private volatile String decryptedData;
+
+    public SyncPayload(int index, String encryptedData, JsonNode data) {
+        this(index, encryptedData, data, 0, 0);
+    }
+
+    public SyncPayload(int index, String encryptedData, JsonNode data, long pts, long seq) {
+        this.index = index;
+        this.encryptedData = encryptedData;
+        this.data = data;
+        this.pts = pts;
+        this.seq = seq;
+    }
+
+    /**
+     * 获取解密后的JSON字符串（首次调用时生成）
+     */
+    public String getDecryptedData() {
+        String text = decryptedData;
+        if (text == null) {
+            text = data.toString();
+            decryptedData = text;
+        }
+        return text;
+    }
+
+    /**
+     * 是否为已读回执（字段2=2）
+     */
+    public boolean isReadReceipt() {
+        JsonNode type = data.get("2");
+        return type != null && "2".equals(type.asText());
+    }
+
+    /**
+     * 获取聊天消息主体（字段1），不是聊天消息时返回null
+     */
+    public JsonNode getMessageInfo() {
+        JsonNode field1 = data.get("1");
+        return field1 != null && field1.isObject() ? field1 : null;
+    }
+
+    /**
+     * 获取会话ID（字段1.2）
+     */
+    public String getConversationId() {
+        JsonNode messageInfo = getMessageInfo();
+        if (messageInfo == null) {
+            return null;
+        }
+        JsonNode sId = messageInfo.get("2");
+        return sId != null && !sId.isNull() ? sId.asText() : null;
+    }
+
+    @Override
+    public String toString() {
+        return getDecryptedData();
+    }
+}
@@ -1,6 +1,7 @@
 package com.feijimiao.xianyuassistant.websocket.handler;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.feijimiao.xianyuassistant.websocket.frame.DecodedFrame;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.Map;
@@ -8,6 +9,7 @@ import java.util.Map;
 /**
  * WebSocket消息处理器抽象基类
  * 使用模板模式，定义消息处理的标准流程
+ * 处理器接收解码后的 {@link DecodedFrame}，不需要自行解密消息
  */
 @Slf4j
 public abstract class AbstractLwpHandler {
@@ -23,32 +25,32 @@ public abstract class AbstractLwpHandler {
      * 模板方法：处理消息的标准流程
      * 
      * @param accountId 账号ID
-     * @param messageData 消息数据
+     * @param frame 解码后的消息
      */
-    public final void handle(String accountId, Map<String, Object> messageData) {
+    public final void handle(String accountId, DecodedFrame frame) {
         try {
             // 1. 前置处理（日志、验证等）
-            if (!preHandle(accountId, messageData)) {
+            if (!preHandle(accountId, frame)) {
                 log.debug("【账号{}】前置处理失败，跳过消息处理: lwp={}", accountId, getLwpPath());
                 return;
             }
             
             // 2. 解析消息参数
-            Object params = parseParams(accountId, messageData);
+            Object params = parseParams(accountId, frame);
             if (params == null) {
                 log.warn("【账号{}】解析参数失败: lwp={}", accountId, getLwpPath());
                 return;
             }
             
             // 3. 执行业务逻辑
-            Object result = doHandle(accountId, params, messageData);
+            Object result = doHandle(accountId, params, frame);
             
             // 4. 后置处理（保存、通知等）
-            postHandle(accountId, result, messageData);
+            postHandle(accountId, result, frame);
             
         } catch (Exception e) {
             // 5. 异常处理
-            handleException(accountId, messageData, e);
+            handleException(accountId, frame, e);
         }
     }
     
@@ -58,7 +60,7 @@ public abstract class AbstractLwpHandler {
      * 
      * @return true继续处理，false跳过
      */
-    protected boolean preHandle(String accountId, Map<String, Object> messageData) {
+    protected boolean preHandle(String accountId, DecodedFrame frame) {
         log.debug("【账号{}】开始处理消息: lwp={}", accountId, getLwpPath());
         return true;
     }
@@ -69,29 +71,29 @@ public abstract class AbstractLwpHandler {
      * 
      * @return 解析后的参数对象
      */
-    protected abstract Object parseParams(String accountId, Map<String, Object> messageData);
+    protected abstract Object parseParams(String accountId, DecodedFrame frame);
     
     /**
      * 执行业务逻辑（抽象方法，子类必须实现）
      * 
      * @param params 解析后的参数
-     * @param messageData 原始消息数据
+     * @param frame 解码后的消息
      * @return 处理结果
      */
-    protected abstract Object doHandle(String accountId, Object params, Map<String, Object> messageData);
+    protected abstract Object doHandle(String accountId, Object params, DecodedFrame frame);
     
     /**
      * 后置处理（钩子方法）
      * 可以进行结果保存、事件通知等
      */
-    protected void postHandle(String accountId, Object result, Map<String, Object> messageData) {
+    protected void postHandle(String accountId, Object result, DecodedFrame frame) {
         log.debug("【账号{}】消息处理完成: lwp={}", accountId, getLwpPath());
     }
     
     /**
      * 异常处理（钩子方法）
      */
-    protected void handleException(String accountId, Map<String, Object> messageData, Exception e) {
+    protected void handleException(String accountId, DecodedFrame frame, Exception e) {
         log.error("【账号{}】处理消息异常: lwp={}", accountId, getLwpPath(), e);
     }
     
@@ -1,10 +1,16 @@
 package com.feijimiao.xianyuassistant.websocket.handler;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.feijimiao.xianyuassistant.entity.XianyuChatMessage;
 import com.feijimiao.xianyuassistant.event.chatMessageEvent.ChatMessageData;
+import com.feijimiao.xianyuassistant.event.chatMessageEvent.ChatMessageDedupFilter;
 import com.feijimiao.xianyuassistant.event.chatMessageEvent.ChatMessageReceivedEvent;
-import com.feijimiao.xianyuassistant.utils.MessageDecryptUtils;
+import com.feijimiao.xianyuassistant.event.chatMessageEvent.CompleteMsgStorage;
+import com.feijimiao.xianyuassistant.service.SyncCheckpointService;
+import com.feijimiao.xianyuassistant.websocket.WebSocketMessageExecutor;
+import com.feijimiao.xianyuassistant.websocket.frame.DecodedFrame;
+import com.feijimiao.xianyuassistant.websocket.frame.SyncPayload;
 import org.springframework.beans.BeanUtils;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
@@ -14,7 +20,7 @@ import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * 同步包消息处理器
@@ -22,10 +28,14 @@ import java.util.Map;
  *
  * <p>职责：</p>
  * <ul>
- *   <li>解密同步包中的加密消息</li>
+ *   <li>读取解码阶段已解包为JSON树的同步包消息</li>
  *   <li>解析消息字段，构建 XianyuChatMessage 对象</li>
  *   <li>发布 ChatMessageReceivedEvent 事件</li>
+ *   <li>登记同步包的处理进度，包内消息都提交到数据库后推进账号的同步检查点（pts/seq），重连时从检查点增量同步</li>
  * </ul>
+ *
+ * <p>解密后按会话ID（sId）分发到共享执行器的会话条带，
+ * 同一会话的消息按到达顺序处理，不同会话并行处理。</p>
  */
 @Slf4j
 @Component
@@ -34,6 +44,18 @@ public class SyncMessageHandler extends AbstractLwpHandler {
     @Autowired
     private ApplicationEventPublisher eventPublisher;
 
+    @Autowired
+    private WebSocketMessageExecutor messageExecutor;
+
+    @Autowired
+    private SyncCheckpointService syncCheckpointService;
+
+    @Autowired
+    private ChatMessageDedupFilter dedupFilter;
+
+    @Autowired
+    private CompleteMsgStorage completeMsgStorage;
+
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
     @Override
@@ -42,115 +64,88 @@ public class SyncMessageHandler extends AbstractLwpHandler {
     }
 
     @Override
-    protected Object parseParams(String accountId, Map<String, Object> messageData) {
-        try {
-            SyncMessageParams params = new SyncMessageParams();
-
-            // 获取body
-            Map<String, Object> body = getMap(messageData, "body");
-            if (body == null) {
-                return null;
-            }
-
-            // 获取syncPushPackage
-            Map<String, Object> syncPushPackage = getMap(body, "syncPushPackage");
-            if (syncPushPackage == null) {
-                return null;
-            }
-
-            // 获取data列表
-            List<Object> dataList = getList(syncPushPackage, "data");
-            if (dataList == null || dataList.isEmpty()) {
-                return null;
-            }
-
-            params.setDataList(dataList);
-            params.setMessageCount(dataList.size());
-
-            return params;
-
-        } catch (Exception e) {
-            log.error("【账号{}】解析同步包参数失败", accountId, e);
+    protected Object parseParams(String accountId, DecodedFrame frame) {
+        // 同步包数据已在解码阶段解密
+        List<SyncPayload> payloads = frame.getSyncPayloads();
+        if (payloads.isEmpty()) {
             return null;
         }
+
+        SyncMessageParams params = new SyncMessageParams();
+        params.setPayloads(payloads);
+        params.setMessageCount(payloads.size());
+        return params;
     }
 
     @Override
-    protected Object doHandle(String accountId, Object params, Map<String, Object> messageData) {
+    protected Object doHandle(String accountId, Object params, DecodedFrame frame) {
         SyncMessageParams syncParams = (SyncMessageParams) params;
-        List<String> decryptedMessages = new ArrayList<>();
 
         // 获取lwp字段
-        String lwp = getString(messageData, "lwp");
+        String lwp = frame.getLwp();
 
         log.info("【账号{}】收到闲鱼原始消息: lwp={}, messageCount={}", accountId, lwp, syncParams.getMessageCount());
 
-        // 处理每条加密消息
-        for (int i = 0; i < syncParams.getDataList().size(); i++) {
-            Object item = syncParams.getDataList().get(i);
-            if (!(item instanceof Map)) {
-                continue;
-            }
-
-            @SuppressWarnings("unchecked")
-            Map<String, Object> syncData = (Map<String, Object>) item;
-
-            String encryptedData = getString(syncData, "data");
-            if (encryptedData == null) {
-                continue;
+        // 处理每条已解密消息，已读回执和非聊天消息直接丢弃
+        long maxPts = 0;
+        long maxSeq = 0;
+        List<SyncPayload> chatPayloads = new ArrayList<>(syncParams.getMessageCount());
+        for (SyncPayload payload : syncParams.getPayloads()) {
+            maxPts = Math.max(maxPts, payload.getPts());
+            maxSeq = Math.max(maxSeq, payload.getSeq());
+            // 逐条消息的原文只在DEBUG级别输出，直接传payload，JSON文本仅在DEBUG开启时才生成
+            log.debug("【账号{}】加密消息[{}]: {}", accountId, payload.getIndex(), payload.getEncryptedData());
+            log.debug("【账号{}】解密消息[{}]: {}", accountId, payload.getIndex(), payload);
+
+            if (!payload.isReadReceipt() && payload.getMessageInfo() != null) {
+                chatPayloads.add(payload);
             }
+        }
 
-            log.info("【账号{}】加密消息[{}]: {}", accountId, i, encryptedData);
-
-            // 解密消息
-            String decryptedData = MessageDecryptUtils.decrypt(encryptedData);
-            if (decryptedData != null) {
-                log.info("【账号{}】解密消息[{}]: {}", accountId, i, decryptedData);
-                decryptedMessages.add(decryptedData);
+        // 先登记同步包，包内聊天消息都提交到数据库（或确定不需要保存）后才推进同步检查点
+        SyncCheckpointService.SyncProgress progress = syncCheckpointService.track(
+                Long.parseLong(accountId), maxPts, maxSeq, chatPayloads.size());
 
-                // 解析并发布事件
-                parseAndPublishEvent(accountId, decryptedData, lwp);
-            } else {
-                log.warn("【账号{}】消息解密失败[{}]", accountId, i);
-            }
+        // 按会话分发，解析并发布事件
+        for (SyncPayload payload : chatPayloads) {
+            dispatchByConversation(accountId, payload, lwp, once(progress::complete));
         }
 
-        return decryptedMessages;
+        return syncParams.getPayloads();
     }
 
     @Override
-    protected void postHandle(String accountId, Object result, Map<String, Object> messageData) {
+    protected void postHandle(String accountId, Object result, DecodedFrame frame) {
         // 处理完成，不需要额外日志
     }
 
+    /**
+     * 按会话ID分发聊天消息
+     * 提交到账号+sId对应的会话条带
+     *
+     * @param accountId 账号ID
+     * @param payload 已解密的聊天消息
+     * @param lwp WebSocket消息路径
+     * @param done 消息处理完成的回调
+     */
+    private void dispatchByConversation(String accountId, SyncPayload payload, String lwp, Runnable done) {
+        messageExecutor.execute(accountId, payload.getConversationId(),
+                () -> parseAndPublishEvent(accountId, payload, lwp, done));
+    }
+
     /**
      * 解析消息并发布事件
+     * 事件交给保存监听器后由写入器在提交时回调done；不需要保存的消息（没有pnmId、重复消息、无法解析）在这里回调。
+     * 发布失败时不回调，所在同步包保持未完成，重新同步时再次处理
      *
      * @param accountId 账号ID
-     * @param decryptedData 解密后的JSON数据
+     * @param payload 已解密的消息
      * @param lwp WebSocket消息路径
+     * @param done 消息处理完成的回调
      */
-    private void parseAndPublishEvent(String accountId, String decryptedData, String lwp) {
+    private void parseAndPublishEvent(String accountId, SyncPayload payload, String lwp, Runnable done) {
         try {
-            // 解析JSON
-            @SuppressWarnings("unchecked")
-            Map<String, Object> data = objectMapper.readValue(decryptedData, Map.class);
-
-            // 检查消息类型
-            Object typeObj = data.get("2");
-            if (typeObj != null && "2".equals(typeObj.toString())) {
-                // 已读回执，不处理
-                return;
-            }
-
-            // 检查是否是聊天消息
-            Object field1 = data.get("1");
-            if (!(field1 instanceof Map)) {
-                return;
-            }
-
-            @SuppressWarnings("unchecked")
-            Map<String, Object> messageInfo = (Map<String, Object>) field1;
+            JsonNode messageInfo = payload.getMessageInfo();
 
             // 创建消息实体
             XianyuChatMessage message = new XianyuChatMessage();
@@ -161,88 +156,106 @@ public class SyncMessageHandler extends AbstractLwpHandler {
             // 提取pnm_id（字段1.3）
             String pnmId = extractString(messageInfo, "3");
             if (pnmId == null || pnmId.isEmpty()) {
+                done.run();
                 return;
             }
             message.setPnmId(pnmId);
 
+            // 重同步重放的消息在这里丢弃，不再发布事件
+            if (!dedupFilter.markIfAbsent(accountIdLong, pnmId)) {
+                log.debug("【账号{}】重复消息，跳过: pnmId={}", accountId, pnmId);
+                done.run();
+                return;
+            }
+
             // 提取s_id（字段1.2）
             message.setSId(extractString(messageInfo, "2"));
 
             // 提取时间戳（字段1.5）
             message.setMessageTime(extractLong(messageInfo, "5"));
 
-            // 提取字段1.6的内容
-            Object field6 = messageInfo.get("6");
-            if (field6 instanceof Map) {
-                @SuppressWarnings("unchecked")
-                Map<String, Object> field6Map = (Map<String, Object>) field6;
-
-                // 提取字段1.6.3
-                Object field63 = field6Map.get("3");
-                if (field63 instanceof Map) {
-                    @SuppressWarnings("unchecked")
-                    Map<String, Object> field63Map = (Map<String, Object>) field63;
-
-                    // 提取字段1.6.3.5中的contentType
-                    String field635 = extractString(field63Map, "5");
-                    if (field635 != null) {
-                        try {
-                            // 解析JSON字符串获取contentType
-                            @SuppressWarnings("unchecked")
-                            Map<String, Object> contentMap = objectMapper.readValue(field635, Map.class);
-                            message.setContentType(extractInteger(contentMap, "contentType"));
-                        } catch (Exception e) {
-                            log.debug("解析contentType失败: {}", e.getMessage());
-                        }
-                    }
-                }
+            // 提取字段1.6.3.5的内容（JSON字符串，contentType和订单ID都从这里解析，只解析一次）
+            JsonNode content = parseContent(messageInfo);
+            if (content != null) {
+                message.setContentType(extractInteger(content, "contentType"));
             }
 
             // 提取字段1.10的内容
-            Object field10 = messageInfo.get("10");
-            if (field10 instanceof Map) {
-                @SuppressWarnings("unchecked")
-                Map<String, Object> field10Map = (Map<String, Object>) field10;
+            JsonNode field10 = messageInfo.get("10");
+            if (field10 != null && field10.isObject()) {
 
                 // 提取各个字段
-                message.setMsgContent(extractString(field10Map, "reminderContent"));
-                message.setSenderUserName(extractString(field10Map, "reminderTitle"));
-                message.setSenderUserId(extractString(field10Map, "senderUserId"));
+                message.setMsgContent(extractString(field10, "reminderContent"));
+                message.setSenderUserName(extractString(field10, "reminderTitle"));
+                message.setSenderUserId(extractString(field10, "senderUserId"));
 
                 // 提取reminderUrl并解析商品ID
-                String reminderUrl = extractString(field10Map, "reminderUrl");
+                String reminderUrl = extractString(field10, "reminderUrl");
                 message.setReminderUrl(reminderUrl);
                 if (reminderUrl != null) {
                     String goodsId = extractItemIdFromUrl(reminderUrl);
                     message.setXyGoodsId(goodsId);
                 }
 
-                message.setSenderAppV(extractString(field10Map, "_appVersion"));
-                message.setSenderOsType(extractString(field10Map, "_platform"));
+                message.setSenderAppV(extractString(field10, "_appVersion"));
+                message.setSenderOsType(extractString(field10, "_platform"));
             }
 
-            // 保存完整消息体
-            message.setCompleteMsg(decryptedData);
+            // 保存完整消息体（按存储格式可能直接保存原始MessagePack字节）
+            completeMsgStorage.attach(message, payload);
+
+            // 从消息内容中提取订单ID
+            String orderId = content != null ? extractOrderIdFromContent(content) : null;
 
             // 发布消息接收事件
-            publishChatMessageReceivedEvent(message);
+            publishChatMessageReceivedEvent(message, orderId, done);
 
         } catch (Exception e) {
             log.error("【账号{}】解析消息异常: lwp={}, error={}", accountId, lwp, e.getMessage(), e);
+            done.run();
+        }
+    }
+
+    /**
+     * 只执行一次的回调（同一条消息重复回调会让同步包提前完成）
+     */
+    private static Runnable once(Runnable callback) {
+        AtomicBoolean called = new AtomicBoolean();
+        return () -> {
+            if (called.compareAndSet(false, true)) {
+                callback.run();
+            }
+        };
+    }
+
+    /**
+     * 解析字段1.6.3.5中的JSON字符串
+     *
+     * @param messageInfo 消息主体（字段1）
+     * @return 解析后的内容，不存在或解析失败时返回null
+     */
+    private JsonNode parseContent(JsonNode messageInfo) {
+        JsonNode field635 = messageInfo.path("6").path("3").path("5");
+        if (!field635.isTextual()) {
+            return null;
+        }
+        try {
+            JsonNode content = objectMapper.readTree(field635.textValue());
+            return content.isObject() ? content : null;
+        } catch (Exception e) {
+            log.debug("解析contentType失败: {}", e.getMessage());
+            return null;
         }
     }
 
     /**
      * 发布聊天消息接收事件
      */
-    private void publishChatMessageReceivedEvent(XianyuChatMessage message) {
+    private void publishChatMessageReceivedEvent(XianyuChatMessage message, String orderId, Runnable done) {
         try {
             // 转换为 ChatMessageData
             ChatMessageData messageData = new ChatMessageData();
             BeanUtils.copyProperties(message, messageData);
-
-            // 从完整消息中提取订单ID
-            String orderId = extractOrderIdFromMessage(message.getCompleteMsg());
             messageData.setOrderId(orderId);
 
             log.info("【账号{}】准备发布ChatMessageReceivedEvent事件，完整消息对象: \n" +
@@ -274,7 +287,7 @@ public class SyncMessageHandler extends AbstractLwpHandler {
                     message.getMessageTime(),
                     orderId);
 
-            ChatMessageReceivedEvent event = new ChatMessageReceivedEvent(this, messageData);
+            ChatMessageReceivedEvent event = new ChatMessageReceivedEvent(this, messageData, done);
             eventPublisher.publishEvent(event);
 
             log.info("【账号{}】ChatMessageReceivedEvent事件已发布: pnmId={}, orderId={}",
@@ -282,6 +295,8 @@ public class SyncMessageHandler extends AbstractLwpHandler {
         } catch (Exception e) {
             log.error("【账号{}】发布消息接收事件失败: pnmId={}",
                     message.getXianyuAccountId(), message.getPnmId(), e);
+            // 没有交给保存监听器，不推进检查点，重新同步时再次处理
+            dedupFilter.forget(message.getXianyuAccountId(), message.getPnmId());
         }
     }
 
@@ -295,63 +310,24 @@ public class SyncMessageHandler extends AbstractLwpHandler {
                 return null;
             }
 
-            @SuppressWarnings("unchecked")
-            Map<String, Object> data = objectMapper.readValue(completeMsg, Map.class);
+            JsonNode data = objectMapper.readTree(completeMsg);
 
             // 从 1.6.3.5 中提取订单ID
             // 路径: 1.6.3.5 (这是一个JSON字符串，需要再次解析)
-            Object level1 = data.get("1");
-            if (level1 instanceof Map) {
-                Object level6 = ((Map<?, ?>) level1).get("6");
-                if (level6 instanceof Map) {
-                    Object level3 = ((Map<?, ?>) level6).get("3");
-                    if (level3 instanceof Map) {
-                        Object level5 = ((Map<?, ?>) level3).get("5");
-                        if (level5 instanceof String) {
-                            String jsonStr = (String) level5;
+            JsonNode level1 = data.get("1");
+            if (level1 != null && level1.isObject()) {
+                JsonNode level6 = level1.get("6");
+                if (level6 != null && level6.isObject()) {
+                    JsonNode level3 = level6.get("3");
+                    if (level3 != null && level3.isObject()) {
+                        JsonNode level5 = level3.get("5");
+                        if (level5 != null && level5.isTextual()) {
+                            String jsonStr = level5.textValue();
                             log.info("📋 提取订单ID: 找到字段1.6.3.5={}", jsonStr);
 
                             try {
                                 // 解析嵌套的JSON字符串
-                                @SuppressWarnings("unchecked")
-                                Map<String, Object> contentMap = objectMapper.readValue(jsonStr, Map.class);
-
-                                // 从 dynamicOperation.changeContent.dxCard.item.main.exContent.button.targetUrl 中提取
-//                                Object dynamicOp = contentMap.get("dynamicOperation");
-//                                if (dynamicOp instanceof Map) {
-//                                    Object changeContent = ((Map<?, ?>) dynamicOp).get("changeContent");
-//                                    if (changeContent instanceof Map) {
-                                Object dxCard = ((Map<?, ?>) contentMap).get("dxCard");
-                                if (dxCard instanceof Map) {
-                                    Object item = ((Map<?, ?>) dxCard).get("item");
-                                    if (item instanceof Map) {
-                                        Object main = ((Map<?, ?>) item).get("main");
-                                        if (main instanceof Map) {
-                                            Object exContent = ((Map<?, ?>) main).get("exContent");
-                                            if (exContent instanceof Map) {
-                                                Object button = ((Map<?, ?>) exContent).get("button");
-                                                if (button instanceof Map) {
-                                                    String targetUrl = (String) ((Map<?, ?>) button).get("targetUrl");
-                                                    log.info("📋 提取订单ID: targetUrl={}", targetUrl);
-
-                                                    if (targetUrl != null && targetUrl.contains("orderId=")) {
-                                                        // 提取 id 参数
-                                                        String[] parts = targetUrl.split("[?&]");
-                                                        for (String part : parts) {
-                                                            if (part.startsWith("orderId=")) {
-                                                                String orderId = part.split("=")[1];
-                                                                log.info("✅ 成功提取订单ID: orderId={}", orderId);
-                                                                return orderId;
-                                                            }
-                                                        }
-                                                    }
-                                                }
-                                            }
-                                        }
-                                    }
-//                                        }
-//                                    }
-                                }
+                                return extractOrderIdFromContent(objectMapper.readTree(jsonStr));
                             } catch (Exception e) {
                                 log.warn("⚠️ 解析字段1.6.3.5的JSON失败", e);
                             }
@@ -375,6 +351,34 @@ public class SyncMessageHandler extends AbstractLwpHandler {
         }
     }
 
+    /**
+     * 从已解析的字段1.6.3.5内容中提取订单ID
+     * 路径: dxCard.item.main.exContent.button.targetUrl 中的 orderId 参数
+     */
+    public static String extractOrderIdFromContent(JsonNode content) {
+        JsonNode targetUrlNode = content.path("dxCard").path("item").path("main")
+                .path("exContent").path("button").path("targetUrl");
+        if (targetUrlNode.isMissingNode()) {
+            return null;
+        }
+
+        String targetUrl = targetUrlNode.isNull() ? null : targetUrlNode.asText();
+        log.info("📋 提取订单ID: targetUrl={}", targetUrl);
+
+        if (targetUrl != null && targetUrl.contains("orderId=")) {
+            // 提取 id 参数
+            String[] parts = targetUrl.split("[?&]");
+            for (String part : parts) {
+                if (part.startsWith("orderId=")) {
+                    String orderId = part.split("=")[1];
+                    log.info("✅ 成功提取订单ID: orderId={}", orderId);
+                    return orderId;
+                }
+            }
+        }
+        return null;
+    }
+
     /**
      * 从reminder_url中提取itemId（商品ID）
      */
@@ -403,44 +407,44 @@ public class SyncMessageHandler extends AbstractLwpHandler {
     }
 
     /**
-     * 从Map中提取字符串值
+     * 从JSON节点中提取字符串值
      */
-    private String extractString(Map<String, Object> map, String key) {
-        Object value = map.get(key);
-        return value != null ? value.toString() : null;
+    private String extractString(JsonNode node, String key) {
+        JsonNode value = node.get(key);
+        return value != null && !value.isNull() ? value.asText() : null;
     }
 
     /**
-     * 从Map中提取整数值
+     * 从JSON节点中提取整数值
      */
-    private Integer extractInteger(Map<String, Object> map, String key) {
-        Object value = map.get(key);
-        if (value == null) {
+    private Integer extractInteger(JsonNode node, String key) {
+        JsonNode value = node.get(key);
+        if (value == null || value.isNull()) {
             return null;
         }
-        if (value instanceof Number) {
-            return ((Number) value).intValue();
+        if (value.isNumber()) {
+            return value.intValue();
         }
         try {
-            return Integer.parseInt(value.toString());
+            return Integer.parseInt(value.asText());
         } catch (Exception e) {
             return null;
         }
     }
 
     /**
-     * 从Map中提取长整数值
+     * 从JSON节点中提取长整数值
      */
-    private Long extractLong(Map<String, Object> map, String key) {
-        Object value = map.get(key);
-        if (value == null) {
+    private Long extractLong(JsonNode node, String key) {
+        JsonNode value = node.get(key);
+        if (value == null || value.isNull()) {
             return null;
         }
-        if (value instanceof Number) {
-            return ((Number) value).longValue();
+        if (value.isNumber()) {
+            return value.longValue();
         }
         try {
-            return Long.parseLong(value.toString());
+            return Long.parseLong(value.asText());
         } catch (Exception e) {
             return null;
         }
@@ -451,7 +455,7 @@ public class SyncMessageHandler extends AbstractLwpHandler {
      */
     @Data
     public static class SyncMessageParams {
-        private List<Object> dataList;
+        private List<SyncPayload> payloads;
         private int messageCount;
     }
 }
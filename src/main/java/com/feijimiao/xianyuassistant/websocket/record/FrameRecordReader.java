@@ -0,0 +1,103 @@
+package com.feijimiao.xianyuassistant.websocket.record;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 入站帧录制文件读取器
+ *
+ * <p>分段文件格式：8字节魔数 {@code LWPREC01}，之后是连续的记录，长度为0表示分段结束。每条记录：</p>
+ * <pre>
+ * int   记录长度（不含本字段）
+ * long  接收时间（epoch微秒）
+ * short 账号ID字节数
+ * byte[] 账号ID（UTF-8）
+ * byte[] 原始帧（UTF-8，占用记录剩余部分）
+ * </pre>
+ */
+public final class FrameRecordReader {
+
+    static final byte[] MAGIC = "LWPREC01".getBytes(StandardCharsets.US_ASCII);
+    static final String SEGMENT_PREFIX = "frames-";
+    static final String SEGMENT_SUFFIX = ".lwprec";
+
+    /**
+     * 一条录制的帧
+     *
+     * @param epochMicros 接收时间（epoch微秒）
+     * @param accountId 账号ID
+     * @param frame 原始帧文本
+     */
+    public record Frame(long epochMicros, String accountId, String frame) {
+    }
+
+    private FrameRecordReader() {
+    }
+
+    static int recordLength(int accountBytes, int frameBytes) {
+        return Long.BYTES + Short.BYTES + accountBytes + frameBytes;
+    }
+
+    static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    /**
+     * 读取录制的帧
+     *
+     * @param path 分段文件，或包含分段文件的目录（按文件名顺序读取）
+     * @return 按录制顺序排列的帧
+     */
+    public static List<Frame> read(Path path) throws IOException {
+        List<Path> files;
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> stream = Files.list(path)) {
+                files = stream.filter(FrameRecordReader::isSegment).sorted().toList();
+            }
+        } else {
+            files = List.of(path);
+        }
+        List<Frame> frames = new ArrayList<>();
+        for (Path file : files) {
+            readSegment(file, frames);
+        }
+        return frames;
+    }
+
+    private static void readSegment(Path file, List<Frame> frames) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            byte[] magic = new byte[MAGIC.length];
+            if (buffer.remaining() < magic.length) {
+                return;
+            }
+            buffer.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("不是入站帧录制文件: " + file);
+            }
+            while (buffer.remaining() >= Integer.BYTES) {
+                int length = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    break;
+                }
+                long micros = buffer.getLong();
+                byte[] account = new byte[buffer.getShort()];
+                buffer.get(account);
+                byte[] frame = new byte[length - recordLength(account.length, 0)];
+                buffer.get(frame);
+                frames.add(new Frame(micros, new String(account, StandardCharsets.UTF_8),
+                        new String(frame, StandardCharsets.UTF_8)));
+            }
+        }
+    }
+}
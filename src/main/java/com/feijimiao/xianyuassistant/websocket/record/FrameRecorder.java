@@ -0,0 +1,331 @@
+package com.feijimiao.xianyuassistant.websocket.record;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * 入站原始帧录制器
+ *
+ * <p>开启后把每个连接收到的原始帧连同账号ID、接收时间追加写入内存映射的二进制日志，用于离线重放复现线上负载。
+ * 日志按固定大小分段滚动，只保留最近的若干段。格式见 {@link FrameRecordReader}。</p>
+ *
+ * <p>写入在接收线程上同步完成（内存拷贝，不做系统调用）。每条记录先用原子位置在当前分段中预留空间，
+ * 多个连接并行写入各自预留的区域，只有分段写满切换新分段时才加锁。</p>
+ *
+ * <p>被切换掉的分段在最后一个写入者完成后刷盘并关闭文件通道。JDK没有公开的解除映射接口，
+ * 映射本身在分段对象被GC回收时释放，期间只占用虚拟地址空间，已刷盘的页可以随时被系统回收。</p>
+ */
+@Slf4j
+@Component
+public class FrameRecorder {
+
+    @Value("${xianyu.websocket.record.enabled:false}")
+    private boolean enabled;
+
+    @Value("${xianyu.websocket.record.dir:logs/frames}")
+    private String dir = "logs/frames";
+
+    @Value("${xianyu.websocket.record.segment-size-mb:64}")
+    private int segmentSizeMb = 64;
+
+    @Value("${xianyu.websocket.record.max-segments:8}")
+    private int maxSegments = 8;
+
+    private static final DateTimeFormatter SEGMENT_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private long segmentBytes;
+    private Path directory;
+
+    // 切换分段的锁，同时保护分段列表和序号
+    private final ReentrantLock rollLock = new ReentrantLock();
+    private final Deque<Path> segments = new ArrayDeque<>();
+    private int segmentSeq;
+
+    private volatile Segment current;
+
+    private final AtomicLong recordedFrames = new AtomicLong();
+    private final AtomicLong droppedFrames = new AtomicLong();
+
+    public FrameRecorder() {
+    }
+
+    /**
+     * 不经过Spring直接创建（测试使用）
+     */
+    public FrameRecorder(Path dir, long segmentBytes, int maxSegments) {
+        this.enabled = true;
+        this.dir = dir.toString();
+        this.maxSegments = maxSegments;
+        this.segmentBytes = segmentBytes;
+        init();
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        if (segmentBytes <= 0) {
+            segmentBytes = (long) Math.max(1, segmentSizeMb) * 1024 * 1024;
+        }
+        // 分段内的位置用int表示
+        segmentBytes = Math.min(segmentBytes, Integer.MAX_VALUE);
+        directory = Paths.get(dir);
+        try {
+            Files.createDirectories(directory);
+            // 历史分段也参与滚动删除
+            try (Stream<Path> files = Files.list(directory)) {
+                files.filter(FrameRecordReader::isSegment).sorted().forEach(segments::add);
+            }
+            log.info("入站帧录制已开启: dir={}, segmentBytes={}, maxSegments={}",
+                    directory.toAbsolutePath(), segmentBytes, maxSegments);
+        } catch (IOException e) {
+            log.error("入站帧录制初始化失败，已关闭录制: {}", e.getMessage());
+            enabled = false;
+        }
+    }
+
+    /**
+     * 是否开启录制
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 录制一个入站帧
+     *
+     * @param accountId 账号ID
+     * @param frame 原始帧文本
+     */
+    public void record(String accountId, String frame) {
+        if (!enabled || frame == null) {
+            return;
+        }
+        long micros = currentMicros();
+        byte[] account = accountId.getBytes(StandardCharsets.UTF_8);
+        byte[] payload = frame.getBytes(StandardCharsets.UTF_8);
+        int length = FrameRecordReader.recordLength(account.length, payload.length);
+        // 记录后保留一个int的结束标记
+        int reserved = Integer.BYTES + length;
+        if (reserved + Integer.BYTES + FrameRecordReader.MAGIC.length > segmentBytes) {
+            droppedFrames.incrementAndGet();
+            return;
+        }
+
+        try {
+            while (true) {
+                Segment segment = current;
+                if (segment == null) {
+                    roll(null);
+                    continue;
+                }
+                if (!segment.enter()) {
+                    continue;
+                }
+                try {
+                    int position = segment.reserve(reserved);
+                    if (position >= 0) {
+                        // 长度最后写入，写到一半的记录读取时视为分段结束
+                        MappedByteBuffer buffer = segment.buffer;
+                        buffer.putLong(position + Integer.BYTES, micros);
+                        buffer.putShort(position + Integer.BYTES + Long.BYTES, (short) account.length);
+                        buffer.put(position + Integer.BYTES + Long.BYTES + Short.BYTES, account);
+                        buffer.put(position + Integer.BYTES + Long.BYTES + Short.BYTES + account.length, payload);
+                        buffer.putInt(position, length);
+                        recordedFrames.incrementAndGet();
+                        return;
+                    }
+                } finally {
+                    segment.exit();
+                }
+                roll(segment);
+            }
+        } catch (IOException e) {
+            droppedFrames.incrementAndGet();
+            log.warn("入站帧录制失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 当前分段仍是写满的分段时切换到新分段，超出保留数量时删除最旧的分段
+     *
+     * @param full 写满的分段，为null表示还没有分段
+     */
+    private void roll(Segment full) throws IOException {
+        rollLock.lock();
+        try {
+            if (current != full) {
+                // 其他线程已切换
+                return;
+            }
+            String name = String.format("%s%s-%04d%s", FrameRecordReader.SEGMENT_PREFIX,
+                    LocalDateTime.now().format(SEGMENT_TIME), segmentSeq++ % 10000, FrameRecordReader.SEGMENT_SUFFIX);
+            Path path = directory.resolve(name);
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            MappedByteBuffer buffer;
+            try {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+            buffer.put(0, FrameRecordReader.MAGIC);
+            current = new Segment(channel, buffer, FrameRecordReader.MAGIC.length);
+            segments.addLast(path);
+            if (full != null) {
+                full.retire();
+            }
+
+            while (segments.size() > Math.max(1, maxSegments)) {
+                Path oldest = segments.removeFirst();
+                Files.deleteIfExists(oldest);
+            }
+        } finally {
+            rollLock.unlock();
+        }
+    }
+
+    private static long currentMicros() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000L + now.getNano() / 1_000;
+    }
+
+    /**
+     * 当前保留的分段文件（按时间顺序）
+     */
+    public List<Path> getSegments() {
+        rollLock.lock();
+        try {
+            return List.copyOf(segments);
+        } finally {
+            rollLock.unlock();
+        }
+    }
+
+    /**
+     * 累计录制的帧数
+     */
+    public long getRecordedFrames() {
+        return recordedFrames.get();
+    }
+
+    /**
+     * 累计因超长或写入失败未录制的帧数
+     */
+    public long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+
+    @PreDestroy
+    public void close() {
+        rollLock.lock();
+        try {
+            Segment segment = current;
+            current = null;
+            if (segment != null) {
+                segment.retire();
+            }
+        } finally {
+            rollLock.unlock();
+        }
+    }
+
+    /**
+     * 一个映射到内存的分段
+     *
+     * <p>写入者先 {@link #enter()} 再预留空间；分段被切换掉后，最后一个退出的写入者负责刷盘并关闭。</p>
+     */
+    private static final class Segment {
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final int capacity;
+        private final AtomicInteger position;
+        private final AtomicInteger writers = new AtomicInteger();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean retired;
+
+        Segment(FileChannel channel, MappedByteBuffer buffer, int start) {
+            this.channel = channel;
+            this.buffer = buffer;
+            this.capacity = buffer.capacity();
+            this.position = new AtomicInteger(start);
+        }
+
+        /**
+         * 开始写入，分段已被切换掉时返回false
+         */
+        boolean enter() {
+            writers.incrementAndGet();
+            if (retired) {
+                exit();
+                return false;
+            }
+            return true;
+        }
+
+        void exit() {
+            if (writers.decrementAndGet() == 0 && retired) {
+                closeOnce();
+            }
+        }
+
+        /**
+         * 预留空间（保留结束标记），空间不足时返回-1
+         */
+        int reserve(int bytes) {
+            int start = position.getAndAdd(bytes);
+            // 写满后位置可能继续增长，溢出为负数时同样视为已满
+            if (start < 0 || (long) start + bytes + Integer.BYTES > capacity) {
+                return -1;
+            }
+            return start;
+        }
+
+        /**
+         * 停止接收新的写入，没有进行中的写入时立即关闭
+         */
+        void retire() {
+            retired = true;
+            if (writers.get() == 0) {
+                closeOnce();
+            }
+        }
+
+        private void closeOnce() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                buffer.force();
+                channel.close();
+            } catch (IOException e) {
+                log.warn("关闭入站帧录制文件失败: {}", e.getMessage());
+            }
+        }
+    }
+}
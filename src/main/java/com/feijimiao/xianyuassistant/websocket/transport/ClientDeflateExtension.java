@@ -0,0 +1,76 @@
+package com.feijimiao.xianyuassistant.websocket.transport;
+
+import org.java_websocket.extensions.ExtensionRequestData;
+import org.java_websocket.extensions.IExtension;
+import org.java_websocket.extensions.permessage_deflate.PerMessageDeflateExtension;
+
+import java.util.Map;
+
+/**
+ * 客户端 permessage-deflate 扩展
+ *
+ * <p>Java-WebSocket自带的扩展按服务端视角实现：作为客户端时总是请求双方都不保留压缩上下文，
+ * 也不读取服务端响应中的参数。这里按配置决定握手请求的参数，并按服务端的响应设置解压/压缩上下文是否在消息之间重置。</p>
+ *
+ * <p>父类中的两个标志是服务端视角：{@code clientNoContextTakeover} 控制解压器（解压对端消息）在消息之间重置，
+ * {@code serverNoContextTakeover} 控制压缩器在消息之间重置。</p>
+ */
+public class ClientDeflateExtension extends PerMessageDeflateExtension {
+
+    private static final String NAME = "permessage-deflate";
+    private static final String SERVER_NO_CONTEXT_TAKEOVER = "server_no_context_takeover";
+    private static final String CLIENT_NO_CONTEXT_TAKEOVER = "client_no_context_takeover";
+
+    private final boolean serverContextTakeover;
+    private final boolean clientContextTakeover;
+
+    /**
+     * @param serverContextTakeover 是否允许服务端在消息之间保留压缩上下文（压缩率更高，本端多占用一个解压窗口）
+     * @param clientContextTakeover 本端是否在消息之间保留压缩上下文
+     */
+    public ClientDeflateExtension(boolean serverContextTakeover, boolean clientContextTakeover) {
+        this.serverContextTakeover = serverContextTakeover;
+        this.clientContextTakeover = clientContextTakeover;
+    }
+
+    @Override
+    public String getProvidedExtensionAsClient() {
+        StringBuilder offer = new StringBuilder(NAME);
+        if (!serverContextTakeover) {
+            offer.append("; ").append(SERVER_NO_CONTEXT_TAKEOVER);
+        }
+        if (!clientContextTakeover) {
+            offer.append("; ").append(CLIENT_NO_CONTEXT_TAKEOVER);
+        }
+        return offer.toString();
+    }
+
+    @Override
+    public boolean acceptProvidedExtensionAsClient(String inputExtensionHeader) {
+        for (String extension : inputExtensionHeader.split(",")) {
+            ExtensionRequestData data = ExtensionRequestData.parseExtensionRequest(extension);
+            if (!NAME.equalsIgnoreCase(data.getExtensionName())) {
+                continue;
+            }
+            Map<String, String> parameters = data.getExtensionParameters();
+            // 服务端不保留上下文时，本端解压器在消息之间重置
+            setClientNoContextTakeover(parameters.containsKey(SERVER_NO_CONTEXT_TAKEOVER));
+            // 服务端要求或本端配置不保留上下文时，本端压缩器在消息之间重置
+            setServerNoContextTakeover(!clientContextTakeover || parameters.containsKey(CLIENT_NO_CONTEXT_TAKEOVER));
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public IExtension copyInstance() {
+        ClientDeflateExtension copy = new ClientDeflateExtension(serverContextTakeover, clientContextTakeover);
+        copy.setThreshold(getThreshold());
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return getProvidedExtensionAsClient();
+    }
+}
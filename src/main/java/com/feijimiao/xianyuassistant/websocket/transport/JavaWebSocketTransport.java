@@ -0,0 +1,96 @@
+package com.feijimiao.xianyuassistant.websocket.transport;
+
+import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.drafts.Draft;
+import org.java_websocket.extensions.IExtension;
+import org.java_websocket.framing.Framedata;
+import org.java_websocket.handshake.ServerHandshake;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于Java-WebSocket的传输层
+ *
+ * <p>每个连接独占一个读线程和一个写线程，连接数较少时延迟最低。
+ * 一批消息转换为帧后通过一次 {@code sendFrame(Collection)} 写出。</p>
+ *
+ * <p>握手时可以提供 permessage-deflate 扩展，由 {@link MeteredDraft} 统计压缩前后的字节数。</p>
+ */
+public class JavaWebSocketTransport implements LwpTransport {
+
+    private final WebSocketClient socket;
+    private final TransportStats stats = new TransportStats();
+
+    public JavaWebSocketTransport(URI serverUri, Map<String, String> headers, Listener listener) {
+        this(serverUri, headers, listener, null);
+    }
+
+    /**
+     * @param deflate 握手时提供的压缩扩展，为null时不压缩
+     */
+    public JavaWebSocketTransport(URI serverUri, Map<String, String> headers, Listener listener,
+                                  ClientDeflateExtension deflate) {
+        List<IExtension> extensions = deflate != null ? List.of(deflate) : Collections.emptyList();
+        this.socket = new WebSocketClient(serverUri, new MeteredDraft(extensions, stats), headers) {
+            @Override
+            public void onOpen(ServerHandshake handshakedata) {
+                listener.onOpen(handshakedata.getHttpStatus(), handshakedata.getHttpStatusMessage());
+            }
+
+            @Override
+            public void onMessage(String message) {
+                listener.onMessage(message);
+            }
+
+            @Override
+            public void onClose(int code, String reason, boolean remote) {
+                listener.onClose(code, reason, remote);
+            }
+
+            @Override
+            public void onError(Exception ex) {
+                listener.onError(ex);
+            }
+        };
+    }
+
+    @Override
+    public boolean connectBlocking(long timeout, TimeUnit unit) throws InterruptedException {
+        return socket.connectBlocking(timeout, unit);
+    }
+
+    @Override
+    public void sendBatch(List<String> texts) {
+        Draft draft = socket.getDraft();
+        List<Framedata> frames = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            frames.addAll(draft.createFrames(text, true));
+        }
+        socket.sendFrame(frames);
+    }
+
+    @Override
+    public void close() {
+        socket.close();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return socket.isOpen();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return socket.isClosed();
+    }
+
+    @Override
+    public TransportStats getStats() {
+        return stats;
+    }
+}
@@ -0,0 +1,196 @@
+package com.feijimiao.xianyuassistant.websocket.transport;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 基于JDK HttpClient的传输层
+ *
+ * <p>连接不持有线程：同一个 {@link HttpClient} 上的所有连接共用它的一个selector线程完成TLS和帧的读写，
+ * 回调在HttpClient的执行器上运行。多个账号共享少量HttpClient即可承载大量连接。</p>
+ *
+ * <p>收到一条完整消息并回调完成后才向连接请求下一条，接收回调阻塞（入站背压）时该连接停止读取。</p>
+ *
+ * <p>JDK的WebSocket不支持 permessage-deflate，流量统计只有载荷字符数（线路字节数记为相同值）。</p>
+ */
+public class JdkWebSocketTransport implements LwpTransport, WebSocket.Listener {
+
+    /**
+     * 由HttpClient自行生成或不允许设置的握手请求头
+     */
+    private static final Set<String> RESTRICTED_HEADERS = Set.of(
+            "connection", "content-length", "expect", "host", "upgrade");
+
+    /**
+     * 一批消息写出的超时时间（秒）
+     */
+    private static final long SEND_TIMEOUT_SECONDS = 10;
+
+    private final HttpClient httpClient;
+    private final URI serverUri;
+    private final Map<String, String> headers;
+    private final Listener listener;
+
+    private volatile WebSocket webSocket;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final TransportStats stats = new TransportStats();
+
+    // 分片消息缓冲区（只在回调线程上访问，回调按顺序执行）
+    private final StringBuilder partial = new StringBuilder();
+
+    public JdkWebSocketTransport(HttpClient httpClient, URI serverUri, Map<String, String> headers, Listener listener) {
+        this.httpClient = httpClient;
+        this.serverUri = serverUri;
+        this.headers = headers;
+        this.listener = listener;
+    }
+
+    @Override
+    public boolean connectBlocking(long timeout, TimeUnit unit) throws InterruptedException {
+        WebSocket.Builder builder = httpClient.newWebSocketBuilder()
+                .connectTimeout(Duration.ofMillis(unit.toMillis(timeout)));
+        if (headers != null) {
+            headers.forEach((name, value) -> {
+                String lower = name.toLowerCase();
+                if (!RESTRICTED_HEADERS.contains(lower) && !lower.startsWith("sec-websocket-")) {
+                    builder.header(name, value);
+                }
+            });
+        }
+        CompletableFuture<WebSocket> future = builder.buildAsync(serverUri, this);
+        try {
+            webSocket = future.get(timeout, unit);
+            return true;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            listener.onError(cause instanceof Exception ex ? ex : new Exception(cause));
+            closed.set(true);
+            return false;
+        } catch (InterruptedException e) {
+            future.thenAccept(WebSocket::abort);
+            closed.set(true);
+            throw e;
+        } catch (TimeoutException e) {
+            // 超时后才完成的握手直接断开
+            future.thenAccept(WebSocket::abort);
+            listener.onError(e);
+            closed.set(true);
+            return false;
+        }
+    }
+
+    @Override
+    public void onOpen(WebSocket webSocket) {
+        listener.onOpen(101, "Switching Protocols");
+        webSocket.request(1);
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+        stats.recordIn(data.length(), data.length());
+        if (!last) {
+            partial.append(data);
+        } else if (partial.isEmpty()) {
+            listener.onMessage(data.toString());
+        } else {
+            partial.append(data);
+            String text = partial.toString();
+            partial.setLength(0);
+            listener.onMessage(text);
+        }
+        webSocket.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onBinary(WebSocket webSocket, ByteBuffer data, boolean last) {
+        // 闲鱼只下发文本帧
+        webSocket.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onPing(WebSocket webSocket, ByteBuffer message) {
+        // 返回后由HttpClient自动回复Pong
+        webSocket.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+        notifyClosed(statusCode, reason, true);
+        return null;
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+        listener.onError(error instanceof Exception ex ? ex : new Exception(error));
+        notifyClosed(1006, error.getMessage(), true);
+    }
+
+    @Override
+    public void sendBatch(List<String> texts) throws Exception {
+        WebSocket current = webSocket;
+        if (current == null || current.isOutputClosed()) {
+            throw new IllegalStateException("连接不可用");
+        }
+        // 同一连接同一时刻只能有一个未完成的写出，按顺序串联
+        CompletableFuture<WebSocket> chain = CompletableFuture.completedFuture(current);
+        long chars = 0;
+        for (String text : texts) {
+            chain = chain.thenCompose(ws -> ws.sendText(text, true));
+            chars += text.length();
+        }
+        try {
+            chain.get(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            stats.recordOut(chars, chars);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ex ? ex : e;
+        }
+    }
+
+    @Override
+    public void close() {
+        WebSocket current = webSocket;
+        if (current != null && !current.isOutputClosed()) {
+            current.sendClose(WebSocket.NORMAL_CLOSURE, "")
+                    .orTimeout(5, TimeUnit.SECONDS)
+                    .whenComplete((ws, e) -> current.abort());
+        }
+        notifyClosed(WebSocket.NORMAL_CLOSURE, "", false);
+    }
+
+    private void notifyClosed(int code, String reason, boolean remote) {
+        if (closed.compareAndSet(false, true)) {
+            listener.onClose(code, reason, remote);
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        WebSocket current = webSocket;
+        return current != null && !closed.get() && !current.isOutputClosed() && !current.isInputClosed();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    @Override
+    public TransportStats getStats() {
+        return stats;
+    }
+}
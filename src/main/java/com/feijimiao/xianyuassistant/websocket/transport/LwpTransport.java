@@ -0,0 +1,72 @@
+package com.feijimiao.xianyuassistant.websocket.transport;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LWP WebSocket传输层
+ *
+ * <p>{@link com.feijimiao.xianyuassistant.websocket.XianyuWebSocketClient} 只通过该接口收发文本帧，
+ * 底层可以是每个连接独占读写线程的Java-WebSocket，也可以是所有账号共享少量selector线程的JDK HttpClient。</p>
+ */
+public interface LwpTransport {
+
+    /**
+     * 传输层事件回调
+     */
+    interface Listener {
+
+        /**
+         * 握手完成
+         */
+        void onOpen(int httpStatus, String httpStatusMessage);
+
+        /**
+         * 收到一条完整的文本消息（分片已合并）
+         */
+        void onMessage(String text);
+
+        /**
+         * 连接关闭（每个连接只回调一次）
+         */
+        void onClose(int code, String reason, boolean remote);
+
+        /**
+         * 连接异常
+         */
+        void onError(Exception ex);
+    }
+
+    /**
+     * 建立连接并等待握手完成
+     *
+     * @return 握手成功返回true
+     */
+    boolean connectBlocking(long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * 按顺序写出一批文本消息，写出失败时抛出异常
+     * 同一连接同一时刻只有一个线程调用（由出站写入器保证）
+     */
+    void sendBatch(List<String> texts) throws Exception;
+
+    /**
+     * 关闭连接
+     */
+    void close();
+
+    /**
+     * 连接是否可用
+     */
+    boolean isOpen();
+
+    /**
+     * 连接是否已关闭
+     */
+    boolean isClosed();
+
+    /**
+     * 连接的流量统计
+     */
+    TransportStats getStats();
+}
@@ -0,0 +1,130 @@
+package com.feijimiao.xianyuassistant.websocket.transport;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 传输层工厂
+ *
+ * <p>按配置创建连接的传输层：</p>
+ * <ul>
+ *   <li>{@code java-websocket}（默认）：Java-WebSocket，每个连接一个读线程和一个写线程</li>
+ *   <li>{@code jdk}：JDK HttpClient，所有连接轮流分配到固定数量的HttpClient上，
+ *       每个HttpClient一个selector线程，回调在共享的虚拟线程上执行</li>
+ * </ul>
+ *
+ * <p>压缩默认关闭，开启后 Java-WebSocket 连接在握手中提供 permessage-deflate，服务端不支持时照常以不压缩方式通信。
+ * JDK传输层不支持该扩展。</p>
+ */
+@Slf4j
+@Component
+public class LwpTransportFactory {
+
+    public static final String JAVA_WEBSOCKET = "java-websocket";
+    public static final String JDK = "jdk";
+
+    @Value("${xianyu.websocket.transport.type:java-websocket}")
+    private String type = JAVA_WEBSOCKET;
+
+    @Value("${xianyu.websocket.transport.selectors:2}")
+    private int selectors = 2;
+
+    @Value("${xianyu.websocket.compression.enabled:false}")
+    private boolean compressionEnabled;
+
+    @Value("${xianyu.websocket.compression.server-context-takeover:true}")
+    private boolean serverContextTakeover = true;
+
+    @Value("${xianyu.websocket.compression.client-context-takeover:true}")
+    private boolean clientContextTakeover = true;
+
+    // 共享的HttpClient（jdk模式下首次创建连接时初始化）
+    private volatile HttpClient[] httpClients;
+    private ExecutorService callbackExecutor;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public LwpTransportFactory() {
+    }
+
+    /**
+     * 不经过Spring直接创建（基准测试使用）
+     */
+    public LwpTransportFactory(String type, int selectors) {
+        this.type = type;
+        this.selectors = selectors;
+    }
+
+    /**
+     * 设置压缩参数（不经过Spring创建时使用）
+     */
+    public void setCompression(boolean enabled, boolean serverContextTakeover, boolean clientContextTakeover) {
+        this.compressionEnabled = enabled;
+        this.serverContextTakeover = serverContextTakeover;
+        this.clientContextTakeover = clientContextTakeover;
+    }
+
+    /**
+     * 创建一个连接的传输层
+     */
+    public LwpTransport create(URI serverUri, Map<String, String> headers, LwpTransport.Listener listener) {
+        if (JDK.equalsIgnoreCase(type)) {
+            HttpClient[] clients = httpClients();
+            HttpClient client = clients[Math.floorMod(next.getAndIncrement(), clients.length)];
+            return new JdkWebSocketTransport(client, serverUri, headers, listener);
+        }
+        ClientDeflateExtension deflate = compressionEnabled
+                ? new ClientDeflateExtension(serverContextTakeover, clientContextTakeover) : null;
+        return new JavaWebSocketTransport(serverUri, headers, listener, deflate);
+    }
+
+    /**
+     * 当前使用的传输层类型
+     */
+    public String getType() {
+        return JDK.equalsIgnoreCase(type) ? JDK : JAVA_WEBSOCKET;
+    }
+
+    private HttpClient[] httpClients() {
+        HttpClient[] clients = httpClients;
+        if (clients == null) {
+            synchronized (this) {
+                clients = httpClients;
+                if (clients == null) {
+                    callbackExecutor = Executors.newThreadPerTaskExecutor(
+                            Thread.ofVirtual().name("ws-jdk-", 0).factory());
+                    clients = new HttpClient[Math.max(1, selectors)];
+                    for (int i = 0; i < clients.length; i++) {
+                        clients[i] = HttpClient.newBuilder()
+                                .executor(callbackExecutor)
+                                .connectTimeout(Duration.ofSeconds(10))
+                                .build();
+                    }
+                    httpClients = clients;
+                    log.info("JDK WebSocket传输层初始化完成: selectors={}", clients.length);
+                }
+            }
+        }
+        return clients;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        HttpClient[] clients = httpClients;
+        if (clients != null) {
+            for (HttpClient client : clients) {
+                client.shutdownNow();
+            }
+            callbackExecutor.shutdownNow();
+        }
+    }
+}
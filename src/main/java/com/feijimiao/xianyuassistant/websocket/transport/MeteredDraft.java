@@ -0,0 +1,82 @@
+package com.feijimiao.xianyuassistant.websocket.transport;
+
+import org.java_websocket.drafts.Draft;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.enums.HandshakeState;
+import org.java_websocket.exceptions.InvalidDataException;
+import org.java_websocket.exceptions.InvalidHandshakeException;
+import org.java_websocket.extensions.IExtension;
+import org.java_websocket.extensions.permessage_deflate.PerMessageDeflateExtension;
+import org.java_websocket.framing.Framedata;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.handshake.ServerHandshake;
+import org.java_websocket.protocols.IProtocol;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 统计线路字节数和载荷字节数的RFC 6455协议实现
+ *
+ * <p>入站：{@code translateFrame} 收到的字节为线路字节，返回的帧已经过扩展解压，其载荷为解压后字节。
+ * 出站：{@code createBinaryFrame} 传入的帧载荷为压缩前字节，返回的缓冲区为线路字节。</p>
+ */
+public class MeteredDraft extends Draft_6455 {
+
+    private final TransportStats stats;
+
+    public MeteredDraft(List<IExtension> extensions, TransportStats stats) {
+        super(extensions);
+        this.stats = stats;
+    }
+
+    private MeteredDraft(List<IExtension> extensions, List<IProtocol> protocols, int maxFrameSize,
+                         TransportStats stats) {
+        super(extensions, protocols, maxFrameSize);
+        this.stats = stats;
+    }
+
+    @Override
+    public HandshakeState acceptHandshakeAsClient(ClientHandshake request, ServerHandshake response)
+            throws InvalidHandshakeException {
+        HandshakeState state = super.acceptHandshakeAsClient(request, response);
+        if (state == HandshakeState.MATCHED && getExtension() instanceof PerMessageDeflateExtension) {
+            stats.setExtension(response.getFieldValue("Sec-WebSocket-Extensions"));
+        }
+        return state;
+    }
+
+    @Override
+    public List<Framedata> translateFrame(ByteBuffer buffer) throws InvalidDataException {
+        int wireBytes = buffer.remaining();
+        List<Framedata> frames = super.translateFrame(buffer);
+        long payloadBytes = 0;
+        for (Framedata frame : frames) {
+            payloadBytes += frame.getPayloadData().remaining();
+        }
+        stats.recordIn(wireBytes, payloadBytes);
+        return frames;
+    }
+
+    @Override
+    public ByteBuffer createBinaryFrame(Framedata framedata) {
+        int payloadBytes = framedata.getPayloadData().remaining();
+        ByteBuffer wire = super.createBinaryFrame(framedata);
+        stats.recordOut(wire.remaining(), payloadBytes);
+        return wire;
+    }
+
+    @Override
+    public Draft copyInstance() {
+        List<IExtension> extensions = new ArrayList<>();
+        for (IExtension extension : getKnownExtensions()) {
+            extensions.add(extension.copyInstance());
+        }
+        List<IProtocol> protocols = new ArrayList<>();
+        for (IProtocol protocol : getKnownProtocols()) {
+            protocols.add(protocol.copyInstance());
+        }
+        return new MeteredDraft(extensions, protocols, getMaxFrameSize(), stats);
+    }
+}
@@ -0,0 +1,77 @@
+package com.feijimiao.xianyuassistant.websocket.transport;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单连接流量统计
+ *
+ * <p>线路字节数为socket上实际收发的帧字节数（含帧头），载荷字节数为解压后/压缩前的消息字节数。
+ * 协商了 permessage-deflate 时两者之差即为压缩节省的流量。</p>
+ */
+public class TransportStats {
+
+    private final AtomicLong wireBytesIn = new AtomicLong();
+    private final AtomicLong payloadBytesIn = new AtomicLong();
+    private final AtomicLong wireBytesOut = new AtomicLong();
+    private final AtomicLong payloadBytesOut = new AtomicLong();
+    private volatile String extension;
+
+    public void recordIn(long wireBytes, long payloadBytes) {
+        wireBytesIn.addAndGet(wireBytes);
+        payloadBytesIn.addAndGet(payloadBytes);
+    }
+
+    public void recordOut(long wireBytes, long payloadBytes) {
+        wireBytesOut.addAndGet(wireBytes);
+        payloadBytesOut.addAndGet(payloadBytes);
+    }
+
+    /**
+     * 记录握手协商的扩展
+     */
+    public void setExtension(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * 握手协商的扩展，未协商时返回null
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * 是否协商了压缩
+     */
+    public boolean isCompressed() {
+        return extension != null;
+    }
+
+    /**
+     * 累计接收的线路字节数（解压前）
+     */
+    public long getWireBytesIn() {
+        return wireBytesIn.get();
+    }
+
+    /**
+     * 累计接收的载荷字节数（解压后）
+     */
+    public long getPayloadBytesIn() {
+        return payloadBytesIn.get();
+    }
+
+    /**
+     * 累计发送的线路字节数（压缩后）
+     */
+    public long getWireBytesOut() {
+        return wireBytesOut.get();
+    }
+
+    /**
+     * 累计发送的载荷字节数（压缩前）
+     */
+    public long getPayloadBytesOut() {
+        return payloadBytesOut.get();
+    }
+}
@@ -102,12 +102,16 @@ CREATE TABLE IF NOT EXISTS xianyu_chat_message (
     xy_goods_id VARCHAR(100),                     -- 闲鱼商品ID，从reminder_url中的itemId参数解析
     
     -- 完整消息体
-    complete_msg TEXT NOT NULL,                   -- 完整的消息体JSON
+    complete_msg TEXT NOT NULL,                   -- 完整的消息体JSON（按编码格式存储时为空字符串）
     
     -- 时间信息
     message_time BIGINT,                          -- 消息时间戳（毫秒，字段1.5）
     create_time DATETIME DEFAULT CURRENT_TIMESTAMP,  -- 创建时间
     
+    -- 编码后的消息体（放在最后，读取前面的列时不需要跨越溢出页）
+    complete_msg_format TINYINT,                  -- 消息体存储格式：0或空=JSON文本，1=deflate压缩的JSON，2=原始MessagePack
+    complete_msg_blob BLOB,                       -- 编码后的消息体
+    
     -- 外键约束
     FOREIGN KEY (xianyu_account_id) REFERENCES xianyu_account(id)
 );
@@ -253,3 +257,12 @@ CREATE INDEX IF NOT EXISTS idx_auto_reply_record_account_id ON xianyu_goods_auto
 CREATE INDEX IF NOT EXISTS idx_auto_reply_record_xy_goods_id ON xianyu_goods_auto_reply_record(xy_goods_id);
 CREATE INDEX IF NOT EXISTS idx_auto_reply_record_state ON xianyu_goods_auto_reply_record(state);
 CREATE INDEX IF NOT EXISTS idx_auto_reply_record_create_time ON xianyu_goods_auto_reply_record(create_time);
+
+-- 消息同步检查点表（每个账号已处理到的同步位置，重连时增量同步）
+CREATE TABLE IF NOT EXISTS xianyu_sync_checkpoint (
+    xianyu_account_id INTEGER PRIMARY KEY,            -- 闲鱼账号ID
+    pts BIGINT NOT NULL DEFAULT 0,                    -- 已处理的最大同步位置
+    seq BIGINT NOT NULL DEFAULT 0,                    -- 已处理的最大同步序号
+    update_time INTEGER NOT NULL,                     -- 更新时间戳（毫秒）
+    FOREIGN KEY (xianyu_account_id) REFERENCES xianyu_account(id)
+);
@@ -0,0 +1,168 @@
+package com.feijimiao.xianyuassistant.benchmark;
+
+import com.feijimiao.xianyuassistant.config.DatabaseConfig;
+import com.feijimiao.xianyuassistant.config.DatabaseInitListener;
+import com.feijimiao.xianyuassistant.config.SqliteRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 聊天消息写入吞吐对比工具
+ *
+ * <p>按 {@code ChatMessageEventSaveListener} 的访问方式（先按pnm_id查重，再插入，每条语句单独取连接）
+ * 写入聊天消息，对比：</p>
+ * <ul>
+ *   <li>before：{@code DriverManagerDataSource}，每次调用新建连接，SQLite默认参数（rollback journal、synchronous=FULL）</li>
+ *   <li>after：{@link DatabaseConfig} 创建的写连接池，连接创建时执行WAL等PRAGMA</li>
+ * </ul>
+ *
+ * <p>运行：{@code java -cp <test-classes:classes:依赖> com.feijimiao.xianyuassistant.benchmark.ChatMessageInsertBenchmark
+ * [messages=5000] [threads=1,4]}</p>
+ */
+public class ChatMessageInsertBenchmark {
+
+    private static final String FIND_SQL =
+            "SELECT * FROM xianyu_chat_message WHERE xianyu_account_id = ? AND pnm_id = ?";
+
+    private static final String INSERT_SQL = "INSERT INTO xianyu_chat_message (" +
+            "xianyu_account_id, lwp, pnm_id, s_id, content_type, msg_content, " +
+            "sender_user_name, sender_user_id, sender_app_v, sender_os_type, " +
+            "reminder_url, xy_goods_id, complete_msg, message_time" +
+            ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq > 0) {
+                options.put(arg.substring(0, eq), arg.substring(eq + 1));
+            }
+        }
+        int messages = Integer.parseInt(options.getOrDefault("messages", "5000"));
+        String[] threadCounts = options.getOrDefault("threads", "1,4").split(",");
+
+        Path scratch = Files.createTempDirectory("xianyu-insert");
+        System.out.printf("%-8s %8s %10s %12s %12s%n", "mode", "threads", "messages", "elapsed ms", "msgs/s");
+        for (String threadText : threadCounts) {
+            int threads = Integer.parseInt(threadText.trim());
+            String beforeUrl = "jdbc:sqlite:" + scratch.resolve("before-" + threads + ".db");
+            String afterUrl = "jdbc:sqlite:" + scratch.resolve("after-" + threads + ".db");
+
+            // 用默认参数建表后关闭连接池，之后每次调用新建连接（与旧配置一致）
+            createSchema(beforeUrl, "DELETE", "FULL", -2000, 0, "DEFAULT", 3000);
+            DriverManagerDataSource before = new DriverManagerDataSource(beforeUrl);
+            before.setDriverClassName("org.sqlite.JDBC");
+            report("before", threads, messages, run(before, threads, messages));
+
+            HikariDataSource after = createSchema(afterUrl, "WAL", "NORMAL", -16000, 268435456L, "MEMORY", 5000);
+            try {
+                report("after", threads, messages, run(after, threads, messages));
+            } finally {
+                after.close();
+            }
+        }
+    }
+
+    private static HikariDataSource createSchema(String url, String journalMode, String synchronous, int cacheSize,
+                                                 long mmapSize, String tempStore, int busyTimeout) {
+        DatabaseConfig config = new DatabaseConfig();
+        ReflectionTestUtils.setField(config, "databaseUrl", url);
+        ReflectionTestUtils.setField(config, "poolSize", 8);
+        ReflectionTestUtils.setField(config, "journalMode", journalMode);
+        ReflectionTestUtils.setField(config, "synchronous", synchronous);
+        ReflectionTestUtils.setField(config, "cacheSize", cacheSize);
+        ReflectionTestUtils.setField(config, "mmapSize", mmapSize);
+        ReflectionTestUtils.setField(config, "tempStore", tempStore);
+        ReflectionTestUtils.setField(config, "busyTimeout", busyTimeout);
+        SqliteRoutingDataSource routing = (SqliteRoutingDataSource) config.dataSource();
+        routing.getReadDataSource().close();
+        HikariDataSource dataSource = routing.getWriteDataSource();
+        // 与应用启动时一样，由迁移监听器补齐schema.sql之外的表和索引
+        DatabaseInitListener initListener = new DatabaseInitListener();
+        ReflectionTestUtils.setField(initListener, "dataSource", dataSource);
+        initListener.onApplicationEvent(null);
+        if ("DELETE".equals(journalMode)) {
+            dataSource.close();
+            return null;
+        }
+        return dataSource;
+    }
+
+    /**
+     * 多个线程分摊写入，返回耗时（纳秒）
+     */
+    private static long run(DataSource dataSource, int threads, int messages) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                int worker = t;
+                futures.add(pool.submit(() -> {
+                    for (int i = worker; i < messages; i += threads) {
+                        save(dataSource, 1 + i % 10, i);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return System.nanoTime() - start;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void save(DataSource dataSource, long accountId, int index) throws Exception {
+        String pnmId = index + ".PNM";
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement find = conn.prepareStatement(FIND_SQL)) {
+            find.setLong(1, accountId);
+            find.setString(2, pnmId);
+            try (ResultSet rs = find.executeQuery()) {
+                if (rs.next()) {
+                    return;
+                }
+            }
+        }
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement insert = conn.prepareStatement(INSERT_SQL)) {
+            insert.setLong(1, accountId);
+            insert.setString(2, "/s/para");
+            insert.setString(3, pnmId);
+            insert.setString(4, "5543593" + index % 100 + "@goofish");
+            insert.setInt(5, 1);
+            insert.setString(6, "你好，这个还在吗？" + index);
+            insert.setString(7, "买家" + index % 100);
+            insert.setString(8, "2200" + index % 100);
+            insert.setString(9, "1.0");
+            insert.setString(10, "android");
+            insert.setString(11, "fleamarket://message_chat?itemId=7000000" + accountId);
+            insert.setString(12, "7000000" + accountId);
+            insert.setString(13, "{\"1\":{\"2\":\"5543593@goofish\",\"3\":\"" + pnmId + "\",\"10\":{\"reminderContent\":\"你好\"}}}");
+            insert.setLong(14, System.currentTimeMillis());
+            insert.executeUpdate();
+        }
+    }
+
+    private static void report(String mode, int threads, int messages, long nanos) {
+        System.out.printf("%-8s %8d %10d %12.0f %12.0f%n", mode, threads, messages, nanos / 1e6,
+                messages / (nanos / 1e9));
+    }
+}
@@ -0,0 +1,87 @@
+package com.feijimiao.xianyuassistant.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.feijimiao.xianyuassistant.websocket.frame.LwpFrame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 入站帧解析基准测试
+ *
+ * <p>对比 {@code readValue(message, Map.class)} 与 {@link LwpFrame#parse} 在不读取body的消息
+ * （心跳响应、ACK、未注册路径推送）上的耗时。</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrameParseBenchmark {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private String heartbeatResponse;
+
+    private String unknownPush;
+
+    @Setup
+    public void setup() throws Exception {
+        heartbeatResponse = "{\"code\":200,\"headers\":{\"mid\":\"1231760000000000 0\",\"sid\":\"abc\"}}";
+        // 未注册路径的推送，body较大但不会被读取
+        unknownPush = objectMapper.writeValueAsString(Map.of(
+                "lwp", "/s/vulcan",
+                "headers", Map.of("mid", "5551760000000000 0", "sid", "abc"),
+                "body", SyncDecodeBenchmark.buildSyncFrame(5).get("body")));
+    }
+
+    @Benchmark
+    public void mapHeartbeat(Blackhole bh) throws Exception {
+        Map<?, ?> data = objectMapper.readValue(heartbeatResponse, Map.class);
+        bh.consume(data.get("code"));
+        bh.consume(data.get("headers"));
+    }
+
+    @Benchmark
+    public void streamingHeartbeat(Blackhole bh) throws Exception {
+        LwpFrame frame = LwpFrame.parse(objectMapper, heartbeatResponse);
+        bh.consume(frame.getCode());
+        bh.consume(frame.getHeaders());
+    }
+
+    @Benchmark
+    public void mapUnknownPush(Blackhole bh) throws Exception {
+        Map<?, ?> data = objectMapper.readValue(unknownPush, Map.class);
+        bh.consume(data.get("lwp"));
+        bh.consume(data.get("headers"));
+    }
+
+    @Benchmark
+    public void streamingUnknownPush(Blackhole bh) throws Exception {
+        LwpFrame frame = LwpFrame.parse(objectMapper, unknownPush);
+        bh.consume(frame.getLwp());
+        bh.consume(frame.getHeaders());
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(FrameParseBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,289 @@
+package com.feijimiao.xianyuassistant.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.feijimiao.xianyuassistant.XianYuAssistantApplication;
+import com.feijimiao.xianyuassistant.event.chatMessageEvent.ChatMessageReceivedEvent;
+import com.feijimiao.xianyuassistant.websocket.IngestGate;
+import com.feijimiao.xianyuassistant.websocket.PipelineMetrics;
+import com.feijimiao.xianyuassistant.websocket.StageMetrics;
+import com.feijimiao.xianyuassistant.websocket.WebSocketMessageExecutor;
+import com.feijimiao.xianyuassistant.websocket.WebSocketMessageHandler;
+import com.feijimiao.xianyuassistant.websocket.XianyuWebSocketClient;
+import com.feijimiao.xianyuassistant.websocket.frame.DecodedFrame;
+import com.feijimiao.xianyuassistant.websocket.frame.FrameDecoder;
+import com.feijimiao.xianyuassistant.websocket.frame.LwpFrame;
+import com.feijimiao.xianyuassistant.websocket.frame.SyncPayload;
+import com.feijimiao.xianyuassistant.websocket.record.FrameRecordReader;
+import com.feijimiao.xianyuassistant.websocket.transport.LwpTransport;
+import com.feijimiao.xianyuassistant.websocket.transport.LwpTransportFactory;
+import com.feijimiao.xianyuassistant.websocket.transport.TransportStats;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 入站帧重放工具
+ *
+ * <p>读取 {@link com.feijimiao.xianyuassistant.websocket.record.FrameRecorder} 录制的帧，
+ * 在使用临时SQLite数据库的完整应用上下文中，按录制顺序交给每个账号的 {@link XianyuWebSocketClient#onMessage}，
+ * 经过快速路径/解码、{@code WebSocketMessageRouter}、事件监听器的完整流程。出站消息被丢弃，不连接服务器。</p>
+ *
+ * <p>速度：{@code 1} 按录制时间间隔重放，{@code N} 为N倍速，{@code max} 不等待。结束后输出：</p>
+ * <ul>
+ *   <li>吞吐：帧数 / 从第一帧注入到所有任务（含异步监听器）完成的时间</li>
+ *   <li>路由延迟：注入到该帧（按headers.mid关联）处理器返回</li>
+ *   <li>事件延迟：注入到该帧中的聊天消息（按pnm_id关联）发布 ChatMessageReceivedEvent</li>
+ * </ul>
+ *
+ * <p>运行：{@code java -cp <test-classes:classes:依赖> com.feijimiao.xianyuassistant.benchmark.FrameReplayBenchmark <录制文件或目录> [1|N|max]}</p>
+ */
+public class FrameReplayBenchmark {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("用法: FrameReplayBenchmark <录制文件或目录> [1|N|max]");
+            return;
+        }
+        List<FrameRecordReader.Frame> frames = FrameRecordReader.read(Paths.get(args[0]));
+        double speed = args.length > 1 && !"max".equalsIgnoreCase(args[1]) ? Double.parseDouble(args[1]) : 0;
+        if (frames.isEmpty()) {
+            System.err.println("录制文件中没有帧");
+            return;
+        }
+
+        // 预处理：按mid和pnm_id关联帧序号（不计时）
+        Map<String, Integer> frameByMid = new HashMap<>();
+        Map<String, Integer> frameByPnmId = new HashMap<>();
+        for (int i = 0; i < frames.size(); i++) {
+            index(frames.get(i), i, frameByMid, frameByPnmId);
+        }
+
+        Path scratch = Files.createTempDirectory("xianyu-replay");
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(XianYuAssistantApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=jdbc:sqlite:" + scratch.resolve("replay.db"),
+                        "--xianyu.websocket.auto-start.enabled=false",
+                        "--xianyu.websocket.record.enabled=false",
+                        "--logging.level.com.feijimiao=WARN");
+        try {
+            replay(context, frames, speed, frameByMid, frameByPnmId);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static void replay(ConfigurableApplicationContext context, List<FrameRecordReader.Frame> frames,
+                               double speed, Map<String, Integer> frameByMid, Map<String, Integer> frameByPnmId)
+            throws Exception {
+        WebSocketMessageHandler handler = context.getBean(WebSocketMessageHandler.class);
+        WebSocketMessageExecutor executor = context.getBean(WebSocketMessageExecutor.class);
+        PipelineMetrics pipelineMetrics = context.getBean(PipelineMetrics.class);
+
+        long[] injectedAt = new long[frames.size()];
+        List<Long> routeLatencies = Collections.synchronizedList(new ArrayList<>());
+        List<Long> eventLatencies = Collections.synchronizedList(new ArrayList<>());
+
+        context.addApplicationListener((ApplicationListener<ChatMessageReceivedEvent>) event -> {
+            Integer index = frameByPnmId.get(event.getMessageData().getPnmId());
+            if (index != null) {
+                eventLatencies.add(System.nanoTime() - injectedAt[index]);
+            }
+        });
+
+        // 包装处理器：记录路由完成的时间
+        WebSocketMessageHandler timedHandler = new WebSocketMessageHandler() {
+            @Override
+            public void handleMessage(String accountId, DecodedFrame frame) {
+                handler.handleMessage(accountId, frame);
+                Object mid = frame.getHeaders() != null ? frame.getHeaders().get("mid") : null;
+                Integer index = mid != null ? frameByMid.get(mid.toString()) : null;
+                if (index != null) {
+                    routeLatencies.add(System.nanoTime() - injectedAt[index]);
+                }
+            }
+
+            @Override
+            public void handleHeartbeat(String accountId) {
+                handler.handleHeartbeat(accountId);
+            }
+
+            @Override
+            public void handleError(String accountId, Exception error) {
+                handler.handleError(accountId, error);
+            }
+        };
+
+        // 每个账号一个不连接服务器的客户端，出站消息直接丢弃
+        AtomicLong discarded = new AtomicLong();
+        LwpTransportFactory discardFactory = new LwpTransportFactory() {
+            @Override
+            public LwpTransport create(URI serverUri, Map<String, String> headers, LwpTransport.Listener listener) {
+                return new DiscardTransport(discarded);
+            }
+        };
+        Map<String, XianyuWebSocketClient> clients = new ConcurrentHashMap<>();
+
+        long start = System.nanoTime();
+        long firstMicros = frames.get(0).epochMicros();
+        for (int i = 0; i < frames.size(); i++) {
+            FrameRecordReader.Frame frame = frames.get(i);
+            if (speed > 0) {
+                long due = start + (long) ((frame.epochMicros() - firstMicros) * 1000 / speed);
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            }
+            XianyuWebSocketClient client = clients.computeIfAbsent(frame.accountId(), accountId -> {
+                XianyuWebSocketClient c = new XianyuWebSocketClient(URI.create("ws://replay/"), Map.of(),
+                        accountId, discardFactory);
+                c.setMessageHandler(timedHandler);
+                c.setMessageExecutor(executor);
+                c.setOutboundExecutor(executor.getWriterExecutor());
+                c.onOpen(101, "replay");
+                return c;
+            });
+            injectedAt[i] = System.nanoTime();
+            client.onMessage(frame.frame());
+        }
+        long injected = System.nanoTime();
+
+        // 等待所有入站任务和异步监听器完成
+        while (!drained(clients.keySet(), executor, pipelineMetrics)) {
+            Thread.sleep(5);
+        }
+        long finished = System.nanoTime();
+
+        long shed = 0;
+        for (String accountId : clients.keySet()) {
+            IngestGate gate = executor.getIngestGate(accountId);
+            shed += gate != null ? gate.getShed() : 0;
+        }
+        double seconds = (finished - start) / 1e9;
+        System.out.printf("帧数: %d, 账号数: %d, 速度: %s%n", frames.size(), clients.size(),
+                speed > 0 ? speed + "x" : "max");
+        System.out.printf("注入耗时: %.1f ms, 总耗时: %.1f ms, 吞吐: %.0f 帧/秒%n",
+                (injected - start) / 1e6, (finished - start) / 1e6, frames.size() / seconds);
+        System.out.printf("丢弃的入站帧: %d, 丢弃的出站消息: %d%n", shed, discarded.get());
+        printPercentiles("路由延迟", routeLatencies);
+        printPercentiles("事件延迟", eventLatencies);
+        System.out.printf("%-10s %10s %10s %10s %12s %12s %12s %12s%n", "stage", "completed", "failed",
+                "peakQueued", "avgWait ms", "maxWait ms", "avgSvc ms", "maxSvc ms");
+        for (StageMetrics stage : pipelineMetrics.getAll()) {
+            System.out.printf("%-10s %10d %10d %10d %12.3f %12.3f %12.3f %12.3f%n", stage.getStage().getKey(),
+                    stage.getCompleted(), stage.getFailed(), stage.getPeakQueued(), stage.getAvgWaitMillis(),
+                    stage.getMaxWaitMillis(), stage.getAvgServiceMillis(), stage.getMaxServiceMillis());
+        }
+    }
+
+    private static boolean drained(Iterable<String> accountIds, WebSocketMessageExecutor executor,
+                                   PipelineMetrics pipelineMetrics) {
+        for (String accountId : accountIds) {
+            IngestGate gate = executor.getIngestGate(accountId);
+            if (gate != null && gate.getDepth() > 0) {
+                return false;
+            }
+        }
+        return pipelineMetrics.isIdle();
+    }
+
+    private static void index(FrameRecordReader.Frame recorded, int index,
+                              Map<String, Integer> frameByMid, Map<String, Integer> frameByPnmId) {
+        try {
+            LwpFrame frame = LwpFrame.parse(objectMapper, recorded.frame());
+            String mid = frame.getHeader("mid");
+            if (mid != null) {
+                frameByMid.putIfAbsent(mid, index);
+            }
+            DecodedFrame decoded = FrameDecoder.decode(recorded.accountId(), frame);
+            for (SyncPayload payload : decoded.getSyncPayloads()) {
+                JsonNode messageInfo = payload.getMessageInfo();
+                JsonNode pnmId = messageInfo != null ? messageInfo.get("3") : null;
+                if (pnmId != null && !pnmId.isNull()) {
+                    frameByPnmId.putIfAbsent(pnmId.asText(), index);
+                }
+            }
+        } catch (Exception e) {
+            // 无法解析的帧只计入吞吐
+        }
+    }
+
+    private static void printPercentiles(String name, List<Long> latencies) {
+        if (latencies.isEmpty()) {
+            System.out.printf("%s: 无样本%n", name);
+            return;
+        }
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        System.out.printf("%s(ms, n=%d): p50=%.3f p90=%.3f p99=%.3f max=%.3f%n", name, sorted.length,
+                percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                sorted[sorted.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    /**
+     * 丢弃出站消息的传输层
+     */
+    private static final class DiscardTransport implements LwpTransport {
+
+        private final AtomicLong discarded;
+        private final TransportStats stats = new TransportStats();
+        private volatile boolean closed;
+
+        DiscardTransport(AtomicLong discarded) {
+            this.discarded = discarded;
+        }
+
+        @Override
+        public boolean connectBlocking(long timeout, TimeUnit unit) {
+            return true;
+        }
+
+        @Override
+        public void sendBatch(List<String> texts) {
+            discarded.addAndGet(texts.size());
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return !closed;
+        }
+
+        @Override
+        public boolean isClosed() {
+            return closed;
+        }
+
+        @Override
+        public TransportStats getStats() {
+            return stats;
+        }
+    }
+}
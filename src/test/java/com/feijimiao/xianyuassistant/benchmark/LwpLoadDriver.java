@@ -0,0 +1,251 @@
+package com.feijimiao.xianyuassistant.benchmark;
+
+import com.feijimiao.xianyuassistant.XianYuAssistantApplication;
+import com.feijimiao.xianyuassistant.entity.XianyuGoodsAutoDeliveryConfig;
+import com.feijimiao.xianyuassistant.entity.XianyuGoodsConfig;
+import com.feijimiao.xianyuassistant.entity.XianyuGoodsInfo;
+import com.feijimiao.xianyuassistant.event.chatMessageEvent.ChatMessageReceivedEvent;
+import com.feijimiao.xianyuassistant.mapper.XianyuGoodsAutoDeliveryConfigMapper;
+import com.feijimiao.xianyuassistant.mapper.XianyuGoodsConfigMapper;
+import com.feijimiao.xianyuassistant.mapper.XianyuGoodsInfoMapper;
+import com.feijimiao.xianyuassistant.service.AccountService;
+import com.feijimiao.xianyuassistant.service.WebSocketService;
+import com.feijimiao.xianyuassistant.utils.HumanLikeDelayUtils;
+import com.feijimiao.xianyuassistant.websocket.IngestGate;
+import com.feijimiao.xianyuassistant.websocket.PipelineMetrics;
+import com.feijimiao.xianyuassistant.websocket.StageMetrics;
+import com.feijimiao.xianyuassistant.websocket.WebSocketMessageExecutor;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 多账号本地压测驱动
+ *
+ * <p>启动 {@link MockLwpServer}，再启动使用临时SQLite数据库的完整应用上下文，
+ * 创建N个账号（每个账号一个开启自动发货的商品），通过 {@code WebSocketServiceImpl} 连接到模拟服务器。
+ * 然后按给定的每账号速率逐级加压，每级输出：</p>
+ * <ul>
+ *   <li>服务器实际推送速率和应用发布 ChatMessageReceivedEvent 的速率</li>
+ *   <li>入站闸门丢弃/阻塞的帧数</li>
+ *   <li>自动发货延迟：模拟服务器推送付款卡片到收到发货消息的时间</li>
+ * </ul>
+ * <p>处理速率不低于推送速率的97%且没有丢弃的最高一级即为最大可持续消息速率。
+ * 默认关闭模拟人工操作延迟，只测量系统本身的耗时（{@code human-delay=true} 可开启）。</p>
+ *
+ * <p>运行：{@code java -cp <test-classes:classes:依赖> com.feijimiao.xianyuassistant.benchmark.LwpLoadDriver
+ * accounts=20 rates=10,50,100,200 step-seconds=20 paid-ratio=0.01 batch=1 transport=java-websocket}</p>
+ */
+public class LwpLoadDriver {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq > 0) {
+                options.put(arg.substring(0, eq), arg.substring(eq + 1));
+            }
+        }
+        int accounts = Integer.parseInt(options.getOrDefault("accounts", "20"));
+        String[] rates = options.getOrDefault("rates", "10,50,100,200").split(",");
+        int stepSeconds = Integer.parseInt(options.getOrDefault("step-seconds", "20"));
+        double paidRatio = Double.parseDouble(options.getOrDefault("paid-ratio", "0.01"));
+        int batch = Integer.parseInt(options.getOrDefault("batch", "1"));
+        int pushThreads = Integer.parseInt(options.getOrDefault("push-threads", "2"));
+        String transport = options.getOrDefault("transport", "java-websocket");
+        HumanLikeDelayUtils.setEnabled(Boolean.parseBoolean(options.getOrDefault("human-delay", "false")));
+
+        MockLwpServer server = new MockLwpServer(new InetSocketAddress("127.0.0.1", 0), pushThreads, batch);
+        int port = server.startAndWait();
+
+        Path scratch = Files.createTempDirectory("xianyu-load");
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(XianYuAssistantApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=jdbc:sqlite:" + scratch.resolve("load.db"),
+                        "--xianyu.websocket.url=ws://127.0.0.1:" + port + "/",
+                        "--xianyu.websocket.transport.type=" + transport,
+                        "--xianyu.websocket.auto-start.enabled=false",
+                        "--xianyu.websocket.record.enabled=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.feijimiao=WARN");
+        try {
+            run(context, server, accounts, rates, stepSeconds, paidRatio, transport);
+        } finally {
+            context.getBean(WebSocketService.class).stopAllWebSockets();
+            context.close();
+            server.stop(1000);
+        }
+    }
+
+    private static void run(ConfigurableApplicationContext context, MockLwpServer server, int accounts,
+                            String[] rates, int stepSeconds, double paidRatio, String transport) throws Exception {
+        WebSocketService webSocketService = context.getBean(WebSocketService.class);
+        WebSocketMessageExecutor executor = context.getBean(WebSocketMessageExecutor.class);
+
+        LongAdder events = new LongAdder();
+        context.addApplicationListener((ApplicationListener<ChatMessageReceivedEvent>) event -> events.increment());
+
+        // 创建账号并连接
+        List<Long> accountIds = createAccounts(context, accounts);
+        for (Long accountId : accountIds) {
+            if (!webSocketService.startWebSocketWithToken(accountId, MockLwpServer.TOKEN_PREFIX + accountId)) {
+                throw new IllegalStateException("账号连接失败: " + accountId);
+            }
+        }
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (server.getPushingSessions() < accounts) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("等待同步状态消息超时: " + server.getPushingSessions() + "/" + accounts);
+            }
+            Thread.sleep(50);
+        }
+        System.out.printf("账号数: %d, 传输层: %s, 付款卡片占比: %.3f, 每级时长: %ds%n",
+                accounts, transport, paidRatio, stepSeconds);
+        System.out.printf("%10s %12s %12s %12s %8s %8s %8s %10s %10s %10s %10s%n",
+                "rate/acct", "target/s", "pushed/s", "events/s", "shed", "blocked", "cards",
+                "deliv p50", "deliv p99", "deliv max", "sustained");
+
+        double maxSustained = 0;
+        for (String rateText : rates) {
+            double rate = Double.parseDouble(rateText.trim());
+            server.setRate(rate, paidRatio);
+            // 预热1秒，丢弃上一级遗留的延迟样本
+            Thread.sleep(1000);
+            server.drainDeliveryLatencies();
+
+            long pushedBefore = server.getPushedMessages();
+            long eventsBefore = events.sum();
+            long cardsBefore = server.getPushedCards();
+            long[] gateBefore = gateCounters(executor, accountIds);
+            long start = System.nanoTime();
+            Thread.sleep(stepSeconds * 1000L);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            double target = rate * accounts;
+            double pushed = (server.getPushedMessages() - pushedBefore) / seconds;
+            double processed = (events.sum() - eventsBefore) / seconds;
+            long[] gateAfter = gateCounters(executor, accountIds);
+            long shed = gateAfter[0] - gateBefore[0];
+            long blocked = gateAfter[1] - gateBefore[1];
+            boolean sustained = pushed >= target * 0.97 && processed >= pushed * 0.97 && shed == 0;
+            if (sustained) {
+                maxSustained = Math.max(maxSustained, processed);
+            }
+            long[] latencies = server.drainDeliveryLatencies().stream().mapToLong(Long::longValue).sorted().toArray();
+            System.out.printf("%10.0f %12.0f %12.0f %12.0f %8d %8d %8d %10s %10s %10s %10s%n",
+                    rate, target, pushed, processed, shed, blocked, server.getPushedCards() - cardsBefore,
+                    millis(latencies, 0.50), millis(latencies, 0.99), millis(latencies, 1.0),
+                    sustained ? "yes" : "no");
+        }
+
+        // 停止推送，等待积压的入站帧和各阶段任务处理完（最多60秒）
+        server.setRate(0, 0);
+        PipelineMetrics pipelineMetrics = context.getBean(PipelineMetrics.class);
+        long drainDeadline = System.currentTimeMillis() + 60_000;
+        while (!drained(executor, pipelineMetrics, accountIds) && System.currentTimeMillis() < drainDeadline) {
+            Thread.sleep(100);
+        }
+        Thread.sleep(1000);
+        // 各阶段的排队和处理时间，用于定位瓶颈阶段
+        System.out.printf("%-10s %10s %10s %10s %10s %12s %12s %12s%n", "stage", "completed", "peakQueued",
+                "blocked", "callerRuns", "avgWait ms", "maxWait ms", "avgSvc ms");
+        for (StageMetrics stage : pipelineMetrics.getAll()) {
+            System.out.printf("%-10s %10d %10d %10d %10d %12.3f %12.3f %12.3f%n", stage.getStage().getKey(),
+                    stage.getCompleted(), stage.getPeakQueued(), stage.getBlocked(), stage.getCallerRuns(),
+                    stage.getAvgWaitMillis(), stage.getMaxWaitMillis(), stage.getAvgServiceMillis());
+        }
+        System.out.printf("最大可持续速率: %.0f 消息/秒, 自动发货: 推送卡片%d, 已发货%d, 未完成%d, 心跳%d, ACK%d, 推送暂停%d次%n",
+                maxSustained, server.getPushedCards(), server.getDeliveries(), server.getPendingCards(),
+                server.getHeartbeats(), server.getAcks(), server.getThrottledTicks());
+    }
+
+    /**
+     * 创建压测账号，每个账号一个开启自动发货的商品（商品ID与模拟服务器的付款卡片一致）
+     */
+    private static List<Long> createAccounts(ConfigurableApplicationContext context, int accounts) {
+        AccountService accountService = context.getBean(AccountService.class);
+        XianyuGoodsInfoMapper goodsInfoMapper = context.getBean(XianyuGoodsInfoMapper.class);
+        XianyuGoodsConfigMapper goodsConfigMapper = context.getBean(XianyuGoodsConfigMapper.class);
+        XianyuGoodsAutoDeliveryConfigMapper deliveryConfigMapper = context.getBean(XianyuGoodsAutoDeliveryConfigMapper.class);
+
+        List<Long> accountIds = new ArrayList<>(accounts);
+        for (int i = 1; i <= accounts; i++) {
+            String unb = "2100" + i;
+            Long accountId = accountService.saveAccountAndCookie("压测账号" + i, unb,
+                    "unb=" + unb + "; _m_h5_tk=mock_" + System.currentTimeMillis());
+            String itemId = MockLwpServer.itemIdFor(String.valueOf(accountId));
+
+            XianyuGoodsInfo goods = new XianyuGoodsInfo();
+            goods.setXyGoodId(itemId);
+            goods.setTitle("压测商品" + i);
+            goods.setXianyuAccountId(accountId);
+            goods.setStatus(0);
+            goodsInfoMapper.insert(goods);
+
+            XianyuGoodsConfig goodsConfig = new XianyuGoodsConfig();
+            goodsConfig.setXianyuAccountId(accountId);
+            goodsConfig.setXianyuGoodsId(goods.getId());
+            goodsConfig.setXyGoodsId(itemId);
+            goodsConfig.setXianyuAutoDeliveryOn(1);
+            goodsConfig.setXianyuAutoReplyOn(0);
+            goodsConfigMapper.insert(goodsConfig);
+
+            XianyuGoodsAutoDeliveryConfig deliveryConfig = new XianyuGoodsAutoDeliveryConfig();
+            deliveryConfig.setXianyuAccountId(accountId);
+            deliveryConfig.setXianyuGoodsId(goods.getId());
+            deliveryConfig.setXyGoodsId(itemId);
+            deliveryConfig.setType(1);
+            deliveryConfig.setAutoDeliveryContent("卡密：LOAD-" + i);
+            deliveryConfig.setAutoConfirmShipment(0);
+            deliveryConfigMapper.insert(deliveryConfig);
+
+            accountIds.add(accountId);
+        }
+        return accountIds;
+    }
+
+    /**
+     * 所有账号入站闸门的 {丢弃帧数, 阻塞帧数}
+     */
+    private static long[] gateCounters(WebSocketMessageExecutor executor, List<Long> accountIds) {
+        long[] counters = new long[2];
+        for (Long accountId : accountIds) {
+            IngestGate gate = executor.getIngestGate(String.valueOf(accountId));
+            if (gate != null) {
+                counters[0] += gate.getShed();
+                counters[1] += gate.getBlocked();
+            }
+        }
+        return counters;
+    }
+
+    private static boolean drained(WebSocketMessageExecutor executor, PipelineMetrics pipelineMetrics,
+                                   List<Long> accountIds) {
+        for (Long accountId : accountIds) {
+            IngestGate gate = executor.getIngestGate(String.valueOf(accountId));
+            if (gate != null && gate.getDepth() > 0) {
+                return false;
+            }
+        }
+        return pipelineMetrics.isIdle();
+    }
+
+    private static String millis(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return "-";
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.max(0, Math.ceil(p * sorted.length) - 1));
+        return String.format("%.1fms", sorted[index] / 1e6);
+    }
+}
@@ -0,0 +1,98 @@
+package com.feijimiao.xianyuassistant.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.feijimiao.xianyuassistant.utils.MessageDecryptUtils;
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessageUnpacker;
+import org.msgpack.value.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单条同步消息解密基准测试
+ *
+ * <p>对比旧实现（MessagePack → Value.toJson() → Object → JSON字符串 → Map）
+ * 与 {@link MessageDecryptUtils#decryptToTree} 直接解包为JsonNode的耗时，
+ * 以及非加密字符串body经 {@link MessageDecryptUtils#tryDecrypt} 的开销。</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageDecryptBenchmark {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private String encryptedData;
+
+    private String plainBody = "{\"reason\":\"ok\",\"text\":\"普通字符串body\"}";
+
+    @Setup
+    public void setup() throws Exception {
+        encryptedData = Base64.getEncoder().encodeToString(SyncDecodeBenchmark.packChatMessage(1));
+    }
+
+    /**
+     * 旧实现：四次JSON文本转换
+     */
+    @Benchmark
+    public Object legacyJsonRoundTrip() throws Exception {
+        byte[] bytes = Base64.getDecoder().decode(encryptedData);
+        try (MessageUnpacker unpacker = MessagePack.newDefaultUnpacker(bytes)) {
+            Value value = unpacker.unpackValue();
+            String jsonString = value.toJson();
+            Object jsonObject = objectMapper.readValue(jsonString, Object.class);
+            String result = objectMapper.writeValueAsString(jsonObject);
+            return objectMapper.readValue(result, Map.class);
+        }
+    }
+
+    /**
+     * 新实现：直接解包为JSON树
+     */
+    @Benchmark
+    public JsonNode directTree() {
+        return MessageDecryptUtils.decryptToTree(encryptedData);
+    }
+
+    /**
+     * 新实现 + 生成文本（保存完整消息体时的开销）
+     */
+    @Benchmark
+    public String directTreeWithText() {
+        return MessageDecryptUtils.decryptToTree(encryptedData).toString();
+    }
+
+    /**
+     * 非加密的字符串body：校验Base64字符集后直接返回原文，不抛出异常
+     */
+    @Benchmark
+    public String tryDecryptPlainBody() {
+        return MessageDecryptUtils.tryDecrypt(plainBody);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(MessageDecryptBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,450 @@
+package com.feijimiao.xianyuassistant.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.java_websocket.WebSocket;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.extensions.permessage_deflate.PerMessageDeflateExtension;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.WebSocketServer;
+import org.msgpack.core.MessageBufferPacker;
+import org.msgpack.core.MessagePack;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地模拟的闲鱼LWP服务器（替代 wss-goofish.dingtalk.com，仅用于压测）
+ *
+ * <p>处理客户端的 {@code /reg}、{@code /r/SyncStatus/ackDiff}、{@code /!} 心跳和
+ * {@code /r/MessageSend/sendByReceiverScope} 发送请求，全部返回200。
+ * 收到同步状态消息后，按每账号配置的速率推送 MessagePack+Base64 编码的 {@code syncPushPackage} 聊天消息，
+ * 其中按比例混入 contentType=26 的"我已付款，等待你发货"卡片。</p>
+ *
+ * <p>每张付款卡片使用独立的会话ID，收到该会话的发货消息时记录从推送到收到发货消息的延迟。
+ * 连接的发送缓冲区有积压时暂停推送（相当于真实服务器上的TCP背压），因此实际推送速率可能低于配置速率。</p>
+ *
+ * <p>注册时的token格式为 {@link #TOKEN_PREFIX} + 账号标识，付款卡片的商品ID为 {@link #itemIdFor(String)}。</p>
+ */
+public class MockLwpServer extends WebSocketServer {
+
+    /**
+     * 注册token前缀，后面是账号标识
+     */
+    public static final String TOKEN_PREFIX = "mock-token-";
+
+    /**
+     * 付款卡片的消息内容（自动发货监听器按此内容识别）
+     */
+    public static final String PAID_REMINDER = "[我已付款，等待你发货]";
+
+    /**
+     * 每个账号的普通聊天会话数
+     */
+    private static final int CONVERSATIONS_PER_ACCOUNT = 50;
+
+    /**
+     * 推送任务的执行间隔（毫秒）
+     */
+    private static final long TICK_MILLIS = 10;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ScheduledExecutorService pusher;
+    private final int batchSize;
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final Map<WebSocket, Session> sessions = new ConcurrentHashMap<>();
+
+    // 付款卡片会话ID -> 推送时间（纳秒）
+    private final Map<String, Long> pendingCards = new ConcurrentHashMap<>();
+    private final List<Long> deliveryLatencies = new ArrayList<>();
+
+    private volatile double ratePerAccount;
+    private volatile double paidRatio;
+
+    private final AtomicInteger registered = new AtomicInteger();
+    private final AtomicLong pushedMessages = new AtomicLong();
+    private final AtomicLong pushedFrames = new AtomicLong();
+    private final AtomicLong pushedCards = new AtomicLong();
+    private final AtomicLong deliveries = new AtomicLong();
+    private final AtomicLong sendRequests = new AtomicLong();
+    private final AtomicLong heartbeats = new AtomicLong();
+    private final AtomicLong acks = new AtomicLong();
+    private final AtomicLong throttledTicks = new AtomicLong();
+    private final AtomicLong midSequence = new AtomicLong();
+
+    /**
+     * @param address 监听地址，端口为0时自动分配
+     * @param pushThreads 推送线程数
+     * @param batchSize 每帧包含的消息数
+     */
+    public MockLwpServer(InetSocketAddress address, int pushThreads, int batchSize) {
+        super(address, List.of(new Draft_6455(new PerMessageDeflateExtension())));
+        this.batchSize = Math.max(1, batchSize);
+        this.pusher = Executors.newScheduledThreadPool(Math.max(1, pushThreads), r -> {
+            Thread thread = new Thread(r, "mock-lwp-push");
+            thread.setDaemon(true);
+            return thread;
+        });
+        setReuseAddr(true);
+    }
+
+    /**
+     * 付款卡片中的商品ID
+     *
+     * @param accountKey 账号标识（token去掉前缀的部分）
+     */
+    public static String itemIdFor(String accountKey) {
+        return "7000000" + accountKey;
+    }
+
+    /**
+     * 启动并等待监听端口就绪
+     *
+     * @return 实际监听端口
+     */
+    public int startAndWait() throws InterruptedException {
+        start();
+        if (!started.await(10, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("模拟服务器启动超时");
+        }
+        return getPort();
+    }
+
+    /**
+     * 设置推送速率，所有账号从当前时刻重新计算
+     *
+     * @param ratePerAccount 每个账号每秒推送的消息数
+     * @param paidRatio 付款卡片占比（0-1）
+     */
+    public void setRate(double ratePerAccount, double paidRatio) {
+        this.paidRatio = paidRatio;
+        this.ratePerAccount = ratePerAccount;
+        for (Session session : sessions.values()) {
+            session.resetBaseline();
+        }
+    }
+
+    @Override
+    public void onStart() {
+        started.countDown();
+    }
+
+    @Override
+    public void onOpen(WebSocket conn, ClientHandshake handshake) {
+        sessions.put(conn, new Session(conn));
+    }
+
+    @Override
+    public void onClose(WebSocket conn, int code, String reason, boolean remote) {
+        Session session = sessions.remove(conn);
+        if (session != null) {
+            session.stop();
+        }
+    }
+
+    @Override
+    public void onError(WebSocket conn, Exception ex) {
+        if (conn == null) {
+            System.err.println("模拟服务器异常: " + ex);
+        }
+    }
+
+    @Override
+    public void onMessage(WebSocket conn, String message) {
+        Session session = sessions.get(conn);
+        if (session == null) {
+            return;
+        }
+        try {
+            JsonNode frame = objectMapper.readTree(message);
+            String lwp = frame.path("lwp").asText(null);
+            String mid = frame.path("headers").path("mid").asText("");
+            if (lwp == null) {
+                // 客户端对推送消息的ACK
+                acks.incrementAndGet();
+                return;
+            }
+            switch (lwp) {
+                case "/reg" -> {
+                    String token = frame.path("headers").path("token").asText("");
+                    session.accountKey = token.startsWith(TOKEN_PREFIX) ? token.substring(TOKEN_PREFIX.length()) : token;
+                    ObjectNode headers = objectMapper.createObjectNode()
+                            .put("mid", mid)
+                            .put("sid", session.sid)
+                            .put("reg-sid", session.sid);
+                    conn.send(objectMapper.createObjectNode().put("code", 200).set("headers", headers).toString());
+                    registered.incrementAndGet();
+                }
+                case "/r/SyncStatus/ackDiff" -> {
+                    reply(conn, mid);
+                    session.startPushing();
+                }
+                case "/!" -> {
+                    heartbeats.incrementAndGet();
+                    reply(conn, mid);
+                }
+                case "/r/MessageSend/sendByReceiverScope" -> {
+                    sendRequests.incrementAndGet();
+                    String cid = frame.path("body").path(0).path("cid").asText("");
+                    Long pushedAt = pendingCards.remove(cid);
+                    if (pushedAt != null) {
+                        deliveries.incrementAndGet();
+                        synchronized (deliveryLatencies) {
+                            deliveryLatencies.add(System.nanoTime() - pushedAt);
+                        }
+                    }
+                    ObjectNode response = objectMapper.createObjectNode().put("code", 200);
+                    response.putObject("headers").put("mid", mid);
+                    response.putObject("body").put("messageId", "mock-msg-" + midSequence.incrementAndGet());
+                    conn.send(response.toString());
+                }
+                default -> reply(conn, mid);
+            }
+        } catch (Exception e) {
+            System.err.println("模拟服务器处理消息失败: " + e.getMessage());
+        }
+    }
+
+    private void reply(WebSocket conn, String mid) {
+        ObjectNode response = objectMapper.createObjectNode().put("code", 200);
+        response.putObject("headers").put("mid", mid);
+        conn.send(response.toString());
+    }
+
+    @Override
+    public void stop(int timeout) throws InterruptedException {
+        pusher.shutdownNow();
+        super.stop(timeout);
+    }
+
+    /**
+     * 取出并清空已记录的自动发货延迟（纳秒）
+     */
+    public List<Long> drainDeliveryLatencies() {
+        synchronized (deliveryLatencies) {
+            List<Long> result = new ArrayList<>(deliveryLatencies);
+            deliveryLatencies.clear();
+            return result;
+        }
+    }
+
+    public int getRegistered() {
+        return registered.get();
+    }
+
+    public int getPushingSessions() {
+        int count = 0;
+        for (Session session : sessions.values()) {
+            if (session.task != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public long getPushedMessages() {
+        return pushedMessages.get();
+    }
+
+    public long getPushedFrames() {
+        return pushedFrames.get();
+    }
+
+    public long getPushedCards() {
+        return pushedCards.get();
+    }
+
+    public long getDeliveries() {
+        return deliveries.get();
+    }
+
+    public long getSendRequests() {
+        return sendRequests.get();
+    }
+
+    public long getHeartbeats() {
+        return heartbeats.get();
+    }
+
+    public long getAcks() {
+        return acks.get();
+    }
+
+    public long getThrottledTicks() {
+        return throttledTicks.get();
+    }
+
+    public int getPendingCards() {
+        return pendingCards.size();
+    }
+
+    /**
+     * 单个连接的推送状态
+     */
+    private final class Session {
+
+        private final WebSocket conn;
+        private final String sid = "mock-sid-" + midSequence.incrementAndGet();
+        private volatile String accountKey = "0";
+        private volatile ScheduledFuture<?> task;
+
+        // 当前速率的计时起点和起点之后已推送的消息数
+        private volatile long baselineNanos;
+        private long sentSinceBaseline;
+        private volatile boolean baselineReset;
+
+        private long pts = System.currentTimeMillis() * 1000;
+        private long seq;
+        private long messageNo;
+
+        Session(WebSocket conn) {
+            this.conn = conn;
+        }
+
+        synchronized void startPushing() {
+            if (task != null) {
+                return;
+            }
+            resetBaseline();
+            task = pusher.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        void resetBaseline() {
+            baselineNanos = System.nanoTime();
+            baselineReset = true;
+        }
+
+        void stop() {
+            ScheduledFuture<?> current = task;
+            if (current != null) {
+                current.cancel(false);
+            }
+        }
+
+        private void tick() {
+            try {
+                if (baselineReset) {
+                    baselineReset = false;
+                    sentSinceBaseline = 0;
+                }
+                double rate = ratePerAccount;
+                if (rate <= 0 || !conn.isOpen()) {
+                    return;
+                }
+                // 发送缓冲区有积压时暂停（客户端读得不够快）
+                if (conn.hasBufferedData()) {
+                    throttledTicks.incrementAndGet();
+                    return;
+                }
+                long due = (long) ((System.nanoTime() - baselineNanos) / 1e9 * rate) - sentSinceBaseline;
+                // 落后超过1秒的部分不再补发
+                if (due > rate) {
+                    sentSinceBaseline += due - (long) rate;
+                    due = (long) rate;
+                }
+                while (due > 0) {
+                    int count = (int) Math.min(due, batchSize);
+                    conn.send(buildSyncFrame(count));
+                    pushedFrames.incrementAndGet();
+                    pushedMessages.addAndGet(count);
+                    sentSinceBaseline += count;
+                    due -= count;
+                }
+            } catch (Exception e) {
+                System.err.println("模拟服务器推送失败: " + e.getMessage());
+            }
+        }
+
+        /**
+         * 构造一个 /s/para 同步帧
+         */
+        private String buildSyncFrame(int count) throws Exception {
+            ObjectNode frame = objectMapper.createObjectNode().put("lwp", "/s/para");
+            frame.putObject("headers")
+                    .put("mid", midSequence.incrementAndGet() + " 0")
+                    .put("sid", sid);
+            ArrayNode data = frame.putObject("body").putObject("syncPushPackage").putArray("data");
+            for (int i = 0; i < count; i++) {
+                pts += 1000;
+                seq++;
+                data.addObject()
+                        .put("data", Base64.getEncoder().encodeToString(packChatMessage()))
+                        .put("pts", pts)
+                        .put("seq", seq)
+                        .put("objectType", 40000);
+            }
+            return frame.toString();
+        }
+
+        /**
+         * 按闲鱼同步消息结构打包一条聊天消息，按比例生成付款卡片
+         */
+        private byte[] packChatMessage() throws Exception {
+            long no = ++messageNo;
+            String key = accountKey;
+            boolean paid = paidRatio > 0 && ThreadLocalRandom.current().nextDouble() < paidRatio;
+            String itemId = itemIdFor(key);
+            String cid;
+            String content;
+            String reminder;
+            int contentType;
+            if (paid) {
+                cid = "8" + key + "0" + no;
+                contentType = 26;
+                reminder = PAID_REMINDER;
+                content = "{\"contentType\":26,\"dxCard\":{\"item\":{\"main\":{\"exContent\":{\"button\":"
+                        + "{\"targetUrl\":\"fleamarket://order_detail?id=1&orderId=4" + key + "0" + no
+                        + "&role=seller\",\"text\":\"去发货\"},\"title\":\"我已付款，等待你发货\"}}}}}";
+            } else {
+                cid = "5" + key + "0" + (no % CONVERSATIONS_PER_ACCOUNT);
+                contentType = 1;
+                reminder = "你好，宝贝还在吗？" + no;
+                content = "{\"contentType\":1,\"text\":{\"text\":\"" + reminder + "\"}}";
+            }
+
+            try (MessageBufferPacker packer = MessagePack.newDefaultBufferPacker()) {
+                packer.packMapHeader(1);
+                packer.packInt(1);
+                packer.packMapHeader(6);
+                packer.packInt(1).packString("2200" + key + "@goofish");
+                packer.packInt(2).packString(cid + "@goofish");
+                packer.packInt(3).packString("mock" + key + ".PNM" + no);
+                packer.packInt(5).packLong(System.currentTimeMillis());
+                packer.packInt(6);
+                packer.packMapHeader(1);
+                packer.packInt(3);
+                packer.packMapHeader(2);
+                packer.packInt(4).packInt(contentType);
+                packer.packInt(5).packString(content);
+                packer.packInt(10);
+                packer.packMapHeader(6);
+                packer.packString("reminderContent").packString(reminder);
+                packer.packString("reminderTitle").packString("买家" + key);
+                packer.packString("senderUserId").packString("2200" + key);
+                packer.packString("reminderUrl").packString("fleamarket://message_chat?itemId=" + itemId + "&peerUserId=2200" + key);
+                packer.packString("_appVersion").packString("7.18.30");
+                packer.packString("_platform").packString("android");
+                byte[] bytes = packer.toByteArray();
+                if (paid) {
+                    pushedCards.incrementAndGet();
+                    pendingCards.put(cid + "@goofish", System.nanoTime());
+                }
+                return bytes;
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.feijimiao.xianyuassistant.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.feijimiao.xianyuassistant.websocket.frame.LwpFrameEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 出站帧编码基准测试
+ *
+ * <p>对比改造前基于 HashMap + ObjectMapper 反射序列化（心跳使用 String.format）的编码方式
+ * 与 {@link LwpFrameEncoder} 在复用生成器上直接写出的耗时。</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutboundEncodeBenchmark {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final String MID = "1231760000000000 0";
+
+    private static final String TEXT = "您好，已为您发货，卡密：ABCD-EFGH-IJKL-MNOP，请查收~";
+
+    private Map<String, Object> inboundHeaders;
+
+    // 复用的生成器，与OutboundWriter的用法一致
+    private StringWriter buffer;
+    private JsonGenerator generator;
+
+    @Setup
+    public void setup() throws IOException {
+        inboundHeaders = new HashMap<>();
+        inboundHeaders.put("mid", MID);
+        inboundHeaders.put("sid", "abcdef0123456789");
+        inboundHeaders.put("app-key", LwpFrameEncoder.APP_KEY);
+        inboundHeaders.put("dt", "j");
+        buffer = new StringWriter(256);
+        generator = objectMapper.getFactory().createGenerator(buffer);
+        generator.setRootValueSeparator(null);
+    }
+
+    private String finish() throws IOException {
+        generator.flush();
+        String result = buffer.toString();
+        buffer.getBuffer().setLength(0);
+        return result;
+    }
+
+    @Benchmark
+    public String mapAck() throws IOException {
+        Map<String, Object> ack = new HashMap<>();
+        ack.put("code", 200);
+        Map<String, Object> ackHeaders = new HashMap<>();
+        ackHeaders.put("mid", inboundHeaders.get("mid"));
+        ackHeaders.put("sid", inboundHeaders.get("sid"));
+        if (inboundHeaders.containsKey("app-key")) {
+            ackHeaders.put("app-key", inboundHeaders.get("app-key"));
+        }
+        if (inboundHeaders.containsKey("ua")) {
+            ackHeaders.put("ua", inboundHeaders.get("ua"));
+        }
+        if (inboundHeaders.containsKey("dt")) {
+            ackHeaders.put("dt", inboundHeaders.get("dt"));
+        }
+        ack.put("headers", ackHeaders);
+        return objectMapper.writeValueAsString(ack);
+    }
+
+    @Benchmark
+    public String encoderAck() throws IOException {
+        LwpFrameEncoder.writeAck(generator, inboundHeaders, MID);
+        return finish();
+    }
+
+    @Benchmark
+    public String formatHeartbeat() {
+        return String.format("{\"lwp\":\"/!\",\"headers\":{\"mid\":\"%s\"}}", MID);
+    }
+
+    @Benchmark
+    public String encoderHeartbeat() throws IOException {
+        LwpFrameEncoder.writeHeartbeat(generator, MID);
+        return finish();
+    }
+
+    @Benchmark
+    public String mapTextMessage() throws IOException {
+        Map<String, Object> textContent = new HashMap<>();
+        textContent.put("contentType", 1);
+        Map<String, String> textData = new HashMap<>();
+        textData.put("text", TEXT);
+        textContent.put("text", textData);
+        String textJson = objectMapper.writeValueAsString(textContent);
+        String textBase64 = Base64.getEncoder().encodeToString(textJson.getBytes(StandardCharsets.UTF_8));
+
+        Map<String, Object> messageBody = new HashMap<>();
+        messageBody.put("uuid", "-17600000000");
+        messageBody.put("cid", "556677889900@goofish");
+        messageBody.put("conversationType", 1);
+        Map<String, Object> content = new HashMap<>();
+        content.put("contentType", 101);
+        Map<String, Object> custom = new HashMap<>();
+        custom.put("type", 1);
+        custom.put("data", textBase64);
+        content.put("custom", custom);
+        messageBody.put("content", content);
+        messageBody.put("redPointPolicy", 0);
+        Map<String, String> extension = new HashMap<>();
+        extension.put("extJson", "{}");
+        messageBody.put("extension", extension);
+        Map<String, String> ctx = new HashMap<>();
+        ctx.put("appVersion", "1.0");
+        ctx.put("platform", "web");
+        messageBody.put("ctx", ctx);
+        messageBody.put("mtags", new HashMap<>());
+        messageBody.put("msgReadStatusSetting", 1);
+
+        Map<String, Object> receivers = new HashMap<>();
+        List<String> actualReceivers = new ArrayList<>();
+        actualReceivers.add("2200012345678@goofish");
+        actualReceivers.add("2200087654321@goofish");
+        receivers.put("actualReceivers", actualReceivers);
+
+        Map<String, Object> message = new HashMap<>();
+        message.put("lwp", "/r/MessageSend/sendByReceiverScope");
+        Map<String, String> headers = new HashMap<>();
+        headers.put("mid", MID);
+        headers.put("sid", "abcdef0123456789");
+        message.put("headers", headers);
+        List<Object> body = new ArrayList<>();
+        body.add(messageBody);
+        body.add(receivers);
+        message.put("body", body);
+        return objectMapper.writeValueAsString(message);
+    }
+
+    @Benchmark
+    public String encoderTextMessage() throws IOException {
+        LwpFrameEncoder.writeTextMessage(generator, MID, "abcdef0123456789", "-17600000000",
+                "556677889900", "2200012345678", "2200087654321", TEXT);
+        return finish();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(OutboundEncodeBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,167 @@
+package com.feijimiao.xianyuassistant.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.feijimiao.xianyuassistant.utils.MessageDecryptUtils;
+import com.feijimiao.xianyuassistant.websocket.frame.DecodedFrame;
+import com.feijimiao.xianyuassistant.websocket.frame.FrameDecoder;
+import com.feijimiao.xianyuassistant.websocket.frame.LwpFrame;
+import com.feijimiao.xianyuassistant.websocket.frame.SyncPayload;
+import com.feijimiao.xianyuassistant.websocket.handler.SyncMessageHandler;
+import org.msgpack.core.MessageBufferPacker;
+import org.msgpack.core.MessagePack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 同步包解码基准测试
+ *
+ * <p>对比旧流程（客户端解密一次、SyncMessageHandler再解密一次、contentType和订单ID各自重复解析JSON）
+ * 与新流程（FrameDecoder只解码一次）每帧的CPU耗时。</p>
+ *
+ * <p>运行方式：在IDE中直接运行main方法，或
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=...SyncDecodeBenchmark}</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SyncDecodeBenchmark {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private String frameText;
+
+    @Setup
+    public void setup() throws Exception {
+        frameText = objectMapper.writeValueAsString(buildSyncFrame(3));
+    }
+
+    /**
+     * 旧流程：与改造前 handleMessage + SyncMessageHandler.doHandle/parseAndPublishEvent 等价
+     */
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public void legacyDecryptTwice(Blackhole bh) throws Exception {
+        Map<String, Object> messageData = objectMapper.readValue(frameText, Map.class);
+        Map<String, Object> body = (Map<String, Object>) messageData.get("body");
+        List<Map<String, Object>> dataList =
+                (List<Map<String, Object>>) ((Map<String, Object>) body.get("syncPushPackage")).get("data");
+
+        // 客户端阶段：解密并写回decryptedData
+        for (Map<String, Object> item : dataList) {
+            bh.consume(MessageDecryptUtils.decrypt((String) item.get("data")));
+        }
+
+        // 处理器阶段：再次解密并解析
+        for (Map<String, Object> item : dataList) {
+            String decrypted = MessageDecryptUtils.decrypt((String) item.get("data"));
+            Map<String, Object> data = objectMapper.readValue(decrypted, Map.class);
+            Map<String, Object> info = (Map<String, Object>) data.get("1");
+            String content = (String) ((Map<String, Object>) ((Map<String, Object>) info.get("6")).get("3")).get("5");
+            Map<String, Object> contentMap = objectMapper.readValue(content, Map.class);
+            bh.consume(contentMap.get("contentType"));
+            bh.consume(SyncMessageHandler.extractOrderIdFromMessage(decrypted));
+        }
+    }
+
+    /**
+     * 新流程：FrameDecoder解码一次，处理器直接复用解析结果
+     */
+    @Benchmark
+    public void decodeOnce(Blackhole bh) throws Exception {
+        DecodedFrame frame = FrameDecoder.decode("1", LwpFrame.parse(objectMapper, frameText));
+        for (SyncPayload payload : frame.getSyncPayloads()) {
+            JsonNode content = objectMapper.readTree(
+                    payload.getMessageInfo().path("6").path("3").path("5").textValue());
+            bh.consume(content.get("contentType"));
+            bh.consume(SyncMessageHandler.extractOrderIdFromContent(content));
+            bh.consume(payload.getDecryptedData());
+        }
+    }
+
+    /**
+     * 构造一个包含多条聊天消息的 /s/para 同步帧
+     */
+    static Map<String, Object> buildSyncFrame(int messageCount) throws Exception {
+        List<Map<String, Object>> dataList = new ArrayList<>();
+        for (int i = 0; i < messageCount; i++) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("data", Base64.getEncoder().encodeToString(packChatMessage(i)));
+            dataList.add(item);
+        }
+        Map<String, Object> syncPushPackage = new HashMap<>();
+        syncPushPackage.put("data", dataList);
+        Map<String, Object> body = new HashMap<>();
+        body.put("syncPushPackage", syncPushPackage);
+
+        Map<String, Object> headers = new HashMap<>();
+        headers.put("mid", "bench-mid 0");
+        Map<String, Object> frame = new HashMap<>();
+        frame.put("lwp", "/s/para");
+        frame.put("headers", headers);
+        frame.put("body", body);
+        return frame;
+    }
+
+    /**
+     * 按闲鱼同步消息结构打包一条MessagePack聊天消息
+     */
+    static byte[] packChatMessage(int seq) throws Exception {
+        String content = "{\"contentType\":26,\"dxCard\":{\"item\":{\"main\":{\"exContent\":{\"button\":"
+                + "{\"targetUrl\":\"fleamarket://order_detail?id=1&orderId=40012345678" + seq
+                + "&role=seller\",\"text\":\"去发货\"},\"title\":\"我已付款，等待你发货\"}}}}}";
+        try (MessageBufferPacker packer = MessagePack.newDefaultBufferPacker()) {
+            packer.packMapHeader(1);
+            packer.packInt(1);
+            packer.packMapHeader(6);
+            packer.packInt(1).packString("2200012345678@goofish");
+            packer.packInt(2).packString("5566778899" + seq + "@goofish");
+            packer.packInt(3).packString("3812345.PNM" + seq);
+            packer.packInt(5).packLong(1760000000000L + seq);
+            packer.packInt(6);
+            packer.packMapHeader(1);
+            packer.packInt(3);
+            packer.packMapHeader(2);
+            packer.packInt(4).packInt(26);
+            packer.packInt(5).packString(content);
+            packer.packInt(10);
+            packer.packMapHeader(6);
+            packer.packString("reminderContent").packString("[我已付款，等待你发货]");
+            packer.packString("reminderTitle").packString("买家昵称");
+            packer.packString("senderUserId").packString("2200012345678");
+            packer.packString("reminderUrl").packString("fleamarket://message_chat?itemId=98765432" + seq + "&peerUserId=1");
+            packer.packString("_appVersion").packString("7.18.30");
+            packer.packString("_platform").packString("android");
+            return packer.toByteArray();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(SyncDecodeBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
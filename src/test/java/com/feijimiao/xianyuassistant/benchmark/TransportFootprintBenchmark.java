@@ -0,0 +1,156 @@
+package com.feijimiao.xianyuassistant.benchmark;
+
+import com.feijimiao.xianyuassistant.websocket.transport.LwpTransport;
+import com.feijimiao.xianyuassistant.websocket.transport.LwpTransportFactory;
+import org.java_websocket.WebSocket;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.WebSocketServer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 传输层连接占用基准测试
+ *
+ * <p>分别用 Java-WebSocket 和 JDK HttpClient 传输层建立N个空闲连接，统计每个连接占用的堆内存和线程数，
+ * 换算为每GB堆可以承载的连接数。服务端在独立的子进程中运行，不计入客户端的堆占用。</p>
+ *
+ * <p>运行：{@code java -cp <test-classes:classes:依赖> com.feijimiao.xianyuassistant.benchmark.TransportFootprintBenchmark [连接数]}</p>
+ */
+public class TransportFootprintBenchmark {
+
+    private static final long GB = 1L << 30;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && "server".equals(args[0])) {
+            runServer();
+            return;
+        }
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+
+        Process server = startServerProcess();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(server.getInputStream()))) {
+            URI uri = new URI("ws://127.0.0.1:" + reader.readLine().trim());
+
+            System.out.printf("%-16s %8s %14s %14s %10s %14s%n",
+                    "transport", "conns", "heapMB", "bytes/conn", "threads", "conns/GB heap");
+            for (String type : List.of(LwpTransportFactory.JAVA_WEBSOCKET, LwpTransportFactory.JDK)) {
+                measure(type, uri, connections);
+            }
+        } finally {
+            server.destroyForcibly();
+        }
+    }
+
+    private static void measure(String type, URI uri, int connections) throws Exception {
+        LwpTransportFactory factory = new LwpTransportFactory(type, 2);
+        // 预热：先建立一个连接，初始化共享的HttpClient等一次性开销
+        LwpTransport warmup = factory.create(uri, Map.of(), new NoopListener());
+        warmup.connectBlocking(10, TimeUnit.SECONDS);
+
+        long heapBefore = usedHeapAfterGc();
+        int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+
+        List<LwpTransport> transports = new ArrayList<>(connections);
+        for (int i = 0; i < connections; i++) {
+            LwpTransport transport = factory.create(uri, Map.of("Cookie", "unb=" + i), new NoopListener());
+            if (!transport.connectBlocking(10, TimeUnit.SECONDS)) {
+                throw new IllegalStateException(type + " 第" + i + "个连接失败");
+            }
+            transports.add(transport);
+        }
+
+        long heapAfter = usedHeapAfterGc();
+        int threadsAfter = ManagementFactory.getThreadMXBean().getThreadCount();
+        long bytesPerConnection = Math.max(1, (heapAfter - heapBefore) / connections);
+        System.out.printf("%-16s %8d %14.1f %14d %10d %14d%n", type, connections,
+                (heapAfter - heapBefore) / 1024.0 / 1024.0, bytesPerConnection,
+                threadsAfter - threadsBefore, GB / bytesPerConnection);
+
+        for (LwpTransport transport : transports) {
+            transport.close();
+        }
+        warmup.close();
+        Thread.sleep(500);
+        factory.shutdown();
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(200);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static Process startServerProcess() throws Exception {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        return new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                TransportFootprintBenchmark.class.getName(), "server")
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+    }
+
+    /**
+     * 子进程：本地WebSocket服务端，启动后输出端口
+     */
+    private static void runServer() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        WebSocketServer server = new WebSocketServer(new InetSocketAddress("127.0.0.1", 0)) {
+            @Override
+            public void onOpen(WebSocket conn, ClientHandshake handshake) {
+            }
+
+            @Override
+            public void onClose(WebSocket conn, int code, String reason, boolean remote) {
+            }
+
+            @Override
+            public void onMessage(WebSocket conn, String message) {
+            }
+
+            @Override
+            public void onError(WebSocket conn, Exception ex) {
+            }
+
+            @Override
+            public void onStart() {
+                started.countDown();
+            }
+        };
+        server.setReuseAddr(true);
+        server.start();
+        started.await();
+        System.out.println(server.getPort());
+        System.out.flush();
+        Thread.currentThread().join();
+    }
+
+    private static final class NoopListener implements LwpTransport.Listener {
+        @Override
+        public void onOpen(int httpStatus, String httpStatusMessage) {
+        }
+
+        @Override
+        public void onMessage(String text) {
+        }
+
+        @Override
+        public void onClose(int code, String reason, boolean remote) {
+        }
+
+        @Override
+        public void onError(Exception ex) {
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.feijimiao.xianyuassistant.config;
+
+import com.feijimiao.xianyuassistant.entity.XianyuChatMessage;
+import com.feijimiao.xianyuassistant.mapper.XianyuChatMessageMapper;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class SqliteWriteQueueTest {
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) throws Exception {
+        String db = Files.createTempDirectory("xianyu-write-queue").resolve("test.db").toString();
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + db);
+        registry.add("xianyu.websocket.auto-start.enabled", () -> "false");
+        registry.add("xianyu.websocket.record.enabled", () -> "false");
+    }
+
+    @Autowired
+    private XianyuChatMessageMapper chatMessageMapper;
+
+    @Autowired
+    private SqliteWriteQueue writeQueue;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Test
+    void testConcurrentWritesGoThroughWriterThread() throws Exception {
+        // 测试多个线程并发写入：全部由写线程执行，主键回填，之后的查询能读到
+        long writesBefore = writeQueue.getWrites();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<XianyuChatMessage>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                int index = i;
+                futures.add(pool.submit(() -> {
+                    XianyuChatMessage message = message(1L, "concurrent-" + index);
+                    assertEquals(1, chatMessageMapper.insert(message));
+                    return message;
+                }));
+            }
+            for (Future<XianyuChatMessage> future : futures) {
+                XianyuChatMessage message = future.get();
+                assertNotNull(message.getId());
+                assertNotNull(chatMessageMapper.findByPnmId(1L, message.getPnmId()));
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(200, writeQueue.getWrites() - writesBefore);
+        assertTrue(writeQueue.getBatches() <= writeQueue.getWrites());
+    }
+
+    @Test
+    void testFailedWriteOnlyAffectsItself() {
+        // 测试唯一约束冲突只让这一条写入失败，异常信息与直接执行时一致
+        chatMessageMapper.insert(message(2L, "duplicate"));
+        Exception e = assertThrows(Exception.class, () -> chatMessageMapper.insert(message(2L, "duplicate")));
+        assertTrue(e.getMessage().contains("UNIQUE constraint failed"));
+
+        chatMessageMapper.insert(message(2L, "after-duplicate"));
+        assertNotNull(chatMessageMapper.findByPnmId(2L, "after-duplicate"));
+    }
+
+    @Test
+    void testReadPoolIsQueryOnly() throws Exception {
+        // 测试只读连接池不能写入，读写路由插件位于插件链最外层
+        SqliteRoutingDataSource routing = (SqliteRoutingDataSource) dataSource;
+        try (Connection conn = routing.getReadDataSource().getConnection();
+             Statement stmt = conn.createStatement()) {
+            assertThrows(SQLException.class, () -> stmt.executeUpdate(
+                    "DELETE FROM xianyu_chat_message WHERE xianyu_account_id = 3"));
+        }
+        List<Interceptor> interceptors = sqlSessionFactory.getConfiguration().getInterceptors();
+        assertInstanceOf(SqliteWriteInterceptor.class, interceptors.get(interceptors.size() - 1));
+    }
+
+    private static XianyuChatMessage message(Long accountId, String pnmId) {
+        XianyuChatMessage message = new XianyuChatMessage();
+        message.setXianyuAccountId(accountId);
+        message.setLwp("/s/para");
+        message.setPnmId(pnmId);
+        message.setSId("55435931514@goofish");
+        message.setContentType(1);
+        message.setMsgContent("你好");
+        message.setCompleteMsg("{}");
+        message.setMessageTime(System.currentTimeMillis());
+        return message;
+    }
+}
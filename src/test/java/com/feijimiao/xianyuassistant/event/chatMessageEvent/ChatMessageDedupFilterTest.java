@@ -0,0 +1,43 @@
+package com.feijimiao.xianyuassistant.event.chatMessageEvent;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatMessageDedupFilterTest {
+
+    @Test
+    void testRejectsReplayPerAccount() {
+        // 测试同一账号的重复pnmId被拒绝，不同账号互不影响，移除后可以再次通过
+        ChatMessageDedupFilter filter = new ChatMessageDedupFilter();
+        assertTrue(filter.markIfAbsent(1L, "a.PNM"));
+        assertFalse(filter.markIfAbsent(1L, "a.PNM"));
+        assertTrue(filter.markIfAbsent(2L, "a.PNM"));
+
+        filter.forget(1L, "a.PNM");
+        assertTrue(filter.markIfAbsent(1L, "a.PNM"));
+
+        assertEquals(4, filter.getChecks());
+        assertEquals(1, filter.getHits());
+        assertEquals(1, filter.getForgotten());
+        assertEquals(2, filter.getAccounts());
+    }
+
+    @Test
+    void testEvictsLeastRecentlySeen() {
+        // 测试超出容量时淘汰最久未出现的pnmId，重放过的pnmId会刷新访问顺序
+        ChatMessageDedupFilter filter = new ChatMessageDedupFilter();
+        ReflectionTestUtils.setField(filter, "capacityPerAccount", 3);
+        filter.markIfAbsent(1L, "a");
+        filter.markIfAbsent(1L, "b");
+        filter.markIfAbsent(1L, "c");
+        assertFalse(filter.markIfAbsent(1L, "a"));
+        filter.markIfAbsent(1L, "d");
+
+        assertEquals(3, filter.getTracked());
+        assertEquals(1, filter.getEvictions());
+        assertFalse(filter.markIfAbsent(1L, "a"));
+        assertTrue(filter.markIfAbsent(1L, "b"));
+    }
+}
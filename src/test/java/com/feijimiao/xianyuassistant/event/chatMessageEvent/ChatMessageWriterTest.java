@@ -0,0 +1,115 @@
+package com.feijimiao.xianyuassistant.event.chatMessageEvent;
+
+import com.feijimiao.xianyuassistant.entity.XianyuChatMessage;
+import com.feijimiao.xianyuassistant.mapper.XianyuChatMessageMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class ChatMessageWriterTest {
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) throws Exception {
+        String db = Files.createTempDirectory("xianyu-chat-writer").resolve("test.db").toString();
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + db);
+        registry.add("xianyu.websocket.auto-start.enabled", () -> "false");
+        registry.add("xianyu.websocket.record.enabled", () -> "false");
+    }
+
+    @Autowired
+    private ChatMessageWriter chatMessageWriter;
+
+    @Autowired
+    private XianyuChatMessageMapper chatMessageMapper;
+
+    @Test
+    void testBatchedWriteSkipsDuplicates() throws Exception {
+        // 测试批量写入：重复消息由唯一索引跳过，消息按批次合并写入
+        long flushedBefore = chatMessageWriter.getFlushedRows();
+        long insertedBefore = chatMessageWriter.getInsertedRows();
+        long flushesBefore = chatMessageWriter.getFlushes();
+        for (int i = 0; i < 300; i++) {
+            chatMessageWriter.write(message(1L, "batch-" + (i % 250)));
+        }
+        awaitFlushed(flushedBefore + 300);
+
+        assertEquals(250, chatMessageWriter.getInsertedRows() - insertedBefore);
+        assertEquals(250, chatMessageMapper.countMessages(1L, null, null));
+        assertTrue(chatMessageWriter.getFlushes() - flushesBefore < 300);
+        assertTrue(chatMessageWriter.getMaxFlushSize() > 1);
+    }
+
+    @Test
+    void testInvalidMessageDoesNotDropBatch() throws Exception {
+        // 测试批次中有非法消息时逐条重试，只丢弃出错的消息
+        long flushedBefore = chatMessageWriter.getFlushedRows();
+        long failedBefore = chatMessageWriter.getFailedRows();
+        XianyuChatMessage invalid = message(2L, "invalid");
+        invalid.setCompleteMsg(null);
+        chatMessageWriter.write(message(2L, "valid-1"));
+        chatMessageWriter.write(invalid);
+        chatMessageWriter.write(message(2L, "valid-2"));
+        awaitFlushed(flushedBefore + 3);
+
+        assertEquals(1, chatMessageWriter.getFailedRows() - failedBefore);
+        assertNotNull(chatMessageMapper.findByPnmId(2L, "valid-1"));
+        assertNotNull(chatMessageMapper.findByPnmId(2L, "valid-2"));
+        assertNull(chatMessageMapper.findByPnmId(2L, "invalid"));
+    }
+
+    @Test
+    void testCallbackRunsAfterCommit() throws Exception {
+        // 测试写入回调在所在批次提交后调用，回调时消息已可查询
+        CompletableFuture<XianyuChatMessage> committed = new CompletableFuture<>();
+        chatMessageWriter.write(message(3L, "callback"),
+                () -> committed.complete(chatMessageMapper.findByPnmId(3L, "callback")));
+
+        assertNotNull(committed.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testFailedMessageDoesNotRunCallback() throws Exception {
+        // 测试写入失败的消息不调用写入回调，检查点不会越过没有保存的消息
+        AtomicInteger failedCallbacks = new AtomicInteger();
+        CompletableFuture<Void> committed = new CompletableFuture<>();
+        XianyuChatMessage invalid = message(4L, "invalid");
+        invalid.setCompleteMsg(null);
+        chatMessageWriter.write(invalid, failedCallbacks::incrementAndGet);
+        chatMessageWriter.write(message(4L, "valid"), () -> committed.complete(null));
+
+        committed.get(10, TimeUnit.SECONDS);
+        assertEquals(0, failedCallbacks.get());
+        assertNull(chatMessageMapper.findByPnmId(4L, "invalid"));
+    }
+
+    private void awaitFlushed(long rows) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (chatMessageWriter.getFlushedRows() < rows) {
+            assertTrue(System.currentTimeMillis() < deadline, "等待批量写入超时");
+            Thread.sleep(10);
+        }
+    }
+
+    private static XianyuChatMessage message(Long accountId, String pnmId) {
+        XianyuChatMessage message = new XianyuChatMessage();
+        message.setXianyuAccountId(accountId);
+        message.setLwp("/s/para");
+        message.setPnmId(pnmId);
+        message.setSId("55435931514@goofish");
+        message.setContentType(1);
+        message.setMsgContent("你好");
+        message.setCompleteMsg("{}");
+        message.setMessageTime(System.currentTimeMillis());
+        return message;
+    }
+}
@@ -0,0 +1,87 @@
+package com.feijimiao.xianyuassistant.event.chatMessageEvent;
+
+import com.feijimiao.xianyuassistant.entity.XianyuChatMessage;
+import com.feijimiao.xianyuassistant.mapper.XianyuChatMessageMapper;
+import com.feijimiao.xianyuassistant.utils.CompleteMsgCodec;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class CompleteMsgStorageTest {
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) throws Exception {
+        String db = Files.createTempDirectory("xianyu-complete-msg").resolve("test.db").toString();
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + db);
+        registry.add("xianyu.websocket.auto-start.enabled", () -> "false");
+        registry.add("xianyu.websocket.record.enabled", () -> "false");
+        registry.add("xianyu.chat-message.storage.codec", () -> "msgpack");
+        registry.add("xianyu.chat-message.storage.migration.enabled", () -> "false");
+        registry.add("xianyu.chat-message.storage.migration.batch-size", () -> "2");
+    }
+
+    @Autowired
+    private CompleteMsgStorage completeMsgStorage;
+
+    @Autowired
+    private XianyuChatMessageMapper chatMessageMapper;
+
+    @Test
+    void testMigrateJsonRowsInBatches() {
+        // 测试旧的JSON文本行按批迁移为deflate格式，读取时还原为原来的JSON，列表查询不带消息体
+        for (int i = 0; i < 5; i++) {
+            chatMessageMapper.insert(message("legacy-" + i, "{\"1\":{\"3\":\"legacy-" + i + "\"}}"));
+        }
+
+        int batches = 0;
+        while (completeMsgStorage.migrateNextBatch() > 0) {
+            batches++;
+        }
+        assertEquals(3, batches);
+        assertEquals(5, completeMsgStorage.getMigratedRows());
+
+        XianyuChatMessage stored = chatMessageMapper.findByPnmId(1L, "legacy-3");
+        assertEquals("", stored.getCompleteMsg());
+        assertEquals(CompleteMsgCodec.Format.DEFLATE.getTag(), stored.getCompleteMsgFormat());
+        assertEquals("{\"1\":{\"3\":\"legacy-3\"}}", stored.getCompleteMsgJson());
+
+        List<XianyuChatMessage> page = chatMessageMapper.findMessagesByPage(1L, null, null, 10, 0);
+        assertEquals(5, page.size());
+        assertNull(page.get(0).getCompleteMsgBlob());
+        assertNull(page.get(0).getCompleteMsg());
+    }
+
+    @Test
+    void testEncodeJsonBeforeWrite() {
+        // 测试拿不到原始MessagePack字节的消息在写入前压缩存储
+        XianyuChatMessage message = message("encoded", "{\"1\":{\"3\":\"encoded\"}}");
+        message.setXianyuAccountId(2L);
+        completeMsgStorage.encode(message);
+        assertEquals(CompleteMsgCodec.Format.DEFLATE.getTag(), message.getCompleteMsgFormat());
+        chatMessageMapper.insert(message);
+
+        XianyuChatMessage stored = chatMessageMapper.findByPnmId(2L, "encoded");
+        assertEquals("{\"1\":{\"3\":\"encoded\"}}", stored.getCompleteMsgJson());
+    }
+
+    private static XianyuChatMessage message(String pnmId, String completeMsg) {
+        XianyuChatMessage message = new XianyuChatMessage();
+        message.setXianyuAccountId(1L);
+        message.setLwp("/s/para");
+        message.setPnmId(pnmId);
+        message.setSId("55435931514@goofish");
+        message.setContentType(1);
+        message.setMsgContent("你好");
+        message.setCompleteMsg(completeMsg);
+        message.setMessageTime(System.currentTimeMillis());
+        return message;
+    }
+}
@@ -0,0 +1,119 @@
+package com.feijimiao.xianyuassistant.service.impl;
+
+import com.feijimiao.xianyuassistant.entity.XianyuSyncCheckpoint;
+import com.feijimiao.xianyuassistant.mapper.XianyuSyncCheckpointMapper;
+import com.feijimiao.xianyuassistant.service.SyncCheckpointService;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyncCheckpointServiceImplTest {
+
+    @Test
+    void testAdvancesOnlyPastCompletedBatchesInOrder() {
+        // 测试检查点只在之前的同步包都完成后推进，后到的同步包先完成时不越过未完成的同步包
+        RecordingMapper mapper = new RecordingMapper();
+        SyncCheckpointServiceImpl service = service(mapper);
+
+        SyncCheckpointService.SyncProgress first = service.track(1L, 100, 1, 2);
+        SyncCheckpointService.SyncProgress second = service.track(1L, 200, 2, 1);
+        service.track(1L, 300, 3, 0);
+
+        second.complete();
+        first.complete();
+        assertEquals(0L, service.getResumePoint(1L).getPts());
+
+        first.complete();
+        assertEquals(300L, service.getResumePoint(1L).getPts());
+        assertEquals(3L, service.getResumePoint(1L).getSeq());
+
+        service.flush();
+        assertEquals(1, mapper.upserts.size());
+        assertEquals(300L, mapper.upserts.get(0).getPts());
+    }
+
+    @Test
+    void testEvictedAccountIsNotWrittenBack() {
+        // 测试删除账号时移除的检查点不会被定时写入写回数据库
+        RecordingMapper mapper = new RecordingMapper();
+        SyncCheckpointServiceImpl service = service(mapper);
+
+        service.track(2L, 100, 1, 1).complete();
+        service.evict(2L);
+        service.flush();
+
+        assertTrue(mapper.upserts.isEmpty());
+    }
+
+    @Test
+    void testEvictDoesNotWaitForFlush() throws Exception {
+        // 测试写入检查点期间删除账号不会等待写入完成，写入完成后删除刚写入的检查点
+        RecordingMapper mapper = new RecordingMapper();
+        SyncCheckpointServiceImpl service = service(mapper);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch evicted = new CountDownLatch(1);
+        mapper.onUpsert = () -> {
+            writing.countDown();
+            try {
+                // 模拟写入在等待删除账号的事务释放写连接
+                assertTrue(evicted.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        service.track(3L, 100, 1, 1).complete();
+        Thread flusher = new Thread(service::flush);
+        flusher.start();
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        service.evict(3L);
+        evicted.countDown();
+        flusher.join(5000);
+
+        assertEquals(1, mapper.upserts.size());
+        assertEquals(List.of(3L), mapper.deletes);
+    }
+
+    private static SyncCheckpointServiceImpl service(XianyuSyncCheckpointMapper mapper) {
+        SyncCheckpointServiceImpl service = new SyncCheckpointServiceImpl();
+        ReflectionTestUtils.setField(service, "checkpointMapper", mapper);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "overlapMillis", 0L);
+        ReflectionTestUtils.setField(service, "flushIntervalMillis", 5000L);
+        return service;
+    }
+
+    /**
+     * 记录写入的检查点
+     */
+    private static final class RecordingMapper implements XianyuSyncCheckpointMapper {
+        private final List<XianyuSyncCheckpoint> upserts = new ArrayList<>();
+        private final List<Long> deletes = new ArrayList<>();
+        private Runnable onUpsert = () -> {
+        };
+
+        @Override
+        public XianyuSyncCheckpoint selectByAccountId(Long accountId) {
+            return null;
+        }
+
+        @Override
+        public int upsert(XianyuSyncCheckpoint checkpoint) {
+            upserts.add(checkpoint);
+            onUpsert.run();
+            return 1;
+        }
+
+        @Override
+        public int deleteByAccountId(Long accountId) {
+            deletes.add(accountId);
+            return 1;
+        }
+    }
+}
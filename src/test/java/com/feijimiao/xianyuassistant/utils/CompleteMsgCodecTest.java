@@ -0,0 +1,52 @@
+package com.feijimiao.xianyuassistant.utils;
+
+import org.junit.jupiter.api.Test;
+import org.msgpack.core.MessageBufferPacker;
+import org.msgpack.core.MessagePack;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompleteMsgCodecTest {
+
+    @Test
+    void testDeflateRoundTrip() {
+        // 测试压缩后还原的JSON与原文一致，重复结构较多的消息体明显变小
+        String json = "{\"1\":{\"10\":{\"reminderContent\":\"[我已付款，等待你发货]\"},\"6\":{\"3\":{\"5\":\""
+                + "{\\\"dxCard\\\":{\\\"item\\\":{\\\"main\\\":{}}}}".repeat(20) + "\"}}}}";
+        byte[] blob = CompleteMsgCodec.deflate(json);
+
+        assertTrue(blob.length < json.length() / 2);
+        assertEquals(json, CompleteMsgCodec.decode(CompleteMsgCodec.Format.DEFLATE.getTag(), "", blob));
+        assertEquals(json, CompleteMsgCodec.decode(null, json, null));
+    }
+
+    @Test
+    void testMessagePackMatchesDecryptedJson() throws Exception {
+        // 测试按原始MessagePack字节存储时，还原的JSON与解密得到的JSON一致
+        byte[] bytes;
+        try (MessageBufferPacker packer = MessagePack.newDefaultBufferPacker()) {
+            packer.packMapHeader(1).packInt(1).packMapHeader(2);
+            packer.packInt(3).packString("3813496236127.PNM");
+            packer.packInt(5).packLong(1760000000000L);
+            bytes = packer.toByteArray();
+        }
+        String encrypted = Base64.getEncoder().encodeToString(bytes);
+
+        byte[] stored = MessageDecryptUtils.toMessagePack(encrypted);
+        assertArrayEquals(bytes, stored);
+        assertEquals(MessageDecryptUtils.decrypt(encrypted),
+                CompleteMsgCodec.decode(CompleteMsgCodec.Format.MSGPACK.getTag(), "", stored));
+        assertNull(MessageDecryptUtils.toMessagePack(Base64.getEncoder().encodeToString("hello".getBytes())));
+    }
+
+    @Test
+    void testFormatFromConfig() {
+        // 测试配置值解析，无法识别时回退到JSON文本
+        assertEquals(CompleteMsgCodec.Format.MSGPACK, CompleteMsgCodec.Format.from(" MsgPack "));
+        assertEquals(CompleteMsgCodec.Format.JSON, CompleteMsgCodec.Format.from("zstd"));
+        assertEquals(CompleteMsgCodec.Format.JSON, CompleteMsgCodec.Format.of(null));
+        assertThrows(IllegalArgumentException.class, () -> CompleteMsgCodec.Format.of(9));
+    }
+}
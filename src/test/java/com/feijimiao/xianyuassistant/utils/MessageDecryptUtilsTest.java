@@ -0,0 +1,90 @@
+package com.feijimiao.xianyuassistant.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.msgpack.core.MessageBufferPacker;
+import org.msgpack.core.MessagePack;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageDecryptUtilsTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testDecryptToTreeMatchesMessagePackToJson() throws Exception {
+        // 测试直接解包的结果与MessagePack自带的toJson一致（整数键转为字符串）
+        byte[] bytes;
+        try (MessageBufferPacker packer = MessagePack.newDefaultBufferPacker()) {
+            packer.packMapHeader(3);
+            packer.packInt(1);
+            packer.packMapHeader(3);
+            packer.packInt(2).packString("123@goofish");
+            packer.packInt(5).packLong(1760000000000L);
+            packer.packInt(6).packArrayHeader(2).packBoolean(true).packNil();
+            packer.packInt(2).packInt(2);
+            packer.packString("content").packString("{\"contentType\":1}");
+            bytes = packer.toByteArray();
+        }
+        String encrypted = Base64.getEncoder().encodeToString(bytes);
+
+        JsonNode expected = objectMapper.readTree(MessagePack.newDefaultUnpacker(bytes).unpackValue().toJson());
+        JsonNode actual = MessageDecryptUtils.decryptToTree(encrypted);
+
+        assertEquals(expected, actual);
+        assertEquals("123@goofish", actual.path("1").path("2").asText());
+        assertEquals(1760000000000L, actual.path("1").path("5").longValue());
+        assertEquals(expected, objectMapper.readTree(MessageDecryptUtils.decrypt(encrypted)));
+    }
+
+    @Test
+    void testDecryptToTreeWithMissingPadding() throws Exception {
+        // 测试缺少Base64填充时仍能解码
+        byte[] bytes;
+        try (MessageBufferPacker packer = MessagePack.newDefaultBufferPacker()) {
+            packer.packMapHeader(1).packInt(1).packString("a");
+            bytes = packer.toByteArray();
+        }
+        String encrypted = Base64.getEncoder().withoutPadding().encodeToString(bytes);
+        assertEquals("a", MessageDecryptUtils.decryptToTree(encrypted).path("1").asText());
+    }
+
+    @Test
+    void testDecryptToTreeWithEmptyData() {
+        // 测试空数据
+        assertNull(MessageDecryptUtils.decryptToTree(null));
+        assertNull(MessageDecryptUtils.decryptToTree(""));
+    }
+
+    @Test
+    void testDecodeSniffsInvalidInputWithoutThrowing() throws Exception {
+        // 测试非Base64、非MessagePack和截断的数据返回对应的结果类型并计数
+        long before = MessageDecryptUtils.getUndecodableCount();
+
+        MessageDecryptUtils.DecodeResult plain = MessageDecryptUtils.decode("你好, world");
+        assertEquals(MessageDecryptUtils.DecodeStatus.NOT_BASE64, plain.status());
+        assertEquals("你好, world", MessageDecryptUtils.tryDecrypt("你好, world"));
+        assertEquals(MessageDecryptUtils.DecodeStatus.NOT_BASE64, MessageDecryptUtils.decode("QUJDR").status());
+
+        String text = Base64.getEncoder().encodeToString("hello".getBytes());
+        MessageDecryptUtils.DecodeResult notPacked = MessageDecryptUtils.decode(text);
+        assertEquals(MessageDecryptUtils.DecodeStatus.NOT_MESSAGE_PACK, notPacked.status());
+        assertEquals("hello", notPacked.text());
+        assertNull(notPacked.tree());
+
+        byte[] bytes;
+        try (MessageBufferPacker packer = MessagePack.newDefaultBufferPacker()) {
+            packer.packMapHeader(2).packInt(1).packString("a");
+            bytes = packer.toByteArray();
+        }
+        MessageDecryptUtils.DecodeResult truncated = MessageDecryptUtils.decode(Base64.getEncoder().encodeToString(bytes));
+        assertEquals(MessageDecryptUtils.DecodeStatus.MALFORMED, truncated.status());
+        assertNull(MessageDecryptUtils.decryptToTree(Base64.getEncoder().encodeToString(bytes)));
+
+        assertEquals(MessageDecryptUtils.DecodeStatus.EMPTY, MessageDecryptUtils.decode("").status());
+        assertTrue(MessageDecryptUtils.getUndecodableCount() - before >= 5);
+    }
+}
@@ -0,0 +1,143 @@
+package com.feijimiao.xianyuassistant.websocket;
+
+import com.feijimiao.xianyuassistant.exception.CookieExpiredException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionSupervisorTest {
+
+    private ConnectionSupervisor supervisor;
+
+    @BeforeEach
+    void setUp() {
+        supervisor = new ConnectionSupervisor();
+        ReflectionTestUtils.setField(supervisor, "baseDelayMillis", 10L);
+        ReflectionTestUtils.setField(supervisor, "maxDelayMillis", 40L);
+        ReflectionTestUtils.setField(supervisor, "maxConcurrent", 2);
+        supervisor.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        supervisor.shutdown();
+    }
+
+    @Test
+    void testComputeDelay() {
+        // 测试退避时间在上限的一半到上限之间，且不超过最大值
+        for (int attempt = 0; attempt < 40; attempt++) {
+            long cap = Math.min(300000, 1000L << Math.min(attempt, 30));
+            long delay = ConnectionSupervisor.computeDelay(attempt, 1000, 300000);
+            assertTrue(delay >= cap / 2 && delay <= cap, "attempt=" + attempt + ", delay=" + delay);
+        }
+    }
+
+    @Test
+    void testBackoffUntilRegistered() throws Exception {
+        // 测试重连失败后退避重试，成功注册后状态恢复并清零重连次数
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(1);
+        supervisor.setReconnectAction((accountId, refreshToken) -> {
+            if (calls.incrementAndGet() < 3) {
+                return false;
+            }
+            assertTrue(refreshToken, "Token失效的重连应一直保留刷新Token标记直到成功");
+            supervisor.onRegistered(accountId);
+            done.countDown();
+            return true;
+        });
+
+        supervisor.onRegistered(1L);
+        supervisor.reportFailure(1L, "Token失效(401)", true);
+        // 退避中重复上报只合并
+        supervisor.reportFailure(1L, "连接已断开", false);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(3, calls.get());
+        assertEquals(ConnectionState.REGISTERED, supervisor.getState(1L));
+        assertEquals(0, supervisor.getReconnectAttempts(1L));
+    }
+
+    @Test
+    void testStopCancelsRetryAndNonRetriableError() throws Exception {
+        // 测试人工停止后不再重连；Cookie过期时停止自动重连
+        AtomicInteger calls = new AtomicInteger();
+        supervisor.setReconnectAction((accountId, refreshToken) -> {
+            calls.incrementAndGet();
+            if (accountId == 2L) {
+                throw new CookieExpiredException("Cookie已过期");
+            }
+            return false;
+        });
+
+        supervisor.onRegistered(1L);
+        supervisor.reportFailure(1L, "连接已断开", false);
+        supervisor.stop(1L);
+
+        supervisor.onRegistered(2L);
+        supervisor.reportFailure(2L, "连接已断开", false);
+
+        Thread.sleep(300);
+        assertEquals(ConnectionState.STOPPED, supervisor.getState(1L));
+        assertEquals(ConnectionState.DEGRADED, supervisor.getState(2L));
+        assertEquals("Cookie已过期", supervisor.getLastError(2L));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testStopDuringReconnectClosesNewConnection() throws Exception {
+        // 测试重连期间被人工停止时关闭新连接，之后的注册成功不会让账号恢复在线
+        List<Long> closed = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        supervisor.setCloseAction(closed::add);
+        supervisor.setReconnectAction((accountId, refreshToken) -> {
+            supervisor.stop(accountId);
+            done.countDown();
+            return true;
+        });
+
+        supervisor.onRegistered(1L);
+        supervisor.reportFailure(1L, "连接已断开", false);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        supervisor.onRegistered(1L);
+
+        assertEquals(List.of(1L), closed);
+        assertEquals(ConnectionState.STOPPED, supervisor.getState(1L));
+    }
+
+    @Test
+    void testConcurrentReconnectCap() throws Exception {
+        // 测试同时进行的重连数不超过上限
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(10);
+        supervisor.setReconnectAction((accountId, refreshToken) -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            running.decrementAndGet();
+            supervisor.onRegistered(accountId);
+            done.countDown();
+            return true;
+        });
+
+        for (long id = 1; id <= 10; id++) {
+            supervisor.onRegistered(id);
+            supervisor.reportFailure(id, "网络故障", false);
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertTrue(maxRunning.get() <= 2, "最大并发重连数: " + maxRunning.get());
+    }
+}
@@ -0,0 +1,105 @@
+package com.feijimiao.xianyuassistant.websocket;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeartbeatWheelTest {
+
+    /**
+     * 测试用连接
+     */
+    private static class FakeTarget implements HeartbeatWheel.Target {
+        volatile boolean connected = true;
+        volatile long lastMessageTime;
+        final AtomicInteger heartbeats = new AtomicInteger();
+
+        @Override
+        public boolean isConnected() {
+            return connected;
+        }
+
+        @Override
+        public long getLastMessageTime() {
+            return lastMessageTime;
+        }
+
+        @Override
+        public void sendHeartbeat() {
+            heartbeats.incrementAndGet();
+        }
+    }
+
+    @Test
+    void testHeartbeatsSpreadAcrossInterval() {
+        // 测试5000个连接的首次心跳分布在一个间隔内，且每个间隔每个连接发送一次
+        HeartbeatWheel wheel = new HeartbeatWheel(100, 256, 15000, 0, 60000, 0);
+        List<FakeTarget> targets = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            FakeTarget target = new FakeTarget();
+            targets.add(target);
+            wheel.register("account" + i, target, (key, closed, silent) -> fail("不应判定为死连接"), 0);
+        }
+
+        // 前一半间隔内大约发送一半心跳，没有集中在同一刻度
+        long sentAtHalf = 0;
+        for (long now = 100; now <= 15000; now += 100) {
+            wheel.advance(now);
+            if (now == 7500) {
+                sentAtHalf = wheel.getHeartbeatsSent();
+            }
+        }
+        assertEquals(5000, wheel.getHeartbeatsSent());
+        assertTrue(sentAtHalf > 2000 && sentAtHalf < 3000, "前半个间隔发送数: " + sentAtHalf);
+        assertTrue(targets.stream().allMatch(t -> t.heartbeats.get() == 1));
+
+        // 第二个间隔每个连接再发送一次
+        for (long now = 15100; now <= 30000; now += 100) {
+            wheel.advance(now);
+        }
+        assertTrue(targets.stream().allMatch(t -> t.heartbeats.get() == 2));
+    }
+
+    @Test
+    void testDeadConnectionDetection() {
+        // 测试连接关闭和长时间静默都判定为死连接
+        HeartbeatWheel wheel = new HeartbeatWheel(100, 64, 1000, 0, 2500, 0);
+        FakeTarget closedTarget = new FakeTarget();
+        FakeTarget silentTarget = new FakeTarget();
+        FakeTarget activeTarget = new FakeTarget();
+        List<String> dead = new ArrayList<>();
+        HeartbeatWheel.DeadListener listener = (key, closed, silent) -> dead.add(key + ":" + closed);
+
+        wheel.register("closed", closedTarget, listener, 0);
+        wheel.register("silent", silentTarget, listener, 0);
+        wheel.register("active", activeTarget, listener, 0);
+        closedTarget.connected = false;
+
+        for (long now = 100; now <= 5000; now += 100) {
+            activeTarget.lastMessageTime = now;
+            wheel.advance(now);
+        }
+
+        assertEquals(List.of("closed:true", "silent:false"), dead);
+        assertEquals(1, wheel.size());
+        assertTrue(activeTarget.heartbeats.get() >= 4);
+    }
+
+    @Test
+    void testCancel() {
+        // 测试取消后不再发送心跳
+        HeartbeatWheel wheel = new HeartbeatWheel(100, 64, 1000, 0.1, 60000, 0);
+        FakeTarget target = new FakeTarget();
+        wheel.register("account", target, (key, closed, silent) -> { }, 0);
+        assertTrue(wheel.cancel("account"));
+        for (long now = 100; now <= 5000; now += 100) {
+            wheel.advance(now);
+        }
+        assertEquals(0, target.heartbeats.get());
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,69 @@
+package com.feijimiao.xianyuassistant.websocket;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngestGateTest {
+
+    @Test
+    void testShedByPriority() {
+        // 测试按优先级丢弃：可丢弃帧在丢弃阈值处丢弃，普通帧在容量处丢弃
+        IngestGate gate = new IngestGate("test", 10, 0.5, 0.8, 0);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(gate.tryAdmit(IngestPriority.SHEDDABLE));
+        }
+        assertFalse(gate.tryAdmit(IngestPriority.SHEDDABLE));
+        for (int i = 0; i < 5; i++) {
+            assertTrue(gate.tryAdmit(IngestPriority.NORMAL));
+        }
+        assertFalse(gate.tryAdmit(IngestPriority.NORMAL));
+        assertTrue(gate.isOverloaded());
+
+        // 必须处理的帧等待超时后仍然接收
+        assertTrue(gate.tryAdmit(IngestPriority.ESSENTIAL));
+        assertEquals(11, gate.getDepth());
+        assertEquals(1, gate.getShedSheddable());
+        assertEquals(1, gate.getShedNormal());
+        assertEquals(1, gate.getOverCapacity());
+
+        // 回落到低水位后恢复
+        for (int i = 0; i < 7; i++) {
+            gate.release();
+        }
+        assertFalse(gate.isOverloaded());
+        assertEquals(11, gate.getPeakDepth());
+        assertEquals(1, gate.getOverloadEvents());
+    }
+
+    @Test
+    void testEssentialBlocksUntilReleased() throws Exception {
+        // 测试队列满时必须处理的帧阻塞，出现空位后继续
+        IngestGate gate = new IngestGate("test", 2, 0.5, 0.8, 10_000);
+        gate.admitDerived();
+        gate.admitDerived();
+
+        CompletableFuture<Boolean> blocked = CompletableFuture.supplyAsync(
+                () -> gate.tryAdmit(IngestPriority.ESSENTIAL));
+        Thread.sleep(100);
+        assertFalse(blocked.isDone());
+
+        gate.release();
+        assertTrue(blocked.get(5, TimeUnit.SECONDS));
+        assertEquals(2, gate.getDepth());
+        assertEquals(1, gate.getBlocked());
+        assertEquals(0, gate.getOverCapacity());
+    }
+
+    @Test
+    void testClassify() {
+        // 测试不解析JSON的帧分级
+        assertEquals(IngestPriority.SHEDDABLE, IngestPriority.classify("{\"lwp\":\"/!\",\"headers\":{\"mid\":\"1 0\"}}"));
+        assertEquals(IngestPriority.ESSENTIAL, IngestPriority.classify("{\"lwp\":\"/s/para\",\"body\":{}}"));
+        assertEquals(IngestPriority.ESSENTIAL, IngestPriority.classify("{\"code\":401,\"headers\":{\"mid\":\"1 0\"}}"));
+        assertEquals(IngestPriority.NORMAL, IngestPriority.classify("{\"lwp\":\"/s/vulcan\",\"body\":{}}"));
+    }
+}
@@ -0,0 +1,110 @@
+package com.feijimiao.xianyuassistant.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.feijimiao.xianyuassistant.websocket.transport.LwpTransport;
+import com.feijimiao.xianyuassistant.websocket.transport.TransportStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutboundWriterTest {
+
+    @Test
+    void testQueuedMessagesAreCoalescedInOrder() {
+        // 测试排空前入队的消息合并为一批写出，且保持入队顺序
+        RecordingTransport transport = new RecordingTransport();
+
+        // 手动执行器：入队期间只会调度一次排空
+        List<Runnable> pending = new ArrayList<>();
+        OutboundWriter writer = new OutboundWriter("test", transport, new ObjectMapper());
+        writer.setExecutor(pending::add);
+
+        for (int i = 0; i < 5; i++) {
+            writer.enqueue(OutboundWriter.Type.ACK, "{\"seq\":" + i + "}");
+            int seq = i + 5;
+            writer.enqueue(OutboundWriter.Type.HEARTBEAT, generator -> {
+                generator.writeStartObject();
+                generator.writeNumberField("seq", seq);
+                generator.writeEndObject();
+            });
+        }
+        assertEquals(1, pending.size());
+        assertEquals(10, writer.getQueueDepth());
+
+        pending.remove(0).run();
+
+        assertEquals(1, transport.batches.size());
+        assertEquals(1, writer.getFlushes());
+        assertEquals(10, writer.getLastBatchSize());
+        assertEquals(10, writer.getSentMessages());
+        assertEquals(0, writer.getQueueDepth());
+        assertEquals(List.of("{\"seq\":0}", "{\"seq\":5}", "{\"seq\":1}", "{\"seq\":6}", "{\"seq\":2}",
+                "{\"seq\":7}", "{\"seq\":3}", "{\"seq\":8}", "{\"seq\":4}", "{\"seq\":9}"), transport.batches.get(0));
+    }
+
+    @Test
+    void testFailedBatchIsDropped() {
+        // 测试传输层写出失败时整批计为丢弃，并回调带有丢弃回调的消息
+        RecordingTransport transport = new RecordingTransport();
+        transport.open = false;
+        List<Runnable> pending = new ArrayList<>();
+        OutboundWriter writer = new OutboundWriter("test", transport, new ObjectMapper());
+        writer.setExecutor(pending::add);
+
+        List<String> dropped = new ArrayList<>();
+        writer.enqueue(OutboundWriter.Type.ACK, "{\"seq\":1}");
+        writer.enqueue(OutboundWriter.Type.MESSAGE, generator -> generator.writeString("hello"), dropped::add);
+        pending.remove(0).run();
+
+        assertEquals(0, writer.getSentMessages());
+        assertEquals(2, writer.getDroppedMessages());
+        assertEquals(0, writer.getQueueDepth());
+        assertEquals(List.of("消息写出失败: 连接已关闭"), dropped);
+    }
+
+    /**
+     * 记录每批写出内容的传输层
+     */
+    private static final class RecordingTransport implements LwpTransport {
+        private final List<List<String>> batches = new ArrayList<>();
+        private final TransportStats stats = new TransportStats();
+        private boolean open = true;
+
+        @Override
+        public boolean connectBlocking(long timeout, TimeUnit unit) {
+            return true;
+        }
+
+        @Override
+        public void sendBatch(List<String> texts) {
+            if (!open) {
+                throw new IllegalStateException("连接已关闭");
+            }
+            batches.add(new ArrayList<>(texts));
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public boolean isClosed() {
+            return !open;
+        }
+
+        @Override
+        public TransportStats getStats() {
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.feijimiao.xianyuassistant.websocket;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PendingSendTrackerTest {
+
+    @Test
+    void testCompleteByMid() throws Exception {
+        // 测试按mid关联服务器响应
+        PendingSendTracker tracker = new PendingSendTracker("test", 4, 5000);
+        CompletableFuture<SendResult> first = tracker.register("1 0");
+        CompletableFuture<SendResult> second = tracker.register("2 0");
+        assertEquals(2, tracker.getInFlight());
+
+        assertFalse(tracker.complete("3 0", 200, null));
+        assertTrue(tracker.complete("2 0", 200, "m-2"));
+        assertTrue(tracker.complete("1 0", 500, null));
+
+        SendResult ok = second.get(1, TimeUnit.SECONDS);
+        assertTrue(ok.isSuccess());
+        assertEquals("m-2", ok.getMessageId());
+
+        SendResult failed = first.get(1, TimeUnit.SECONDS);
+        assertEquals(SendResult.Status.FAILED, failed.getStatus());
+        assertEquals(500, failed.getCode());
+
+        assertEquals(0, tracker.getInFlight());
+        assertFalse(tracker.hasPending());
+    }
+
+    @Test
+    void testRejectWhenInFlightFull() throws Exception {
+        // 测试在途请求已满时拒绝，完成后释放名额
+        PendingSendTracker tracker = new PendingSendTracker("test", 1, 5000);
+        CompletableFuture<SendResult> first = tracker.register("1 0");
+        SendResult rejected = tracker.register("2 0").get(1, TimeUnit.SECONDS);
+        assertEquals(SendResult.Status.REJECTED, rejected.getStatus());
+        assertEquals(1, tracker.getRejected());
+
+        tracker.complete("1 0", 200, null);
+        assertTrue(first.get(1, TimeUnit.SECONDS).isSuccess());
+        assertFalse(tracker.register("3 0").isDone());
+    }
+
+    @Test
+    void testTimeoutAndFailAll() throws Exception {
+        // 测试超时和连接断开
+        PendingSendTracker tracker = new PendingSendTracker("test", 4, 50);
+        SendResult timeout = tracker.register("1 0").get(2, TimeUnit.SECONDS);
+        assertEquals(SendResult.Status.TIMEOUT, timeout.getStatus());
+        assertEquals(1, tracker.getTimedOut());
+        assertEquals(0, tracker.getInFlight());
+
+        PendingSendTracker closing = new PendingSendTracker("test", 4, 5000);
+        CompletableFuture<SendResult> pending = closing.register("2 0");
+        closing.failAll("连接已关闭");
+        assertEquals(SendResult.Status.NOT_CONNECTED, pending.get(1, TimeUnit.SECONDS).getStatus());
+        assertEquals(0, closing.getInFlight());
+    }
+}
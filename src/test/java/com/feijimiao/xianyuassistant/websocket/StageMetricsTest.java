@@ -0,0 +1,79 @@
+package com.feijimiao.xianyuassistant.websocket;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StageMetricsTest {
+
+    @Test
+    void testWrapCountsQueuedAndCompleted() {
+        // 测试包装后的任务：提交时计入排队，执行后计入完成和窗口吞吐
+        StageMetrics metrics = new StageMetrics(PipelineStage.PARSE);
+        Runnable first = metrics.wrap(() -> { });
+        Runnable second = metrics.wrap(() -> { });
+        assertEquals(2, metrics.getSubmitted());
+        assertEquals(2, metrics.getQueued());
+        assertEquals(2, metrics.getPeakQueued());
+        assertFalse(metrics.isIdle());
+
+        first.run();
+        second.run();
+        assertEquals(2, metrics.getCompleted());
+        assertEquals(0, metrics.getQueued());
+        assertEquals(0, metrics.getRunning());
+        assertTrue(metrics.isIdle());
+        assertTrue(metrics.getMaxWaitMillis() >= 0);
+    }
+
+    @Test
+    void testFailureIsCountedAndRethrown() {
+        // 测试任务异常：计入失败和完成，异常继续抛出，运行计数归零
+        StageMetrics metrics = new StageMetrics(PipelineStage.PERSIST);
+        Runnable task = metrics.wrap(() -> {
+            throw new IllegalStateException("boom");
+        });
+        assertThrows(IllegalStateException.class, task::run);
+        assertEquals(1, metrics.getFailed());
+        assertEquals(1, metrics.getCompleted());
+        assertTrue(metrics.isIdle());
+    }
+
+    @Test
+    void testCallerRunsPolicy() throws Exception {
+        // 测试队列满时由提交线程执行，并计入阶段指标
+        PipelineMetrics pipelineMetrics = new PipelineMetrics();
+        StageMetrics metrics = pipelineMetrics.get(PipelineStage.REACT);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1), pipelineMetrics.callerRunsPolicy(PipelineStage.REACT));
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            executor.execute(metrics.wrap(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            executor.execute(metrics.wrap(() -> { }));
+
+            Thread caller = Thread.currentThread();
+            Thread[] ranOn = new Thread[1];
+            executor.execute(metrics.wrap(() -> ranOn[0] = Thread.currentThread()));
+            assertSame(caller, ranOn[0]);
+            assertEquals(1, metrics.getCallerRuns());
+            assertFalse(pipelineMetrics.isIdle());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        }
+        assertEquals(3, metrics.getCompleted());
+        assertTrue(pipelineMetrics.isIdle());
+    }
+}
@@ -0,0 +1,70 @@
+package com.feijimiao.xianyuassistant.websocket;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedExecutorTest {
+
+    @Test
+    void testSameKeyExecutesInSubmissionOrder() throws Exception {
+        // 测试同一key的任务按提交顺序执行
+        ExecutorService backing = Executors.newFixedThreadPool(4);
+        try {
+            StripedExecutor executor = new StripedExecutor("test", 8, backing);
+            int keys = 20;
+            int tasksPerKey = 500;
+            Map<String, List<Integer>> results = new ConcurrentHashMap<>();
+            CountDownLatch latch = new CountDownLatch(keys * tasksPerKey);
+
+            for (int i = 0; i < tasksPerKey; i++) {
+                for (int k = 0; k < keys; k++) {
+                    String key = "account|" + k;
+                    int seq = i;
+                    executor.execute(key, () -> {
+                        results.computeIfAbsent(key, x -> Collections.synchronizedList(new ArrayList<>())).add(seq);
+                        latch.countDown();
+                    });
+                }
+            }
+
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            for (List<Integer> sequence : results.values()) {
+                assertEquals(tasksPerKey, sequence.size());
+                for (int i = 0; i < sequence.size(); i++) {
+                    assertEquals(i, sequence.get(i));
+                }
+            }
+            assertEquals(0, executor.getTotalQueueDepth());
+        } finally {
+            backing.shutdownNow();
+        }
+    }
+
+    @Test
+    void testTaskExceptionDoesNotBreakStripe() throws Exception {
+        // 测试任务抛出异常后条带仍能继续执行后续任务
+        ExecutorService backing = Executors.newSingleThreadExecutor();
+        try {
+            StripedExecutor executor = new StripedExecutor("test", 1, backing);
+            CountDownLatch latch = new CountDownLatch(1);
+            executor.execute("key", () -> {
+                throw new IllegalStateException("boom");
+            });
+            executor.execute("key", latch::countDown);
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } finally {
+            backing.shutdownNow();
+        }
+    }
+}
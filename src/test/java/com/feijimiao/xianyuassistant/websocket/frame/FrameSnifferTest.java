@@ -0,0 +1,55 @@
+package com.feijimiao.xianyuassistant.websocket.frame;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameSnifferTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testHeartbeatResponseUsesFastPath() throws Exception {
+        // 测试心跳响应走快速路径，ACK复制mid和sid
+        FrameSniffer.AckOnlyFrame frame = FrameSniffer.sniff(
+                "{\"code\":200,\"headers\":{\"mid\":\"1231760000000000 0\",\"sid\":\"s-1\",\"app-key\":\"k\"}}");
+
+        assertNotNull(frame);
+        assertEquals(200, frame.getCode());
+        assertEquals("s-1", frame.getSid());
+
+        JsonNode ack = objectMapper.readTree(frame.buildAck("gen 0"));
+        assertEquals(200, ack.get("code").intValue());
+        assertEquals("1231760000000000 0", ack.path("headers").path("mid").asText());
+        assertEquals("s-1", ack.path("headers").path("sid").asText());
+        assertEquals("k", ack.path("headers").path("app-key").asText());
+        assertFalse(ack.path("headers").has("ua"));
+    }
+
+    @Test
+    void testServerHeartbeatWithoutCode() throws Exception {
+        // 测试服务端 /! 帧：没有code，没有mid时使用生成的mid
+        FrameSniffer.AckOnlyFrame frame = FrameSniffer.sniff("{\"lwp\":\"/!\",\"headers\":{}}");
+
+        assertNotNull(frame);
+        assertNull(frame.getCode());
+        JsonNode ack = objectMapper.readTree(frame.buildAck("gen 0"));
+        assertEquals("gen 0", ack.path("headers").path("mid").asText());
+        assertEquals("", ack.path("headers").path("sid").asText());
+    }
+
+    @Test
+    void testFramesThatNeedFullPipeline() {
+        // 测试需要完整流程的帧
+        assertNull(FrameSniffer.sniff("{\"lwp\":\"/s/para\",\"headers\":{\"mid\":\"1 0\"},\"body\":{}}"));
+        assertNull(FrameSniffer.sniff("{\"code\":200,\"headers\":{\"mid\":\"1 0\"},\"body\":{\"messageId\":\"x\"}}"));
+        assertNull(FrameSniffer.sniff("{\"code\":200,\"headers\":{\"mid\":\"1 0\",\"reg-sid\":\"r\"}}"));
+        assertNull(FrameSniffer.sniff("{\"code\":401,\"headers\":{\"mid\":\"1 0\"}}"));
+        assertNull(FrameSniffer.sniff("{\"code\":2001,\"headers\":{\"mid\":\"1 0\"}}"));
+        assertNull(FrameSniffer.sniff("{\"code\":200,\"headers\":{\"mid\":\"a\\\"b 0\"}}"));
+        assertNull(FrameSniffer.sniff("{\"headers\":{\"mid\":\"1 0\"}}"));
+        assertNull(FrameSniffer.sniff("not json"));
+    }
+}
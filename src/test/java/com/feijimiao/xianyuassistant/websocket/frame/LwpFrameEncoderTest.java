@@ -0,0 +1,76 @@
+package com.feijimiao.xianyuassistant.websocket.frame;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LwpFrameEncoderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private JsonNode write(Writer writer) throws Exception {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            writer.write(generator);
+        }
+        return objectMapper.readTree(out.toString());
+    }
+
+    private interface Writer {
+        void write(JsonGenerator generator) throws Exception;
+    }
+
+    @Test
+    void testWriteTextMessage() throws Exception {
+        // 测试文本消息：内容Base64可还原，接收者带@goofish后缀
+        String text = "你好 \"quote\" \\ \n换行";
+        JsonNode frame = write(g -> LwpFrameEncoder.writeTextMessage(g, "1 0", "sid-1", "-100",
+                "cid1", "to1", "me1", text));
+
+        assertEquals("/r/MessageSend/sendByReceiverScope", frame.get("lwp").asText());
+        assertEquals("sid-1", frame.path("headers").path("sid").asText());
+        JsonNode body = frame.path("body");
+        assertEquals("cid1@goofish", body.path(0).path("cid").asText());
+        assertEquals("to1@goofish", body.path(1).path("actualReceivers").path(0).asText());
+        assertEquals("me1@goofish", body.path(1).path("actualReceivers").path(1).asText());
+
+        String data = body.path(0).path("content").path("custom").path("data").asText();
+        JsonNode content = objectMapper.readTree(new String(Base64.getDecoder().decode(data), StandardCharsets.UTF_8));
+        assertEquals(1, content.path("contentType").intValue());
+        assertEquals(text, content.path("text").path("text").asText());
+    }
+
+    @Test
+    void testWriteAckCopiesHeaders() throws Exception {
+        // 测试ACK复制mid/sid/可选字段，缺少sid时写空字符串
+        JsonNode ack = write(g -> LwpFrameEncoder.writeAck(g, Map.of("mid", "9 0", "dt", "j", "other", "x"), "gen 0"));
+
+        assertEquals(200, ack.path("code").intValue());
+        assertEquals("9 0", ack.path("headers").path("mid").asText());
+        assertEquals("", ack.path("headers").path("sid").asText());
+        assertEquals("j", ack.path("headers").path("dt").asText());
+        assertFalse(ack.path("headers").has("other"));
+    }
+
+    @Test
+    void testWriteRegistrationAndSyncStatus() throws Exception {
+        // 测试注册和同步状态消息的固定字段
+        JsonNode reg = write(g -> LwpFrameEncoder.writeRegistration(g, "tk", "did-1", "1 0"));
+        assertEquals("/reg", reg.get("lwp").asText());
+        assertEquals(LwpFrameEncoder.APP_KEY, reg.path("headers").path("app-key").asText());
+        assertEquals("tk", reg.path("headers").path("token").asText());
+
+        JsonNode sync = write(g -> LwpFrameEncoder.writeSyncStatus(g, "2 0", 0L, 0L, 1760000000000L));
+        assertEquals("/r/SyncStatus/ackDiff", sync.get("lwp").asText());
+        assertEquals("PNM,1", sync.path("body").path(0).path("tooLong2Tag").asText());
+        assertEquals(1760000000000L, sync.path("body").path(0).path("timestamp").longValue());
+    }
+}
@@ -0,0 +1,57 @@
+package com.feijimiao.xianyuassistant.websocket.frame;
+
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LwpFrameTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testParseHeaderFieldsAndLazyBody() throws Exception {
+        // 测试lwp、code、headers立即读取，body按需绑定
+        String text = "{\"lwp\":\"/s/para\",\"headers\":{\"mid\":\"123 0\",\"sid\":\"s1\"},"
+                + "\"body\":{\"syncPushPackage\":{\"data\":[{\"data\":\"abc\"}]}},\"code\":\"200\"}";
+        LwpFrame frame = LwpFrame.parse(objectMapper, text);
+
+        assertEquals("/s/para", frame.getLwp());
+        assertEquals(200, frame.getCode());
+        assertEquals("123 0", frame.getHeader("mid"));
+        assertTrue(frame.hasBody());
+        assertEquals(JsonToken.START_OBJECT, frame.getBodyToken());
+        assertEquals("abc", frame.getBodyTree().path("syncPushPackage").path("data").get(0).path("data").asText());
+        assertInstanceOf(Map.class, frame.getBody());
+    }
+
+    @Test
+    void testParseResponseWithoutBody() throws Exception {
+        // 测试没有lwp和body的响应消息
+        LwpFrame frame = LwpFrame.parse(objectMapper, "{\"code\":401,\"headers\":{\"mid\":\"1 0\"}}");
+
+        assertNull(frame.getLwp());
+        assertEquals(401, frame.getCode());
+        assertFalse(frame.hasBody());
+        assertNull(frame.getBody());
+        assertNull(frame.getBodyToken());
+    }
+
+    @Test
+    void testParseStringBody() throws Exception {
+        // 测试字符串body
+        LwpFrame frame = LwpFrame.parse(objectMapper, "{\"lwp\":\"/x\",\"body\":\"aGVsbG8=\",\"extra\":[1,{\"a\":2}]}");
+
+        assertEquals(JsonToken.VALUE_STRING, frame.getBodyToken());
+        assertEquals("aGVsbG8=", frame.getBodyAs(String.class));
+    }
+
+    @Test
+    void testParseNonObjectFails() {
+        // 测试非JSON对象
+        assertThrows(Exception.class, () -> LwpFrame.parse(objectMapper, "[1,2]"));
+    }
+}
@@ -0,0 +1,88 @@
+package com.feijimiao.xianyuassistant.websocket.record;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameRecorderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testRecordAndReadBackAcrossSegments() throws Exception {
+        // 测试跨分段录制后按顺序读回
+        FrameRecorder recorder = new FrameRecorder(dir, 1024, 100);
+        for (int i = 0; i < 50; i++) {
+            recorder.record(i % 2 == 0 ? "1" : "22", "{\"lwp\":\"/s/para\",\"headers\":{\"mid\":\"" + i + " 0\"},\"text\":\"闲鱼\"}");
+        }
+        recorder.close();
+
+        assertTrue(recorder.getSegments().size() > 1);
+        List<FrameRecordReader.Frame> frames = FrameRecordReader.read(dir);
+        assertEquals(50, frames.size());
+        for (int i = 0; i < 50; i++) {
+            FrameRecordReader.Frame frame = frames.get(i);
+            assertEquals(i % 2 == 0 ? "1" : "22", frame.accountId());
+            assertEquals("{\"lwp\":\"/s/para\",\"headers\":{\"mid\":\"" + i + " 0\"},\"text\":\"闲鱼\"}", frame.frame());
+            if (i > 0) {
+                assertTrue(frame.epochMicros() >= frames.get(i - 1).epochMicros());
+            }
+        }
+    }
+
+    @Test
+    void testConcurrentRecordersAcrossSegments() throws Exception {
+        // 测试多个连接并行录制并频繁切换分段时，每帧都完整录制且同一连接的帧保持顺序
+        FrameRecorder recorder = new FrameRecorder(dir, 4096, 1000);
+        int threads = 8;
+        int perThread = 500;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String accountId = String.valueOf(t);
+            workers.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    recorder.record(accountId, "{\"seq\":" + i + "}");
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        recorder.close();
+
+        assertEquals(threads * perThread, recorder.getRecordedFrames());
+        assertEquals(0, recorder.getDroppedFrames());
+        List<FrameRecordReader.Frame> frames = FrameRecordReader.read(dir);
+        assertEquals(threads * perThread, frames.size());
+        Map<String, Integer> next = new HashMap<>();
+        for (FrameRecordReader.Frame frame : frames) {
+            int seq = next.merge(frame.accountId(), 1, Integer::sum) - 1;
+            assertEquals("{\"seq\":" + seq + "}", frame.frame());
+        }
+    }
+
+    @Test
+    void testOldSegmentsAreDeleted() throws Exception {
+        // 测试超过保留数量后删除最旧的分段，超长的帧不录制
+        FrameRecorder recorder = new FrameRecorder(dir, 256, 2);
+        for (int i = 0; i < 40; i++) {
+            recorder.record("1", "{\"seq\":" + i + ",\"pad\":\"" + "x".repeat(60) + "\"}");
+        }
+        recorder.record("1", "x".repeat(1024));
+        recorder.close();
+
+        assertEquals(2, recorder.getSegments().size());
+        assertEquals(1, recorder.getDroppedFrames());
+        List<FrameRecordReader.Frame> frames = FrameRecordReader.read(dir);
+        assertFalse(frames.isEmpty());
+        assertTrue(frames.get(frames.size() - 1).frame().startsWith("{\"seq\":39,"));
+    }
+}
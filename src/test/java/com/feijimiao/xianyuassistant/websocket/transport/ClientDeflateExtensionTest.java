@@ -0,0 +1,112 @@
+package com.feijimiao.xianyuassistant.websocket.transport;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.extensions.permessage_deflate.PerMessageDeflateExtension;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.WebSocketServer;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientDeflateExtensionTest {
+
+    @Test
+    void testOfferFollowsContextTakeoverConfig() {
+        // 测试握手请求参数按配置生成
+        assertEquals("permessage-deflate", new ClientDeflateExtension(true, true).getProvidedExtensionAsClient());
+        assertEquals("permessage-deflate; server_no_context_takeover; client_no_context_takeover",
+                new ClientDeflateExtension(false, false).getProvidedExtensionAsClient());
+        assertFalse(new ClientDeflateExtension(true, true).acceptProvidedExtensionAsClient("x-webkit-deflate-frame"));
+    }
+
+    @Test
+    void testCompressedTrafficIsCounted() throws Exception {
+        // 测试与支持压缩的服务端协商后收发的消息完整，且线路字节数小于载荷字节数
+        String payload = "{\"lwp\":\"/s/para\",\"body\":{\"syncPushPackage\":{\"data\":[" + "{\"data\":\"ggGLAYEBtTIyMDE2NjQwMjgwQGdvb2Zpc2gCszQ3ODI2MDA2Mzk1QGdvb2Zpc2g\"},".repeat(40) + "{}]}}}";
+        List<String> serverReceived = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch serverGot = new CountDownLatch(3);
+        WebSocketServer server = new WebSocketServer(new InetSocketAddress("127.0.0.1", 0),
+                List.of(new Draft_6455(new PerMessageDeflateExtension()))) {
+            @Override
+            public void onOpen(WebSocket conn, ClientHandshake handshake) {
+                for (int i = 0; i < 3; i++) {
+                    conn.send(payload);
+                }
+            }
+
+            @Override
+            public void onClose(WebSocket conn, int code, String reason, boolean remote) {
+            }
+
+            @Override
+            public void onMessage(WebSocket conn, String message) {
+                serverReceived.add(message);
+                serverGot.countDown();
+            }
+
+            @Override
+            public void onError(WebSocket conn, Exception ex) {
+            }
+
+            @Override
+            public void onStart() {
+                started.countDown();
+            }
+        };
+        server.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch clientGot = new CountDownLatch(3);
+        LwpTransport transport = new JavaWebSocketTransport(new URI("ws://127.0.0.1:" + server.getPort()), Map.of(),
+                new LwpTransport.Listener() {
+                    @Override
+                    public void onOpen(int httpStatus, String httpStatusMessage) {
+                    }
+
+                    @Override
+                    public void onMessage(String text) {
+                        received.add(text);
+                        clientGot.countDown();
+                    }
+
+                    @Override
+                    public void onClose(int code, String reason, boolean remote) {
+                    }
+
+                    @Override
+                    public void onError(Exception ex) {
+                    }
+                }, new ClientDeflateExtension(true, true));
+        try {
+            assertTrue(transport.connectBlocking(5, TimeUnit.SECONDS));
+            assertTrue(clientGot.await(5, TimeUnit.SECONDS));
+            assertEquals(List.of(payload, payload, payload), received);
+
+            transport.sendBatch(List.of(payload, payload, payload));
+            assertTrue(serverGot.await(5, TimeUnit.SECONDS));
+            assertEquals(List.of(payload, payload, payload), serverReceived);
+
+            TransportStats stats = transport.getStats();
+            assertTrue(stats.isCompressed());
+            assertEquals(payload.length() * 3L, stats.getPayloadBytesIn());
+            assertTrue(stats.getWireBytesIn() < stats.getPayloadBytesIn() / 2);
+            assertEquals(payload.length() * 3L, stats.getPayloadBytesOut());
+            assertTrue(stats.getWireBytesOut() < stats.getPayloadBytesOut() / 2);
+        } finally {
+            transport.close();
+            server.stop(1000);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.feijimiao.xianyuassistant.websocket.transport;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.WebSocketServer;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdkWebSocketTransportTest {
+
+    @Test
+    void testSendBatchAndReceiveInOrder() throws Exception {
+        // 测试JDK传输层：握手、按顺序批量写出、接收回显、关闭只回调一次
+        CountDownLatch started = new CountDownLatch(1);
+        WebSocketServer server = new WebSocketServer(new InetSocketAddress("127.0.0.1", 0)) {
+            @Override
+            public void onOpen(WebSocket conn, ClientHandshake handshake) {
+                conn.send("cookie=" + handshake.getFieldValue("Cookie"));
+            }
+
+            @Override
+            public void onClose(WebSocket conn, int code, String reason, boolean remote) {
+            }
+
+            @Override
+            public void onMessage(WebSocket conn, String message) {
+                conn.send(message);
+            }
+
+            @Override
+            public void onError(WebSocket conn, Exception ex) {
+            }
+
+            @Override
+            public void onStart() {
+                started.countDown();
+            }
+        };
+        server.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch allReceived = new CountDownLatch(4);
+        CountDownLatch opened = new CountDownLatch(1);
+        AtomicInteger closes = new AtomicInteger();
+        LwpTransport.Listener listener = new LwpTransport.Listener() {
+            @Override
+            public void onOpen(int httpStatus, String httpStatusMessage) {
+                opened.countDown();
+            }
+
+            @Override
+            public void onMessage(String text) {
+                received.add(text);
+                allReceived.countDown();
+            }
+
+            @Override
+            public void onClose(int code, String reason, boolean remote) {
+                closes.incrementAndGet();
+            }
+
+            @Override
+            public void onError(Exception ex) {
+            }
+        };
+
+        LwpTransportFactory factory = new LwpTransportFactory(LwpTransportFactory.JDK, 1);
+        LwpTransport transport = factory.create(new URI("ws://127.0.0.1:" + server.getPort()),
+                Map.of("Cookie", "unb=1", "Host", "ignored", "Connection", "Upgrade"), listener);
+        try {
+            assertTrue(transport.connectBlocking(5, TimeUnit.SECONDS));
+            assertTrue(opened.await(5, TimeUnit.SECONDS));
+            assertTrue(transport.isOpen());
+
+            transport.sendBatch(List.of("{\"seq\":1}", "{\"seq\":2}", "{\"seq\":3}"));
+            assertTrue(allReceived.await(5, TimeUnit.SECONDS));
+            assertEquals(List.of("cookie=unb=1", "{\"seq\":1}", "{\"seq\":2}", "{\"seq\":3}"), received);
+
+            transport.close();
+            transport.close();
+            assertTrue(transport.isClosed());
+            assertFalse(transport.isOpen());
+            assertEquals(1, closes.get());
+        } finally {
+            factory.shutdown();
+            server.stop(1000);
+        }
+    }
+}